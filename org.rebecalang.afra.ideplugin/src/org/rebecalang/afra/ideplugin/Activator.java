@@ -17,7 +17,10 @@ import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.rebecalang.afra.ideplugin.editors.rebeca.SavedModelCache;
 import org.rebecalang.afra.ideplugin.handler.AbstractAnalysisHandler;
+import org.rebecalang.afra.ideplugin.index.SymbolIndex;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.XMLBindingService;
 
 /**
  * The activator class controls the plug-in life cycle
@@ -52,6 +55,7 @@ public class Activator extends AbstractUIPlugin {
 		String message = testResult.remove(0);
 		if (message.equals("Ready")) {
 			super.start(context);
+			XMLBindingService.getInstance().prepare();
 		} else {
 			if (testResult.isEmpty()) {
 				testResult.add(message);
@@ -81,6 +85,8 @@ public class Activator extends AbstractUIPlugin {
 	 * org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		SymbolIndex.shutdown();
+		SavedModelCache.shutdown();
 		plugin = null;
 		super.stop(context);
 	}
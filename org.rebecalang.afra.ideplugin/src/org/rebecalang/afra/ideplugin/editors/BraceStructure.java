@@ -0,0 +1,327 @@
+package org.rebecalang.afra.ideplugin.editors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.Position;
+
+/**
+ * The braces of a document outside comments and strings, kept up to date
+ * with the changes of the document. Comments and strings are the ones of
+ * {@link SourceLexer}, which lexes the document a few lines at a time. A
+ * change is lexed again from the last
+ * position before it where the lexer was outside comments and strings, up to
+ * the first position after it where the lexer state agrees with the state
+ * before the change; the braces, comments and strings after that position
+ * are only shifted.
+ */
+public class BraceStructure implements IDocumentListener {
+
+	private static final int CHUNK_SIZE = 1 << 12;
+
+	private final IDocument document;
+	private final int closingBraceExtent;
+
+	/* Offsets shifted left by one, with the lowest bit set for closing braces */
+	private final IntList braces = new IntList();
+	/* Start and end offsets of comments and strings, the end exclusive */
+	private final IntList spans = new IntList();
+	private int length;
+	private long modificationStamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+
+	/**
+	 * The folding region of a pair of braces ends the given number of
+	 * characters after the opening brace of the closing brace.
+	 */
+	public BraceStructure(IDocument document, int closingBraceExtent) {
+		this.document = document;
+		this.closingBraceExtent = closingBraceExtent;
+		synchronized (this) {
+			document.addDocumentListener(this);
+			String text;
+			do {
+				modificationStamp = getModificationStamp();
+				text = document.get();
+			} while (modificationStamp != getModificationStamp());
+			length = text.length();
+			new Lexer(new StringSource(text), 0, braces, spans).run(length, -1, null);
+		}
+	}
+
+	public void dispose() {
+		document.removeDocumentListener(this);
+	}
+
+	/**
+	 * Returns the folding regions of the matching pairs of braces, ordered
+	 * by their closing braces.
+	 */
+	public synchronized List<Position> getFoldingPositions() {
+		List<Position> positions = new ArrayList<Position>();
+		int[] openings = new int[16];
+		int depth = 0;
+		for (int cnt = 0; cnt < braces.size; cnt++) {
+			int brace = braces.values[cnt];
+			if ((brace & 1) == 0) {
+				if (depth == openings.length)
+					openings = Arrays.copyOf(openings, depth * 2);
+				openings[depth++] = brace >>> 1;
+			} else if (depth > 0) {
+				int opening = openings[--depth];
+				int end = Math.min((brace >>> 1) + closingBraceExtent, length);
+				positions.add(new Position(opening, end - opening));
+			}
+		}
+		return positions;
+	}
+
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+	}
+
+	@Override
+	public synchronized void documentChanged(DocumentEvent event) {
+		if (modificationStamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP &&
+				event.getModificationStamp() != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP &&
+				event.getModificationStamp() <= modificationStamp)
+			return;
+		modificationStamp = event.getModificationStamp();
+		int offset = event.getOffset();
+		int removedEnd = offset + event.getLength();
+		int insertedEnd = offset + (event.getText() == null ? 0 : event.getText().length());
+		int delta = insertedEnd - removedEnd;
+		length += delta;
+
+		int restart = Math.max(0, offset - 1);
+		int spanIndex = firstSpanFrom(restart + 1) - 2;
+		if (spanIndex >= 0 && spans.values[spanIndex + 1] > restart)
+			restart = spans.values[spanIndex];
+
+		int bracesFrom = braces.lowerBound(restart << 1);
+		int spansFrom = firstSpanFrom(restart);
+		IntList lexedBraces = new IntList();
+		IntList lexedSpans = new IntList();
+		Lexer lexer = new Lexer(new DocumentSource(document), restart, lexedBraces, lexedSpans);
+		int resynchronized = lexer.run(length, insertedEnd, new OldState(delta, removedEnd));
+		int bracesTo = braces.size;
+		int spansTo = spans.size;
+		if (resynchronized >= 0) {
+			bracesTo = braces.lowerBound((resynchronized - delta) << 1);
+			spansTo = firstSpanFrom(resynchronized - delta);
+		}
+		braces.replace(bracesFrom, bracesTo, lexedBraces, delta << 1);
+		spans.replace(spansFrom, spansTo, lexedSpans, delta);
+	}
+
+	/*
+	 * Returns the index in spans of the first comment or string starting at
+	 * or after the given position.
+	 */
+	private int firstSpanFrom(int position) {
+		int low = 0;
+		int high = spans.size / 2;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (spans.values[middle * 2] < position)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low * 2;
+	}
+
+	private long getModificationStamp() {
+		return document instanceof IDocumentExtension4 ?
+				((IDocumentExtension4) document).getModificationStamp() :
+				IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	/*
+	 * Tells whether the lexer state before the change agrees with a normal
+	 * state at a position after it.
+	 */
+	private class OldState {
+		final int delta;
+		final int removedEnd;
+		int spanIndex;
+
+		OldState(int delta, int removedEnd) {
+			this.delta = delta;
+			this.removedEnd = removedEnd;
+			this.spanIndex = Math.max(0, firstSpanFrom(removedEnd + 1) - 2);
+		}
+
+		boolean isNormal(int position) {
+			int oldPosition = position - delta;
+			if (oldPosition < removedEnd)
+				return false;
+			while (spanIndex < spans.size && spans.values[spanIndex + 1] <= oldPosition)
+				spanIndex += 2;
+			return spanIndex >= spans.size || spans.values[spanIndex] >= oldPosition;
+		}
+	}
+
+	private static class Lexer {
+		final TextSource source;
+		final IntList braces;
+		final IntList spans;
+		final SourceLexer lexer = new SourceLexer(new String[0]);
+		int position;
+
+		Lexer(TextSource source, int position, IntList braces, IntList spans) {
+			this.source = source;
+			this.position = position;
+			this.braces = braces;
+			this.spans = spans;
+		}
+
+		/*
+		 * Lexes up to the end, or up to the first normal position from the
+		 * given one on where the old state is normal too, and returns that
+		 * position, or -1 when the end was reached.
+		 */
+		int run(int end, int resynchronizeFrom, OldState oldState) {
+			int state = SourceLexer.STATE_CODE;
+			while (position < end) {
+				source.load(position, end);
+				int chunkEnd = source.offset + source.text.length();
+				if (chunkEnd <= position)
+					break;
+				// A multi-line comment left open by the last chunk goes on in this one
+				boolean continued = state == SourceLexer.STATE_MULTI_LINE_COMMENT;
+				lexer.reset(source.text, position - source.offset, source.text.length(), state);
+				for (int kind = lexer.nextToken(); kind != SourceLexer.EOF; kind = lexer.nextToken()) {
+					int tokenStart = source.offset + lexer.getTokenStart();
+					int tokenEnd = source.offset + lexer.getTokenEnd();
+					if (continued) {
+						spans.values[spans.size - 1] = tokenEnd;
+						continued = false;
+						continue;
+					}
+					if (kind != SourceLexer.DEFAULT && kind != SourceLexer.KEYWORD) {
+						if (isResynchronized(tokenStart, resynchronizeFrom, oldState))
+							return tokenStart;
+						spans.add(tokenStart);
+						spans.add(tokenEnd);
+						continue;
+					}
+					for (int cnt = tokenStart; cnt < tokenEnd; cnt++) {
+						if (isResynchronized(cnt, resynchronizeFrom, oldState))
+							return cnt;
+						char character = source.text.charAt(cnt - source.offset);
+						if (character == '{')
+							braces.add(cnt << 1);
+						else if (character == '}')
+							braces.add(cnt << 1 | 1);
+					}
+				}
+				state = lexer.getState();
+				position = chunkEnd;
+			}
+			return -1;
+		}
+
+		private static boolean isResynchronized(int position, int resynchronizeFrom, OldState oldState) {
+			return oldState != null && position >= resynchronizeFrom && oldState.isNormal(position);
+		}
+	}
+
+	/*
+	 * Text
+	 */
+
+	/*
+	 * The text of a document in chunks which end at the start of a line, as
+	 * only multi-line comments go on from one line to the next.
+	 */
+	private static abstract class TextSource {
+		String text = "";
+		int offset;
+
+		/* Loads the chunk starting at the given position, up to the end */
+		abstract void load(int position, int end);
+	}
+
+	private static class StringSource extends TextSource {
+		StringSource(String text) {
+			this.text = text;
+		}
+
+		@Override
+		void load(int position, int end) {
+		}
+	}
+
+	private static class DocumentSource extends TextSource {
+		final IDocument document;
+
+		DocumentSource(IDocument document) {
+			this.document = document;
+		}
+
+		@Override
+		void load(int position, int end) {
+			offset = position;
+			try {
+				int chunkEnd = Math.min(end, position + CHUNK_SIZE);
+				if (chunkEnd < end) {
+					int line = document.getLineOfOffset(chunkEnd);
+					if (document.getLineOffset(line) != chunkEnd)
+						chunkEnd = line + 1 < document.getNumberOfLines() ?
+								Math.min(end, document.getLineOffset(line + 1)) : end;
+				}
+				text = document.get(position, chunkEnd - position);
+			} catch (BadLocationException e) {
+				e.printStackTrace();
+				text = "";
+			}
+		}
+	}
+
+	private static class IntList {
+		int[] values = new int[64];
+		int size;
+
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		/*
+		 * Replaces the values from the first index up to the second by the
+		 * given ones and adds the delta to the values after them.
+		 */
+		void replace(int from, int to, IntList replacement, int delta) {
+			int newSize = size - (to - from) + replacement.size;
+			if (newSize > values.length)
+				values = Arrays.copyOf(values, Math.max(newSize, values.length * 2));
+			System.arraycopy(values, to, values, from + replacement.size, size - to);
+			System.arraycopy(replacement.values, 0, values, from, replacement.size);
+			size = newSize;
+			if (delta != 0)
+				for (int cnt = from + replacement.size; cnt < size; cnt++)
+					values[cnt] += delta;
+		}
+
+		/* Returns the index of the first value not less than the given one */
+		int lowerBound(int value) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (values[middle] < value)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			return low;
+		}
+	}
+}
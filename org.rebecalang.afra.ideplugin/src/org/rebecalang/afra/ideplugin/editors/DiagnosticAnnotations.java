@@ -0,0 +1,113 @@
+package org.rebecalang.afra.ideplugin.editors;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelExtension;
+import org.rebecalang.compiler.utils.CodeCompilationException;
+
+/**
+ * The problems found by compiling a document in the background, shown as
+ * annotations of the editor rather than as markers of the file. Each
+ * publication replaces the annotations of the previous one.
+ */
+public class DiagnosticAnnotations {
+
+	public static final String ERROR_TYPE = "org.eclipse.ui.workbench.texteditor.error";
+	public static final String WARNING_TYPE = "org.eclipse.ui.workbench.texteditor.warning";
+
+	private final IDocument document;
+	private final IAnnotationModel annotationModel;
+	private List<Annotation> annotations = new ArrayList<Annotation>();
+
+	public DiagnosticAnnotations(IDocument document, IAnnotationModel annotationModel) {
+		this.document = document;
+		this.annotationModel = annotationModel;
+	}
+
+	/**
+	 * Replaces the annotations by the given problems, which were found in
+	 * the contents of the document with the given modification stamp. The
+	 * problems are dropped when the document has changed since, as a newer
+	 * compilation will follow.
+	 */
+	public synchronized void publish(long stamp, Collection<Exception> errors, Collection<Exception> warnings) {
+		publish(stamp, errors, warnings, Collections.<Position, String>emptyMap());
+	}
+
+	/**
+	 * Like {@link #publish(long, Collection, Collection)}, with errors found
+	 * at exact ranges of the document as well, given with their messages.
+	 */
+	public synchronized void publish(long stamp, Collection<Exception> errors, Collection<Exception> warnings,
+			Map<Position, String> rangeErrors) {
+		if (annotationModel == null)
+			return;
+		Map<Annotation, Position> additions = new HashMap<Annotation, Position>();
+		if (stamp != getModificationStamp())
+			return;
+		addAnnotations(additions, errors, ERROR_TYPE);
+		addAnnotations(additions, warnings, WARNING_TYPE);
+		for (Map.Entry<Position, String> error : rangeErrors.entrySet())
+			additions.put(new Annotation(ERROR_TYPE, false, error.getValue()), error.getKey());
+		replace(additions);
+	}
+
+	public synchronized void clear() {
+		if (annotationModel == null)
+			return;
+		replace(new HashMap<Annotation, Position>());
+	}
+
+	private void addAnnotations(Map<Annotation, Position> additions, Collection<Exception> problems, String type) {
+		if (problems == null)
+			return;
+		for (Exception problem : problems) {
+			if (!(problem instanceof CodeCompilationException)) {
+				problem.printStackTrace();
+				continue;
+			}
+			CodeCompilationException cce = (CodeCompilationException) problem;
+			try {
+				int line = Math.max(0, Math.min(cce.getLine() - 1, document.getNumberOfLines() - 1));
+				IRegion region = document.getLineInformation(line);
+				additions.put(new Annotation(type, false, cce.getMessage()),
+						new Position(region.getOffset(), region.getLength()));
+			} catch (BadLocationException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void replace(Map<Annotation, Position> additions) {
+		Annotation[] deletions = annotations.toArray(new Annotation[annotations.size()]);
+		if (deletions.length == 0 && additions.isEmpty())
+			return;
+		if (annotationModel instanceof IAnnotationModelExtension) {
+			((IAnnotationModelExtension) annotationModel).replaceAnnotations(deletions, additions);
+		} else {
+			for (Annotation annotation : deletions)
+				annotationModel.removeAnnotation(annotation);
+			for (Map.Entry<Annotation, Position> addition : additions.entrySet())
+				annotationModel.addAnnotation(addition.getKey(), addition.getValue());
+		}
+		annotations = new ArrayList<Annotation>(additions.keySet());
+	}
+
+	private long getModificationStamp() {
+		return document instanceof IDocumentExtension4 ?
+				((IDocumentExtension4) document).getModificationStamp() :
+				IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+}
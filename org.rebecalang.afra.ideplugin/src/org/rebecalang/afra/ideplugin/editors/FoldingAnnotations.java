@@ -0,0 +1,46 @@
+package org.rebecalang.afra.ideplugin.editors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotation;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
+
+/**
+ * The folding annotations of an editor. Annotations whose positions are
+ * still folding regions are kept, along with their collapsed state; only the
+ * ones which disappeared are removed and the new ones added.
+ */
+public class FoldingAnnotations {
+
+	private List<Annotation> annotations = new ArrayList<Annotation>();
+
+	public void update(ProjectionAnnotationModel annotationModel, List<Position> positions) {
+		if (annotationModel == null)
+			return;
+		Set<Position> added = new HashSet<Position>(positions);
+		List<Annotation> kept = new ArrayList<Annotation>();
+		List<Annotation> deletions = new ArrayList<Annotation>();
+		for (Annotation annotation : annotations) {
+			Position position = annotationModel.getPosition(annotation);
+			if (position != null && !position.isDeleted() && added.remove(position))
+				kept.add(annotation);
+			else
+				deletions.add(annotation);
+		}
+		HashMap<Annotation, Position> additions = new HashMap<Annotation, Position>();
+		for (Position position : added) {
+			ProjectionAnnotation annotation = new ProjectionAnnotation();
+			additions.put(annotation, position);
+			kept.add(annotation);
+		}
+		if (!deletions.isEmpty() || !additions.isEmpty())
+			annotationModel.modifyAnnotations(deletions.toArray(new Annotation[deletions.size()]), additions, null);
+		annotations = kept;
+	}
+}
@@ -12,5 +12,5 @@ public abstract class GeneralDocument extends AbstractDocument {
 		super(project, file);
 	}
 
-	public abstract GeneralRuleBasedPartitionScanner createPartitionScanner();
+	public abstract GeneralPartitionScanner createPartitionScanner();
 }
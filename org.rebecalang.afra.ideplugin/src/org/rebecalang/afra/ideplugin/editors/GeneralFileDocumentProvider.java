@@ -58,7 +58,7 @@ public abstract class GeneralFileDocumentProvider extends FileDocumentProvider {
 		}
 		if (document != null)
 		{
-			GeneralRuleBasedPartitionScanner scanner = document.createPartitionScanner();
+			GeneralPartitionScanner scanner = document.createPartitionScanner();
 			IDocumentPartitioner partitioner = new FastPartitioner(scanner,
 					scanner.getContentTypes());
 			partitioner.connect(document);
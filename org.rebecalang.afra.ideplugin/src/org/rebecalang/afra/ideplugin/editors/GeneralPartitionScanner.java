@@ -0,0 +1,78 @@
+package org.rebecalang.afra.ideplugin.editors;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.rules.IPartitionTokenScanner;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.Token;
+
+/**
+ * Partitions documents into their comments and strings with a
+ * {@link SourceLexer}.
+ */
+public abstract class GeneralPartitionScanner implements IPartitionTokenScanner {
+
+	private final SourceLexer lexer = new SourceLexer(new String[0]);
+	private final IToken singleLineComment;
+	private final IToken multiLineComment;
+	private final IToken string;
+	private int offset;
+
+	public GeneralPartitionScanner() {
+		String[] contentTypes = getContentTypes();
+		singleLineComment = new Token(contentTypes[0]);
+		multiLineComment = new Token(contentTypes[1]);
+		string = new Token(contentTypes[2]);
+	}
+
+	/**
+	 * Returns the content types of single line comments, multi-line comments
+	 * and strings, in this order.
+	 */
+	public abstract String[] getContentTypes();
+
+	public abstract GeneralTextAttribute[] getContentTypeAttributes();
+
+	public void setRange(IDocument document, int offset, int length) {
+		String text;
+		try {
+			text = document.get(offset, length);
+		} catch (BadLocationException e) {
+			text = "";
+		}
+		this.offset = offset;
+		lexer.reset(text, 0, text.length(), SourceLexer.STATE_CODE);
+	}
+
+	public void setPartialRange(IDocument document, int offset, int length, String contentType, int partitionOffset) {
+		// Start over from the comment or string the range starts in
+		if (contentType != null && partitionOffset >= 0 && partitionOffset < offset) {
+			length += offset - partitionOffset;
+			offset = partitionOffset;
+		}
+		setRange(document, offset, length);
+	}
+
+	public IToken nextToken() {
+		switch (lexer.nextToken()) {
+		case SourceLexer.EOF:
+			return Token.EOF;
+		case SourceLexer.SINGLE_LINE_COMMENT:
+			return singleLineComment;
+		case SourceLexer.MULTI_LINE_COMMENT:
+			return multiLineComment;
+		case SourceLexer.STRING:
+			return string;
+		default:
+			return Token.UNDEFINED;
+		}
+	}
+
+	public int getTokenOffset() {
+		return offset + lexer.getTokenStart();
+	}
+
+	public int getTokenLength() {
+		return lexer.getTokenEnd() - lexer.getTokenStart();
+	}
+}
@@ -3,8 +3,6 @@ package org.rebecalang.afra.ideplugin.editors;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.presentation.IPresentationReconciler;
 import org.eclipse.jface.text.presentation.PresentationReconciler;
-import org.eclipse.jface.text.rules.DefaultDamagerRepairer;
-import org.eclipse.jface.text.rules.RuleBasedScanner;
 import org.eclipse.jface.text.source.DefaultAnnotationHover;
 import org.eclipse.jface.text.source.IAnnotationHover;
 import org.eclipse.jface.text.source.ISourceViewer;
@@ -13,7 +11,6 @@ import org.eclipse.jface.text.source.SourceViewerConfiguration;
 
 public abstract class GeneralSourceViewerConfiguration extends SourceViewerConfiguration {
 	protected ColorManager colorManager;
-	protected RuleBasedScanner scanner;
 
 	public GeneralSourceViewerConfiguration(ColorManager colorManager) {
 		this.colorManager = colorManager;
@@ -34,40 +31,53 @@ public abstract class GeneralSourceViewerConfiguration extends SourceViewerConfi
 		return ret;
 	}
 	
-	protected abstract RuleBasedScanner getScanner();
+	public abstract SourceLexer createLexer();
 
-	public abstract RuleBasedScanner createScanner();
+	protected abstract GeneralTextAttribute getDefaultAttribute();
+
+	protected abstract GeneralTextAttribute getKeywordAttribute();
+
+	/**
+	 * Tells whether the document is large enough that only the lines around
+	 * the viewport are highlighted.
+	 */
+	protected boolean isLargeFile() {
+		return false;
+	}
 
 	public IPresentationReconciler getPresentationReconciler(
 			ISourceViewer sourceViewer)
 	{
 		PresentationReconciler reconciler = new PresentationReconciler();
 
-		DefaultDamagerRepairer dr;
-		dr = new DefaultDamagerRepairer(getScanner());
+		// The lexer colors comments and strings too, so one instance keeps
+		// the line states of the whole document
+		GeneralTextAttribute[] attrs = getContentTypeAttributes();
+		LexerDamagerRepairer dr = new LexerDamagerRepairer(createLexer(),
+				getDefaultAttribute().getTextAttribute(colorManager),
+				getKeywordAttribute().getTextAttribute(colorManager),
+				attrs[0].getTextAttribute(colorManager),
+				attrs[1].getTextAttribute(colorManager),
+				attrs[2].getTextAttribute(colorManager));
+		if (isLargeFile())
+			dr.followViewport(sourceViewer);
 		reconciler.setDamager(dr, IDocument.DEFAULT_CONTENT_TYPE);
 		reconciler.setRepairer(dr, IDocument.DEFAULT_CONTENT_TYPE);
 
 		String[] contentTypes = getContentTypes();
-		GeneralTextAttribute[] attrs = getContentTypeAttributes();
 		for (int i = 0; i < contentTypes.length; i++)
 		{
-			addRepairer(reconciler, attrs[i], contentTypes[i]);
+			reconciler.setDamager(dr, contentTypes[i]);
+			reconciler.setRepairer(dr, contentTypes[i]);
 		}
 		return reconciler;
 	}
 
+	/**
+	 * Returns the attributes of single line comments, multi-line comments
+	 * and strings, in this order.
+	 */
 	protected abstract GeneralTextAttribute[] getContentTypeAttributes();
-
-	private void addRepairer(PresentationReconciler reconciler,
-			GeneralTextAttribute attr, String partition)
-	{
-		NonRuleBasedDamagerRepairer ndr;
-		ndr = new NonRuleBasedDamagerRepairer(attr
-				.getTextAttribute(colorManager));
-		reconciler.setDamager(ndr, partition);
-		reconciler.setRepairer(ndr, partition);
-	}
 	
 	@Override
 	public IAnnotationHover getAnnotationHover(ISourceViewer sourceViewer) {
@@ -0,0 +1,286 @@
+package org.rebecalang.afra.ideplugin.editors;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.ITextViewerExtension2;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.IViewportListener;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.TextAttribute;
+import org.eclipse.jface.text.TextPresentation;
+import org.eclipse.jface.text.presentation.IPresentationDamager;
+import org.eclipse.jface.text.presentation.IPresentationRepairer;
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.events.ControlAdapter;
+import org.eclipse.swt.events.ControlEvent;
+
+/**
+ * Damages and repairs the presentation of all the partitions of a document
+ * with a {@link SourceLexer}, keeping the state of the lexer at the start of
+ * every line. A change is lexed again from its first line only until the
+ * state at the start of a line after it is the one the line had before, so
+ * the damage is the changed lines and the lines whose comment state changed.
+ *
+ * When it follows the viewport of a viewer, only the visible lines and a
+ * page above and below them are presented, and the lines scrolled into view
+ * are presented as they appear, so that the cost of a presentation does not
+ * grow with the document.
+ */
+public class LexerDamagerRepairer implements IPresentationDamager, IPresentationRepairer, IDocumentListener {
+
+	private final SourceLexer lexer;
+	/**
+	 * The attributes by the token kinds of the lexer
+	 */
+	private final TextAttribute[] attributes;
+
+	private IDocument document;
+	private int[] lineStates = new int[0];
+	private int lineCount;
+
+	private DocumentEvent pendingEvent;
+	private int pendingFirstLine;
+	private int pendingRemovedLines;
+	private IRegion damage;
+
+	private ITextViewer viewer;
+	/**
+	 * The lines presented last while following the viewport
+	 */
+	private int presentedFirstLine = -1;
+	private int presentedLastLine = -1;
+
+	public LexerDamagerRepairer(SourceLexer lexer, TextAttribute defaultAttribute, TextAttribute keywordAttribute,
+			TextAttribute singleLineCommentAttribute, TextAttribute multiLineCommentAttribute,
+			TextAttribute stringAttribute) {
+		this.lexer = lexer;
+		attributes = new TextAttribute[] { defaultAttribute, keywordAttribute, singleLineCommentAttribute,
+				multiLineCommentAttribute, stringAttribute };
+	}
+
+	/**
+	 * @see IPresentationDamager#setDocument(IDocument)
+	 */
+	public void setDocument(IDocument document) {
+		// Both the damager and the repairer of the reconciler are set
+		if (this.document == document)
+			return;
+		if (this.document != null)
+			this.document.removeDocumentListener(this);
+		this.document = document;
+		pendingEvent = null;
+		damage = null;
+		lineCount = 0;
+		if (document != null) {
+			document.addDocumentListener(this);
+			lexAll();
+		}
+	}
+
+	public void documentAboutToBeChanged(DocumentEvent event) {
+		try {
+			pendingFirstLine = document.getLineOfOffset(event.getOffset());
+			pendingRemovedLines = document.getLineOfOffset(event.getOffset() + event.getLength()) - pendingFirstLine;
+			pendingEvent = event;
+		} catch (BadLocationException e) {
+			pendingEvent = null;
+		}
+	}
+
+	public void documentChanged(DocumentEvent event) {
+		update();
+		// The damage of the change may reach beyond the presented lines
+		presentedFirstLine = presentedLastLine = -1;
+	}
+
+	/**
+	 * Presents only the lines around the viewport of the given viewer from
+	 * now on.
+	 */
+	public void followViewport(ITextViewer viewer) {
+		this.viewer = viewer;
+		viewer.addViewportListener(new IViewportListener() {
+			public void viewportChanged(int verticalOffset) {
+				presentViewport();
+			}
+		});
+		viewer.getTextWidget().addControlListener(new ControlAdapter() {
+			@Override
+			public void controlResized(ControlEvent e) {
+				presentViewport();
+			}
+		});
+	}
+
+	/**
+	 * @see IPresentationDamager#getDamageRegion(ITypedRegion, DocumentEvent, boolean)
+	 */
+	public IRegion getDamageRegion(ITypedRegion partition, DocumentEvent event, boolean documentPartitioningChanged) {
+		// The viewer may ask before this listener is told about the change
+		update();
+		return damage == null ? partition : damage;
+	}
+
+	/**
+	 * @see IPresentationRepairer#createPresentation(TextPresentation, ITypedRegion)
+	 */
+	public void createPresentation(TextPresentation presentation, ITypedRegion region) {
+		update();
+		int regionEnd = region.getOffset() + region.getLength();
+		try {
+			int firstLine = document.getLineOfOffset(region.getOffset());
+			int lastLine = document.getLineOfOffset(regionEnd);
+			if (viewer != null) {
+				int[] window = getViewportWindow();
+				firstLine = Math.max(firstLine, window[0]);
+				lastLine = Math.min(lastLine, window[1]);
+				if (firstLine > lastLine)
+					return;
+				if (firstLine == window[0] && lastLine == window[1]) {
+					presentedFirstLine = firstLine;
+					presentedLastLine = lastLine;
+				}
+			}
+			int textOffset = document.getLineOffset(firstLine);
+			IRegion lastLineInformation = document.getLineInformation(lastLine);
+			String text = document.get(textOffset,
+					lastLineInformation.getOffset() + lastLineInformation.getLength() - textOffset);
+			for (int line = firstLine; line <= lastLine && line < lineCount; line++) {
+				IRegion lineInformation = document.getLineInformation(line);
+				int start = lineInformation.getOffset() - textOffset;
+				lexer.reset(text, start, start + lineInformation.getLength(), lineStates[line]);
+				for (int kind = lexer.nextToken(); kind != SourceLexer.EOF; kind = lexer.nextToken()) {
+					int tokenStart = Math.max(textOffset + lexer.getTokenStart(), region.getOffset());
+					int tokenEnd = Math.min(textOffset + lexer.getTokenEnd(), regionEnd);
+					if (tokenStart < tokenEnd)
+						addRange(presentation, tokenStart, tokenEnd - tokenStart, attributes[kind]);
+				}
+			}
+		} catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Presents the lines around the viewport again when lines which were not
+	 * presented have come into view.
+	 */
+	private void presentViewport() {
+		if (document == null || viewer.getTextWidget() == null || viewer.getTextWidget().isDisposed())
+			return;
+		if (presentedFirstLine >= 0 && viewer.getTopIndex() >= presentedFirstLine &&
+				viewer.getBottomIndex() <= presentedLastLine)
+			return;
+		int[] window = getViewportWindow();
+		try {
+			int start = document.getLineOffset(window[0]);
+			IRegion last = document.getLineInformation(window[1]);
+			if (viewer instanceof ITextViewerExtension2)
+				((ITextViewerExtension2) viewer).invalidateTextPresentation(start,
+						last.getOffset() + last.getLength() - start);
+		} catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns the first and last lines of the viewport with a page of lines
+	 * above and below it.
+	 */
+	private int[] getViewportWindow() {
+		int top = Math.max(0, viewer.getTopIndex());
+		int bottom = Math.max(top, viewer.getBottomIndex());
+		int page = bottom - top + 1;
+		return new int[] { Math.max(0, top - page),
+				Math.min(document.getNumberOfLines() - 1, bottom + page) };
+	}
+
+	private void lexAll() {
+		lineCount = document.getNumberOfLines();
+		lineStates = new int[lineCount];
+		String text = document.get();
+		int state = SourceLexer.STATE_CODE;
+		try {
+			for (int line = 0; line < lineCount; line++) {
+				lineStates[line] = state;
+				IRegion lineInformation = document.getLineInformation(line);
+				lexer.reset(text, lineInformation.getOffset(),
+						lineInformation.getOffset() + lineInformation.getLength(), state);
+				state = lexToEnd();
+			}
+		} catch (BadLocationException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Moves the states of the lines after the pending change to their new
+	 * lines and lexes the lines from its first one until the states agree
+	 * again.
+	 */
+	private void update() {
+		if (pendingEvent == null || document == null)
+			return;
+		DocumentEvent event = pendingEvent;
+		pendingEvent = null;
+		try {
+			int textLength = event.getText() == null ? 0 : event.getText().length();
+			int addedLines = document.getLineOfOffset(event.getOffset() + textLength) - pendingFirstLine;
+			int newLineCount = document.getNumberOfLines();
+			int[] newLineStates = newLineCount > lineStates.length ? new int[newLineCount + newLineCount / 4] : lineStates;
+			int unchanged = pendingFirstLine + pendingRemovedLines + 1;
+			if (newLineStates != lineStates)
+				System.arraycopy(lineStates, 0, newLineStates, 0, pendingFirstLine + 1);
+			if (unchanged < lineCount)
+				System.arraycopy(lineStates, unchanged, newLineStates, pendingFirstLine + addedLines + 1,
+						lineCount - unchanged);
+			lineStates = newLineStates;
+			lineCount = newLineCount;
+
+			int lastChangedLine = pendingFirstLine + addedLines;
+			int state = lineStates[pendingFirstLine];
+			int line = pendingFirstLine;
+			while (true) {
+				IRegion lineInformation = document.getLineInformation(line);
+				lexer.reset(document.get(lineInformation.getOffset(), lineInformation.getLength()), 0,
+						lineInformation.getLength(), state);
+				state = lexToEnd();
+				line++;
+				if (line >= lineCount || line > lastChangedLine && lineStates[line] == state)
+					break;
+				lineStates[line] = state;
+			}
+			int start = document.getLineOffset(pendingFirstLine);
+			int end = line < lineCount ? document.getLineOffset(line) : document.getLength();
+			damage = new Region(start, end - start);
+		} catch (BadLocationException e) {
+			e.printStackTrace();
+			lexAll();
+			damage = new Region(0, document.getLength());
+		}
+	}
+
+	private int lexToEnd() {
+		while (lexer.nextToken() != SourceLexer.EOF)
+			;
+		return lexer.getState();
+	}
+
+	/**
+	 * Adds style information to the given text presentation.
+	 *
+	 * @param presentation the text presentation to be extended
+	 * @param offset the offset of the range to be styled
+	 * @param length the length of the range to be styled
+	 * @param attr the attribute describing the style of the range to be styled
+	 */
+	protected void addRange(TextPresentation presentation, int offset, int length, TextAttribute attr) {
+		if (attr != null)
+			presentation.addStyleRange(
+					new StyleRange(offset, length, attr.getForeground(), attr.getBackground(), attr.getStyle()));
+	}
+}
@@ -0,0 +1,188 @@
+package org.rebecalang.afra.ideplugin.editors;
+
+/**
+ * A hand-written lexer of the comments, strings and keywords of Rebeca and
+ * property files. It lexes a range of a string without allocating, and may
+ * start and stop inside a multi-line comment, the only token which spans
+ * lines, so that a document can be lexed again from any line given the
+ * state at the start of that line. It is the one place which decides what
+ * is a comment or a string: the highlighting, the partitions, the braces of
+ * {@link BraceStructure}, and the tokens of the symbol index and of the
+ * verdict reuse all follow it.
+ */
+public class SourceLexer {
+
+	public static final int EOF = -1;
+	public static final int DEFAULT = 0;
+	public static final int KEYWORD = 1;
+	public static final int SINGLE_LINE_COMMENT = 2;
+	public static final int MULTI_LINE_COMMENT = 3;
+	public static final int STRING = 4;
+
+	public static final int STATE_CODE = 0;
+	public static final int STATE_MULTI_LINE_COMMENT = 1;
+
+	/**
+	 * The keywords by their first character, which is ASCII for all of them
+	 */
+	private final String[][] keywordsByFirstChar = new String[128][];
+
+	private String text;
+	private int position;
+	private int end;
+	private int state;
+	private int tokenStart;
+
+	public SourceLexer(String[] keywords) {
+		for (String keyword : keywords) {
+			String[] bucket = keywordsByFirstChar[keyword.charAt(0)];
+			String[] extended = new String[bucket == null ? 1 : bucket.length + 1];
+			if (bucket != null)
+				System.arraycopy(bucket, 0, extended, 0, bucket.length);
+			extended[extended.length - 1] = keyword;
+			keywordsByFirstChar[keyword.charAt(0)] = extended;
+		}
+	}
+
+	/**
+	 * Starts lexing text from start to end in the given state.
+	 */
+	public void reset(String text, int start, int end, int state) {
+		this.text = text;
+		this.position = start;
+		this.end = end;
+		this.state = state;
+		this.tokenStart = start;
+	}
+
+	/**
+	 * Returns the kind of the next token, or {@link #EOF} at the end of the
+	 * range. Text other than comments, strings and keywords is returned as
+	 * runs of {@link #DEFAULT}.
+	 */
+	public int nextToken() {
+		tokenStart = position;
+		if (position >= end)
+			return EOF;
+		if (state == STATE_MULTI_LINE_COMMENT) {
+			finishMultiLineComment();
+			return MULTI_LINE_COMMENT;
+		}
+		char c = text.charAt(position);
+		if (c == '/' && position + 1 < end) {
+			char next = text.charAt(position + 1);
+			if (next == '/') {
+				position = lineEnd(position + 2);
+				return SINGLE_LINE_COMMENT;
+			}
+			if (next == '*') {
+				position += 2;
+				state = STATE_MULTI_LINE_COMMENT;
+				finishMultiLineComment();
+				return MULTI_LINE_COMMENT;
+			}
+		}
+		if (c == '"' || c == '\'') {
+			finishString(c);
+			return STRING;
+		}
+		if (skipWord())
+			return KEYWORD;
+		while (position < end && !startsToken()) {
+			int wordStart = position;
+			if (skipWord()) {
+				// Leave the keyword to the next token
+				position = wordStart;
+				break;
+			}
+		}
+		return DEFAULT;
+	}
+
+	public int getTokenStart() {
+		return tokenStart;
+	}
+
+	public int getTokenEnd() {
+		return position;
+	}
+
+	/**
+	 * Returns the state at the end of the last token.
+	 */
+	public int getState() {
+		return state;
+	}
+
+	/**
+	 * Skips a word, or a single character when none starts at the position,
+	 * and returns whether it was a keyword.
+	 */
+	private boolean skipWord() {
+		int start = position;
+		char c = text.charAt(position);
+		if (!Character.isJavaIdentifierPart(c)) {
+			position++;
+			return false;
+		}
+		do {
+			position++;
+		} while (position < end && Character.isJavaIdentifierPart(text.charAt(position)));
+		return Character.isJavaIdentifierStart(c) && isKeyword(start, position);
+	}
+
+	private boolean startsToken() {
+		char c = text.charAt(position);
+		if (c == '"' || c == '\'')
+			return true;
+		if (c != '/' || position + 1 >= end)
+			return false;
+		char next = text.charAt(position + 1);
+		return next == '/' || next == '*';
+	}
+
+	private boolean isKeyword(int start, int end) {
+		char first = text.charAt(start);
+		if (first >= keywordsByFirstChar.length || keywordsByFirstChar[first] == null)
+			return false;
+		for (String keyword : keywordsByFirstChar[first])
+			if (keyword.length() == end - start && text.regionMatches(start, keyword, 0, keyword.length()))
+				return true;
+		return false;
+	}
+
+	private void finishMultiLineComment() {
+		while (position < end) {
+			if (text.charAt(position) == '*' && position + 1 < end && text.charAt(position + 1) == '/') {
+				position += 2;
+				state = STATE_CODE;
+				return;
+			}
+			position++;
+		}
+	}
+
+	/**
+	 * Skips a string or a character literal up to its closing quote, or up to
+	 * the end of the line when it is not closed.
+	 */
+	private void finishString(char quote) {
+		position++;
+		while (position < end) {
+			char c = text.charAt(position);
+			if (c == '\r' || c == '\n')
+				return;
+			position++;
+			if (c == quote)
+				return;
+			if (c == '\\' && position < end && text.charAt(position) != '\r' && text.charAt(position) != '\n')
+				position++;
+		}
+	}
+
+	private int lineEnd(int from) {
+		while (from < end && text.charAt(from) != '\r' && text.charAt(from) != '\n')
+			from++;
+		return from;
+	}
+}
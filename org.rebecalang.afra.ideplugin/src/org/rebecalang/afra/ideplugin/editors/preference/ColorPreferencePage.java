@@ -12,7 +12,12 @@ public class ColorPreferencePage extends AbstractColorPreferencePage {
 				new TextAttribute("Rebeca.SingleLineComment", "Single line comment"),
 				new TextAttribute("Rebeca.MultiLineComment", "Multi line comment"),
 				new TextAttribute("Rebeca.KeyWord", "Reserved word"),
-				new TextAttribute("Rebeca.String", "String") };
+				new TextAttribute("Rebeca.String", "String"),
+				new TextAttribute("Rebeca.ReactiveClass", "Reactive class"),
+				new TextAttribute("Rebeca.Msgsrv", "Message server"),
+				new TextAttribute("Rebeca.KnownRebec", "Known rebec"),
+				new TextAttribute("Rebeca.StateVariable", "State variable"),
+				new TextAttribute("Rebeca.LocalVariable", "Local variable") };
 	}
 
 }
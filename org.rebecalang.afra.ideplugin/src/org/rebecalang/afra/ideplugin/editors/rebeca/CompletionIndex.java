@@ -0,0 +1,213 @@
+package org.rebecalang.afra.ideplugin.editors.rebeca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.text.contentassist.CompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.rebecalang.compiler.modelcompiler.SymbolTable;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.FieldDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.MainRebecDefinition;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.MethodDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.ReactiveClassDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.RebecaModel;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.Type;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.VariableDeclarator;
+
+/**
+ * The names proposed by {@link CompletionProcessor} for one version of the
+ * model, so that a proposal request walks a few tries instead of the whole
+ * model. The types are proposed everywhere, the main rebecs inside main, and
+ * the keywords, known rebecs and state variables inside a reactive class. The
+ * msgsrvs and state variables of a reactive class, proposed after a rebec of
+ * it and a dot, are indexed the first time they are asked for.
+ */
+public class CompletionIndex {
+
+	private static final String[] KEYWORDS = {"reactiveclass", "knownrebecs", "statevars", "msgsrv"};
+	private static final String[] TYPES = {"boolean", "byte", "int", "short"};
+
+	private static final PrefixTrie<Completion> keywordTrie = new PrefixTrie<Completion>();
+	private static final PrefixTrie<Completion> typeTrie = new PrefixTrie<Completion>();
+
+	static {
+		for (String keyword : KEYWORDS)
+			keywordTrie.add(keyword, new Completion(keyword, keyword.length()));
+		for (String type : TYPES)
+			typeTrie.add(type, new Completion(type, type.length()));
+	}
+
+	/**
+	 * A text to insert and where the cursor goes in it.
+	 */
+	private static class Completion {
+		final String text;
+		final int cursorPosition;
+
+		Completion(String text, int cursorPosition) {
+			this.text = text;
+			this.cursorPosition = cursorPosition;
+		}
+
+		static Completion ofMethod(String name) {
+			return new Completion(name + "()", name.length() + 1);
+		}
+	}
+
+	/**
+	 * The lines of main or of a reactive class and the names visible there.
+	 */
+	private static class Scope {
+		final int lineNumber;
+		final int endLineNumber;
+		final PrefixTrie<Completion> names = new PrefixTrie<Completion>();
+		final Map<String, Type> rebecTypes = new HashMap<String, Type>();
+		final PrefixTrie<Completion> selfMethods = new PrefixTrie<Completion>();
+
+		Scope(int lineNumber, int endLineNumber) {
+			this.lineNumber = lineNumber;
+			this.endLineNumber = endLineNumber;
+		}
+
+		boolean contains(int line) {
+			return line >= lineNumber && line <= endLineNumber;
+		}
+
+		void addName(String name, Type type) {
+			if (name == null)
+				return;
+			names.add(name, new Completion(name, name.length()));
+			if (type != null)
+				rebecTypes.put(name, type);
+		}
+	}
+
+	private final SymbolTable symbolTable;
+	private final Scope mainScope;
+	private final Scope[] classScopes;
+	private final Map<Type, PrefixTrie<Completion>> memberTries = new HashMap<Type, PrefixTrie<Completion>>();
+
+	/**
+	 * Indexes the given model; only the types are proposed when it is null.
+	 */
+	public CompletionIndex(RebecaModel rebecaModel, SymbolTable symbolTable) {
+		this.symbolTable = symbolTable;
+		if (rebecaModel == null) {
+			mainScope = null;
+			classScopes = new Scope[0];
+			return;
+		}
+
+		mainScope = new Scope(rebecaModel.getRebecaCode().getMainDeclaration().getLineNumber(),
+				rebecaModel.getRebecaCode().getMainDeclaration().getEndLineNumber());
+		for (MainRebecDefinition mrd : rebecaModel.getRebecaCode().getMainDeclaration().getMainRebecDefinition())
+			mainScope.addName(mrd.getName(), mrd.getType());
+
+		List<Scope> scopes = new ArrayList<Scope>();
+		for (ReactiveClassDeclaration rcd : rebecaModel.getRebecaCode().getReactiveClassDeclaration()) {
+			Scope scope = new Scope(rcd.getLineNumber(), rcd.getEndLineNumber());
+			List<FieldDeclaration> fields = new ArrayList<FieldDeclaration>();
+			fields.addAll(rcd.getKnownRebecs());
+			fields.addAll(rcd.getStatevars());
+			for (FieldDeclaration fd : fields)
+				for (VariableDeclarator vd : fd.getVariableDeclarators())
+					scope.addName(vd.getVariableName(), fd.getType());
+			List<MethodDeclaration> methods = new ArrayList<MethodDeclaration>();
+			methods.addAll(rcd.getMsgsrvs());
+			methods.addAll(rcd.getSynchMethods());
+			for (MethodDeclaration md : methods)
+				scope.selfMethods.add(md.getName(), Completion.ofMethod(md.getName()));
+			scopes.add(scope);
+		}
+		classScopes = scopes.toArray(new Scope[scopes.size()]);
+		Arrays.sort(classScopes, new Comparator<Scope>() {
+			@Override
+			public int compare(Scope first, Scope second) {
+				return Integer.compare(first.lineNumber, second.lineNumber);
+			}
+		});
+	}
+
+	/**
+	 * Adds the proposals for the word ending at the given offset of the given
+	 * line. After a dot, the members of the rebec before it are proposed.
+	 */
+	public void complete(int lineNumber, String word, int offset, List<ICompletionProposal> proposals) {
+		addProposals(typeTrie, word, offset, proposals);
+
+		Scope scope = findScope(lineNumber);
+		if (scope == null)
+			return;
+		if (scope != mainScope)
+			addProposals(keywordTrie, word, offset, proposals);
+		addProposals(scope.names, word, offset, proposals);
+
+		int dot = word.lastIndexOf('.');
+		if (dot < 0)
+			return;
+		String receiver = word.substring(0, dot);
+		String prefix = word.substring(dot + 1);
+		if (scope != mainScope && receiver.equals("self"))
+			addProposals(scope.selfMethods, prefix, offset, proposals);
+		else {
+			Type type = scope.rebecTypes.get(receiver);
+			if (type != null)
+				addProposals(getMembers(type), prefix, offset, proposals);
+		}
+	}
+
+	private Scope findScope(int lineNumber) {
+		if (mainScope != null && mainScope.contains(lineNumber))
+			return mainScope;
+		// The last reactive class starting at or before the line
+		int low = 0, high = classScopes.length - 1, found = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (classScopes[middle].lineNumber <= lineNumber) {
+				found = middle;
+				low = middle + 1;
+			} else
+				high = middle - 1;
+		}
+		return found >= 0 && classScopes[found].contains(lineNumber) ? classScopes[found] : null;
+	}
+
+	private PrefixTrie<Completion> getMembers(Type type) {
+		PrefixTrie<Completion> members = memberTries.get(type);
+		if (members != null)
+			return members;
+		members = new PrefixTrie<Completion>();
+		if (symbolTable != null) {
+			if (symbolTable.getmethodSymbolTable().get(type) != null) {
+				Enumeration<String> keys = symbolTable.getmethodSymbolTable().get(type).keys();
+				while (keys.hasMoreElements()) {
+					String name = keys.nextElement();
+					members.add(name, Completion.ofMethod(name));
+				}
+			}
+			if (symbolTable.getVariableSymbolTable().get(type) != null) {
+				Enumeration<String> keys = symbolTable.getVariableSymbolTable().get(type).keys();
+				while (keys.hasMoreElements()) {
+					String name = keys.nextElement();
+					members.add(name, new Completion(name, name.length()));
+				}
+			}
+		}
+		memberTries.put(type, members);
+		return members;
+	}
+
+	private static void addProposals(PrefixTrie<Completion> trie, String prefix, int offset,
+			List<ICompletionProposal> proposals) {
+		List<Completion> completions = new ArrayList<Completion>();
+		trie.find(prefix, completions);
+		for (Completion completion : completions)
+			proposals.add(new CompletionProposal(completion.text, offset - prefix.length(), prefix.length(),
+					completion.cursorPosition));
+	}
+}
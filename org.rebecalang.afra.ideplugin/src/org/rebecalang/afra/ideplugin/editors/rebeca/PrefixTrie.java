@@ -0,0 +1,57 @@
+package org.rebecalang.afra.ideplugin.editors.rebeca;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Values keyed by words, found by a prefix of their words in the time of a
+ * walk down the prefix plus the number of values found. Values are found in
+ * the order of their words, and in the order they were added for the same
+ * word.
+ */
+public class PrefixTrie<V> {
+
+	private static class Node<V> {
+		final Map<Character, Node<V>> children = new TreeMap<Character, Node<V>>();
+		final List<V> values = new ArrayList<V>(1);
+	}
+
+	private final Node<V> root = new Node<V>();
+
+	public void add(String word, V value) {
+		Node<V> node = root;
+		for (int cnt = 0; cnt < word.length(); cnt++)
+			node = node.children.computeIfAbsent(word.charAt(cnt), character -> new Node<V>());
+		node.values.add(value);
+	}
+
+	/**
+	 * Adds the values whose words start with the prefix to the given list.
+	 */
+	public void find(String prefix, List<V> result) {
+		Node<V> node = root;
+		for (int cnt = 0; cnt < prefix.length() && node != null; cnt++)
+			node = node.children.get(prefix.charAt(cnt));
+		if (node != null)
+			collect(node, result);
+	}
+
+	/**
+	 * Returns the values of exactly the given word.
+	 */
+	public List<V> get(String word) {
+		Node<V> node = root;
+		for (int cnt = 0; cnt < word.length() && node != null; cnt++)
+			node = node.children.get(word.charAt(cnt));
+		return node == null ? Collections.<V>emptyList() : Collections.unmodifiableList(node.values);
+	}
+
+	private static <V> void collect(Node<V> node, List<V> result) {
+		result.addAll(node.values);
+		for (Node<V> child : node.children.values())
+			collect(child, result);
+	}
+}
@@ -3,16 +3,34 @@ package org.rebecalang.afra.ideplugin.editors.rebeca;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.rebecalang.afra.ideplugin.editors.GeneralDocument;
-import org.rebecalang.afra.ideplugin.editors.GeneralRuleBasedPartitionScanner;
+import org.rebecalang.afra.ideplugin.editors.GeneralPartitionScanner;
 
 public class RebecaDocument extends GeneralDocument {
 	
+	private RebecaModelCache modelCache;
+
 	public RebecaDocument(IProject project, IFile file) {
 		super(project, file);
 	}
 
+	/**
+	 * Returns the cache of the model compiled from this document, which is
+	 * created on first use.
+	 */
+	public synchronized RebecaModelCache getModelCache() {
+		if (modelCache == null)
+			modelCache = new RebecaModelCache(this, project);
+		return modelCache;
+	}
+
+	public synchronized void disposeModelCache() {
+		if (modelCache != null)
+			modelCache.dispose();
+		modelCache = null;
+	}
+
 	@Override
-	public GeneralRuleBasedPartitionScanner createPartitionScanner() {
+	public GeneralPartitionScanner createPartitionScanner() {
 		return new RebecaPartitionScanner();
 	}
 
@@ -2,6 +2,8 @@ package org.rebecalang.afra.ideplugin.editors.rebeca;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.rebecalang.afra.ideplugin.editors.DiagnosticAnnotations;
 import org.rebecalang.afra.ideplugin.editors.GeneralDocument;
 import org.rebecalang.afra.ideplugin.editors.GeneralFileDocumentProvider;
 
@@ -12,5 +14,38 @@ public class RebecaDocumentProvider extends GeneralFileDocumentProvider {
 	protected GeneralDocument getDocument(IProject project, IFile file) {
 		return new RebecaDocument(project, file);
 	}
+
+	/*
+	 * The model is compiled as soon as the document is opened, so that it
+	 * is ready by the time the editor features first ask for it. The
+	 * problems of each compilation are shown on the editor.
+	 */
+	@Override
+	protected ElementInfo createElementInfo(Object element) throws CoreException {
+		ElementInfo info = super.createElementInfo(element);
+		if (info.fDocument instanceof RebecaDocument) {
+			DiagnosticAnnotations diagnostics = new DiagnosticAnnotations(info.fDocument, info.fModel);
+			RebecaModelCache cache = ((RebecaDocument) info.fDocument).getModelCache();
+			cache.addListener(new RebecaModelCache.Listener() {
+				@Override
+				public void modelChanged(RebecaModelCache cache) {
+				}
+
+				@Override
+				public void problemsChanged(RebecaModelCache cache) {
+					diagnostics.publish(cache.getProblemsStamp(), cache.getErrors(), cache.getWarnings());
+				}
+			});
+			diagnostics.publish(cache.getProblemsStamp(), cache.getErrors(), cache.getWarnings());
+		}
+		return info;
+	}
+
+	@Override
+	protected void disposeElementInfo(Object element, ElementInfo info) {
+		if (info.fDocument instanceof RebecaDocument)
+			((RebecaDocument) info.fDocument).disposeModelCache();
+		super.disposeElementInfo(element, info);
+	}
 	
 }
@@ -1,27 +1,50 @@
 package org.rebecalang.afra.ideplugin.editors.rebeca;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
 
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.Position;
-import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.jface.text.source.IVerticalRuler;
-import org.eclipse.jface.text.source.projection.ProjectionAnnotation;
+import org.eclipse.jface.text.source.projection.IProjectionListener;
 import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
 import org.eclipse.jface.text.source.projection.ProjectionSupport;
 import org.eclipse.jface.text.source.projection.ProjectionViewer;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.editors.text.TextEditor;
+import org.eclipse.ui.texteditor.ContentAssistAction;
+import org.eclipse.ui.texteditor.ITextEditorActionDefinitionIds;
+import org.eclipse.ui.views.contentoutline.IContentOutlinePage;
 import org.rebecalang.afra.ideplugin.editors.ColorManager;
+import org.rebecalang.afra.ideplugin.editors.FoldingAnnotations;
 
 public class RebecaEditor extends TextEditor {
 
+	/**
+	 * Files with more lines or characters than these are edited in large
+	 * file mode: only the lines around the viewport are highlighted, the
+	 * names are not highlighted by what they denote, folding is off until
+	 * turned on from the ruler, completion waits for Ctrl+Space, and the
+	 * model is compiled after a longer pause.
+	 */
+	public static final int LARGE_FILE_LINES = 10000;
+	public static final int LARGE_FILE_LENGTH = 1 << 20;
+	public static final long LARGE_FILE_REPARSE_DELAY = 2000;
+
+	private static final String LARGE_FILE_MESSAGE =
+			"Large file mode: highlighting follows the view, folding and completion on request";
+
 	private static RebecaEditor current;
 
 	private ColorManager colorManager;
 	private ProjectionSupport projectionSupport;
+	private SemanticHighlighter semanticHighlighter;
+	private RebecaOutlinePage outlinePage;
+	private boolean largeFile;
+	private volatile boolean foldingEnabled;
 
 	public static RebecaEditor current() {
 		return current;
@@ -50,22 +73,63 @@ public class RebecaEditor extends TextEditor {
 	public ColorManager getColorManager() {
 		return colorManager;
 	}
+
+	/**
+	 * Tells whether the file was large enough, when the editor was opened,
+	 * to be edited in large file mode.
+	 */
+	public boolean isLargeFile() {
+		return largeFile;
+	}
+
+	public boolean isFoldingEnabled() {
+		return foldingEnabled;
+	}
 	
     /* (non-Javadoc)
      * @see org.eclipse.ui.IWorkbenchPart#createPartControl(org.eclipse.swt.widgets.Composite)
      */
     public void createPartControl(Composite parent)
     {
+        // The source viewer is configured by the size of the file
+        IDocument document = getDocument();
+        largeFile = document != null &&
+                (document.getNumberOfLines() > LARGE_FILE_LINES || document.getLength() > LARGE_FILE_LENGTH);
+
         super.createPartControl(parent);
         ProjectionViewer viewer =(ProjectionViewer)getSourceViewer();
         
         projectionSupport = new ProjectionSupport(viewer,getAnnotationAccess(),getSharedColors());
 		projectionSupport.install();
+		viewer.addProjectionListener(new IProjectionListener() {
+			public void projectionEnabled() {
+				foldingEnabled = true;
+				annotationModel = ((ProjectionViewer) getSourceViewer()).getProjectionAnnotationModel();
+				foldingAnnotations = new FoldingAnnotations();
+				RebecaReconcilingStrategy strategy =
+						((RebecaSourceViewerConfiguration) getSourceViewerConfiguration()).getReconcilingStrategy();
+				if (strategy != null)
+					strategy.calculatePositions();
+			}
+
+			public void projectionDisabled() {
+				foldingEnabled = false;
+				annotationModel = null;
+			}
+		});
 		
-		//turn projection mode on
-		viewer.doOperation(ProjectionViewer.TOGGLE);
+		//turn projection mode on, unless the folding of a large file waits to be asked for
+		if (!largeFile)
+			viewer.doOperation(ProjectionViewer.TOGGLE);
 		
-		annotationModel = viewer.getProjectionAnnotationModel();
+		if (getDocument() instanceof RebecaDocument) {
+			if (largeFile)
+				((RebecaDocument) getDocument()).getModelCache().setReparseDelay(LARGE_FILE_REPARSE_DELAY);
+			else {
+				semanticHighlighter = new SemanticHighlighter((RebecaDocument) getDocument(), viewer, colorManager);
+				semanticHighlighter.install();
+			}
+		}
 		
 //		Iterator<Annotation> annotationIterator = annotationModel.getAnnotationIterator();
 //		while(annotationIterator.hasNext()) {
@@ -75,28 +139,61 @@ public class RebecaEditor extends TextEditor {
 //		}
 		
     }
-	private Annotation[] oldAnnotations;
+
+	@Override
+	public void setFocus() {
+		super.setFocus();
+		// The status line is shared with the other Rebeca editors
+		getEditorSite().getActionBars().getStatusLineManager().setMessage(largeFile ? LARGE_FILE_MESSAGE : null);
+	}
+
+	@Override
+	protected void createActions() {
+		super.createActions();
+		IAction action = new ContentAssistAction(null, "ContentAssistProposal.", this);
+		action.setText("Content Assist");
+		action.setActionDefinitionId(ITextEditorActionDefinitionIds.CONTENT_ASSIST_PROPOSALS);
+		setAction("ContentAssistProposal", action);
+	}
+
+	@Override
+	protected void rulerContextMenuAboutToShow(IMenuManager menu) {
+		super.rulerContextMenuAboutToShow(menu);
+		menu.add(new Action(foldingEnabled ? "Disable Folding" : "Enable Folding") {
+			@Override
+			public void run() {
+				ISourceViewer viewer = getSourceViewer();
+				if (viewer instanceof ProjectionViewer)
+					((ProjectionViewer) viewer).doOperation(ProjectionViewer.TOGGLE);
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T getAdapter(Class<T> required) {
+		if (IContentOutlinePage.class.equals(required)) {
+			if (outlinePage == null && getDocument() instanceof RebecaDocument)
+				outlinePage = new RebecaOutlinePage(this, (RebecaDocument) getDocument());
+			return (T) outlinePage;
+		}
+		return super.getAdapter(required);
+	}
+
+	@Override
+	public void dispose() {
+		if (semanticHighlighter != null)
+			semanticHighlighter.uninstall();
+		semanticHighlighter = null;
+		super.dispose();
+	}
+
+	private FoldingAnnotations foldingAnnotations = new FoldingAnnotations();
 	private ProjectionAnnotationModel annotationModel;
 	
-	public void updateFoldingStructure(ArrayList<Position> positions)
+	public void updateFoldingStructure(List<Position> positions)
 	{
-		Annotation[] annotations = new Annotation[positions.size()];
-		
-		//this will hold the new annotations along
-		//with their corresponding positions
-		HashMap<Annotation, Position> newAnnotations = new HashMap<Annotation, Position>();
-		
-		for(int i =0;i<positions.size();i++) {
-			ProjectionAnnotation annotation = new ProjectionAnnotation();
-			
-			newAnnotations.put(annotation, positions.get(i));
-			
-			annotations[i]=annotation;
-		}
-		
-		annotationModel.modifyAnnotations(oldAnnotations,newAnnotations,null);
-		
-		oldAnnotations=annotations;
+		foldingAnnotations.update(annotationModel, positions);
 	}
 	
     
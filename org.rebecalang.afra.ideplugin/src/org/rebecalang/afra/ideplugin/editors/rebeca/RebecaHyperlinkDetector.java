@@ -0,0 +1,95 @@
+package org.rebecalang.afra.ideplugin.editors.rebeca;
+
+import java.util.List;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.hyperlink.IHyperlink;
+import org.eclipse.jface.text.hyperlink.IHyperlinkDetector;
+import org.rebecalang.afra.ideplugin.index.FileSymbols;
+import org.rebecalang.afra.ideplugin.index.RebecaSymbol;
+import org.rebecalang.afra.ideplugin.index.SymbolNavigation;
+
+/**
+ * Links the names of reactive classes, msgsrvs, state variables, known
+ * rebecs and main rebecs to their declarations.
+ */
+public class RebecaHyperlinkDetector implements IHyperlinkDetector {
+
+	private RebecaEditor editor;
+	private FileSymbols fileSymbols;
+	private long modificationStamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+
+	public RebecaHyperlinkDetector(RebecaEditor editor) {
+		this.editor = editor;
+	}
+
+	@Override
+	public IHyperlink[] detectHyperlinks(ITextViewer textViewer, IRegion region, boolean canShowMultipleHyperlinks) {
+		FileSymbols fileSymbols = scan(textViewer.getDocument());
+		if (fileSymbols == null)
+			return null;
+		RebecaSymbol symbol = fileSymbols.getSymbolAt(region.getOffset());
+		if (symbol == null || fileSymbols.getDeclarations().contains(symbol))
+			return null;
+		List<RebecaSymbol> declarations = SymbolNavigation.findDeclarations(fileSymbols, region.getOffset());
+		if (declarations.isEmpty())
+			return null;
+		if (!canShowMultipleHyperlinks)
+			declarations = declarations.subList(0, 1);
+		IRegion symbolRegion = new Region(symbol.getOffset(), symbol.getLength());
+		IHyperlink[] hyperlinks = new IHyperlink[declarations.size()];
+		for (int cnt = 0; cnt < hyperlinks.length; cnt++)
+			hyperlinks[cnt] = new DeclarationHyperlink(symbolRegion, declarations.get(cnt));
+		return hyperlinks;
+	}
+
+	/*
+	 * The document is scanned once for all the hyperlinks detected while it
+	 * does not change.
+	 */
+	private FileSymbols scan(IDocument document) {
+		long stamp = document instanceof IDocumentExtension4 ?
+				((IDocumentExtension4) document).getModificationStamp() :
+				IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		if (fileSymbols == null || stamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP ||
+				stamp != modificationStamp) {
+			fileSymbols = SymbolNavigation.scan(editor);
+			modificationStamp = stamp;
+		}
+		return fileSymbols;
+	}
+
+	private static class DeclarationHyperlink implements IHyperlink {
+		private final IRegion region;
+		private final RebecaSymbol declaration;
+
+		DeclarationHyperlink(IRegion region, RebecaSymbol declaration) {
+			this.region = region;
+			this.declaration = declaration;
+		}
+
+		@Override
+		public IRegion getHyperlinkRegion() {
+			return region;
+		}
+
+		@Override
+		public String getTypeLabel() {
+			return null;
+		}
+
+		@Override
+		public String getHyperlinkText() {
+			return "Open Declaration of " + declaration;
+		}
+
+		@Override
+		public void open() {
+			SymbolNavigation.open(declaration);
+		}
+	}
+}
@@ -0,0 +1,274 @@
+package org.rebecalang.afra.ideplugin.editors.rebeca;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+import org.rebecalang.afra.ideplugin.handler.CompilationAndCodeGenerationProcess;
+import org.rebecalang.afra.ideplugin.preference.CoreRebecaProjectPropertyPage;
+import org.rebecalang.compiler.CompilerConfig;
+import org.rebecalang.compiler.modelcompiler.RebecaModelCompiler;
+import org.rebecalang.compiler.modelcompiler.SymbolTable;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.RebecaModel;
+import org.rebecalang.compiler.utils.CompilerExtension;
+import org.rebecalang.compiler.utils.CoreVersion;
+import org.rebecalang.compiler.utils.ExceptionContainer;
+import org.rebecalang.compiler.utils.Pair;
+import org.rebecalang.rmc.RMCConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * The last model compiled from a Rebeca document, shared by the editor
+ * features which need it. A change of the document schedules a compilation
+ * in the background once the document has been left alone for
+ * {@link #REPARSE_DELAY} milliseconds by default; the features read the last
+ * model which compiled instead of compiling on each request, so while the
+ * source does not compile they keep working on the model from before the
+ * error.
+ * The problems found by the last compilation are kept as well.
+ */
+public class RebecaModelCache implements IDocumentListener {
+
+	public static final long REPARSE_DELAY = 500;
+
+	public interface Listener {
+		/**
+		 * Called from the compilation job whenever a new model is available.
+		 */
+		void modelChanged(RebecaModelCache cache);
+
+		/**
+		 * Called from the compilation job after each compilation of the
+		 * current contents of the document, whether or not they compiled.
+		 */
+		void problemsChanged(RebecaModelCache cache);
+	}
+
+	@Autowired
+	RebecaModelCompiler modelCompiler;
+
+	@Autowired
+	ExceptionContainer exceptionContainer;
+
+	private AnnotationConfigApplicationContext context;
+
+	private final IDocument document;
+	private final IProject project;
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+	private final Job reparseJob;
+	private volatile long reparseDelay = REPARSE_DELAY;
+
+	private volatile Pair<RebecaModel, SymbolTable> model;
+	private volatile long modelStamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	private volatile String modelSource;
+	private volatile boolean upToDate;
+	private volatile long problemsStamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	private volatile Set<Exception> errors = Collections.emptySet();
+	private volatile Set<Exception> warnings = Collections.emptySet();
+	private File sourceFile;
+	private volatile boolean disposed;
+
+	public RebecaModelCache(IDocument document, IProject project) {
+		this.document = document;
+		this.project = project;
+		reparseJob = new Job("Compiling Rebeca model") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return reparse(monitor);
+			}
+		};
+		reparseJob.setSystem(true);
+		reparseJob.setPriority(Job.DECORATE);
+		document.addDocumentListener(this);
+		reparseJob.schedule();
+	}
+
+	/**
+	 * Returns the last model which compiled, or null when no version of the
+	 * document has compiled yet. The model may lag behind the document; see
+	 * {@link #isUpToDate()}.
+	 */
+	public Pair<RebecaModel, SymbolTable> getModel() {
+		return model;
+	}
+
+	/**
+	 * Returns the modification stamp of the document the model was compiled
+	 * from.
+	 */
+	public long getModelStamp() {
+		return modelStamp;
+	}
+
+	/**
+	 * Returns the contents of the document the model was compiled from. The
+	 * model, its stamp and its source are replaced together while holding the
+	 * lock of this cache.
+	 */
+	public String getModelSource() {
+		return modelSource;
+	}
+
+	/**
+	 * Tells whether the current contents of the document have been compiled,
+	 * whether or not they compiled.
+	 */
+	public boolean isUpToDate() {
+		return upToDate;
+	}
+
+	/**
+	 * Returns the modification stamp of the document the problems were
+	 * found in.
+	 */
+	public long getProblemsStamp() {
+		return problemsStamp;
+	}
+
+	public Set<Exception> getErrors() {
+		return errors;
+	}
+
+	public Set<Exception> getWarnings() {
+		return warnings;
+	}
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Sets how long the document must be left alone before it is compiled
+	 * again.
+	 */
+	public void setReparseDelay(long reparseDelay) {
+		this.reparseDelay = reparseDelay;
+	}
+
+	/**
+	 * Stops following the document without waiting for a running
+	 * compilation; the compilation job releases the compiler once it exits.
+	 */
+	public void dispose() {
+		disposed = true;
+		document.removeDocumentListener(this);
+		reparseJob.cancel();
+		reparseJob.schedule();
+	}
+
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+	}
+
+	@Override
+	public void documentChanged(DocumentEvent event) {
+		upToDate = false;
+		reparseJob.cancel();
+		reparseJob.schedule(reparseDelay);
+	}
+
+	private synchronized IStatus reparse(IProgressMonitor monitor) {
+		try {
+			return compile(monitor);
+		} finally {
+			if (disposed)
+				release();
+		}
+	}
+
+	private IStatus compile(IProgressMonitor monitor) {
+		if (disposed || project == null)
+			return Status.OK_STATUS;
+		String text;
+		long stamp;
+		do {
+			stamp = getModificationStamp();
+			text = document.get();
+		} while (stamp != getModificationStamp());
+		try {
+			if (sourceFile == null) {
+				sourceFile = File.createTempFile("AfraTempFile", "model.rebeca");
+				sourceFile.deleteOnExit();
+			}
+			Files.write(sourceFile.toPath(), text.getBytes(StandardCharsets.UTF_8));
+			if (context == null) {
+				context = new AnnotationConfigApplicationContext(RMCConfig.class, CompilerConfig.class);
+				context.getAutowireCapableBeanFactory().autowireBean(this);
+			}
+			Set<CompilerExtension> compationExtensions =
+					CompilationAndCodeGenerationProcess.retrieveCompationExtension(project);
+			CoreVersion version = CoreRebecaProjectPropertyPage.getProjectLanguageVersion(project);
+			exceptionContainer.getExceptions().clear();
+			exceptionContainer.getWarnings().clear();
+			Pair<RebecaModel, SymbolTable> compilationResult =
+					modelCompiler.compileRebecaFile(sourceFile, compationExtensions, version);
+			if (monitor.isCanceled() || disposed)
+				return Status.CANCEL_STATUS;
+			upToDate = stamp == getModificationStamp();
+			setProblems(stamp, exceptionContainer.getExceptions().get(sourceFile),
+					exceptionContainer.getWarnings().get(sourceFile));
+			if (exceptionContainer.exceptionsIsEmpty() &&
+					compilationResult != null && compilationResult.getFirst() != null &&
+					compilationResult.getFirst().getRebecaCode() != null &&
+					compilationResult.getSecond() != null) {
+				model = compilationResult;
+				modelStamp = stamp;
+				modelSource = text;
+				for (Listener listener : listeners)
+					listener.modelChanged(this);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} catch (RuntimeException e) {
+			// The source does not compile; the last model is kept
+			upToDate = stamp == getModificationStamp();
+		}
+		return Status.OK_STATUS;
+	}
+
+	private void release() {
+		listeners.clear();
+		if (sourceFile != null) {
+			sourceFile.delete();
+			sourceFile = null;
+		}
+		if (context != null) {
+			context.close();
+			context = null;
+		}
+	}
+
+	private void setProblems(long stamp, Set<Exception> errors, Set<Exception> warnings) {
+		this.errors = errors == null ? Collections.<Exception>emptySet() : new HashSet<Exception>(errors);
+		this.warnings = warnings == null ? Collections.<Exception>emptySet() : new HashSet<Exception>(warnings);
+		problemsStamp = stamp;
+		for (Listener listener : listeners)
+			listener.problemsChanged(this);
+	}
+
+	private long getModificationStamp() {
+		return document instanceof IDocumentExtension4 ?
+				((IDocumentExtension4) document).getModificationStamp() :
+				IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+}
@@ -0,0 +1,353 @@
+package org.rebecalang.afra.ideplugin.editors.rebeca;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.BadPositionCategoryException;
+import org.eclipse.jface.text.DefaultPositionUpdater;
+import org.eclipse.jface.text.IPositionUpdater;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.SelectionChangedEvent;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.ui.views.contentoutline.ContentOutlinePage;
+import org.rebecalang.afra.ideplugin.index.FileSymbols;
+import org.rebecalang.afra.ideplugin.index.RebecaSymbol;
+import org.rebecalang.afra.ideplugin.index.RebecaSymbol.Kind;
+import org.rebecalang.afra.ideplugin.index.SymbolScanner;
+import org.rebecalang.compiler.modelcompiler.SymbolTable;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.FieldDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.MainRebecDefinition;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.MethodDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.ReactiveClassDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.RebecaModel;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.VariableDeclarator;
+import org.rebecalang.compiler.utils.Pair;
+
+/**
+ * The outline of a Rebeca editor: its reactive classes with their known
+ * rebecs, state variables and msgsrvs, and the rebecs of main. The outline
+ * is built in a job whenever the {@link RebecaModelCache} of the document
+ * has a new model, and is shown by a virtual tree which asks for the nodes
+ * as they become visible. Nodes which did not change keep their place in
+ * the tree, so only the changed subtrees are replaced.
+ */
+public class RebecaOutlinePage extends ContentOutlinePage implements RebecaModelCache.Listener {
+
+	private static final String CATEGORY = "__rebeca_outline";
+
+	private static class OutlineNode {
+		final Kind kind;
+		final String name;
+		final String type;
+		OutlineNode parent;
+		OutlineNode[] children = new OutlineNode[0];
+		/**
+		 * The name in the document, which moves with the text; null when the
+		 * name was not found in the source
+		 */
+		Position position;
+
+		OutlineNode(Kind kind, String name, String type) {
+			this.kind = kind;
+			this.name = name;
+			this.type = type;
+		}
+
+		String getKey() {
+			return kind + ":" + name;
+		}
+
+		/**
+		 * Tells whether the other node is labeled the same as this one.
+		 */
+		boolean isSame(OutlineNode other) {
+			return kind == other.kind && name.equals(other.name) &&
+					(type == null ? other.type == null : type.equals(other.type));
+		}
+
+		void setChildren(List<OutlineNode> nodes) {
+			children = nodes.toArray(new OutlineNode[nodes.size()]);
+			for (OutlineNode child : children)
+				child.parent = this;
+		}
+
+		@Override
+		public String toString() {
+			if (kind == Kind.MSGSRV)
+				return name + "()";
+			return type == null ? name : name + " : " + type;
+		}
+	}
+
+	private class LazyContentProvider implements ILazyTreeContentProvider {
+
+		@Override
+		public void updateElement(Object parent, int index) {
+			OutlineNode[] children = ((OutlineNode) parent).children;
+			if (index >= children.length)
+				return;
+			getTreeViewer().replace(parent, index, children[index]);
+			getTreeViewer().setChildCount(children[index], children[index].children.length);
+		}
+
+		@Override
+		public void updateChildCount(Object element, int currentChildCount) {
+			int count = ((OutlineNode) element).children.length;
+			if (count != currentChildCount)
+				getTreeViewer().setChildCount(element, count);
+		}
+
+		@Override
+		public Object getParent(Object element) {
+			return ((OutlineNode) element).parent;
+		}
+
+		@Override
+		public void dispose() {
+		}
+
+		@Override
+		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		}
+	}
+
+	private final RebecaEditor editor;
+	private final RebecaDocument document;
+	private final IPositionUpdater positionUpdater = new DefaultPositionUpdater(CATEGORY);
+	private final Job outlineJob;
+
+	/**
+	 * The input of the tree; only used in the UI thread
+	 */
+	private final OutlineNode root = new OutlineNode(null, "", null);
+	private volatile boolean disposed;
+
+	public RebecaOutlinePage(RebecaEditor editor, RebecaDocument document) {
+		this.editor = editor;
+		this.document = document;
+		outlineJob = new Job("Outlining Rebeca model") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				outline();
+				return Status.OK_STATUS;
+			}
+		};
+		outlineJob.setSystem(true);
+		outlineJob.setPriority(Job.DECORATE);
+	}
+
+	@Override
+	protected int getTreeStyle() {
+		return SWT.SINGLE | SWT.H_SCROLL | SWT.V_SCROLL | SWT.VIRTUAL;
+	}
+
+	@Override
+	public void createControl(Composite parent) {
+		super.createControl(parent);
+		TreeViewer viewer = getTreeViewer();
+		viewer.setUseHashlookup(true);
+		viewer.setContentProvider(new LazyContentProvider());
+		viewer.setLabelProvider(new LabelProvider());
+		viewer.setInput(root);
+		document.addPositionCategory(CATEGORY);
+		document.addPositionUpdater(positionUpdater);
+		document.getModelCache().addListener(this);
+		outlineJob.schedule();
+	}
+
+	@Override
+	public void dispose() {
+		disposed = true;
+		document.getModelCache().removeListener(this);
+		outlineJob.cancel();
+		document.removePositionUpdater(positionUpdater);
+		try {
+			document.removePositionCategory(CATEGORY);
+		} catch (BadPositionCategoryException e) {
+		}
+		super.dispose();
+	}
+
+	@Override
+	public void selectionChanged(SelectionChangedEvent event) {
+		super.selectionChanged(event);
+		Object element = ((IStructuredSelection) event.getSelection()).getFirstElement();
+		if (!(element instanceof OutlineNode))
+			return;
+		Position position = ((OutlineNode) element).position;
+		if (position != null && !position.isDeleted())
+			editor.selectAndReveal(position.getOffset(), position.getLength());
+	}
+
+	@Override
+	public void modelChanged(RebecaModelCache cache) {
+		outlineJob.schedule();
+	}
+
+	@Override
+	public void problemsChanged(RebecaModelCache cache) {
+	}
+
+	private void outline() {
+		RebecaModelCache cache = document.getModelCache();
+		Pair<RebecaModel, SymbolTable> model;
+		String source;
+		long stamp;
+		synchronized (cache) {
+			model = cache.getModel();
+			source = cache.getModelSource();
+			stamp = cache.getModelStamp();
+		}
+		if (model == null || source == null || disposed)
+			return;
+		OutlineNode outline = createOutline(model.getFirst(), source);
+		Control control = getControl();
+		if (control == null || control.isDisposed())
+			return;
+		control.getDisplay().asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				// The positions are in older contents; the next model outlines the current ones
+				if (!disposed && !getControl().isDisposed() && document.getModificationStamp() == stamp)
+					apply(outline);
+			}
+		});
+	}
+
+	/*
+	 * Model
+	 */
+
+	/**
+	 * Builds the outline of the given model, with the positions of the names
+	 * in the source it was compiled from as found by {@link SymbolScanner}.
+	 */
+	private static OutlineNode createOutline(RebecaModel rebecaModel, String source) {
+		Map<String, RebecaSymbol> declarations = new HashMap<String, RebecaSymbol>();
+		FileSymbols symbols = SymbolScanner.scan("", 0, source);
+		for (RebecaSymbol symbol : symbols.getDeclarations())
+			declarations.put(symbol.getKind() + ":" + symbol.getContainer() + ":" + symbol.getName(), symbol);
+
+		List<OutlineNode> nodes = new ArrayList<OutlineNode>();
+		for (ReactiveClassDeclaration rcd : rebecaModel.getRebecaCode().getReactiveClassDeclaration()) {
+			OutlineNode classNode = createNode(Kind.REACTIVE_CLASS, null, rcd.getName(), declarations);
+			List<OutlineNode> members = new ArrayList<OutlineNode>();
+			addFields(Kind.KNOWN_REBEC, rcd.getName(), rcd.getKnownRebecs(), declarations, members);
+			addFields(Kind.STATE_VARIABLE, rcd.getName(), rcd.getStatevars(), declarations, members);
+			for (MethodDeclaration md : rcd.getMsgsrvs())
+				members.add(createNode(Kind.MSGSRV, rcd.getName(), md.getName(), declarations));
+			classNode.setChildren(members);
+			nodes.add(classNode);
+		}
+		OutlineNode mainNode = new OutlineNode(null, "main", null);
+		List<OutlineNode> mainRebecs = new ArrayList<OutlineNode>();
+		for (MainRebecDefinition mrd : rebecaModel.getRebecaCode().getMainDeclaration().getMainRebecDefinition())
+			mainRebecs.add(createNode(Kind.MAIN_REBEC, null, mrd.getName(), declarations));
+		mainNode.setChildren(mainRebecs);
+		nodes.add(mainNode);
+
+		OutlineNode outline = new OutlineNode(null, "", null);
+		outline.setChildren(nodes);
+		return outline;
+	}
+
+	private static void addFields(Kind kind, String className, List<FieldDeclaration> fields,
+			Map<String, RebecaSymbol> declarations, List<OutlineNode> nodes) {
+		for (FieldDeclaration fd : fields)
+			for (VariableDeclarator vd : fd.getVariableDeclarators())
+				nodes.add(createNode(kind, className, vd.getVariableName(), declarations));
+	}
+
+	private static OutlineNode createNode(Kind kind, String container, String name,
+			Map<String, RebecaSymbol> declarations) {
+		RebecaSymbol symbol = declarations.get(kind + ":" + container + ":" + name);
+		OutlineNode node = new OutlineNode(kind, name, symbol == null ? null : symbol.getType());
+		if (symbol != null)
+			node.position = new Position(symbol.getOffset(), symbol.getLength());
+		return node;
+	}
+
+	/*
+	 * Tree
+	 */
+
+	/**
+	 * Moves the positions of the document to the new outline and replaces
+	 * the nodes of the tree which changed.
+	 */
+	private void apply(OutlineNode outline) {
+		try {
+			document.removePositionCategory(CATEGORY);
+		} catch (BadPositionCategoryException e) {
+		}
+		document.addPositionCategory(CATEGORY);
+		update(root, outline);
+	}
+
+	/*
+	 * Makes the node in the tree show the children of the fresh node with
+	 * the same label. The children which are labeled the same are kept and
+	 * updated in turn, and the others are replaced by the fresh ones.
+	 */
+	private void update(OutlineNode node, OutlineNode fresh) {
+		node.position = fresh.position;
+		addPosition(node.position);
+		Map<String, OutlineNode> children = new HashMap<String, OutlineNode>();
+		for (OutlineNode child : node.children)
+			children.put(child.getKey(), child);
+		OutlineNode[] previous = node.children;
+		List<OutlineNode> updated = new ArrayList<OutlineNode>(fresh.children.length);
+		for (OutlineNode freshChild : fresh.children) {
+			OutlineNode child = children.remove(freshChild.getKey());
+			if (child != null && child.isSame(freshChild)) {
+				update(child, freshChild);
+				updated.add(child);
+			} else {
+				addPositions(freshChild);
+				updated.add(freshChild);
+			}
+		}
+		node.setChildren(updated);
+
+		TreeViewer viewer = getTreeViewer();
+		if (previous.length != node.children.length)
+			viewer.setChildCount(node, node.children.length);
+		for (int index = 0; index < node.children.length; index++) {
+			OutlineNode child = node.children[index];
+			if (index < previous.length && previous[index] == child)
+				continue;
+			viewer.replace(node, index, child);
+			viewer.setChildCount(child, child.children.length);
+		}
+	}
+
+	private void addPositions(OutlineNode node) {
+		addPosition(node.position);
+		for (OutlineNode child : node.children)
+			addPositions(child);
+	}
+
+	private void addPosition(Position position) {
+		if (position == null)
+			return;
+		try {
+			document.addPosition(CATEGORY, position);
+		} catch (BadLocationException | BadPositionCategoryException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -13,5 +13,10 @@ public class RebecaPreferenceInitializer extends GeneralPreferenceInitializer {
 		setDefaultAttr(preferences, "Rebeca.String", "00,00,128");
 		setDefaultAttr(preferences, "Rebeca.Default", "00,00,00");
 		setDefault(preferences, "Rebeca.KeyWord", "128,00,128", true);
+		setDefaultAttr(preferences, "Rebeca.ReactiveClass", "00,80,50");
+		setDefault(preferences, "Rebeca.Msgsrv", "00,00,00", true);
+		setDefaultAttr(preferences, "Rebeca.KnownRebec", "100,70,50");
+		setDefaultAttr(preferences, "Rebeca.StateVariable", "00,00,192");
+		setDefaultAttr(preferences, "Rebeca.LocalVariable", "106,62,62");
 	}
 }
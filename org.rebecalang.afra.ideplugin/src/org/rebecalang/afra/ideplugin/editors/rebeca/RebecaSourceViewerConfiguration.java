@@ -4,12 +4,12 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.contentassist.ContentAssistant;
 import org.eclipse.jface.text.contentassist.IContentAssistant;
 import org.eclipse.jface.text.contentassist.IContentAssistProcessor;
-import org.eclipse.jface.text.rules.RuleBasedScanner;
-import org.eclipse.jface.text.rules.Token;
+import org.eclipse.jface.text.hyperlink.IHyperlinkDetector;
 import org.eclipse.jface.text.source.ISourceViewer;
 import org.rebecalang.afra.ideplugin.editors.ColorManager;
 import org.rebecalang.afra.ideplugin.editors.GeneralSourceViewerConfiguration;
 import org.rebecalang.afra.ideplugin.editors.GeneralTextAttribute;
+import org.rebecalang.afra.ideplugin.editors.SourceLexer;
 import org.eclipse.jface.text.reconciler.IReconciler;
 import org.eclipse.jface.text.reconciler.MonoReconciler;
 
@@ -17,6 +17,7 @@ import org.eclipse.jface.text.reconciler.MonoReconciler;
 public class RebecaSourceViewerConfiguration extends GeneralSourceViewerConfiguration {
 
 	private RebecaEditor editor;
+	private RebecaReconcilingStrategy reconcilingStrategy;
 
 	public RebecaSourceViewerConfiguration(ColorManager cm, RebecaEditor editor) {
 		super(cm);
@@ -24,8 +25,23 @@ public class RebecaSourceViewerConfiguration extends GeneralSourceViewerConfigur
 	}
 
 	@Override
-	public RuleBasedScanner createScanner() {
-		return new RebecaScanner(colorManager);
+	public SourceLexer createLexer() {
+		return new RebecaScanner();
+	}
+
+	@Override
+	protected GeneralTextAttribute getDefaultAttribute() {
+		return RebecaTextAttribute.DEFAULT;
+	}
+
+	@Override
+	protected GeneralTextAttribute getKeywordAttribute() {
+		return RebecaTextAttribute.KEY_WORD;
+	}
+
+	@Override
+	protected boolean isLargeFile() {
+		return editor.isLargeFile();
 	}
 
 	@Override
@@ -38,35 +54,40 @@ public class RebecaSourceViewerConfiguration extends GeneralSourceViewerConfigur
 		return new RebecaPartitionScanner().getContentTypes();
 	}
 
-	@Override
-	protected RuleBasedScanner getScanner() {
-		if (scanner == null)
-		{
-			scanner = createScanner();
-			scanner.setDefaultReturnToken(new Token(
-					RebecaTextAttribute.DEFAULT.getTextAttribute(colorManager)));
-		}
-		return scanner;
-	}
-	
 	public IContentAssistant getContentAssistant(ISourceViewer sv) {
 		ContentAssistant contentAssist = new ContentAssistant();
 		IContentAssistProcessor cap = new CompletionProcessor(this.editor);
 		contentAssist.setContentAssistProcessor(cap, IDocument.DEFAULT_CONTENT_TYPE);
-		contentAssist.enableAutoActivation(true);
+		// Completion of a large file waits to be asked for
+		contentAssist.enableAutoActivation(!editor.isLargeFile());
 		contentAssist.enableColoredLabels(true);
 		contentAssist.enableAutoInsert(true);
 		contentAssist.setInformationControlCreator(getInformationControlCreator(sv));
 		return contentAssist;
    }
+
+	@Override
+	public IHyperlinkDetector[] getHyperlinkDetectors(ISourceViewer sourceViewer) {
+		IHyperlinkDetector[] inherited = super.getHyperlinkDetectors(sourceViewer);
+		IHyperlinkDetector[] detectors = new IHyperlinkDetector[inherited == null ? 1 : inherited.length + 1];
+		detectors[0] = new RebecaHyperlinkDetector(this.editor);
+		if (inherited != null)
+			System.arraycopy(inherited, 0, detectors, 1, inherited.length);
+		return detectors;
+	}
+
    public IReconciler getReconciler(ISourceViewer sourceViewer)
     {
-        RebecaReconcilingStrategy strategy = new RebecaReconcilingStrategy();
-        strategy.setEditor(this.editor);
+        reconcilingStrategy = new RebecaReconcilingStrategy();
+        reconcilingStrategy.setEditor(this.editor);
         
-        MonoReconciler reconciler = new MonoReconciler(strategy,false);
+        MonoReconciler reconciler = new MonoReconciler(reconcilingStrategy,false);
         
         return reconciler;
     }
+
+    public RebecaReconcilingStrategy getReconcilingStrategy() {
+        return reconcilingStrategy;
+    }
 	
 }
@@ -9,6 +9,11 @@ public final class RebecaTextAttribute extends GeneralTextAttribute {
 	public static final RebecaTextAttribute STRING = new RebecaTextAttribute();
 	public static final RebecaTextAttribute DEFAULT = new RebecaTextAttribute();
 	public static final RebecaTextAttribute KEY_WORD = new RebecaTextAttribute();
+	public static final RebecaTextAttribute REACTIVE_CLASS = new RebecaTextAttribute();
+	public static final RebecaTextAttribute MSGSRV = new RebecaTextAttribute();
+	public static final RebecaTextAttribute KNOWN_REBEC = new RebecaTextAttribute();
+	public static final RebecaTextAttribute STATE_VARIABLE = new RebecaTextAttribute();
+	public static final RebecaTextAttribute LOCAL_VARIABLE = new RebecaTextAttribute();
 
 	private RebecaTextAttribute()
 	{
@@ -22,6 +27,11 @@ public final class RebecaTextAttribute extends GeneralTextAttribute {
 		readColor(STRING, "Rebeca.String");
 		readColor(DEFAULT, "Rebeca.Default");
 		readColor(KEY_WORD, "Rebeca.KeyWord");
+		readColor(REACTIVE_CLASS, "Rebeca.ReactiveClass");
+		readColor(MSGSRV, "Rebeca.Msgsrv");
+		readColor(KNOWN_REBEC, "Rebeca.KnownRebec");
+		readColor(STATE_VARIABLE, "Rebeca.StateVariable");
+		readColor(LOCAL_VARIABLE, "Rebeca.LocalVariable");
 	}
 
 }
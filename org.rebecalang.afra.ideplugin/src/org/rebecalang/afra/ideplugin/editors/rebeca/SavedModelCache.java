@@ -0,0 +1,186 @@
+package org.rebecalang.afra.ideplugin.editors.rebeca;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.rebecalang.afra.ideplugin.handler.CompilationAndCodeGenerationProcess;
+import org.rebecalang.afra.ideplugin.preference.CoreRebecaProjectPropertyPage;
+import org.rebecalang.compiler.CompilerConfig;
+import org.rebecalang.compiler.modelcompiler.RebecaModelCompiler;
+import org.rebecalang.compiler.modelcompiler.SymbolTable;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.RebecaModel;
+import org.rebecalang.compiler.utils.CompilerExtension;
+import org.rebecalang.compiler.utils.CoreVersion;
+import org.rebecalang.compiler.utils.ExceptionContainer;
+import org.rebecalang.compiler.utils.Pair;
+import org.rebecalang.rmc.RMCConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * The models compiled from the saved Rebeca files of the workspace, shared by
+ * the features which check other files against a model, like the property
+ * editor. Unlike {@link RebecaModelCache}, which follows the contents of an
+ * open editor, a model here is the one the model checker would use, and a
+ * file is compiled again only after it has been saved since.
+ */
+public class SavedModelCache implements IResourceChangeListener {
+
+	public interface Listener {
+		/**
+		 * Called from the thread which reported the change, when the given
+		 * Rebeca file has been saved or removed.
+		 */
+		void modelChanged(File rebecaFile);
+	}
+
+	private static class Entry {
+		final long lastModified;
+		final Pair<RebecaModel, SymbolTable> model;
+
+		Entry(long lastModified, Pair<RebecaModel, SymbolTable> model) {
+			this.lastModified = lastModified;
+			this.model = model;
+		}
+	}
+
+	private static SavedModelCache cache;
+
+	@Autowired
+	RebecaModelCompiler modelCompiler;
+
+	@Autowired
+	ExceptionContainer exceptionContainer;
+
+	private AnnotationConfigApplicationContext context;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private final Map<String, Pair<RebecaModel, SymbolTable>> lastModels =
+			new ConcurrentHashMap<String, Pair<RebecaModel, SymbolTable>>();
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+	private SavedModelCache() {
+	}
+
+	/**
+	 * Returns the cache of the workspace, starting to follow the changes of
+	 * the workspace on first use.
+	 */
+	public static synchronized SavedModelCache getDefault() {
+		if (cache == null) {
+			cache = new SavedModelCache();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(cache, IResourceChangeEvent.POST_CHANGE);
+		}
+		return cache;
+	}
+
+	public static synchronized void shutdown() {
+		if (cache == null)
+			return;
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(cache);
+		synchronized (cache) {
+			cache.entries.clear();
+			cache.lastModels.clear();
+			cache.listeners.clear();
+			if (cache.context != null)
+				cache.context.close();
+		}
+		cache = null;
+	}
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Returns the model of the given saved Rebeca file, compiling the file
+	 * when it has been saved since its last compilation, or null when the
+	 * file does not exist or has errors. This may take as long as a
+	 * compilation, so it is meant for background jobs.
+	 */
+	public synchronized Pair<RebecaModel, SymbolTable> getModel(IProject project, File rebecaFile) {
+		if (!rebecaFile.isFile())
+			return null;
+		long lastModified = rebecaFile.lastModified();
+		Entry entry = entries.get(rebecaFile.getAbsolutePath());
+		if (entry != null && entry.lastModified == lastModified)
+			return entry.model;
+		Pair<RebecaModel, SymbolTable> model = null;
+		try {
+			if (context == null) {
+				context = new AnnotationConfigApplicationContext(RMCConfig.class, CompilerConfig.class);
+				context.getAutowireCapableBeanFactory().autowireBean(this);
+			}
+			Set<CompilerExtension> compationExtensions =
+					CompilationAndCodeGenerationProcess.retrieveCompationExtension(project);
+			CoreVersion version = CoreRebecaProjectPropertyPage.getProjectLanguageVersion(project);
+			exceptionContainer.getExceptions().clear();
+			exceptionContainer.getWarnings().clear();
+			Pair<RebecaModel, SymbolTable> compilationResult =
+					modelCompiler.compileRebecaFile(rebecaFile, compationExtensions, version);
+			if (exceptionContainer.exceptionsIsEmpty() && compilationResult != null &&
+					compilationResult.getFirst() != null && compilationResult.getFirst().getRebecaCode() != null &&
+					compilationResult.getSecond() != null)
+				model = compilationResult;
+		} catch (RuntimeException e) {
+			// The file does not compile; it is not compiled again until saved
+		}
+		entries.put(rebecaFile.getAbsolutePath(), new Entry(lastModified, model));
+		if (model != null)
+			lastModels.put(rebecaFile.getAbsolutePath(), model);
+		return model;
+	}
+
+	/**
+	 * Returns the last model which compiled from the given Rebeca file
+	 * without compiling it, so that the UI thread can use it; it may be older
+	 * than the saved file, or null.
+	 */
+	public Pair<RebecaModel, SymbolTable> peekModel(File rebecaFile) {
+		return lastModels.get(rebecaFile.getAbsolutePath());
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null)
+			return;
+		try {
+			event.getDelta().accept(delta -> {
+				IResource resource = delta.getResource();
+				if (resource.getType() == IResource.FILE &&
+						"rebeca".equals(resource.getFileExtension()) && resource.getLocation() != null) {
+					// Marker and property changes leave the model as it is
+					if (delta.getKind() != IResourceDelta.REMOVED &&
+							(delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) == 0)
+						return false;
+					File file = resource.getLocation().toFile();
+					// A saved file is compiled again on the next request, as its stamp differs
+					if (delta.getKind() == IResourceDelta.REMOVED) {
+						entries.remove(file.getAbsolutePath());
+						lastModels.remove(file.getAbsolutePath());
+					}
+					for (Listener listener : listeners)
+						listener.modelChanged(file);
+				}
+				return true;
+			});
+		} catch (CoreException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,417 @@
+package org.rebecalang.afra.ideplugin.editors.rebeca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.BadPositionCategoryException;
+import org.eclipse.jface.text.DefaultPositionUpdater;
+import org.eclipse.jface.text.IPositionUpdater;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextPresentationListener;
+import org.eclipse.jface.text.ITextViewerExtension2;
+import org.eclipse.jface.text.ITextViewerExtension4;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.TextAttribute;
+import org.eclipse.jface.text.TextPresentation;
+import org.eclipse.jface.text.source.ISourceViewer;
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.custom.StyledText;
+import org.rebecalang.afra.ideplugin.editors.ColorManager;
+import org.rebecalang.afra.ideplugin.index.FileSymbols;
+import org.rebecalang.afra.ideplugin.index.RebecaSymbol;
+import org.rebecalang.afra.ideplugin.index.SymbolScanner;
+import org.rebecalang.afra.ideplugin.index.SymbolScanner.Token;
+import org.rebecalang.compiler.modelcompiler.SymbolTable;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.FieldDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.MainRebecDefinition;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.MethodDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.ReactiveClassDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.RebecaModel;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.VariableDeclarator;
+import org.rebecalang.compiler.utils.Pair;
+
+/**
+ * Colors the names of a Rebeca editor by what they denote: reactive classes,
+ * msgsrvs, known rebecs, state variables and local variables. The names are
+ * found in a job whenever the {@link RebecaModelCache} of the document has a
+ * new model, and are kept as positions of the document so that they move
+ * with the text until the next model. Only the regions whose names changed
+ * are presented again, on top of the lexical highlighting.
+ */
+public class SemanticHighlighter implements RebecaModelCache.Listener, ITextPresentationListener {
+
+	private static final String CATEGORY = "__rebeca_semantic_highlighting";
+
+	/**
+	 * Changed regions closer than this are presented again together.
+	 */
+	private static final int MERGE_GAP = 256;
+
+	private static final Set<String> PRIMITIVE_TYPES = new HashSet<String>(
+			Arrays.asList("boolean", "byte", "short", "int", "float", "double"));
+
+	private static class HighlightedPosition extends Position {
+		final RebecaTextAttribute attribute;
+
+		HighlightedPosition(int offset, int length, RebecaTextAttribute attribute) {
+			super(offset, length);
+			this.attribute = attribute;
+		}
+
+		boolean isSame(HighlightedPosition other) {
+			return offset == other.offset && length == other.length && attribute == other.attribute;
+		}
+	}
+
+	private final RebecaDocument document;
+	private final ISourceViewer viewer;
+	private final Map<RebecaTextAttribute, TextAttribute> textAttributes =
+			new HashMap<RebecaTextAttribute, TextAttribute>();
+	private final IPositionUpdater positionUpdater = new DefaultPositionUpdater(CATEGORY);
+	private final Job highlightJob;
+
+	/**
+	 * The positions presented, sorted by offset; only used in the UI thread
+	 */
+	private List<HighlightedPosition> positions = new ArrayList<HighlightedPosition>();
+	private volatile boolean installed;
+
+	public SemanticHighlighter(RebecaDocument document, ISourceViewer viewer, ColorManager colorManager) {
+		this.document = document;
+		this.viewer = viewer;
+		for (RebecaTextAttribute attribute : new RebecaTextAttribute[] { RebecaTextAttribute.REACTIVE_CLASS,
+				RebecaTextAttribute.MSGSRV, RebecaTextAttribute.KNOWN_REBEC, RebecaTextAttribute.STATE_VARIABLE,
+				RebecaTextAttribute.LOCAL_VARIABLE })
+			textAttributes.put(attribute, attribute.getTextAttribute(colorManager));
+		highlightJob = new Job("Highlighting Rebeca model") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				highlight();
+				return Status.OK_STATUS;
+			}
+		};
+		highlightJob.setSystem(true);
+		highlightJob.setPriority(Job.DECORATE);
+	}
+
+	public void install() {
+		installed = true;
+		document.addPositionCategory(CATEGORY);
+		document.addPositionUpdater(positionUpdater);
+		((ITextViewerExtension4) viewer).addTextPresentationListener(this);
+		document.getModelCache().addListener(this);
+		highlightJob.schedule();
+	}
+
+	public void uninstall() {
+		installed = false;
+		document.getModelCache().removeListener(this);
+		highlightJob.cancel();
+		((ITextViewerExtension4) viewer).removeTextPresentationListener(this);
+		document.removePositionUpdater(positionUpdater);
+		try {
+			document.removePositionCategory(CATEGORY);
+		} catch (BadPositionCategoryException e) {
+			e.printStackTrace();
+		}
+		positions = new ArrayList<HighlightedPosition>();
+	}
+
+	@Override
+	public void modelChanged(RebecaModelCache cache) {
+		highlightJob.schedule();
+	}
+
+	@Override
+	public void problemsChanged(RebecaModelCache cache) {
+	}
+
+	private void highlight() {
+		RebecaModelCache cache = document.getModelCache();
+		Pair<RebecaModel, SymbolTable> model;
+		String source;
+		long stamp;
+		synchronized (cache) {
+			model = cache.getModel();
+			source = cache.getModelSource();
+			stamp = cache.getModelStamp();
+		}
+		if (model == null || source == null || !installed)
+			return;
+		List<HighlightedPosition> newPositions = computePositions(model.getFirst(), source);
+		StyledText widget = viewer.getTextWidget();
+		if (widget == null || widget.isDisposed())
+			return;
+		widget.getDisplay().asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				// Names found in older contents are left to the next model
+				if (installed && document.getModificationStamp() == stamp)
+					apply(newPositions);
+			}
+		});
+	}
+
+	/*
+	 * Replaces the positions which changed and presents their regions again.
+	 * Both lists are sorted by offset.
+	 */
+	private void apply(List<HighlightedPosition> newPositions) {
+		List<HighlightedPosition> merged = new ArrayList<HighlightedPosition>(newPositions.size());
+		List<Position> changes = new ArrayList<Position>();
+		int oldIndex = 0, newIndex = 0;
+		try {
+			while (oldIndex < positions.size() || newIndex < newPositions.size()) {
+				HighlightedPosition oldPosition = oldIndex < positions.size() ? positions.get(oldIndex) : null;
+				HighlightedPosition newPosition = newIndex < newPositions.size() ? newPositions.get(newIndex) : null;
+				if (oldPosition != null && oldPosition.isDeleted()) {
+					oldIndex++;
+				} else if (oldPosition != null && newPosition != null && oldPosition.isSame(newPosition)) {
+					merged.add(oldPosition);
+					oldIndex++;
+					newIndex++;
+				} else if (newPosition == null || oldPosition != null && oldPosition.offset <= newPosition.offset) {
+					document.removePosition(CATEGORY, oldPosition);
+					changes.add(oldPosition);
+					oldIndex++;
+				} else {
+					document.addPosition(CATEGORY, newPosition);
+					merged.add(newPosition);
+					changes.add(newPosition);
+					newIndex++;
+				}
+			}
+		} catch (BadLocationException | BadPositionCategoryException e) {
+			e.printStackTrace();
+			return;
+		}
+		positions = merged;
+
+		int start = -1, end = -1;
+		for (Position change : changes) {
+			if (start >= 0 && change.offset > end + MERGE_GAP) {
+				invalidate(start, end);
+				start = -1;
+			}
+			if (start < 0) {
+				start = change.offset;
+				end = change.offset + change.length;
+			} else {
+				start = Math.min(start, change.offset);
+				end = Math.max(end, change.offset + change.length);
+			}
+		}
+		if (start >= 0)
+			invalidate(start, end);
+	}
+
+	private void invalidate(int start, int end) {
+		int length = Math.min(end, document.getLength()) - start;
+		if (length > 0)
+			((ITextViewerExtension2) viewer).invalidateTextPresentation(start, length);
+	}
+
+	@Override
+	public void applyTextPresentation(TextPresentation textPresentation) {
+		IRegion extent = textPresentation.getExtent();
+		int end = extent.getOffset() + extent.getLength();
+		List<StyleRange> ranges = new ArrayList<StyleRange>();
+		for (int index = firstIndexEndingAfter(extent.getOffset()); index < positions.size(); index++) {
+			HighlightedPosition position = positions.get(index);
+			if (position.offset >= end)
+				break;
+			if (position.isDeleted() || !position.overlapsWith(extent.getOffset(), extent.getLength()))
+				continue;
+			TextAttribute attribute = textAttributes.get(position.attribute);
+			int start = Math.max(position.offset, extent.getOffset());
+			int length = Math.min(position.offset + position.length, end) - start;
+			ranges.add(new StyleRange(start, length, attribute.getForeground(), attribute.getBackground(),
+					attribute.getStyle()));
+		}
+		if (!ranges.isEmpty())
+			textPresentation.mergeStyleRanges(ranges.toArray(new StyleRange[ranges.size()]));
+	}
+
+	private int firstIndexEndingAfter(int offset) {
+		int low = 0, high = positions.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			Position position = positions.get(middle);
+			if (position.offset + position.length <= offset)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/*
+	 * Model
+	 */
+
+	/**
+	 * Returns the positions of the names in the source the given model was
+	 * compiled from, sorted by offset. The names are found by
+	 * {@link SymbolScanner} and kept when the model declares them.
+	 */
+	private static List<HighlightedPosition> computePositions(RebecaModel rebecaModel, String source) {
+		Set<String> classNames = new HashSet<String>();
+		Map<String, Set<String>> methods = new HashMap<String, Set<String>>();
+		Map<String, Set<String>> knownRebecs = new HashMap<String, Set<String>>();
+		Map<String, Set<String>> stateVariables = new HashMap<String, Set<String>>();
+		Set<String> mainRebecs = new HashSet<String>();
+		for (ReactiveClassDeclaration rcd : rebecaModel.getRebecaCode().getReactiveClassDeclaration()) {
+			classNames.add(rcd.getName());
+			Set<String> names = new HashSet<String>();
+			List<MethodDeclaration> declarations = new ArrayList<MethodDeclaration>();
+			declarations.addAll(rcd.getMsgsrvs());
+			declarations.addAll(rcd.getSynchMethods());
+			for (MethodDeclaration md : declarations)
+				names.add(md.getName());
+			methods.put(rcd.getName(), names);
+			knownRebecs.put(rcd.getName(), getNames(rcd.getKnownRebecs()));
+			stateVariables.put(rcd.getName(), getNames(rcd.getStatevars()));
+		}
+		for (MainRebecDefinition mrd : rebecaModel.getRebecaCode().getMainDeclaration().getMainRebecDefinition())
+			mainRebecs.add(mrd.getName());
+
+		TreeMap<Integer, HighlightedPosition> byOffset = new TreeMap<Integer, HighlightedPosition>();
+		FileSymbols symbols = SymbolScanner.scan("", 0, source);
+		List<RebecaSymbol> found = new ArrayList<RebecaSymbol>(symbols.getDeclarations());
+		found.addAll(symbols.getReferences());
+		for (RebecaSymbol symbol : found) {
+			RebecaTextAttribute attribute = null;
+			switch (symbol.getKind()) {
+			case REACTIVE_CLASS:
+				attribute = classNames.contains(symbol.getName()) ? RebecaTextAttribute.REACTIVE_CLASS : null;
+				break;
+			case MSGSRV:
+				attribute = declares(methods, symbol) ? RebecaTextAttribute.MSGSRV : null;
+				break;
+			case KNOWN_REBEC:
+				attribute = declares(knownRebecs, symbol) ? RebecaTextAttribute.KNOWN_REBEC : null;
+				break;
+			case STATE_VARIABLE:
+				attribute = declares(stateVariables, symbol) ? RebecaTextAttribute.STATE_VARIABLE : null;
+				break;
+			case MAIN_REBEC:
+				attribute = mainRebecs.contains(symbol.getName()) ? RebecaTextAttribute.KNOWN_REBEC : null;
+				break;
+			}
+			if (attribute != null)
+				byOffset.put(symbol.getOffset(),
+						new HighlightedPosition(symbol.getOffset(), symbol.getLength(), attribute));
+		}
+		// Local variables hide the state variables of the same name
+		for (Token token : findLocalVariables(SymbolScanner.tokenize(source), classNames))
+			byOffset.put(token.offset,
+					new HighlightedPosition(token.offset, token.text.length(), RebecaTextAttribute.LOCAL_VARIABLE));
+		return new ArrayList<HighlightedPosition>(byOffset.values());
+	}
+
+	private static Set<String> getNames(List<FieldDeclaration> fields) {
+		Set<String> names = new HashSet<String>();
+		for (FieldDeclaration fd : fields)
+			for (VariableDeclarator vd : fd.getVariableDeclarators())
+				names.add(vd.getVariableName());
+		return names;
+	}
+
+	private static boolean declares(Map<String, Set<String>> names, RebecaSymbol symbol) {
+		if (symbol.getContainer() != null)
+			return names.containsKey(symbol.getContainer()) &&
+					names.get(symbol.getContainer()).contains(symbol.getName());
+		for (Set<String> classNames : names.values())
+			if (classNames.contains(symbol.getName()))
+				return true;
+		return false;
+	}
+
+	/*
+	 * "Type name" followed by one of , ; = [ ) declares a parameter in a
+	 * method header and a local variable in a method body, up to the end of
+	 * the block it is declared in. Declarations in parentheses, such as
+	 * parameters and the variables of for statements, belong to the block
+	 * which follows them.
+	 */
+	private static List<Token> findLocalVariables(List<Token> tokens, Set<String> classNames) {
+		List<Token> found = new ArrayList<Token>();
+		// The names of the enclosing blocks; null for the blocks of classes,
+		// their known rebecs and state variables, and main
+		List<Set<String>> blocks = new ArrayList<Set<String>>();
+		Set<String> pending = new HashSet<String>();
+		boolean classHeader = false;
+		int parentheses = 0;
+		for (int cnt = 0; cnt < tokens.size(); cnt++) {
+			Token token = tokens.get(cnt);
+			Set<String> block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+			if (token.text.equals("reactiveclass")) {
+				classHeader = true;
+			} else if (token.text.equals("{")) {
+				String previous = cnt > 0 ? tokens.get(cnt - 1).text : "";
+				boolean declarations = classHeader || blocks.isEmpty() || previous.equals("knownrebecs") ||
+						previous.equals("statevars");
+				blocks.add(declarations ? null : new HashSet<String>(pending));
+				classHeader = false;
+				pending.clear();
+			} else if (token.text.equals("}")) {
+				if (!blocks.isEmpty())
+					blocks.remove(blocks.size() - 1);
+				pending.clear();
+			} else if (token.text.equals("(")) {
+				parentheses++;
+			} else if (token.text.equals(")")) {
+				parentheses = Math.max(0, parentheses - 1);
+			} else if (token.text.equals(";")) {
+				if (parentheses == 0)
+					pending.clear();
+			} else if (isType(token, classNames) && (block != null || parentheses > 0 && !blocks.isEmpty())) {
+				for (int name = cnt + 1; isDeclarator(tokens, name, classNames); name += 2) {
+					(parentheses > 0 || block == null ? pending : block).add(tokens.get(name).text);
+					found.add(tokens.get(name));
+					cnt = name;
+					if (!tokens.get(name + 1).text.equals(","))
+						break;
+				}
+			} else if (Character.isJavaIdentifierStart(token.text.charAt(0)) && (cnt == 0 ||
+					!tokens.get(cnt - 1).text.equals(".")) && (cnt + 1 == tokens.size() ||
+					!tokens.get(cnt + 1).text.equals("(")) && isDeclared(token.text, blocks, pending)) {
+				found.add(token);
+			}
+		}
+		return found;
+	}
+
+	private static boolean isType(Token token, Set<String> classNames) {
+		return PRIMITIVE_TYPES.contains(token.text) || classNames.contains(token.text);
+	}
+
+	private static boolean isDeclarator(List<Token> tokens, int index, Set<String> classNames) {
+		if (index + 1 >= tokens.size())
+			return false;
+		Token name = tokens.get(index);
+		String next = tokens.get(index + 1).text;
+		return Character.isJavaIdentifierStart(name.text.charAt(0)) && !isType(name, classNames) &&
+				(next.equals(",") || next.equals(";") || next.equals("=") || next.equals("[") || next.equals(")"));
+	}
+
+	private static boolean isDeclared(String name, List<Set<String>> blocks, Set<String> pending) {
+		if (pending.contains(name))
+			return true;
+		for (Set<String> block : blocks)
+			if (block != null && block.contains(name))
+				return true;
+		return false;
+	}
+}
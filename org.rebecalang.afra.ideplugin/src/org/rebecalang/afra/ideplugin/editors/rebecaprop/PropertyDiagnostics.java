@@ -0,0 +1,256 @@
+package org.rebecalang.afra.ideplugin.editors.rebecaprop;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.Position;
+import org.rebecalang.afra.ideplugin.Activator;
+import org.rebecalang.afra.ideplugin.editors.DiagnosticAnnotations;
+import org.rebecalang.afra.ideplugin.editors.rebeca.SavedModelCache;
+import org.rebecalang.afra.ideplugin.handler.CompilationAndCodeGenerationProcess;
+import org.rebecalang.afra.ideplugin.index.SymbolScanner;
+import org.rebecalang.afra.ideplugin.preference.CoreRebecaProjectPropertyPage;
+import org.rebecalang.compiler.CompilerConfig;
+import org.rebecalang.compiler.modelcompiler.RebecaModelCompiler;
+import org.rebecalang.compiler.modelcompiler.SymbolTable;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.RebecaModel;
+import org.rebecalang.compiler.propertycompiler.PropertyCompiler;
+import org.rebecalang.compiler.utils.CompilerExtension;
+import org.rebecalang.compiler.utils.CoreVersion;
+import org.rebecalang.compiler.utils.ExceptionContainer;
+import org.rebecalang.compiler.utils.Pair;
+import org.rebecalang.rmc.RMCConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Checks a property document in the background against the saved Rebeca
+ * model next to it, once the document has been left alone for
+ * {@link #RECHECK_DELAY} milliseconds or the model has been saved, and shows
+ * the problems found on the editor. The references of the definitions to
+ * rebecs and state variables are checked against the model as they are
+ * typed, even while the property does not compile. A check still running
+ * when the document changes is canceled and its problems dropped.
+ *
+ * The model is taken from the {@link SavedModelCache}, so it is compiled
+ * once per save of the Rebeca file rather than once per check. The property
+ * compiler may change the model it checks against, so the checks of a
+ * document, which run one at a time, compile the property against a copy of
+ * the model of their own, compiled again when the saved model changes; the
+ * shared model is only read.
+ */
+public class PropertyDiagnostics implements IDocumentListener, SavedModelCache.Listener {
+
+	public static final long RECHECK_DELAY = 500;
+
+	@Autowired
+	RebecaModelCompiler modelCompiler;
+
+	@Autowired
+	PropertyCompiler propertyCompiler;
+
+	@Autowired
+	ExceptionContainer exceptionContainer;
+
+	private AnnotationConfigApplicationContext context;
+
+	private final IDocument document;
+	private final IFile file;
+	private final DiagnosticAnnotations annotations;
+	private final Job checkJob;
+	private File sourceFile;
+	private Pair<RebecaModel, SymbolTable> referencedModel;
+	private Pair<RebecaModel, SymbolTable> propertyModel;
+	private PropertyReferences references;
+	private volatile boolean disposed;
+
+	public PropertyDiagnostics(IDocument document, IFile file, DiagnosticAnnotations annotations) {
+		this.document = document;
+		this.file = file;
+		this.annotations = annotations;
+		checkJob = new Job("Checking Rebeca property") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return check(monitor);
+			}
+		};
+		checkJob.setSystem(true);
+		checkJob.setPriority(Job.DECORATE);
+		document.addDocumentListener(this);
+		SavedModelCache.getDefault().addListener(this);
+		checkJob.schedule();
+	}
+
+	/**
+	 * Stops checking the document without waiting for a running check; the
+	 * check job releases the compiler once it exits.
+	 */
+	public void dispose() {
+		disposed = true;
+		document.removeDocumentListener(this);
+		SavedModelCache.getDefault().removeListener(this);
+		checkJob.cancel();
+		checkJob.schedule();
+	}
+
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+	}
+
+	@Override
+	public void documentChanged(DocumentEvent event) {
+		checkJob.cancel();
+		checkJob.schedule(RECHECK_DELAY);
+	}
+
+	@Override
+	public void modelChanged(File rebecaFile) {
+		if (file != null && file.getRawLocation() != null && rebecaFile.getAbsolutePath().equals(
+				CompilationAndCodeGenerationProcess.getRebecaFileFromPropertyFile(file).getAbsolutePath()))
+			checkJob.schedule(RECHECK_DELAY);
+	}
+
+	private synchronized IStatus check(IProgressMonitor monitor) {
+		try {
+			return checkDocument(monitor);
+		} finally {
+			if (disposed)
+				release();
+		}
+	}
+
+	private IStatus checkDocument(IProgressMonitor monitor) {
+		if (disposed || file == null)
+			return Status.OK_STATUS;
+		String text;
+		long stamp;
+		do {
+			stamp = getModificationStamp();
+			text = document.get();
+		} while (stamp != getModificationStamp());
+		try {
+			IProject project = file.getProject();
+			File rebecaFile = CompilationAndCodeGenerationProcess.getRebecaFileFromPropertyFile(file);
+			if (!rebecaFile.isFile()) {
+				annotations.clear();
+				return Status.OK_STATUS;
+			}
+			Pair<RebecaModel, SymbolTable> compilationResult =
+					SavedModelCache.getDefault().getModel(project, rebecaFile);
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+			if (compilationResult == null) {
+				// The property cannot be checked against a model with errors
+				annotations.publish(stamp, Collections.<Exception>emptySet(), Collections.<Exception>emptySet());
+				return Status.OK_STATUS;
+			}
+			if (compilationResult != referencedModel) {
+				references = new PropertyReferences(compilationResult.getFirst(), compilationResult.getSecond());
+				referencedModel = compilationResult;
+				propertyModel = null;
+			}
+			Map<Position, String> unknownReferences = references.findUnknownReferences(SymbolScanner.tokenize(text));
+			if (sourceFile == null) {
+				sourceFile = File.createTempFile("AfraTempFile", "model.property");
+				sourceFile.deleteOnExit();
+			}
+			Files.write(sourceFile.toPath(), text.getBytes(StandardCharsets.UTF_8));
+			if (context == null) {
+				context = new AnnotationConfigApplicationContext(RMCConfig.class, CompilerConfig.class);
+				context.getAutowireCapableBeanFactory().autowireBean(this);
+			}
+			Set<CompilerExtension> compationExtensions =
+					CompilationAndCodeGenerationProcess.retrieveCompationExtension(project);
+			if (propertyModel == null)
+				propertyModel = compileModel(rebecaFile, compationExtensions,
+						CoreRebecaProjectPropertyPage.getProjectLanguageVersion(project));
+			if (monitor.isCanceled() || disposed)
+				return Status.CANCEL_STATUS;
+			Set<Exception> errors = Collections.emptySet();
+			Set<Exception> warnings = Collections.emptySet();
+			// Without a model of its own, which may happen when the model was saved
+			// again with errors, only the references are shown
+			if (propertyModel != null) {
+				try {
+					exceptionContainer.getExceptions().clear();
+					exceptionContainer.getWarnings().clear();
+					propertyCompiler.compilePropertyFile(sourceFile, propertyModel, compationExtensions);
+					errors = copy(exceptionContainer.getExceptions().get(sourceFile));
+					warnings = copy(exceptionContainer.getWarnings().get(sourceFile));
+				} catch (RuntimeException e) {
+					// The property does not compile; only the references are shown, as
+					// the problems of an earlier check were found in older contents
+				}
+			}
+			if (monitor.isCanceled() || disposed)
+				return Status.CANCEL_STATUS;
+			annotations.publish(stamp, errors, warnings, unknownReferences);
+		} catch (IOException e) {
+			e.printStackTrace();
+		} catch (RuntimeException e) {
+			// Checked on every change, so kept out of the console
+			if (Activator.getDefault() != null)
+				Activator.getDefault().getLog().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+						"Checking the property file failed", e));
+		}
+		return Status.OK_STATUS;
+	}
+
+	/*
+	 * Returns the model of the saved Rebeca file, or null when it has errors;
+	 * it may have been saved again since the SavedModelCache compiled it.
+	 */
+	private Pair<RebecaModel, SymbolTable> compileModel(File rebecaFile, Set<CompilerExtension> compationExtensions,
+			CoreVersion version) {
+		exceptionContainer.getExceptions().clear();
+		exceptionContainer.getWarnings().clear();
+		try {
+			Pair<RebecaModel, SymbolTable> compilationResult =
+					modelCompiler.compileRebecaFile(rebecaFile, compationExtensions, version);
+			if (exceptionContainer.exceptionsIsEmpty() && compilationResult != null &&
+					compilationResult.getFirst() != null && compilationResult.getFirst().getRebecaCode() != null &&
+					compilationResult.getSecond() != null)
+				return compilationResult;
+		} catch (RuntimeException e) {
+			// Checked again when the model is saved
+		}
+		return null;
+	}
+
+	private void release() {
+		if (sourceFile != null) {
+			sourceFile.delete();
+			sourceFile = null;
+		}
+		if (context != null) {
+			context.close();
+			context = null;
+		}
+	}
+
+	private static Set<Exception> copy(Set<Exception> problems) {
+		return problems == null ? Collections.<Exception>emptySet() : new HashSet<Exception>(problems);
+	}
+
+	private long getModificationStamp() {
+		return document instanceof IDocumentExtension4 ?
+				((IDocumentExtension4) document).getModificationStamp() :
+				IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+}
@@ -0,0 +1,148 @@
+package org.rebecalang.afra.ideplugin.editors.rebecaprop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.contentassist.CompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.rebecalang.afra.ideplugin.editors.rebeca.PrefixTrie;
+import org.rebecalang.afra.ideplugin.index.SymbolScanner.Token;
+import org.rebecalang.compiler.modelcompiler.SymbolTable;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.FieldDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.MainRebecDefinition;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.ReactiveClassDeclaration;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.RebecaModel;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.VariableDeclarator;
+
+/**
+ * The rebecs of a Rebeca model and their state variables, which a property
+ * refers to as rebec.variable in its definitions, indexed once per model to
+ * complete and check the references of property documents.
+ */
+public class PropertyReferences {
+
+	private static final String DEFINE = "define";
+
+	private final PrefixTrie<String> rebecs = new PrefixTrie<String>();
+	private final Map<String, PrefixTrie<String>> stateVariables = new HashMap<String, PrefixTrie<String>>();
+	/**
+	 * The variables of each rebec as the symbol table knows them, which
+	 * include those its class inherits
+	 */
+	private final Map<String, Set<String>> knownVariables = new HashMap<String, Set<String>>();
+
+	public PropertyReferences(RebecaModel rebecaModel, SymbolTable symbolTable) {
+		Map<String, PrefixTrie<String>> classVariables = new HashMap<String, PrefixTrie<String>>();
+		for (ReactiveClassDeclaration rcd : rebecaModel.getRebecaCode().getReactiveClassDeclaration()) {
+			PrefixTrie<String> variables = new PrefixTrie<String>();
+			for (FieldDeclaration fd : rcd.getStatevars())
+				for (VariableDeclarator vd : fd.getVariableDeclarators())
+					variables.add(vd.getVariableName(), vd.getVariableName());
+			classVariables.put(rcd.getName(), variables);
+		}
+		for (MainRebecDefinition mrd : rebecaModel.getRebecaCode().getMainDeclaration().getMainRebecDefinition()) {
+			rebecs.add(mrd.getName(), mrd.getName());
+			PrefixTrie<String> variables = classVariables.get(mrd.getType().getTypeName());
+			stateVariables.put(mrd.getName(), variables == null ? new PrefixTrie<String>() : variables);
+			Set<String> known = new HashSet<String>();
+			if (symbolTable != null && symbolTable.getVariableSymbolTable().get(mrd.getType()) != null) {
+				Enumeration<String> keys = symbolTable.getVariableSymbolTable().get(mrd.getType()).keys();
+				while (keys.hasMoreElements())
+					known.add(keys.nextElement());
+			}
+			knownVariables.put(mrd.getName(), known);
+		}
+	}
+
+	/**
+	 * Adds the proposals for the word ending at the given offset: the state
+	 * variables of the rebec before a dot, and the rebecs and the given
+	 * defined names otherwise.
+	 */
+	public void complete(String word, int offset, Collection<String> definedNames,
+			List<ICompletionProposal> proposals) {
+		int dot = word.lastIndexOf('.');
+		if (dot >= 0) {
+			PrefixTrie<String> variables = stateVariables.get(word.substring(0, dot));
+			if (variables != null)
+				addProposals(variables, word.substring(dot + 1), offset, proposals);
+			return;
+		}
+		addProposals(rebecs, word, offset, proposals);
+		for (String name : definedNames)
+			if (name.startsWith(word))
+				proposals.add(new CompletionProposal(name, offset - word.length(), word.length(), name.length()));
+	}
+
+	/**
+	 * Returns the references of the given tokens of a property to rebecs or
+	 * state variables which are not in the model, with the message to show
+	 * for each of them.
+	 */
+	public Map<Position, String> findUnknownReferences(List<Token> tokens) {
+		Map<Position, String> unknown = new LinkedHashMap<Position, String>();
+		for (int cnt = 0; cnt + 2 < tokens.size(); cnt++) {
+			Token rebec = tokens.get(cnt);
+			Token variable = tokens.get(cnt + 2);
+			if (!tokens.get(cnt + 1).text.equals(".") || !isName(rebec) || !isName(variable) ||
+					cnt > 0 && tokens.get(cnt - 1).text.equals("."))
+				continue;
+			if (!stateVariables.containsKey(rebec.text))
+				unknown.put(new Position(rebec.offset, rebec.text.length()),
+						"\"" + rebec.text + "\" is not a rebec of the model");
+			else if (stateVariables.get(rebec.text).get(variable.text).isEmpty() &&
+					!knownVariables.get(rebec.text).contains(variable.text))
+				unknown.put(new Position(variable.offset, variable.text.length()),
+						"\"" + variable.text + "\" is not a state variable of " + rebec.text);
+		}
+		return unknown;
+	}
+
+	/**
+	 * Returns the names the definitions of the given tokens of a property
+	 * define, in the order they are defined.
+	 */
+	public static Set<String> findDefinedNames(List<Token> tokens) {
+		Set<String> names = new LinkedHashSet<String>();
+		int depth = 0;
+		int defineDepth = -1;
+		for (int cnt = 0; cnt < tokens.size(); cnt++) {
+			String text = tokens.get(cnt).text;
+			if (text.equals("{")) {
+				depth++;
+				if (defineDepth < 0 && cnt > 0 && tokens.get(cnt - 1).text.equals(DEFINE))
+					defineDepth = depth;
+			} else if (text.equals("}")) {
+				if (depth == defineDepth)
+					defineDepth = -1;
+				depth--;
+			} else if (depth == defineDepth && isName(tokens.get(cnt)) && cnt + 1 < tokens.size() &&
+					tokens.get(cnt + 1).text.equals("=") &&
+					(cnt + 2 == tokens.size() || !tokens.get(cnt + 2).text.equals("=")) &&
+					(cnt == 0 || tokens.get(cnt - 1).text.equals(";") || tokens.get(cnt - 1).text.equals("{")))
+				names.add(text);
+		}
+		return names;
+	}
+
+	private static boolean isName(Token token) {
+		return Character.isJavaIdentifierStart(token.text.charAt(0));
+	}
+
+	private static void addProposals(PrefixTrie<String> trie, String prefix, int offset,
+			List<ICompletionProposal> proposals) {
+		List<String> names = new ArrayList<String>();
+		trie.find(prefix, names);
+		for (String name : names)
+			proposals.add(new CompletionProposal(name, offset - prefix.length(), prefix.length(), name.length()));
+	}
+}
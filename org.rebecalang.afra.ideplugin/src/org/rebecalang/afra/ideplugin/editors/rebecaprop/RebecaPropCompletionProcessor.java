@@ -0,0 +1,92 @@
+package org.rebecalang.afra.ideplugin.editors.rebecaprop;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.IContentAssistProcessor;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+import org.eclipse.jface.text.contentassist.IContextInformationValidator;
+import org.rebecalang.afra.ideplugin.editors.rebeca.SavedModelCache;
+import org.rebecalang.afra.ideplugin.handler.CompilationAndCodeGenerationProcess;
+import org.rebecalang.afra.ideplugin.index.SymbolScanner;
+import org.rebecalang.compiler.modelcompiler.SymbolTable;
+import org.rebecalang.compiler.modelcompiler.corerebeca.objectmodel.RebecaModel;
+import org.rebecalang.compiler.utils.Pair;
+
+/**
+ * Completes the names of the rebecs of the model next to a property file,
+ * their state variables after a dot, and the names the property defines.
+ * The model is the one {@link PropertyDiagnostics} last had compiled into
+ * the {@link SavedModelCache}, so no request compiles the model.
+ */
+public class RebecaPropCompletionProcessor implements IContentAssistProcessor {
+
+	private Pair<RebecaModel, SymbolTable> indexedModel;
+	private PropertyReferences references;
+
+	private PropertyReferences getReferences(RebecaPropDocument document) {
+		File rebecaFile = CompilationAndCodeGenerationProcess.getRebecaFileFromPropertyFile(document.getFile());
+		Pair<RebecaModel, SymbolTable> compilationResult = SavedModelCache.getDefault().peekModel(rebecaFile);
+		if (compilationResult != indexedModel) {
+			references = compilationResult == null ? null :
+				new PropertyReferences(compilationResult.getFirst(), compilationResult.getSecond());
+			indexedModel = compilationResult;
+		}
+		return references;
+	}
+
+	private String getCurrentWord(IDocument document, int offset) throws BadLocationException {
+		int start = offset;
+		while (start > 0 && (Character.isJavaIdentifierPart(document.getChar(start - 1)) ||
+				document.getChar(start - 1) == '.'))
+			start--;
+		return document.get(start, offset - start);
+	}
+
+	@Override
+	public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer, int offset) {
+		try {
+			IDocument document = viewer.getDocument();
+			if (!(document instanceof RebecaPropDocument) || ((RebecaPropDocument) document).getFile() == null)
+				return null;
+			ArrayList<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>();
+			PropertyReferences references = getReferences((RebecaPropDocument) document);
+			if (references != null)
+				references.complete(getCurrentWord(document, offset), offset,
+						PropertyReferences.findDefinedNames(SymbolScanner.tokenize(document.get())), proposals);
+			return proposals.toArray(new ICompletionProposal[proposals.size()]);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	@Override
+	public IContextInformation[] computeContextInformation(ITextViewer viewer, int offset) {
+		return null;
+	}
+
+	@Override
+	public char[] getCompletionProposalAutoActivationCharacters() {
+		return new char[] {'.'};
+	}
+
+	@Override
+	public char[] getContextInformationAutoActivationCharacters() {
+		return null;
+	}
+
+	@Override
+	public IContextInformationValidator getContextInformationValidator() {
+		return null;
+	}
+
+	@Override
+	public String getErrorMessage() {
+		return null;
+	}
+}
@@ -3,16 +3,28 @@ package org.rebecalang.afra.ideplugin.editors.rebecaprop;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.rebecalang.afra.ideplugin.editors.GeneralDocument;
-import org.rebecalang.afra.ideplugin.editors.GeneralRuleBasedPartitionScanner;
+import org.rebecalang.afra.ideplugin.editors.GeneralPartitionScanner;
 
 public class RebecaPropDocument extends GeneralDocument {
 
+	private PropertyDiagnostics diagnostics;
+
 	public RebecaPropDocument(IProject project, IFile file) {
 		super(project, file);
 	}
 
+	/**
+	 * Replaces the background checker of this document, disposing the
+	 * previous one.
+	 */
+	public synchronized void setDiagnostics(PropertyDiagnostics diagnostics) {
+		if (this.diagnostics != null)
+			this.diagnostics.dispose();
+		this.diagnostics = diagnostics;
+	}
+
 	@Override
-	public GeneralRuleBasedPartitionScanner createPartitionScanner() {
+	public GeneralPartitionScanner createPartitionScanner() {
 		return new RebecaPropPartitionScanner();
 	}
 
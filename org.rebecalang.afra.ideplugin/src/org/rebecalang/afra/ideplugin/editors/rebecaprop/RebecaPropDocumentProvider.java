@@ -2,6 +2,8 @@ package org.rebecalang.afra.ideplugin.editors.rebecaprop;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.rebecalang.afra.ideplugin.editors.DiagnosticAnnotations;
 import org.rebecalang.afra.ideplugin.editors.GeneralDocument;
 import org.rebecalang.afra.ideplugin.editors.GeneralFileDocumentProvider;
 
@@ -11,5 +13,27 @@ public class RebecaPropDocumentProvider extends GeneralFileDocumentProvider {
 	protected GeneralDocument getDocument(IProject project, IFile file) {
 		return new RebecaPropDocument(project, file);
 	}
+
+	/*
+	 * Each open property document is checked in the background as it is
+	 * edited, and the problems found are shown on the editor.
+	 */
+	@Override
+	protected ElementInfo createElementInfo(Object element) throws CoreException {
+		ElementInfo info = super.createElementInfo(element);
+		if (info.fDocument instanceof RebecaPropDocument) {
+			RebecaPropDocument document = (RebecaPropDocument) info.fDocument;
+			document.setDiagnostics(new PropertyDiagnostics(document, document.getFile(),
+					new DiagnosticAnnotations(document, info.fModel)));
+		}
+		return info;
+	}
+
+	@Override
+	protected void disposeElementInfo(Object element, ElementInfo info) {
+		if (info.fDocument instanceof RebecaPropDocument)
+			((RebecaPropDocument) info.fDocument).setDiagnostics(null);
+		super.disposeElementInfo(element, info);
+	}
 	
 }
@@ -1,15 +1,13 @@
 package org.rebecalang.afra.ideplugin.editors.rebecaprop;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.ui.editors.text.TextEditor;
 import org.rebecalang.afra.ideplugin.editors.ColorManager;
+import org.rebecalang.afra.ideplugin.editors.FoldingAnnotations;
 import org.eclipse.jface.text.Position;
-import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.jface.text.source.IVerticalRuler;
-import org.eclipse.jface.text.source.projection.ProjectionAnnotation;
 import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
 import org.eclipse.jface.text.source.projection.ProjectionSupport;
 import org.eclipse.jface.text.source.projection.ProjectionViewer;
@@ -64,28 +62,12 @@ public class RebecaPropEditor extends TextEditor {
 		annotationModel = viewer.getProjectionAnnotationModel();
 		
     }
-	private Annotation[] oldAnnotations;
+	private FoldingAnnotations foldingAnnotations = new FoldingAnnotations();
 	private ProjectionAnnotationModel annotationModel;
 	
-	public void updateFoldingStructure(ArrayList<Position> positions)
+	public void updateFoldingStructure(List<Position> positions)
 	{
-		Annotation[] annotations = new Annotation[positions.size()];
-		
-		//this will hold the new annotations along
-		//with their corresponding positions
-		HashMap<Annotation, Position> newAnnotations = new HashMap<Annotation, Position>();
-		
-		for(int i =0;i<positions.size();i++) {
-			ProjectionAnnotation annotation = new ProjectionAnnotation();
-			
-			newAnnotations.put(annotation, positions.get(i));
-			
-			annotations[i]=annotation;
-		}
-		
-		annotationModel.modifyAnnotations(oldAnnotations,newAnnotations,null);
-		
-		oldAnnotations=annotations;
+		foldingAnnotations.update(annotationModel, positions);
 	}
 	
     
@@ -1,8 +1,8 @@
 package org.rebecalang.afra.ideplugin.editors.rebecaprop;
 
-import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
@@ -10,12 +10,14 @@ import org.eclipse.jface.text.reconciler.DirtyRegion;
 import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
 import org.eclipse.jface.text.reconciler.IReconcilingStrategyExtension;
 import org.eclipse.swt.widgets.Display;
+import org.rebecalang.afra.ideplugin.editors.BraceStructure;
 
 public class RebecaPropReconcilingStrategy implements IReconcilingStrategy, IReconcilingStrategyExtension {
+    private static final int CLOSING_BRACE_EXTENT = 0;
+
     private RebecaPropEditor editor;
     private IDocument fDocument;
-    protected final ArrayList<Position> fPositions = new ArrayList<Position>();
-    protected int fRangeEnd;
+    private BraceStructure braceStructure;
 
     public RebecaPropEditor getEditor() {
         return this.editor;
@@ -25,16 +27,19 @@ public class RebecaPropReconcilingStrategy implements IReconcilingStrategy, IRec
         this.editor = editor;
     }
 
-    public void setDocument(IDocument document) {
+    public synchronized void setDocument(IDocument document) {
+        if (braceStructure != null)
+            braceStructure.dispose();
         this.fDocument = document;
+        braceStructure = new BraceStructure(fDocument, CLOSING_BRACE_EXTENT);
     }
 
     public void reconcile(DirtyRegion dirtyRegion, IRegion subRegion) {
-        initialReconcile();
+        calculatePositions();
     }
 
     public void reconcile(IRegion partition) {
-        initialReconcile();
+        calculatePositions();
     }
 
     public void setProgressMonitor(IProgressMonitor monitor) {
@@ -42,44 +47,25 @@ public class RebecaPropReconcilingStrategy implements IReconcilingStrategy, IRec
     }
 
     public void initialReconcile() {
-        fRangeEnd = fDocument.getLength();
         calculatePositions();
     }
 
+    /*
+     * The brace structure follows the changes of the document as they are
+     * made, so only the pairs of braces are matched here.
+     */
     protected void calculatePositions() {
-        fPositions.clear();
-        try {
-            getTokens();
-        } catch (BadLocationException e) {
-            e.printStackTrace();
+        BraceStructure structure;
+        synchronized (this) {
+            structure = braceStructure;
         }
+        if (structure == null)
+            return;
+        final List<Position> positions = structure.getFoldingPositions();
         Display.getDefault().asyncExec(new Runnable() {
             public void run() {
-                editor.updateFoldingStructure(fPositions);
+                editor.updateFoldingStructure(positions);
             }
         });
     }
-
-    protected void emitPosition(int startOffset, int length) {
-        fPositions.add(new Position(startOffset, length));
-    }
-
-    protected void getTokens() throws BadLocationException {
-        ArrayList<Integer> openPositions = new ArrayList<Integer> ();
-        for(int pos = 0; pos < fRangeEnd; pos += 1) {
-            char ch = fDocument.getChar(pos);
-            if(ch == '{') {
-                openPositions.add(pos);
-            }
-            else if(ch == '}') {
-                if(openPositions.size() > 0) {
-                    int lastIndex = openPositions.size() - 1;
-                    int lastOpen = (int) openPositions.get(lastIndex);
-                    openPositions.remove(lastIndex);
-                    emitPosition(lastOpen, pos - lastOpen);
-                }
-            }
-
-        }
-    }
 }
@@ -1,10 +1,12 @@
 package org.rebecalang.afra.ideplugin.editors.rebecaprop;
 
-import org.eclipse.jface.text.rules.RuleBasedScanner;
-import org.eclipse.jface.text.rules.Token;
 import org.rebecalang.afra.ideplugin.editors.ColorManager;
 import org.rebecalang.afra.ideplugin.editors.GeneralSourceViewerConfiguration;
 import org.rebecalang.afra.ideplugin.editors.GeneralTextAttribute;
+import org.rebecalang.afra.ideplugin.editors.SourceLexer;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.contentassist.ContentAssistant;
+import org.eclipse.jface.text.contentassist.IContentAssistant;
 import org.eclipse.jface.text.reconciler.IReconciler;
 import org.eclipse.jface.text.reconciler.MonoReconciler;
 import org.eclipse.jface.text.source.ISourceViewer;
@@ -21,8 +23,18 @@ public class RebecaPropSourceViewerConfiguration extends GeneralSourceViewerConf
 	}
 
 	@Override
-	public RuleBasedScanner createScanner() {
-		return new RebecaPropScanner(colorManager);
+	public SourceLexer createLexer() {
+		return new RebecaPropScanner();
+	}
+
+	@Override
+	protected GeneralTextAttribute getDefaultAttribute() {
+		return RebecaPropTextAttribute.DEFAULT;
+	}
+
+	@Override
+	protected GeneralTextAttribute getKeywordAttribute() {
+		return RebecaPropTextAttribute.KEYWORD;
 	}
 
 	@Override
@@ -35,15 +47,13 @@ public class RebecaPropSourceViewerConfiguration extends GeneralSourceViewerConf
 		return new RebecaPropPartitionScanner().getContentTypes();
 	}
 
-	@Override
-	protected RuleBasedScanner getScanner() {
-		if (scanner == null)
-		{
-			scanner = createScanner();
-			scanner.setDefaultReturnToken(new Token(
-					RebecaPropTextAttribute.DEFAULT.getTextAttribute(colorManager)));
-		}
-		return scanner;
+	public IContentAssistant getContentAssistant(ISourceViewer sv) {
+		ContentAssistant contentAssist = new ContentAssistant();
+		contentAssist.setContentAssistProcessor(new RebecaPropCompletionProcessor(), IDocument.DEFAULT_CONTENT_TYPE);
+		contentAssist.enableAutoActivation(true);
+		contentAssist.enableAutoInsert(true);
+		contentAssist.setInformationControlCreator(getInformationControlCreator(sv));
+		return contentAssist;
 	}
 
 	public IReconciler getReconciler(ISourceViewer sourceViewer)
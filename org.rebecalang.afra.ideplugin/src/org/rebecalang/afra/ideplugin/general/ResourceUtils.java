@@ -0,0 +1,27 @@
+package org.rebecalang.afra.ideplugin.general;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.core.resources.IFile;
+
+/**
+ * Reads workspace files outside the editors, for the features which work on
+ * the saved sources, like the symbol index and the verdict cache.
+ */
+public class ResourceUtils {
+
+	private ResourceUtils() {
+	}
+
+	/**
+	 * Returns the contents of the file, or an empty string when it does not
+	 * exist.
+	 */
+	public static String readSource(IFile file) throws IOException {
+		if (file == null || !file.exists())
+			return "";
+		return new String(Files.readAllBytes(file.getLocation().toFile().toPath()), StandardCharsets.UTF_8);
+	}
+}
@@ -63,6 +63,10 @@ public class CompilationAndCodeGenerationProcess {
 	private boolean errorInFiles;
 	
 	private File outputFolder;
+
+	private IFile rebecaFile;
+
+	private IFile propertyFile;
 	
 	CompilationAndCodeGenerationProcess() {
 		@SuppressWarnings("resource")
@@ -91,6 +95,8 @@ public class CompilationAndCodeGenerationProcess {
 		}
 
 		outputFolder = new File(getOutputPath(rebecaFile));
+		this.rebecaFile = rebecaFile;
+		this.propertyFile = propertyFile;
 		
 		try {
 			if(!force) {
@@ -116,6 +122,14 @@ public class CompilationAndCodeGenerationProcess {
 	public File getOutputFolder() {
 		return outputFolder;
 	}
+
+	public IFile getRebecaFile() {
+		return rebecaFile;
+	}
+
+	public IFile getPropertyFile() {
+		return propertyFile;
+	}
 	
 	private void storeDefinedPropertyNames(PropertyModel propertyModel) throws IOException {
 		RandomAccessFile propertyNames = new RandomAccessFile(outputFolder + File.separator +
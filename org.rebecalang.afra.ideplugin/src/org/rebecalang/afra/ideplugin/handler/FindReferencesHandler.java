@@ -0,0 +1,59 @@
+package org.rebecalang.afra.ideplugin.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.texteditor.ITextEditor;
+import org.rebecalang.afra.ideplugin.index.FileSymbols;
+import org.rebecalang.afra.ideplugin.index.RebecaSymbol;
+import org.rebecalang.afra.ideplugin.index.SymbolIndex;
+import org.rebecalang.afra.ideplugin.index.SymbolNavigation;
+
+/**
+ * Lists the declaration of the symbol under the caret along with the places
+ * which refer to it, such as the sends of a msgsrv, and opens the chosen
+ * one.
+ */
+public class FindReferencesHandler {
+
+	@CanExecute
+	public boolean canExecute() {
+		return OpenDeclarationHandler.getActiveRebecaEditor() != null;
+	}
+
+	@Execute
+	public void execute(Shell shell) {
+		ITextEditor editor = OpenDeclarationHandler.getActiveRebecaEditor();
+		if (editor == null)
+			return;
+		FileSymbols fileSymbols = SymbolNavigation.scan(editor);
+		List<RebecaSymbol> declarations =
+				SymbolNavigation.findDeclarations(fileSymbols, SymbolNavigation.getCaretOffset(editor));
+		if (declarations.isEmpty()) {
+			MessageDialog.openInformation(shell, "Find References",
+					"There is no reactive class, msgsrv, state variable, known rebec or main rebec at the caret.");
+			return;
+		}
+		RebecaSymbol declaration = SymbolNavigation.choose(shell, "Find References",
+				"Select the declaration to find the references of:", declarations);
+		if (declaration == null)
+			return;
+		List<RebecaSymbol> occurrences = new ArrayList<RebecaSymbol>();
+		occurrences.add(declaration);
+		occurrences.addAll(SymbolIndex.getDefault().findReferences(declaration,
+				declaration.getPath().equals(fileSymbols.getPath()) ? fileSymbols : null));
+		if (occurrences.size() == 1) {
+			MessageDialog.openInformation(shell, "Find References",
+					"There are no references to " + declaration.getQualifiedName() + ".");
+			return;
+		}
+		RebecaSymbol occurrence = SymbolNavigation.choose(shell, "Find References",
+				(occurrences.size() - 1) + " references to " + declaration.getQualifiedName() + ":", occurrences);
+		if (occurrence != null)
+			SymbolNavigation.open(occurrence);
+	}
+}
@@ -3,18 +3,15 @@ package org.rebecalang.afra.ideplugin.handler;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.reflect.InvocationTargetException;
 import java.util.LinkedList;
 import java.util.List;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 
-import org.apache.commons.io.IOUtils;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
@@ -33,13 +30,24 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.editors.text.TextEditor;
+import org.rebecalang.afra.ideplugin.general.ResourceUtils;
+import org.rebecalang.afra.ideplugin.history.ImpactAnalysis;
+import org.rebecalang.afra.ideplugin.history.RunHistory;
+import org.rebecalang.afra.ideplugin.history.RunRecord;
+import org.rebecalang.afra.ideplugin.history.VerdictCache;
 import org.rebecalang.afra.ideplugin.preference.AbstractRebecaProjectPropertyPage;
 import org.rebecalang.afra.ideplugin.preference.CoreRebecaProjectPropertyPage;
+import org.rebecalang.afra.ideplugin.preference.TimedRebecaProjectPropertyPage;
 import org.rebecalang.afra.ideplugin.propertypages.PropertySelectionDialog;
+import org.rebecalang.afra.ideplugin.statespace.StateSpaceExport;
 import org.rebecalang.afra.ideplugin.view.AnalysisResultView;
 import org.rebecalang.afra.ideplugin.view.CounterExampleGraphView;
+import org.rebecalang.afra.ideplugin.view.RunHistoryView;
 import org.rebecalang.afra.ideplugin.view.ViewUtils;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.ModelCheckingResult;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.ModelCheckingResultCache;
 import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.ModelCheckingReport;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.SystemInfo;
 
 public class ModelCheckingHandler extends AbstractAnalysisHandler {
 	
@@ -96,7 +104,20 @@ public class ModelCheckingHandler extends AbstractAnalysisHandler {
 						selectedPropertyName
 						);
 				
+				RunRecord record = createRunRecord(project, compilationAndCodeGenerationProcess,
+						selectedPropertyName, commandTerms);
+				String verdictKey = VerdictCache.computeKey(compilationAndCodeGenerationProcess.getRebecaFile(),
+						compilationAndCodeGenerationProcess.getPropertyFile(), selectedPropertyName, record.getOptions());
+				VerdictCache.Baseline run = verdictKey == null ? null : new VerdictCache.Baseline(verdictKey,
+						ResourceUtils.readSource(compilationAndCodeGenerationProcess.getRebecaFile()),
+						ResourceUtils.readSource(compilationAndCodeGenerationProcess.getPropertyFile()));
+				if (run != null && !dialog.isForceReverify() && reuseVerdict(project,
+						compilationAndCodeGenerationProcess.getOutputFolder(), record, run))
+					return;
 				try {
+					// A verdict is only stored from the report this run writes
+					new File(compilationAndCodeGenerationProcess.getOutputFolder(), "output.xml").delete();
+					long launchTime = System.currentTimeMillis();
 					final Process process = Runtime.getRuntime().exec(commandTerms.toArray(new String[0]), 
 							null,
 							compilationAndCodeGenerationProcess.getOutputFolder());
@@ -111,7 +132,10 @@ public class ModelCheckingHandler extends AbstractAnalysisHandler {
 							new ModelCheckingRunnableProgress(
 									project,
 									compilationAndCodeGenerationProcess.getOutputFolder(),
-									process)
+									process,
+									launchTime,
+									record,
+									run)
 							);
 				} catch (IOException e) {
 					e.printStackTrace();
@@ -144,7 +168,91 @@ public class ModelCheckingHandler extends AbstractAnalysisHandler {
 		return commandTerms;
 	}
 
-	private void showResult(File outputFolder) {
+	private RunRecord createRunRecord(IProject project, CompilationAndCodeGenerationProcess process,
+			String selectedPropertyName, List<String> commandTerms) {
+		RunRecord record = new RunRecord();
+		record.setTimestamp(System.currentTimeMillis());
+		record.setModel(process.getRebecaFile().getProjectRelativePath().toString());
+		record.setModelHash(RunHistory.hashContents(process.getRebecaFile(), process.getPropertyFile()));
+		record.setProperty(selectedPropertyName);
+		StringBuilder options = new StringBuilder();
+		options.append(AbstractRebecaProjectPropertyPage.getProjectType(project));
+		options.append(' ').append(AbstractRebecaProjectPropertyPage.getProjectLanguageVersion(project));
+		if (AbstractRebecaProjectPropertyPage.getProjectType(project).equals("TimedRebeca"))
+			options.append(TimedRebecaProjectPropertyPage.getProjectSemanticsModelIsTTS(project) ? " TTS" : " FTTS");
+		if (AbstractRebecaProjectPropertyPage.getProjectRunInSafeMode(project))
+			options.append(" safe");
+		if (AbstractRebecaProjectPropertyPage.getProjectExportStateSpace(project))
+			options.append(" export");
+		options.append(" hash=").append(AbstractRebecaProjectPropertyPage.getProjectHashtableSize(project));
+		for (String term : commandTerms.subList(1, commandTerms.size()))
+			options.append(' ').append(term);
+		record.setOptions(options.toString());
+		return record;
+	}
+
+	private void recordRun(IProject project, RunRecord record, ModelCheckingReport report) {
+		if (report == null || report.getSystemInfo() == null)
+			return;
+		SystemInfo systemInfo = report.getSystemInfo();
+		if (report.getCheckedProperty() != null)
+			record.setResult(report.getCheckedProperty().getResult());
+		if (systemInfo.getTotalSpentTime() != null)
+			record.setTotalSpentTime(systemInfo.getTotalSpentTime().doubleValue());
+		if (systemInfo.getReachedStates() != null)
+			record.setReachedStates(systemInfo.getReachedStates().longValue());
+		if (systemInfo.getReachedTransitions() != null)
+			record.setReachedTransitions(systemInfo.getReachedTransitions().longValue());
+		if (systemInfo.getConsumedMem() != null)
+			record.setConsumedMemory(systemInfo.getConsumedMem().longValue());
+		try {
+			RunHistory.getHistory(project).append(record);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		RunHistoryView historyView = (RunHistoryView) ViewUtils.findViewPart(RunHistoryView.ID);
+		if (historyView != null)
+			historyView.update(project);
+	}
+
+	/*
+	 * Shows the stored result of an identical run. Otherwise shows the result
+	 * of the last run which satisfied the property when the model and the
+	 * property file only changed in comments and layout since that run.
+	 */
+	private boolean reuseVerdict(IProject project, File outputFolder, RunRecord record,
+			VerdictCache.Baseline run) throws IOException {
+		VerdictCache cache = VerdictCache.getCache(project);
+		File modelCheckingResultFile = new File(outputFolder + File.separator + "output.xml");
+		if (cache.restore(run.getVerdictKey(), modelCheckingResultFile)) {
+			showResult(outputFolder, project, null, null, null);
+			return true;
+		}
+		VerdictCache.Baseline baseline = cache.findBaseline(record.getBaselineKey());
+		if (baseline == null || !ImpactAnalysis.isLayoutOnly(baseline.getRebecaSource(),
+				baseline.getPropertySource(), run.getRebecaSource(), run.getPropertySource()) ||
+				!cache.restore(baseline.getVerdictKey(), modelCheckingResultFile))
+			return false;
+		showResult(outputFolder, project, null, null,
+				"Verdict reused from an earlier run: the model only changed in comments and layout.");
+		return true;
+	}
+
+	private void storeVerdict(IProject project, RunRecord record, VerdictCache.Baseline run,
+			ModelCheckingReport report, File modelCheckingResultFile) throws IOException {
+		VerdictCache cache = VerdictCache.getCache(project);
+		cache.store(run.getVerdictKey(), modelCheckingResultFile);
+		if (report.getCheckedProperty() != null && "satisfied".equals(report.getCheckedProperty().getResult()))
+			cache.storeBaseline(record.getBaselineKey(), run);
+	}
+
+	/*
+	 * The record and the run are null when the result was restored from the
+	 * verdict cache, which is then neither recorded nor stored again.
+	 */
+	private void showResult(File outputFolder, IProject project, RunRecord record, VerdictCache.Baseline run,
+			String reuseNote) {
 		Display.getDefault().asyncExec(new Runnable() {
 			@Override
 			public void run() {
@@ -152,11 +260,15 @@ public class ModelCheckingHandler extends AbstractAnalysisHandler {
 				File modelCheckingResultFile = new File(outputFolder + File.separator +"output.xml");
 				if (modelCheckingResultFile.exists() && modelCheckingResultFile.length() > 0) {
 					try {
-						JAXBContext jaxbContext;
-						jaxbContext = JAXBContext.newInstance(ModelCheckingReport.class.getPackage().getName());
-						Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-						ModelCheckingReport modelCheckingReport = (ModelCheckingReport) unmarshaller.unmarshal(modelCheckingResultFile);
+						ModelCheckingResult modelCheckingResult = ModelCheckingResultCache.load(modelCheckingResultFile);
+						ModelCheckingReport modelCheckingReport = modelCheckingResult.getReport();
+						if (reuseNote != null && modelCheckingReport != null && modelCheckingReport.getCheckedProperty() != null)
+							modelCheckingReport.getCheckedProperty().setMessage(reuseNote);
 						view.setReport(modelCheckingReport);
+						if (record != null)
+							recordRun(project, record, modelCheckingReport);
+						if (run != null && modelCheckingReport != null)
+							storeVerdict(project, record, run, modelCheckingReport, modelCheckingResultFile);
 						if (modelCheckingReport != null)
 							if (!modelCheckingReport.getCheckedProperty().getResult().equals("satisfied") &&
 									!modelCheckingReport.getCheckedProperty().getResult().equals("search stack overflow") &&
@@ -165,7 +277,7 @@ public class ModelCheckingHandler extends AbstractAnalysisHandler {
 								ViewUtils.counterExampleVisible(true);
 								CounterExampleGraphView ceView = 
 										(CounterExampleGraphView) ViewUtils.getViewPart(CounterExampleGraphView.class.getName());
-								ceView.update(outputFolder + File.separator + "output.xml");
+								ceView.update(modelCheckingResult.getTrace());
 								
 							}
 							else {
@@ -203,12 +315,22 @@ public class ModelCheckingHandler extends AbstractAnalysisHandler {
 		
 		Process process;
 
+		long launchTime;
+
 		private IProject project;
+
+		private RunRecord record;
+
+		private VerdictCache.Baseline run;
 		
-		public ModelCheckingRunnableProgress(IProject project, File outputFolder, Process process) {
+		public ModelCheckingRunnableProgress(IProject project, File outputFolder, Process process, long launchTime,
+				RunRecord record, VerdictCache.Baseline run) {
 			this.outputFolder = outputFolder;
 			this.process = process;
+			this.launchTime = launchTime;
 			this.project = project;
+			this.record = record;
+			this.run = run;
 		}
 
 		@Override
@@ -238,7 +360,7 @@ public class ModelCheckingHandler extends AbstractAnalysisHandler {
 				};
 				job.schedule();  
 				
-				process.waitFor();
+				int exitCode = process.waitFor();
 				job.stop();
 				
 				BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
@@ -251,14 +373,20 @@ public class ModelCheckingHandler extends AbstractAnalysisHandler {
 				
 				if (CoreRebecaProjectPropertyPage.getProjectExportStateSpace(project)) {
 					monitor.beginTask("Export State Space File", IProgressMonitor.UNKNOWN);
-					File stateSpaceFile = new File(project.getRawLocation() + File.separator + "src" + File.separator
-							+ outputFolder.getName() + ".statespace");
-					IOUtils.copyLarge(new FileInputStream(outputFolder + File.separator + "statespace.xml"), 
-							new FileOutputStream(stateSpaceFile));
-					
-					project.refreshLocal(IResource.DEPTH_INFINITE, null);
+					IFile stateSpaceResource = project.getFolder("src").getFile(outputFolder.getName() + ".statespace");
+					File exportedFile = new File(outputFolder + File.separator + "statespace.xml");
+					if (exportedFile.exists()) {
+						StateSpaceExport.store(exportedFile, stateSpaceResource.getLocation().toFile(),
+								CoreRebecaProjectPropertyPage.getProjectCompressStateSpace(project));
+						stateSpaceResource.refreshLocal(IResource.DEPTH_ZERO, null);
+					}
 				}
-				showResult(outputFolder);
+				// Only a complete run which wrote its own report certifies a verdict;
+				// some file systems keep modification times in whole seconds
+				File outputFile = new File(outputFolder, "output.xml");
+				boolean completed = !monitor.isCanceled() && exitCode == 0 &&
+						outputFile.exists() && outputFile.lastModified() >= launchTime - launchTime % 1000;
+				showResult(outputFolder, project, record, completed ? run : null, null);
 
 			} catch (IOException | CoreException e1) {
 				e1.printStackTrace();
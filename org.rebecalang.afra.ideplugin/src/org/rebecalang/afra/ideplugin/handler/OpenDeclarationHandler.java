@@ -0,0 +1,40 @@
+package org.rebecalang.afra.ideplugin.handler;
+
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.texteditor.ITextEditor;
+import org.rebecalang.afra.ideplugin.index.FileSymbols;
+import org.rebecalang.afra.ideplugin.index.RebecaSymbol;
+import org.rebecalang.afra.ideplugin.index.SymbolNavigation;
+
+public class OpenDeclarationHandler {
+
+	@CanExecute
+	public boolean canExecute() {
+		return getActiveRebecaEditor() != null;
+	}
+
+	@Execute
+	public void execute(Shell shell) {
+		ITextEditor editor = getActiveRebecaEditor();
+		if (editor == null)
+			return;
+		FileSymbols fileSymbols = SymbolNavigation.scan(editor);
+		RebecaSymbol declaration = SymbolNavigation.choose(shell, "Open Declaration",
+				"Select the declaration to open:",
+				SymbolNavigation.findDeclarations(fileSymbols, SymbolNavigation.getCaretOffset(editor)));
+		if (declaration != null)
+			SymbolNavigation.open(declaration);
+	}
+
+	static ITextEditor getActiveRebecaEditor() {
+		IEditorPart editor = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage()
+				.getActiveEditor();
+		if (!(editor instanceof ITextEditor) || SymbolNavigation.getFile((ITextEditor) editor) == null)
+			return null;
+		return (ITextEditor) editor;
+	}
+}
@@ -0,0 +1,31 @@
+package org.rebecalang.afra.ideplugin.handler;
+
+import java.util.List;
+
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.dialogs.ElementListSelectionDialog;
+import org.rebecalang.afra.ideplugin.index.RebecaSymbol;
+import org.rebecalang.afra.ideplugin.index.SymbolIndex;
+import org.rebecalang.afra.ideplugin.index.SymbolNavigation;
+
+/**
+ * Opens any reactive class, msgsrv, state variable, known rebec or main
+ * rebec of the workspace by name.
+ */
+public class OpenRebecaSymbolHandler {
+
+	@Execute
+	public void execute(Shell shell) {
+		List<RebecaSymbol> declarations = SymbolIndex.getDefault().getAllDeclarations();
+		ElementListSelectionDialog dialog = new ElementListSelectionDialog(shell, new LabelProvider());
+		dialog.setTitle("Open Rebeca Symbol");
+		dialog.setMessage("Enter a name prefix or pattern (* = any string, ? = any character):");
+		dialog.setMultipleSelection(false);
+		dialog.setElements(declarations.toArray());
+		if (dialog.open() == Window.OK && dialog.getFirstResult() != null)
+			SymbolNavigation.open((RebecaSymbol) dialog.getFirstResult());
+	}
+}
@@ -0,0 +1,82 @@
+package org.rebecalang.afra.ideplugin.handler.popup;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.swt.widgets.Display;
+import org.rebecalang.afra.ideplugin.Activator;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraph;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraphImporter;
+import org.rebecalang.afra.ideplugin.statespace.StateSpaceAnalytics;
+import org.rebecalang.afra.ideplugin.view.StateSpaceAnalyticsView;
+import org.rebecalang.afra.ideplugin.view.ViewUtils;
+
+public class AnalyzeStateSpaceHandler extends AbstractPopupOnProjectExplorerHandler {
+
+	public final static String ID = AnalyzeStateSpaceHandler.class.getName();
+
+	@CanExecute
+	public boolean canExecute(MPart part) {
+		return isSelectedItemIsFileAndHasExtension("statespace");
+	}
+
+	@Execute
+	public void execute() {
+		IFile selectedFile = (IFile)getSelectedItem();
+		File stateSpaceFile = selectedFile.getLocation().toFile();
+		IFile graphResource = selectedFile.getParent().getFile(
+				new Path(CompactStateGraph.getGraphFile(stateSpaceFile).getName()));
+
+		Job job = new Job("Analyzing " + selectedFile.getName()) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				SubMonitor progress = SubMonitor.convert(monitor, 2);
+				StateSpaceAnalytics analytics;
+				try (CompactStateGraph graph = CompactStateGraphImporter.openOrImport(stateSpaceFile, progress.split(1))) {
+					synchronized (graph) {
+						graph.checkOpen();
+						analytics = new StateSpaceAnalytics(graph);
+						analytics.compute(progress.split(1));
+					}
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				} catch (IOException e) {
+					e.printStackTrace();
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+							"Analyzing " + selectedFile.getName() + " failed.", e);
+				} finally {
+					try {
+						graphResource.refreshLocal(IResource.DEPTH_ZERO, null);
+					} catch (CoreException e) {
+						e.printStackTrace();
+					}
+				}
+				Display.getDefault().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						StateSpaceAnalyticsView view =
+								(StateSpaceAnalyticsView) ViewUtils.getViewPart(StateSpaceAnalyticsView.ID);
+						if (view != null)
+							view.update(selectedFile.getName(), analytics);
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+}
@@ -0,0 +1,62 @@
+package org.rebecalang.afra.ideplugin.handler.popup;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.rebecalang.afra.ideplugin.Activator;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraph;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraphImporter;
+
+public class ConvertStateSpaceToCompactGraphHandler extends AbstractPopupOnProjectExplorerHandler {
+
+	public final static String ID = ConvertStateSpaceToCompactGraphHandler.class.getName();
+
+	@CanExecute
+	public boolean canExecute(MPart part) {
+		return isSelectedItemIsFileAndHasExtension("statespace");
+	}
+
+	@Execute
+	public void execute() {
+		IFile selectedFile = (IFile)getSelectedItem();
+		File stateSpaceFile = selectedFile.getLocation().toFile();
+		File graphFile = CompactStateGraph.getGraphFile(stateSpaceFile);
+		IFile graphResource = selectedFile.getParent().getFile(new Path(graphFile.getName()));
+
+		Job job = new Job("Importing " + selectedFile.getName()) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					new CompactStateGraphImporter().importStateSpace(stateSpaceFile, graphFile, monitor);
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				} catch (IOException e) {
+					e.printStackTrace();
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+							"Importing " + selectedFile.getName() + " failed.", e);
+				} finally {
+					try {
+						graphResource.refreshLocal(IResource.DEPTH_ZERO, null);
+					} catch (CoreException e) {
+						e.printStackTrace();
+					}
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+}
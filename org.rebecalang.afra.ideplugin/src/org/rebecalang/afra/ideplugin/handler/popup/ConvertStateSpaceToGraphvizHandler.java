@@ -1,19 +1,27 @@
 package org.rebecalang.afra.ideplugin.handler.popup;
 
 import java.io.File;
+import java.io.IOException;
 
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.e4.core.di.annotations.CanExecute;
 import org.eclipse.e4.core.di.annotations.Execute;
 import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.jface.window.Window;
 import org.eclipse.swt.widgets.Shell;
+import org.rebecalang.afra.ideplugin.Activator;
 import org.rebecalang.afra.ideplugin.handler.CompilationAndCodeGenerationProcess;
 import org.rebecalang.afra.ideplugin.preference.CoreRebecaProjectPropertyPage;
-import org.rebecalang.statespacetransformer.StateSpaceTransformer;
-import org.rebecalang.statespacetransformer.StateSpaceTransformingFeature;
+import org.rebecalang.afra.ideplugin.propertypages.GraphvizExportDialog;
+import org.rebecalang.afra.ideplugin.statespace.GraphvizExporter;
 
 public class ConvertStateSpaceToGraphvizHandler extends AbstractPopupOnProjectExplorerHandler {
 
@@ -27,24 +35,41 @@ public class ConvertStateSpaceToGraphvizHandler extends AbstractPopupOnProjectEx
 	@Execute
 	public void execute(Shell shell) {
 		IFile selectedFile = (IFile)getSelectedItem();
-		IProject project = selectedFile.getProject();
 		File graphvizFile = CompilationAndCodeGenerationProcess.getFileFromByReplacingExtension(selectedFile, "dot");
-		String[] args = {
-				"--extension",
-				CoreRebecaProjectPropertyPage.getProjectType(project),
-				"--source",
-				selectedFile.getLocation().toString(),
-				"--output",
-				graphvizFile.getAbsolutePath(),
-				"--targetmodel",
-				StateSpaceTransformingFeature.GRAPH_VIZ.name()
+
+		GraphvizExportDialog dialog = new GraphvizExportDialog(shell);
+		dialog.create();
+		if (dialog.open() != Window.OK)
+			return;
+		GraphvizExporter exporter = dialog.createExporter();
+		exporter.setExtension(CoreRebecaProjectPropertyPage.getProjectType(selectedFile.getProject()));
+		File stateSpaceFile = selectedFile.getLocation().toFile();
+		IFile graphvizResource = selectedFile.getParent().getFile(new Path(graphvizFile.getName()));
+
+		Job job = new Job("Converting " + selectedFile.getName() + " to Graphviz") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					exporter.export(stateSpaceFile, graphvizFile, monitor);
+				} catch (OperationCanceledException e) {
+					graphvizFile.delete();
+					return Status.CANCEL_STATUS;
+				} catch (IOException e) {
+					e.printStackTrace();
+					graphvizFile.delete();
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+							"Converting " + selectedFile.getName() + " failed.", e);
+				} finally {
+					try {
+						graphvizResource.refreshLocal(IResource.DEPTH_ZERO, null);
+					} catch (CoreException e) {
+						e.printStackTrace();
+					}
+				}
+				return Status.OK_STATUS;
+			}
 		};
-		StateSpaceTransformer.main(args);
-		try {
-			project.refreshLocal(IResource.DEPTH_INFINITE, null);
-		} catch (CoreException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+		job.setUser(true);
+		job.schedule();
 	}
 }
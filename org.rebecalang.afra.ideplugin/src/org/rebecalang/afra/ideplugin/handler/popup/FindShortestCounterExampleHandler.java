@@ -0,0 +1,128 @@
+package org.rebecalang.afra.ideplugin.handler.popup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+
+import javax.xml.bind.JAXBException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.rebecalang.afra.ideplugin.Activator;
+import org.rebecalang.afra.ideplugin.handler.CompilationAndCodeGenerationProcess;
+import org.rebecalang.afra.ideplugin.propertypages.ShortestCounterExampleDialog;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraph;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraphImporter;
+import org.rebecalang.afra.ideplugin.statespace.CounterExampleTraceWriter;
+import org.rebecalang.afra.ideplugin.statespace.ShortestPathFinder;
+import org.rebecalang.afra.ideplugin.statespace.StateGraphIndex;
+import org.rebecalang.afra.ideplugin.view.CounterExampleGraphView;
+import org.rebecalang.afra.ideplugin.view.ViewUtils;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.CounterExampleTrace;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.ModelCheckingResultParser;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StatePredicate;
+
+public class FindShortestCounterExampleHandler extends AbstractPopupOnProjectExplorerHandler {
+
+	public final static String ID = FindShortestCounterExampleHandler.class.getName();
+
+	@CanExecute
+	public boolean canExecute(MPart part) {
+		return isSelectedItemIsFileAndHasExtension("statespace");
+	}
+
+	@Execute
+	public void execute(Shell shell) {
+		IFile selectedFile = (IFile)getSelectedItem();
+		File traceFile = CompilationAndCodeGenerationProcess.getFileFromByReplacingExtension(selectedFile, "trace.xml");
+
+		ShortestCounterExampleDialog dialog = new ShortestCounterExampleDialog(shell);
+		dialog.create();
+		if (dialog.open() != Window.OK)
+			return;
+		StatePredicate predicate = dialog.getPredicate();
+		String targetDescription = dialog.getTargetDescription();
+		File stateSpaceFile = selectedFile.getLocation().toFile();
+		IFile traceResource = selectedFile.getParent().getFile(new Path(traceFile.getName()));
+		IFile graphResource = selectedFile.getParent().getFile(
+				new Path(CompactStateGraph.getGraphFile(stateSpaceFile).getName()));
+
+		Job job = new Job("Finding a shortest path to " + targetDescription + " in " + selectedFile.getName()) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				SubMonitor progress = SubMonitor.convert(monitor, 10);
+				CounterExampleTrace trace = null;
+				try (CompactStateGraph graph = CompactStateGraphImporter.openOrImport(stateSpaceFile, progress.split(4))) {
+					synchronized (graph) {
+						graph.checkOpen();
+						BitSet targets;
+						if (predicate == null) {
+							targets = ShortestPathFinder.getDeadlocks(graph);
+						} else {
+							StateGraphIndex index = new StateGraphIndex(graph);
+							index.setMonitor(progress.split(2));
+							targets = predicate.evaluate(index);
+						}
+						progress.setWorkRemaining(4);
+						long[] path = new ShortestPathFinder(graph).find(targets, progress.split(2));
+						if (path != null) {
+							new CounterExampleTraceWriter(graph).write(stateSpaceFile, path, traceFile, progress.split(2));
+							trace = new ModelCheckingResultParser().parse(traceFile).getTrace();
+						}
+					}
+				} catch (OperationCanceledException e) {
+					traceFile.delete();
+					return Status.CANCEL_STATUS;
+				} catch (IOException | JAXBException e) {
+					e.printStackTrace();
+					traceFile.delete();
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+							"Finding a path in " + selectedFile.getName() + " failed.", e);
+				} finally {
+					try {
+						graphResource.refreshLocal(IResource.DEPTH_ZERO, null);
+						traceResource.refreshLocal(IResource.DEPTH_ZERO, null);
+					} catch (CoreException e) {
+						e.printStackTrace();
+					}
+				}
+				CounterExampleTrace shortestTrace = trace;
+				Display.getDefault().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						if (shortestTrace == null) {
+							MessageDialog.openInformation(Display.getDefault().getActiveShell(),
+									"Find Shortest Counterexample",
+									"No state of " + selectedFile.getName() + " reachable from the initial state " +
+									"matches " + targetDescription + ".");
+							return;
+						}
+						ViewUtils.counterExampleVisible(true);
+						CounterExampleGraphView view =
+								(CounterExampleGraphView) ViewUtils.getViewPart(CounterExampleGraphView.class.getName());
+						if (view != null)
+							view.update(shortestTrace);
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+}
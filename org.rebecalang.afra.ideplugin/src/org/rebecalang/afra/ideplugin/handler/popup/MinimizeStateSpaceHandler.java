@@ -0,0 +1,89 @@
+package org.rebecalang.afra.ideplugin.handler.popup;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.rebecalang.afra.ideplugin.Activator;
+import org.rebecalang.afra.ideplugin.handler.CompilationAndCodeGenerationProcess;
+import org.rebecalang.afra.ideplugin.propertypages.BisimulationDialog;
+import org.rebecalang.afra.ideplugin.statespace.BisimulationMinimizer;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraph;
+
+public class MinimizeStateSpaceHandler extends AbstractPopupOnProjectExplorerHandler {
+
+	public final static String ID = MinimizeStateSpaceHandler.class.getName();
+
+	@CanExecute
+	public boolean canExecute(MPart part) {
+		return isSelectedItemIsFileAndHasExtension("statespace");
+	}
+
+	@Execute
+	public void execute(Shell shell) {
+		IFile selectedFile = (IFile)getSelectedItem();
+		File minimizedFile = CompilationAndCodeGenerationProcess.getFileFromByReplacingExtension(selectedFile, "min.statespace");
+
+		BisimulationDialog dialog = new BisimulationDialog(shell);
+		dialog.create();
+		if (dialog.open() != Window.OK)
+			return;
+		BisimulationMinimizer minimizer = dialog.createMinimizer();
+		File stateSpaceFile = selectedFile.getLocation().toFile();
+		IFile minimizedResource = selectedFile.getParent().getFile(new Path(minimizedFile.getName()));
+		IFile graphResource = selectedFile.getParent().getFile(
+				new Path(CompactStateGraph.getGraphFile(stateSpaceFile).getName()));
+
+		Job job = new Job("Minimizing " + selectedFile.getName()) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					minimizer.minimize(stateSpaceFile, minimizedFile, monitor);
+				} catch (OperationCanceledException e) {
+					minimizedFile.delete();
+					return Status.CANCEL_STATUS;
+				} catch (IOException e) {
+					e.printStackTrace();
+					minimizedFile.delete();
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+							"Minimizing " + selectedFile.getName() + " failed.", e);
+				} finally {
+					try {
+						graphResource.refreshLocal(IResource.DEPTH_ZERO, null);
+						minimizedResource.refreshLocal(IResource.DEPTH_ZERO, null);
+					} catch (CoreException e) {
+						e.printStackTrace();
+					}
+				}
+				Display.getDefault().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						MessageDialog.openInformation(Display.getDefault().getActiveShell(), "Minimize State Space",
+								selectedFile.getName() + ": " + minimizer.getNumberOfStates() + " states reduced to " +
+								minimizer.getNumberOfBlocks() + " states and " +
+								minimizer.getNumberOfQuotientTransitions() + " transitions in " +
+								minimizedFile.getName() + ".");
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+}
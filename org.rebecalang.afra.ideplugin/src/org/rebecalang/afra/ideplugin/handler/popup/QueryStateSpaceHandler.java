@@ -0,0 +1,71 @@
+package org.rebecalang.afra.ideplugin.handler.popup;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.swt.widgets.Shell;
+import org.rebecalang.afra.ideplugin.Activator;
+import org.rebecalang.afra.ideplugin.propertypages.StateSpaceQueryDialog;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraph;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraphImporter;
+
+public class QueryStateSpaceHandler extends AbstractPopupOnProjectExplorerHandler {
+
+	public final static String ID = QueryStateSpaceHandler.class.getName();
+
+	@CanExecute
+	public boolean canExecute(MPart part) {
+		return isSelectedItemIsFileAndHasExtension("statespace");
+	}
+
+	@Execute
+	public void execute(Shell shell) {
+		IFile selectedFile = (IFile)getSelectedItem();
+		File stateSpaceFile = selectedFile.getLocation().toFile();
+		IFile graphResource = selectedFile.getParent().getFile(
+				new Path(CompactStateGraph.getGraphFile(stateSpaceFile).getName()));
+
+		Job job = new Job("Opening " + selectedFile.getName()) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				CompactStateGraph graph;
+				try {
+					graph = CompactStateGraphImporter.openOrImport(stateSpaceFile, monitor);
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				} catch (IOException e) {
+					e.printStackTrace();
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID,
+							"Opening " + selectedFile.getName() + " failed.", e);
+				} finally {
+					try {
+						graphResource.refreshLocal(IResource.DEPTH_ZERO, null);
+					} catch (CoreException e) {
+						e.printStackTrace();
+					}
+				}
+				shell.getDisplay().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						new StateSpaceQueryDialog(shell, graph, selectedFile.getName()).open();
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+}
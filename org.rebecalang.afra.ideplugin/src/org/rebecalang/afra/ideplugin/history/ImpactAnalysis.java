@@ -0,0 +1,57 @@
+package org.rebecalang.afra.ideplugin.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.rebecalang.afra.ideplugin.index.SymbolScanner;
+import org.rebecalang.afra.ideplugin.index.SymbolScanner.Token;
+
+/**
+ * Decides whether an edit of a model and its property file only changed
+ * comments and layout, by comparing the tokens of both versions. Such an
+ * edit cannot change the verdict of any property. Edits of the code are not
+ * analyzed further: besides the property, a satisfied run also certifies
+ * that the model has no deadlock, queue overflow or runtime error, which an
+ * edit of any message server or send may introduce.
+ */
+public class ImpactAnalysis {
+
+	private ImpactAnalysis() {
+	}
+
+	/**
+	 * Tells whether the new versions of the model and the property have the
+	 * same tokens as the old ones.
+	 */
+	public static boolean isLayoutOnly(String oldRebecaSource, String oldPropertySource,
+			String newRebecaSource, String newPropertySource) {
+		return tokenize(oldRebecaSource).equals(tokenize(newRebecaSource)) &&
+				tokenize(oldPropertySource).equals(tokenize(newPropertySource));
+	}
+
+	private static final Set<String> OPERATORS = new HashSet<String>(Arrays.asList("++", "--", "+=", "-=",
+			"*=", "/=", "%=", "==", "!=", "<=", ">=", "&&", "||", "<<", ">>", "->"));
+
+	/*
+	 * The tokens of SymbolScanner, with the characters of an operator joined
+	 * when they touch, as "- -x" and "--x" differ.
+	 */
+	static List<String> tokenize(String source) {
+		List<String> tokens = new ArrayList<String>();
+		if (source == null)
+			return tokens;
+		int previousEnd = -1;
+		for (Token token : SymbolScanner.tokenize(source)) {
+			String joined = tokens.isEmpty() ? null : tokens.get(tokens.size() - 1) + token.text;
+			if (previousEnd == token.offset && OPERATORS.contains(joined))
+				tokens.set(tokens.size() - 1, joined);
+			else
+				tokens.add(token.text);
+			previousEnd = token.offset + token.text.length();
+		}
+		return tokens;
+	}
+}
@@ -0,0 +1,137 @@
+package org.rebecalang.afra.ideplugin.history;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.rebecalang.afra.ideplugin.Activator;
+
+/**
+ * Append-only log of the model checking runs of a project, kept as JSON lines
+ * in the project's working location of the plugin, outside the project
+ * itself. Each run is appended as one line, so earlier records are never
+ * rewritten; a line left incomplete by a crash is skipped when loading.
+ */
+public class RunHistory {
+
+	public static final String HISTORY_FILE_NAME = "run-history.jsonl";
+	public static final double DEFAULT_REGRESSION_THRESHOLD = 0.2;
+
+	private final File historyFile;
+
+	public RunHistory(File historyFile) {
+		this.historyFile = historyFile;
+	}
+
+	public static RunHistory getHistory(IProject project) {
+		return new RunHistory(project.getWorkingLocation(Activator.PLUGIN_ID).append(HISTORY_FILE_NAME).toFile());
+	}
+
+	public void append(RunRecord record) throws IOException {
+		byte[] line = (record.toJSON() + "\n").getBytes(StandardCharsets.UTF_8);
+		synchronized (RunHistory.class) {
+			try (OutputStream output = new FileOutputStream(historyFile, true)) {
+				output.write(line);
+			}
+		}
+	}
+
+	/**
+	 * Returns the runs in the order they were recorded.
+	 */
+	public List<RunRecord> load() throws IOException {
+		List<RunRecord> records = new ArrayList<RunRecord>();
+		if (!historyFile.exists())
+			return records;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(historyFile), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().isEmpty())
+					continue;
+				try {
+					records.add(RunRecord.fromJSON(line));
+				} catch (ParseException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Returns for each record the latest earlier record with the same
+	 * baseline key, or null for the first run of a key.
+	 */
+	public static RunRecord[] findBaselines(List<RunRecord> records) {
+		RunRecord[] baselines = new RunRecord[records.size()];
+		HashMap<String, RunRecord> latest = new HashMap<String, RunRecord>();
+		for (int cnt = 0; cnt < records.size(); cnt++) {
+			RunRecord record = records.get(cnt);
+			baselines[cnt] = latest.put(record.getBaselineKey(), record);
+		}
+		return baselines;
+	}
+
+	/**
+	 * Whether the time or the number of reached states of the run grew by
+	 * more than the threshold, a fraction, over those of the baseline.
+	 */
+	public static boolean isRegression(RunRecord record, RunRecord baseline, double threshold) {
+		if (baseline == null)
+			return false;
+		return grewBeyond(record.getTotalSpentTime(), baseline.getTotalSpentTime(), threshold) ||
+				grewBeyond(record.getReachedStates(), baseline.getReachedStates(), threshold);
+	}
+
+	private static boolean grewBeyond(double value, double baselineValue, double threshold) {
+		return baselineValue > 0 && value > baselineValue * (1 + threshold);
+	}
+
+	/**
+	 * Hashes the contents of the given files, skipping the ones which do not
+	 * exist, so runs of an unchanged model get the same hash.
+	 */
+	public static String hashContents(IFile... files) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			updateDigest(digest, files);
+			StringBuilder hash = new StringBuilder();
+			byte[] bytes = digest.digest();
+			for (int cnt = 0; cnt < 8; cnt++)
+				hash.append(String.format("%02x", bytes[cnt]));
+			return hash.toString();
+		} catch (NoSuchAlgorithmException | IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	static void updateDigest(MessageDigest digest, IFile... files) throws IOException {
+		byte[] buffer = new byte[1 << 16];
+		for (IFile file : files) {
+			if (file == null || !file.exists())
+				continue;
+			try (InputStream input = new FileInputStream(file.getLocation().toFile())) {
+				int read;
+				while ((read = input.read(buffer)) != -1)
+					digest.update(buffer, 0, read);
+			}
+			digest.update((byte) 0);
+		}
+	}
+}
@@ -0,0 +1,283 @@
+package org.rebecalang.afra.ideplugin.history;
+
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One model checking run in the {@link RunHistory}: what was checked, with
+ * which options, and the system info the model checker reported. Records are
+ * stored as flat JSON objects, one per line.
+ */
+public class RunRecord {
+
+	private long timestamp;
+	private String model;
+	private String modelHash;
+	private String property;
+	private String options;
+	private String result;
+	private double totalSpentTime;
+	private long reachedStates;
+	private long reachedTransitions;
+	private long consumedMemory;
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	public String getModel() {
+		return model;
+	}
+
+	public void setModel(String model) {
+		this.model = model;
+	}
+
+	public String getModelHash() {
+		return modelHash;
+	}
+
+	public void setModelHash(String modelHash) {
+		this.modelHash = modelHash;
+	}
+
+	public String getProperty() {
+		return property;
+	}
+
+	public void setProperty(String property) {
+		this.property = property;
+	}
+
+	public String getOptions() {
+		return options;
+	}
+
+	public void setOptions(String options) {
+		this.options = options;
+	}
+
+	public String getResult() {
+		return result;
+	}
+
+	public void setResult(String result) {
+		this.result = result;
+	}
+
+	public double getTotalSpentTime() {
+		return totalSpentTime;
+	}
+
+	public void setTotalSpentTime(double totalSpentTime) {
+		this.totalSpentTime = totalSpentTime;
+	}
+
+	public long getReachedStates() {
+		return reachedStates;
+	}
+
+	public void setReachedStates(long reachedStates) {
+		this.reachedStates = reachedStates;
+	}
+
+	public long getReachedTransitions() {
+		return reachedTransitions;
+	}
+
+	public void setReachedTransitions(long reachedTransitions) {
+		this.reachedTransitions = reachedTransitions;
+	}
+
+	public long getConsumedMemory() {
+		return consumedMemory;
+	}
+
+	public void setConsumedMemory(long consumedMemory) {
+		this.consumedMemory = consumedMemory;
+	}
+
+	/**
+	 * Runs are compared against earlier runs of the same model file,
+	 * property and options.
+	 */
+	public String getBaselineKey() {
+		return model + '\u0000' + property + '\u0000' + options;
+	}
+
+	/*
+	 * JSON lines
+	 */
+
+	public String toJSON() {
+		StringBuilder json = new StringBuilder("{");
+		appendField(json, "timestamp", timestamp);
+		appendField(json, "model", model);
+		appendField(json, "modelHash", modelHash);
+		appendField(json, "property", property);
+		appendField(json, "options", options);
+		appendField(json, "result", result);
+		appendField(json, "totalSpentTime", totalSpentTime);
+		appendField(json, "reachedStates", reachedStates);
+		appendField(json, "reachedTransitions", reachedTransitions);
+		appendField(json, "consumedMemory", consumedMemory);
+		return json.append('}').toString();
+	}
+
+	public static RunRecord fromJSON(String line) throws ParseException {
+		Map<String, Object> fields = parseObject(line);
+		RunRecord record = new RunRecord();
+		record.timestamp = getNumber(fields, "timestamp").longValue();
+		record.model = getString(fields, "model");
+		record.modelHash = getString(fields, "modelHash");
+		record.property = getString(fields, "property");
+		record.options = getString(fields, "options");
+		record.result = getString(fields, "result");
+		record.totalSpentTime = getNumber(fields, "totalSpentTime").doubleValue();
+		record.reachedStates = getNumber(fields, "reachedStates").longValue();
+		record.reachedTransitions = getNumber(fields, "reachedTransitions").longValue();
+		record.consumedMemory = getNumber(fields, "consumedMemory").longValue();
+		return record;
+	}
+
+	private static void appendField(StringBuilder json, String name, Object value) {
+		if (json.length() > 1)
+			json.append(',');
+		json.append('"').append(name).append("\":");
+		if (value == null) {
+			json.append("null");
+		} else if (value instanceof Number) {
+			json.append(value);
+		} else {
+			json.append('"');
+			String text = value.toString();
+			for (int cnt = 0; cnt < text.length(); cnt++) {
+				char character = text.charAt(cnt);
+				if (character == '"' || character == '\\')
+					json.append('\\').append(character);
+				else if (character < ' ')
+					json.append(String.format("\\u%04x", (int) character));
+				else
+					json.append(character);
+			}
+			json.append('"');
+		}
+	}
+
+	private static String getString(Map<String, Object> fields, String name) throws ParseException {
+		Object value = fields.get(name);
+		if (value != null && !(value instanceof String))
+			throw new ParseException("Expected a string for " + name, 0);
+		return (String) value;
+	}
+
+	private static Number getNumber(Map<String, Object> fields, String name) {
+		Object value = fields.get(name);
+		return value instanceof Number ? (Number) value : 0;
+	}
+
+	/*
+	 * Reads the flat objects written by toJSON: string, number and null
+	 * values only.
+	 */
+	private static Map<String, Object> parseObject(String line) throws ParseException {
+		Map<String, Object> fields = new LinkedHashMap<String, Object>();
+		int[] position = { skipWhitespace(line, 0) };
+		expect(line, position, '{');
+		if (peek(line, position) == '}')
+			return fields;
+		while (true) {
+			String name = parseString(line, position);
+			expect(line, position, ':');
+			char first = peek(line, position);
+			Object value;
+			if (first == '"') {
+				value = parseString(line, position);
+			} else if (line.startsWith("null", position[0])) {
+				value = null;
+				position[0] += 4;
+			} else {
+				int start = position[0];
+				while (position[0] < line.length() && "+-.0123456789eE".indexOf(line.charAt(position[0])) >= 0)
+					position[0]++;
+				try {
+					value = Double.parseDouble(line.substring(start, position[0]));
+				} catch (NumberFormatException e) {
+					throw new ParseException("Expected a value", start);
+				}
+			}
+			fields.put(name, value);
+			if (peek(line, position) == ',') {
+				position[0]++;
+				continue;
+			}
+			expect(line, position, '}');
+			return fields;
+		}
+	}
+
+	private static String parseString(String line, int[] position) throws ParseException {
+		expect(line, position, '"');
+		StringBuilder text = new StringBuilder();
+		while (position[0] < line.length()) {
+			char character = line.charAt(position[0]++);
+			if (character == '"')
+				return text.toString();
+			if (character != '\\') {
+				text.append(character);
+				continue;
+			}
+			if (position[0] >= line.length())
+				break;
+			char escaped = line.charAt(position[0]++);
+			switch (escaped) {
+			case 'u':
+				if (position[0] + 4 > line.length())
+					throw new ParseException("Unterminated escape", position[0]);
+				int code = 0;
+				for (int cnt = 0; cnt < 4; cnt++) {
+					int digit = Character.digit(line.charAt(position[0]), 16);
+					if (digit < 0)
+						throw new ParseException("Malformed escape", position[0]);
+					code = code * 16 + digit;
+					position[0]++;
+				}
+				text.append((char) code);
+				break;
+			case 'n':
+				text.append('\n');
+				break;
+			case 't':
+				text.append('\t');
+				break;
+			default:
+				text.append(escaped);
+			}
+		}
+		throw new ParseException("Unterminated string", position[0]);
+	}
+
+	private static char peek(String line, int[] position) throws ParseException {
+		position[0] = skipWhitespace(line, position[0]);
+		if (position[0] >= line.length())
+			throw new ParseException("Unexpected end of line", position[0]);
+		return line.charAt(position[0]);
+	}
+
+	private static void expect(String line, int[] position, char expected) throws ParseException {
+		if (peek(line, position) != expected)
+			throw new ParseException("Expected '" + expected + "'", position[0]);
+		position[0]++;
+	}
+
+	private static int skipWhitespace(String line, int position) {
+		while (position < line.length() && Character.isWhitespace(line.charAt(position)))
+			position++;
+		return position;
+	}
+}
@@ -0,0 +1,198 @@
+package org.rebecalang.afra.ideplugin.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.rebecalang.afra.ideplugin.Activator;
+
+/**
+ * Keeps the model checking results of a project, keyed by a hash of
+ * everything the verdict depends on: the contents of the model and property
+ * files, the checked property, the options of the run and the version of the
+ * plugin, which bundles the compiler. Running the model checker again with
+ * the same key would explore the same state space, so the stored result is
+ * reused instead. Only the most recently used results are kept.
+ *
+ * For each model, property and options the sources of the last run which
+ * satisfied the property are kept as a baseline as well, so that the
+ * satisfied verdict is reused after edits which {@link ImpactAnalysis} finds
+ * to only change comments and layout.
+ */
+public class VerdictCache {
+
+	public static final String CACHE_FOLDER_NAME = "verdict-cache";
+	public static final int MAXIMUM_NUMBER_OF_ENTRIES = 64;
+
+	private static final String ENTRY_EXTENSION = ".xml";
+	private static final String BASELINE_EXTENSION = ".baseline";
+
+	public static class Baseline {
+		private final String verdictKey;
+		private final String rebecaSource;
+		private final String propertySource;
+
+		public Baseline(String verdictKey, String rebecaSource, String propertySource) {
+			this.verdictKey = verdictKey;
+			this.rebecaSource = rebecaSource;
+			this.propertySource = propertySource;
+		}
+
+		public String getVerdictKey() {
+			return verdictKey;
+		}
+
+		public String getRebecaSource() {
+			return rebecaSource;
+		}
+
+		public String getPropertySource() {
+			return propertySource;
+		}
+	}
+
+	private final File cacheFolder;
+
+	public VerdictCache(File cacheFolder) {
+		this.cacheFolder = cacheFolder;
+	}
+
+	public static VerdictCache getCache(IProject project) {
+		return new VerdictCache(project.getWorkingLocation(Activator.PLUGIN_ID).append(CACHE_FOLDER_NAME).toFile());
+	}
+
+	/**
+	 * Returns null when one of the files cannot be read, in which case the
+	 * run should neither be answered from nor stored in the cache.
+	 */
+	public static String computeKey(IFile rebecaFile, IFile propertyFile, String propertyName, String options) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			RunHistory.updateDigest(digest, rebecaFile, propertyFile);
+			String version = Activator.getDefault() == null ? "" :
+				Activator.getDefault().getBundle().getVersion().toString();
+			for (String term : new String[] { propertyName, options, version }) {
+				digest.update(String.valueOf(term).getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+			return toHex(digest.digest());
+		} catch (NoSuchAlgorithmException | IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Copies the stored result of the key to the given file. Returns false
+	 * when there is no stored result.
+	 */
+	public boolean restore(String key, File modelCheckingResultFile) throws IOException {
+		File entry = getEntry(key);
+		if (!entry.isFile())
+			return false;
+		Files.copy(entry.toPath(), modelCheckingResultFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		entry.setLastModified(System.currentTimeMillis());
+		return true;
+	}
+
+	public void store(String key, File modelCheckingResultFile) throws IOException {
+		cacheFolder.mkdirs();
+		Path temporary = Files.createTempFile(cacheFolder.toPath(), key, ".tmp");
+		try {
+			Files.copy(modelCheckingResultFile.toPath(), temporary, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(temporary, getEntry(key).toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		evict(ENTRY_EXTENSION);
+	}
+
+	public Baseline findBaseline(String baselineKey) throws IOException {
+		File file = getBaselineFile(baselineKey);
+		if (!file.isFile())
+			return null;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			return new Baseline(readString(input), readString(input), readString(input));
+		}
+	}
+
+	public void storeBaseline(String baselineKey, Baseline baseline) throws IOException {
+		cacheFolder.mkdirs();
+		File file = getBaselineFile(baselineKey);
+		Path temporary = Files.createTempFile(cacheFolder.toPath(), file.getName(), ".tmp");
+		try {
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(temporary.toFile())))) {
+				writeString(output, baseline.getVerdictKey());
+				writeString(output, baseline.getRebecaSource());
+				writeString(output, baseline.getPropertySource());
+			}
+			Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		evict(BASELINE_EXTENSION);
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private File getEntry(String key) {
+		return new File(cacheFolder, key + ENTRY_EXTENSION);
+	}
+
+	private File getBaselineFile(String baselineKey) throws IOException {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(baselineKey.getBytes(StandardCharsets.UTF_8));
+			return new File(cacheFolder, toHex(hash) + BASELINE_EXTENSION);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder text = new StringBuilder();
+		for (byte value : bytes)
+			text.append(String.format("%02x", value));
+		return text.toString();
+	}
+
+	/*
+	 * Entries are touched when restored, so the oldest modification times
+	 * belong to the least recently used results.
+	 */
+	private void evict(String extension) {
+		File[] entries = cacheFolder.listFiles((dir, name) -> name.endsWith(extension));
+		if (entries == null || entries.length <= MAXIMUM_NUMBER_OF_ENTRIES)
+			return;
+		Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+		for (int cnt = 0; cnt < entries.length - MAXIMUM_NUMBER_OF_ENTRIES; cnt++)
+			entries[cnt].delete();
+	}
+}
@@ -0,0 +1,96 @@
+package org.rebecalang.afra.ideplugin.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The declarations and references found in one Rebeca file, along with the
+ * modification stamp of the file they were found in.
+ */
+public class FileSymbols {
+
+	private final String path;
+	private final long modificationStamp;
+	private final List<RebecaSymbol> declarations;
+	private final List<RebecaSymbol> references;
+
+	public FileSymbols(String path, long modificationStamp, List<RebecaSymbol> declarations,
+			List<RebecaSymbol> references) {
+		this.path = path;
+		this.modificationStamp = modificationStamp;
+		this.declarations = Collections.unmodifiableList(declarations);
+		this.references = Collections.unmodifiableList(references);
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public long getModificationStamp() {
+		return modificationStamp;
+	}
+
+	public List<RebecaSymbol> getDeclarations() {
+		return declarations;
+	}
+
+	public List<RebecaSymbol> getReferences() {
+		return references;
+	}
+
+	/**
+	 * Returns the declaration or reference whose name covers the given
+	 * offset, or null.
+	 */
+	public RebecaSymbol getSymbolAt(int offset) {
+		RebecaSymbol symbol = findSymbolAt(declarations, offset);
+		return symbol != null ? symbol : findSymbolAt(references, offset);
+	}
+
+	private static RebecaSymbol findSymbolAt(List<RebecaSymbol> symbols, int offset) {
+		for (RebecaSymbol symbol : symbols)
+			if (symbol.getOffset() <= offset && offset <= symbol.getOffset() + symbol.getLength())
+				return symbol;
+		return null;
+	}
+
+	public boolean declares(RebecaSymbol.Kind kind, String name) {
+		for (RebecaSymbol declaration : declarations)
+			if (declaration.getKind() == kind && declaration.getName().equals(name))
+				return true;
+		return false;
+	}
+
+	void write(DataOutputStream output) throws IOException {
+		output.writeUTF(path);
+		output.writeLong(modificationStamp);
+		writeSymbols(output, declarations);
+		writeSymbols(output, references);
+	}
+
+	private static void writeSymbols(DataOutputStream output, List<RebecaSymbol> symbols) throws IOException {
+		output.writeInt(symbols.size());
+		for (RebecaSymbol symbol : symbols)
+			symbol.write(output);
+	}
+
+	static FileSymbols read(DataInputStream input) throws IOException {
+		String path = input.readUTF();
+		long modificationStamp = input.readLong();
+		List<RebecaSymbol> declarations = readSymbols(input, path);
+		List<RebecaSymbol> references = readSymbols(input, path);
+		return new FileSymbols(path, modificationStamp, declarations, references);
+	}
+
+	private static List<RebecaSymbol> readSymbols(DataInputStream input, String path) throws IOException {
+		int size = input.readInt();
+		List<RebecaSymbol> symbols = new ArrayList<RebecaSymbol>(size);
+		for (int cnt = 0; cnt < size; cnt++)
+			symbols.add(RebecaSymbol.read(input, path));
+		return symbols;
+	}
+}
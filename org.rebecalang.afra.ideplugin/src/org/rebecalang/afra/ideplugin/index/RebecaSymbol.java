@@ -0,0 +1,120 @@
+package org.rebecalang.afra.ideplugin.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A declaration of, or a reference to, a named element of a Rebeca model.
+ * The container of members is the name of their reactive class; the
+ * container of a reference is null when the reactive class it refers into
+ * could not be told from the source.
+ */
+public class RebecaSymbol {
+
+	public enum Kind {
+		REACTIVE_CLASS("reactiveclass"),
+		MSGSRV("msgsrv"),
+		STATE_VARIABLE("statevar"),
+		KNOWN_REBEC("knownrebec"),
+		MAIN_REBEC("rebec");
+
+		private final String label;
+
+		private Kind(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	private final Kind kind;
+	private final String name;
+	private final String container;
+	private final String type;
+	private final String path;
+	private final int offset;
+	private final int line;
+
+	public RebecaSymbol(Kind kind, String name, String container, String type, String path, int offset, int line) {
+		this.kind = kind;
+		this.name = name;
+		this.container = container;
+		this.type = type;
+		this.path = path;
+		this.offset = offset;
+		this.line = line;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getContainer() {
+		return container;
+	}
+
+	/**
+	 * Returns the reactive class of known rebecs and main rebecs, the
+	 * declared type of state variables, or null.
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the full workspace path of the file.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return name.length();
+	}
+
+	/**
+	 * Returns the one-based line number.
+	 */
+	public int getLine() {
+		return line;
+	}
+
+	public String getQualifiedName() {
+		return container == null ? name : container + "." + name;
+	}
+
+	void write(DataOutputStream output) throws IOException {
+		output.writeByte(kind.ordinal());
+		output.writeUTF(name);
+		output.writeUTF(container == null ? "" : container);
+		output.writeUTF(type == null ? "" : type);
+		output.writeInt(offset);
+		output.writeInt(line);
+	}
+
+	static RebecaSymbol read(DataInputStream input, String path) throws IOException {
+		Kind kind = Kind.values()[input.readByte()];
+		String name = input.readUTF();
+		String container = input.readUTF();
+		String type = input.readUTF();
+		return new RebecaSymbol(kind, name, container.isEmpty() ? null : container,
+				type.isEmpty() ? null : type, path, input.readInt(), input.readInt());
+	}
+
+	@Override
+	public String toString() {
+		return getQualifiedName() + " - " + kind.getLabel() + (type == null ? "" : " : " + type) +
+				" (" + path + ":" + line + ")";
+	}
+}
@@ -0,0 +1,373 @@
+package org.rebecalang.afra.ideplugin.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.rebecalang.afra.ideplugin.Activator;
+import org.rebecalang.afra.ideplugin.general.ResourceUtils;
+import org.rebecalang.afra.ideplugin.index.RebecaSymbol.Kind;
+
+/**
+ * The declarations and references of the Rebeca files of the workspace.
+ * The index is kept in the state location of the plugin between sessions;
+ * on start only the files whose modification stamp differs from the stored
+ * one are scanned again, and afterwards the files are scanned again as the
+ * resource deltas report them changed. Loading and scanning happen in the
+ * background; until they are done the queries answer from the files indexed
+ * so far.
+ *
+ * Rebeca models are self-contained, so a name used in a file refers to the
+ * declaration of that file when there is one, and to the declarations of
+ * the other files of the workspace otherwise.
+ */
+public class SymbolIndex implements IResourceChangeListener {
+
+	public static final String REBECA_EXTENSION = "rebeca";
+	public static final String INDEX_FILE_NAME = "symbol-index";
+	public static final long SAVE_DELAY = 5000;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static SymbolIndex index;
+
+	private final File indexFile;
+	private final Map<String, FileSymbols> files = new HashMap<String, FileSymbols>();
+	private final Map<String, List<RebecaSymbol>> declarationsByName = new HashMap<String, List<RebecaSymbol>>();
+	private final Map<String, List<RebecaSymbol>> referencesByName = new HashMap<String, List<RebecaSymbol>>();
+	private final Set<IFile> pendingFiles = new LinkedHashSet<IFile>();
+	private final Job updateJob;
+	private final Job saveJob;
+	private boolean dirty;
+	/* Only read and written by the update job */
+	private boolean started;
+
+	private SymbolIndex(File indexFile) {
+		this.indexFile = indexFile;
+		updateJob = new Job("Indexing Rebeca symbols") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return update(monitor);
+			}
+		};
+		updateJob.setSystem(true);
+		saveJob = new Job("Saving Rebeca symbol index") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				save();
+				return Status.OK_STATUS;
+			}
+		};
+		saveJob.setSystem(true);
+	}
+
+	/**
+	 * Returns the index of the workspace, starting to follow the changes of
+	 * the workspace and to load the index in the background on first use.
+	 */
+	public static synchronized SymbolIndex getDefault() {
+		if (index == null) {
+			index = new SymbolIndex(Activator.getDefault().getStateLocation().append(INDEX_FILE_NAME).toFile());
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(index, IResourceChangeEvent.POST_CHANGE);
+			index.updateJob.schedule();
+		}
+		return index;
+	}
+
+	/**
+	 * Stops following the changes of the workspace and saves the index, if
+	 * it was used.
+	 */
+	public static synchronized void shutdown() {
+		if (index == null)
+			return;
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(index);
+		index.updateJob.cancel();
+		index.saveJob.cancel();
+		index.save();
+		index = null;
+	}
+
+	private void start() {
+		load();
+		// Files changed while the index was not following the workspace
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		Set<String> stale;
+		synchronized (this) {
+			stale = new HashSet<String>(files.keySet());
+		}
+		try {
+			root.accept(resource -> {
+				if (isRebecaFile(resource)) {
+					stale.remove(resource.getFullPath().toString());
+					schedule((IFile) resource);
+				}
+				return true;
+			});
+		} catch (CoreException e) {
+			e.printStackTrace();
+		}
+		for (String path : stale)
+			schedule(root.getFile(new Path(path)));
+	}
+
+	/*
+	 * Queries
+	 */
+
+	/**
+	 * Returns the declarations of the given kind and name, or of any kind
+	 * when the kind is null.
+	 */
+	public synchronized List<RebecaSymbol> findDeclarations(Kind kind, String name) {
+		List<RebecaSymbol> result = new ArrayList<RebecaSymbol>();
+		List<RebecaSymbol> declarations = declarationsByName.get(name);
+		if (declarations != null)
+			for (RebecaSymbol declaration : declarations)
+				if (kind == null || declaration.getKind() == kind)
+					result.add(declaration);
+		return result;
+	}
+
+	public synchronized List<RebecaSymbol> getAllDeclarations() {
+		List<RebecaSymbol> result = new ArrayList<RebecaSymbol>();
+		for (FileSymbols symbols : files.values())
+			result.addAll(symbols.getDeclarations());
+		return result;
+	}
+
+	/**
+	 * Returns the declarations the given reference or declaration, found in
+	 * the given symbols of its file, resolves to; the declarations of its
+	 * own file come first.
+	 */
+	public List<RebecaSymbol> resolve(RebecaSymbol symbol, FileSymbols fileSymbols) {
+		List<RebecaSymbol> result = new ArrayList<RebecaSymbol>();
+		for (RebecaSymbol declaration : fileSymbols.getDeclarations())
+			if (matches(symbol, declaration))
+				result.add(declaration);
+		if (!result.isEmpty())
+			return result;
+		for (RebecaSymbol declaration : findDeclarations(symbol.getKind(), symbol.getName()))
+			if (!declaration.getPath().equals(fileSymbols.getPath()) && matches(symbol, declaration))
+				result.add(declaration);
+		return result;
+	}
+
+	/**
+	 * Returns the references which resolve to the given declaration. The
+	 * references of the file of the declaration are taken from the given
+	 * symbols when they are not null, as the file may have unsaved changes.
+	 */
+	public List<RebecaSymbol> findReferences(RebecaSymbol declaration, FileSymbols fileSymbols) {
+		List<RebecaSymbol> result = new ArrayList<RebecaSymbol>();
+		if (fileSymbols != null)
+			for (RebecaSymbol reference : fileSymbols.getReferences())
+				if (matches(reference, declaration))
+					result.add(reference);
+		synchronized (this) {
+			List<RebecaSymbol> references = referencesByName.get(declaration.getName());
+			if (references == null)
+				return result;
+			for (RebecaSymbol reference : references) {
+				boolean sameFile = reference.getPath().equals(declaration.getPath());
+				if (sameFile && fileSymbols != null || !matches(reference, declaration))
+					continue;
+				if (sameFile || !files.get(reference.getPath()).declares(reference.getKind(), reference.getName()))
+					result.add(reference);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * A reference matches a declaration of the same kind and name whose
+	 * reactive class is the one of the reference, when it is known.
+	 */
+	private static boolean matches(RebecaSymbol reference, RebecaSymbol declaration) {
+		return reference.getKind() == declaration.getKind() &&
+				reference.getName().equals(declaration.getName()) &&
+				(reference.getContainer() == null || declaration.getContainer() == null ||
+				reference.getContainer().equals(declaration.getContainer()));
+	}
+
+	/*
+	 * Updates
+	 */
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null)
+			return;
+		try {
+			delta.accept(child -> {
+				IResource resource = child.getResource();
+				if (resource.getType() == IResource.FILE) {
+					if (REBECA_EXTENSION.equals(resource.getFileExtension()) &&
+							(child.getKind() != IResourceDelta.CHANGED ||
+							(child.getFlags() & IResourceDelta.CONTENT) != 0))
+						schedule((IFile) resource);
+					return false;
+				}
+				return true;
+			});
+		} catch (CoreException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void schedule(IFile file) {
+		synchronized (pendingFiles) {
+			pendingFiles.add(file);
+		}
+		updateJob.schedule();
+	}
+
+	private IStatus update(IProgressMonitor monitor) {
+		if (!started) {
+			started = true;
+			start();
+		}
+		while (!monitor.isCanceled()) {
+			IFile file;
+			synchronized (pendingFiles) {
+				if (pendingFiles.isEmpty())
+					break;
+				file = pendingFiles.iterator().next();
+				pendingFiles.remove(file);
+			}
+			String path = file.getFullPath().toString();
+			if (!isRebecaFile(file)) {
+				replace(path, null);
+				continue;
+			}
+			FileSymbols current;
+			synchronized (this) {
+				current = files.get(path);
+			}
+			if (current != null && current.getModificationStamp() == file.getModificationStamp())
+				continue;
+			try {
+				long stamp = file.getModificationStamp();
+				replace(path, SymbolScanner.scan(path, stamp, ResourceUtils.readSource(file)));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+	}
+
+	private synchronized void replace(String path, FileSymbols symbols) {
+		FileSymbols previous = symbols == null ? files.remove(path) : files.put(path, symbols);
+		if (previous == null && symbols == null)
+			return;
+		if (previous != null) {
+			removeByName(declarationsByName, previous.getDeclarations());
+			removeByName(referencesByName, previous.getReferences());
+		}
+		if (symbols != null) {
+			addByName(declarationsByName, symbols.getDeclarations());
+			addByName(referencesByName, symbols.getReferences());
+		}
+		dirty = true;
+		saveJob.schedule(SAVE_DELAY);
+	}
+
+	private static void addByName(Map<String, List<RebecaSymbol>> map, Collection<RebecaSymbol> symbols) {
+		for (RebecaSymbol symbol : symbols)
+			map.computeIfAbsent(symbol.getName(), name -> new ArrayList<RebecaSymbol>()).add(symbol);
+	}
+
+	private static void removeByName(Map<String, List<RebecaSymbol>> map, Collection<RebecaSymbol> symbols) {
+		for (RebecaSymbol symbol : symbols) {
+			List<RebecaSymbol> named = map.get(symbol.getName());
+			if (named == null)
+				continue;
+			named.remove(symbol);
+			if (named.isEmpty())
+				map.remove(symbol.getName());
+		}
+	}
+
+	private static boolean isRebecaFile(IResource resource) {
+		return resource.getType() == IResource.FILE && resource.isAccessible() &&
+				REBECA_EXTENSION.equals(resource.getFileExtension());
+	}
+
+	/*
+	 * Persistence
+	 */
+
+	private void load() {
+		if (!indexFile.isFile())
+			return;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (input.readInt() != FORMAT_VERSION)
+				return;
+			int size = input.readInt();
+			for (int cnt = 0; cnt < size; cnt++) {
+				FileSymbols symbols = FileSymbols.read(input);
+				replace(symbols.getPath(), symbols);
+			}
+			synchronized (this) {
+				dirty = false;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void save() {
+		List<FileSymbols> snapshot;
+		synchronized (this) {
+			if (!dirty)
+				return;
+			snapshot = new ArrayList<FileSymbols>(files.values());
+			dirty = false;
+		}
+		try {
+			indexFile.getParentFile().mkdirs();
+			File temporary = new File(indexFile.getPath() + ".tmp");
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(temporary)))) {
+				output.writeInt(FORMAT_VERSION);
+				output.writeInt(snapshot.size());
+				for (FileSymbols symbols : snapshot)
+					symbols.write(output);
+			}
+			Files.move(temporary.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package org.rebecalang.afra.ideplugin.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextSelection;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.dialogs.ElementListSelectionDialog;
+import org.eclipse.ui.ide.IDE;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+/**
+ * Finds the symbols under the caret of Rebeca editors in the
+ * {@link SymbolIndex}, and opens them. The file of the editor is scanned
+ * again from its document, so that unsaved changes are taken into account.
+ */
+public class SymbolNavigation {
+
+	public static IFile getFile(ITextEditor editor) {
+		IFile file = editor.getEditorInput().getAdapter(IFile.class);
+		return file != null && SymbolIndex.REBECA_EXTENSION.equals(file.getFileExtension()) ? file : null;
+	}
+
+	/**
+	 * Returns the symbols of the document of the editor, or null when it does
+	 * not edit a Rebeca file.
+	 */
+	public static FileSymbols scan(ITextEditor editor) {
+		IFile file = getFile(editor);
+		if (file == null)
+			return null;
+		IDocument document = editor.getDocumentProvider().getDocument(editor.getEditorInput());
+		return document == null ? null :
+			SymbolScanner.scan(file.getFullPath().toString(), file.getModificationStamp(), document.get());
+	}
+
+	public static int getCaretOffset(ITextEditor editor) {
+		ISelection selection = editor.getSelectionProvider().getSelection();
+		return selection instanceof ITextSelection ? ((ITextSelection) selection).getOffset() : -1;
+	}
+
+	/**
+	 * Returns the declarations the symbol at the given offset of the symbols
+	 * of a file resolves to; a declaration resolves to itself.
+	 */
+	public static List<RebecaSymbol> findDeclarations(FileSymbols fileSymbols, int offset) {
+		List<RebecaSymbol> declarations = new ArrayList<RebecaSymbol>();
+		RebecaSymbol symbol = fileSymbols.getSymbolAt(offset);
+		if (symbol == null)
+			return declarations;
+		if (fileSymbols.getDeclarations().contains(symbol)) {
+			declarations.add(symbol);
+			return declarations;
+		}
+		return SymbolIndex.getDefault().resolve(symbol, fileSymbols);
+	}
+
+	/**
+	 * Returns the given symbol when there is only one, and asks the user to
+	 * choose one otherwise. Returns null when there are none or the user
+	 * canceled.
+	 */
+	public static RebecaSymbol choose(Shell shell, String title, String message, List<RebecaSymbol> symbols) {
+		if (symbols.size() == 1)
+			return symbols.get(0);
+		if (symbols.isEmpty())
+			return null;
+		ElementListSelectionDialog dialog = new ElementListSelectionDialog(shell, new LabelProvider());
+		dialog.setTitle(title);
+		dialog.setMessage(message);
+		dialog.setMultipleSelection(false);
+		dialog.setElements(symbols.toArray());
+		if (dialog.open() != Window.OK || dialog.getFirstResult() == null)
+			return null;
+		return (RebecaSymbol) dialog.getFirstResult();
+	}
+
+	/**
+	 * Opens the file of the symbol in an editor and selects its name.
+	 */
+	public static void open(RebecaSymbol symbol) {
+		IFile file = ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(symbol.getPath()));
+		IWorkbenchPage page = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
+		try {
+			IEditorPart editor = IDE.openEditor(page, file);
+			if (editor instanceof ITextEditor)
+				((ITextEditor) editor).selectAndReveal(symbol.getOffset(), symbol.getLength());
+		} catch (PartInitException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,301 @@
+package org.rebecalang.afra.ideplugin.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rebecalang.afra.ideplugin.editors.SourceLexer;
+import org.rebecalang.afra.ideplugin.index.RebecaSymbol.Kind;
+
+/**
+ * Finds the declarations and references of a Rebeca source from its tokens,
+ * without compiling it, so that it also works on sources with errors. Uses
+ * of state variables and known rebecs are found in the bodies of the
+ * methods of their reactive class, and sends are resolved to the reactive
+ * class of their receiver when it is self or a known rebec.
+ */
+public class SymbolScanner {
+
+	private final String path;
+	private final List<Token> tokens;
+	private final List<RebecaSymbol> declarations = new ArrayList<RebecaSymbol>();
+	private final List<RebecaSymbol> references = new ArrayList<RebecaSymbol>();
+
+	private SymbolScanner(String path, String source) {
+		this.path = path;
+		this.tokens = tokenize(source);
+	}
+
+	public static FileSymbols scan(String path, long modificationStamp, String source) {
+		SymbolScanner scanner = new SymbolScanner(path, source);
+		scanner.scanModel();
+		return new FileSymbols(path, modificationStamp, scanner.declarations, scanner.references);
+	}
+
+	private void scanModel() {
+		List<int[]> classes = new ArrayList<int[]>();
+		int position = 0;
+		while (position < tokens.size()) {
+			Token token = tokens.get(position);
+			if (token.text.equals("reactiveclass") && isIdentifier(position + 1)) {
+				int open = position + 2;
+				while (open < tokens.size() && !tokens.get(open).text.equals("{"))
+					open++;
+				int end = matching(open);
+				classes.add(new int[] { position, open, end });
+				position = end + 1;
+			} else if (token.text.equals("main") && is(position + 1, "{")) {
+				int end = matching(position + 1);
+				scanMain(position + 2, end);
+				position = end + 1;
+			} else {
+				position++;
+			}
+		}
+		for (int[] reactiveClass : classes)
+			scanClass(reactiveClass[0], reactiveClass[1], reactiveClass[2]);
+	}
+
+	private void scanClass(int start, int open, int end) {
+		Token nameToken = tokens.get(start + 1);
+		String className = nameToken.text;
+		declare(Kind.REACTIVE_CLASS, nameToken, null, null);
+		for (int cnt = start + 2; cnt < open; cnt++)
+			if (isIdentifier(cnt) && !isKeyword(tokens.get(cnt).text))
+				refer(Kind.REACTIVE_CLASS, tokens.get(cnt), null);
+
+		Map<String, String> knownRebecs = new HashMap<String, String>();
+		Map<String, String> stateVariables = new HashMap<String, String>();
+		List<int[]> bodies = new ArrayList<int[]>();
+		int pendingStart = open + 1;
+		for (int cnt = open + 1; cnt < end; cnt++) {
+			String text = tokens.get(cnt).text;
+			if (text.equals(";")) {
+				pendingStart = cnt + 1;
+			} else if (text.equals("{")) {
+				int bodyEnd = matching(cnt);
+				String previous = tokens.get(cnt - 1).text;
+				if (previous.equals("knownrebecs")) {
+					scanDeclarations(cnt + 1, bodyEnd, Kind.KNOWN_REBEC, className, knownRebecs);
+				} else if (previous.equals("statevars")) {
+					scanDeclarations(cnt + 1, bodyEnd, Kind.STATE_VARIABLE, className, stateVariables);
+				} else {
+					int parenthesis = pendingStart;
+					while (parenthesis < cnt && !tokens.get(parenthesis).text.equals("("))
+						parenthesis++;
+					if (parenthesis < cnt && parenthesis > pendingStart && isIdentifier(parenthesis - 1)) {
+						boolean messageServer = false;
+						for (int index = pendingStart; index < parenthesis; index++)
+							messageServer |= tokens.get(index).text.equals("msgsrv");
+						if (messageServer)
+							declare(Kind.MSGSRV, tokens.get(parenthesis - 1), className, null);
+					}
+					bodies.add(new int[] { cnt + 1, bodyEnd });
+				}
+				cnt = bodyEnd;
+				pendingStart = cnt + 1;
+			}
+		}
+		for (int[] body : bodies)
+			scanBody(body[0], body[1], className, knownRebecs, stateVariables);
+	}
+
+	/*
+	 * "Type name, name[2] = value;" declares the names which are followed
+	 * by a comma, a semicolon, an initializer or an array dimension.
+	 */
+	private void scanDeclarations(int from, int to, Kind kind, String className, Map<String, String> names) {
+		String type = null;
+		int depth = 0;
+		for (int cnt = from; cnt < to; cnt++) {
+			String text = tokens.get(cnt).text;
+			if (text.equals("(") || text.equals("[")) {
+				depth++;
+			} else if (text.equals(")") || text.equals("]")) {
+				depth--;
+			} else if (text.equals(";")) {
+				type = null;
+				depth = 0;
+			} else if (depth == 0 && isIdentifier(cnt)) {
+				if (type == null) {
+					type = text;
+					if (kind == Kind.KNOWN_REBEC)
+						refer(Kind.REACTIVE_CLASS, tokens.get(cnt), null);
+				} else if (cnt + 1 < to && isDeclaratorEnd(tokens.get(cnt + 1).text) || cnt + 1 == to) {
+					String previous = tokens.get(cnt - 1).text;
+					if (previous.equals(",") || previous.equals(type) || previous.equals("]")) {
+						names.put(text, type);
+						declare(kind, tokens.get(cnt), className, type);
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean isDeclaratorEnd(String text) {
+		return text.equals(",") || text.equals(";") || text.equals("=") || text.equals("[");
+	}
+
+	private void scanBody(int from, int to, String className, Map<String, String> knownRebecs,
+			Map<String, String> stateVariables) {
+		for (int cnt = from; cnt < to; cnt++) {
+			if (!isIdentifier(cnt))
+				continue;
+			Token token = tokens.get(cnt);
+			boolean member = is(cnt - 1, ".");
+			if (member && is(cnt + 1, "(")) {
+				String receiver = isIdentifier(cnt - 2) ? tokens.get(cnt - 2).text : null;
+				String receiverClass = null;
+				if ("self".equals(receiver))
+					receiverClass = className;
+				else if (knownRebecs.containsKey(receiver))
+					receiverClass = knownRebecs.get(receiver);
+				refer(Kind.MSGSRV, token, receiverClass);
+			} else if (member) {
+				if (is(cnt - 2, "self") && stateVariables.containsKey(token.text))
+					refer(Kind.STATE_VARIABLE, token, className);
+			} else if (stateVariables.containsKey(token.text)) {
+				refer(Kind.STATE_VARIABLE, token, className);
+			} else if (knownRebecs.containsKey(token.text)) {
+				refer(Kind.KNOWN_REBEC, token, className);
+			} else if (is(cnt + 1, "(") && !isKeyword(token.text)) {
+				// A call of a method of the same reactive class
+				refer(Kind.MSGSRV, token, className);
+			}
+		}
+	}
+
+	/*
+	 * "Type name(bound, rebecs):(arguments);" declares a main rebec.
+	 */
+	private void scanMain(int from, int to) {
+		for (int cnt = from; cnt + 2 < to; cnt++) {
+			if (!isIdentifier(cnt) || !isIdentifier(cnt + 1) || !is(cnt + 2, "(") || is(cnt - 1, "@"))
+				continue;
+			Token type = tokens.get(cnt);
+			Token name = tokens.get(cnt + 1);
+			refer(Kind.REACTIVE_CLASS, type, null);
+			declare(Kind.MAIN_REBEC, name, null, type.text);
+			int end = matching(cnt + 2);
+			for (int index = cnt + 3; index < end; index++)
+				if (isIdentifier(index))
+					refer(Kind.MAIN_REBEC, tokens.get(index), null);
+			cnt = end;
+		}
+	}
+
+	private void declare(Kind kind, Token token, String container, String type) {
+		declarations.add(new RebecaSymbol(kind, token.text, container, type, path, token.offset, token.line));
+	}
+
+	private void refer(Kind kind, Token token, String container) {
+		references.add(new RebecaSymbol(kind, token.text, container, null, path, token.offset, token.line));
+	}
+
+	/*
+	 * Tokens
+	 */
+
+	private static final String[] KEYWORDS = { "reactiveclass", "knownrebecs", "statevars", "msgsrv", "main",
+			"extends", "implements", "abstract", "if", "else", "for", "while", "do", "switch", "case", "return",
+			"break", "continue", "self", "sender", "true", "false", "after", "deadline", "delay", "now",
+			"boolean", "byte", "short", "int", "float", "double", "void", "env", "record", "interface" };
+
+	private static boolean isKeyword(String text) {
+		for (String keyword : KEYWORDS)
+			if (keyword.equals(text))
+				return true;
+		return false;
+	}
+
+	public static class Token {
+		public final String text;
+		public final int offset;
+		public final int line;
+
+		Token(String text, int offset, int line) {
+			this.text = text;
+			this.offset = offset;
+			this.line = line;
+		}
+	}
+
+	/**
+	 * Returns the tokens of the given source outside the comments, with each
+	 * string or character literal as a single token, as {@link SourceLexer}
+	 * finds them.
+	 */
+	public static List<Token> tokenize(String source) {
+		List<Token> tokens = new ArrayList<Token>();
+		SourceLexer lexer = new SourceLexer(new String[0]);
+		lexer.reset(source, 0, source.length(), SourceLexer.STATE_CODE);
+		int line = 1;
+		for (int kind = lexer.nextToken(); kind != SourceLexer.EOF; kind = lexer.nextToken()) {
+			int position = lexer.getTokenStart();
+			int end = lexer.getTokenEnd();
+			if (kind == SourceLexer.STRING) {
+				tokens.add(new Token(source.substring(position, end), position, line));
+				continue;
+			}
+			if (kind != SourceLexer.DEFAULT && kind != SourceLexer.KEYWORD) {
+				line += countLines(source, position, end);
+				continue;
+			}
+			while (position < end) {
+				char character = source.charAt(position);
+				int start = position;
+				if (character == '\n') {
+					line++;
+					position++;
+				} else if (Character.isWhitespace(character)) {
+					position++;
+				} else if (Character.isJavaIdentifierStart(character) || Character.isDigit(character)) {
+					while (position < end && Character.isJavaIdentifierPart(source.charAt(position)))
+						position++;
+					tokens.add(new Token(source.substring(start, position), start, line));
+				} else {
+					position++;
+					tokens.add(new Token(String.valueOf(character), start, line));
+				}
+			}
+		}
+		return tokens;
+	}
+
+	private static int countLines(String source, int from, int to) {
+		int lines = 0;
+		for (int cnt = from; cnt < to; cnt++)
+			if (source.charAt(cnt) == '\n')
+				lines++;
+		return lines;
+	}
+
+	private boolean is(int index, String text) {
+		return index >= 0 && index < tokens.size() && tokens.get(index).text.equals(text);
+	}
+
+	private boolean isIdentifier(int index) {
+		return index >= 0 && index < tokens.size() &&
+				Character.isJavaIdentifierStart(tokens.get(index).text.charAt(0));
+	}
+
+	/*
+	 * Returns the index of the bracket closing the one at the given index, or
+	 * the end of the tokens when it is not closed.
+	 */
+	private int matching(int open) {
+		if (open >= tokens.size())
+			return tokens.size();
+		String opening = tokens.get(open).text;
+		String closing = opening.equals("{") ? "}" : opening.equals("(") ? ")" : "]";
+		int depth = 0;
+		for (int cnt = open; cnt < tokens.size(); cnt++) {
+			if (tokens.get(cnt).text.equals(opening))
+				depth++;
+			else if (tokens.get(cnt).text.equals(closing) && --depth == 0)
+				return cnt;
+		}
+		return tokens.size();
+	}
+}
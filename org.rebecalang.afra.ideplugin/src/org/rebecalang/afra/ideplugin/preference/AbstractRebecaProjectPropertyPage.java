@@ -28,6 +28,7 @@ public class AbstractRebecaProjectPropertyPage extends PropertyPage implements I
 
 	private Button runInSafeMode;
 	private Button exportStateSpace;
+	private Button compressStateSpace;
 	private Text hashMapSizeText;
 	/**
 	 * @see PreferencePage#createContents(Composite)
@@ -49,6 +50,13 @@ public class AbstractRebecaProjectPropertyPage extends PropertyPage implements I
 		return Boolean.parseBoolean(getProjectAttribute(project, "exportStateSpace", "false"));
 	}
 	
+	public static void setProjectCompressStateSpace(IProject project, boolean value) {
+		setProjectAttribute(project, "compressStateSpace", Boolean.toString(value));
+	}
+	public static boolean getProjectCompressStateSpace(IProject project) {
+		return Boolean.parseBoolean(getProjectAttribute(project, "compressStateSpace", "true"));
+	}
+	
 	public static void setProjectRunInSafeMode(IProject project, boolean value) {
 		setProjectAttribute(project, "runInSafeMode", Boolean.toString(value));
 	}
@@ -124,6 +132,11 @@ public class AbstractRebecaProjectPropertyPage extends PropertyPage implements I
 		exportStateSpace = new Button(runtimeconfig, SWT.CHECK);
 		exportStateSpace.setText("Export State Space");
 		exportStateSpace.setSelection(getProjectExportStateSpace(getProject()));
+		new Label(runtimeconfig, SWT.NONE);
+
+		compressStateSpace = new Button(runtimeconfig, SWT.CHECK);
+		compressStateSpace.setText("Compress Exported State Space");
+		compressStateSpace.setSelection(getProjectCompressStateSpace(getProject()));
 
 		return container;
 	}
@@ -132,6 +145,7 @@ public class AbstractRebecaProjectPropertyPage extends PropertyPage implements I
 	protected void performDefaults() {
 		runInSafeMode.setSelection(true);
 		exportStateSpace.setSelection(false);
+		compressStateSpace.setSelection(true);
 		hashMapSizeText.setText(DEFAULT_HASHMAP_SIZE);
 	}
 
@@ -141,6 +155,7 @@ public class AbstractRebecaProjectPropertyPage extends PropertyPage implements I
 
 	public boolean performOk() {
 		setProjectExportStateSpace(getProject(), exportStateSpace.getSelection());
+		setProjectCompressStateSpace(getProject(), compressStateSpace.getSelection());
 		setProjectRunInSafeMode(getProject(), runInSafeMode.getSelection());
 		try {
 			Integer.parseInt(hashMapSizeText.getText());
@@ -0,0 +1,113 @@
+package org.rebecalang.afra.ideplugin.propertypages;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.jface.dialogs.IMessageProvider;
+import org.eclipse.jface.dialogs.TitleAreaDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.rebecalang.afra.ideplugin.statespace.BisimulationMinimizer;
+
+public class BisimulationDialog extends TitleAreaDialog {
+
+	private int mode = BisimulationMinimizer.STRONG;
+	private Set<String> visibleMessages;
+	private boolean timeProgressVisible = true;
+	private boolean ignoreExecutionTimes;
+
+	private Text visibleMessagesText;
+	private Button timeProgressButton;
+	private Button executionTimesButton;
+
+	public BisimulationDialog(Shell parentShell) {
+		super(parentShell);
+	}
+
+	@Override
+	public void create() {
+		super.create();
+		setTitle("Minimize State Space");
+		setMessage("Hidden messages become the silent action \"" + BisimulationMinimizer.TAU +
+				"\"; branching bisimulation also merges the states they connect.", IMessageProvider.INFORMATION);
+	}
+
+	@Override
+	protected Control createDialogArea(Composite parent) {
+		Composite area = (Composite) super.createDialogArea(parent);
+		Composite container = new Composite(area, SWT.NONE);
+		container.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		container.setLayout(new GridLayout(2, false));
+
+		Button strongButton = createModeButton(container, "Strong bisimulation", BisimulationMinimizer.STRONG);
+		strongButton.setSelection(true);
+		createModeButton(container, "Branching bisimulation", BisimulationMinimizer.BRANCHING);
+
+		new Label(container, SWT.NONE).setText("Visible messages");
+		visibleMessagesText = new Text(container, SWT.BORDER);
+		visibleMessagesText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		visibleMessagesText.setMessage("message or rebec.message, separated by commas; empty for all");
+
+		timeProgressButton = new Button(container, SWT.CHECK);
+		timeProgressButton.setText("Time progress is visible");
+		timeProgressButton.setSelection(timeProgressVisible);
+		timeProgressButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+
+		executionTimesButton = new Button(container, SWT.CHECK);
+		executionTimesButton.setText("Ignore execution times of messages");
+		executionTimesButton.setSelection(ignoreExecutionTimes);
+		executionTimesButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+		return area;
+	}
+
+	private Button createModeButton(Composite container, String text, final int buttonMode) {
+		Button button = new Button(container, SWT.RADIO);
+		button.setText(text);
+		button.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+		button.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				if (((Button) e.getSource()).getSelection())
+					mode = buttonMode;
+			}
+		});
+		return button;
+	}
+
+	@Override
+	protected void okPressed() {
+		visibleMessages = null;
+		for (String message : visibleMessagesText.getText().split(",")) {
+			if (message.trim().isEmpty())
+				continue;
+			if (visibleMessages == null)
+				visibleMessages = new HashSet<String>();
+			visibleMessages.add(message.trim());
+		}
+		timeProgressVisible = timeProgressButton.getSelection();
+		ignoreExecutionTimes = executionTimesButton.getSelection();
+		super.okPressed();
+	}
+
+	@Override
+	protected boolean isResizable() {
+		return true;
+	}
+
+	public BisimulationMinimizer createMinimizer() {
+		BisimulationMinimizer minimizer = new BisimulationMinimizer(mode);
+		minimizer.setVisibleMessages(visibleMessages);
+		minimizer.setTimeProgressVisible(timeProgressVisible);
+		minimizer.setIgnoreExecutionTimes(ignoreExecutionTimes);
+		return minimizer;
+	}
+}
@@ -0,0 +1,118 @@
+package org.rebecalang.afra.ideplugin.propertypages;
+
+import org.eclipse.jface.dialogs.IMessageProvider;
+import org.eclipse.jface.dialogs.TitleAreaDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.rebecalang.afra.ideplugin.statespace.GraphvizExporter;
+
+public class GraphvizExportDialog extends TitleAreaDialog {
+
+	private int mode = GraphvizExporter.FULL;
+	private int sampleRate = 10;
+	private int maxDepth = 10;
+	private int maxStates = 1000;
+
+	private Spinner sampleRateSpinner;
+	private Spinner maxDepthSpinner;
+	private Spinner maxStatesSpinner;
+
+	public GraphvizExportDialog(Shell parentShell) {
+		super(parentShell);
+	}
+
+	@Override
+	public void create() {
+		super.create();
+		setTitle("Convert State Space to Graphviz");
+		setMessage("Large state spaces are easier to render when only a part of them is exported.",
+				IMessageProvider.INFORMATION);
+	}
+
+	@Override
+	protected Control createDialogArea(Composite parent) {
+		Composite area = (Composite) super.createDialogArea(parent);
+		Composite container = new Composite(area, SWT.NONE);
+		container.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		container.setLayout(new GridLayout(3, false));
+
+		Button fullButton = createModeButton(container, "Export all states", GraphvizExporter.FULL);
+		fullButton.setSelection(true);
+		new Label(container, SWT.NONE);
+		new Label(container, SWT.NONE);
+
+		createModeButton(container, "Export a sample of the states", GraphvizExporter.SAMPLED);
+		new Label(container, SWT.NONE).setText("One state in");
+		sampleRateSpinner = createSpinner(container, sampleRate, 2, 1000000);
+
+		createModeButton(container, "Export the states near the initial state", GraphvizExporter.DEPTH_LIMITED);
+		new Label(container, SWT.NONE).setText("Maximum depth");
+		maxDepthSpinner = createSpinner(container, maxDepth, 1, 100000);
+		new Label(container, SWT.NONE);
+		new Label(container, SWT.NONE).setText("Maximum number of states");
+		maxStatesSpinner = createSpinner(container, maxStates, 1, 10000000);
+
+		updateEnablement();
+		return area;
+	}
+
+	private Button createModeButton(Composite container, String text, final int buttonMode) {
+		Button button = new Button(container, SWT.RADIO);
+		button.setText(text);
+		button.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				if (((Button) e.getSource()).getSelection()) {
+					mode = buttonMode;
+					updateEnablement();
+				}
+			}
+		});
+		return button;
+	}
+
+	private Spinner createSpinner(Composite container, int value, int minimum, int maximum) {
+		Spinner spinner = new Spinner(container, SWT.BORDER);
+		spinner.setMinimum(minimum);
+		spinner.setMaximum(maximum);
+		spinner.setSelection(value);
+		spinner.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		return spinner;
+	}
+
+	private void updateEnablement() {
+		sampleRateSpinner.setEnabled(mode == GraphvizExporter.SAMPLED);
+		maxDepthSpinner.setEnabled(mode == GraphvizExporter.DEPTH_LIMITED);
+		maxStatesSpinner.setEnabled(mode == GraphvizExporter.DEPTH_LIMITED);
+	}
+
+	@Override
+	protected void okPressed() {
+		sampleRate = sampleRateSpinner.getSelection();
+		maxDepth = maxDepthSpinner.getSelection();
+		maxStates = maxStatesSpinner.getSelection();
+		super.okPressed();
+	}
+
+	@Override
+	protected boolean isResizable() {
+		return true;
+	}
+
+	public GraphvizExporter createExporter() {
+		GraphvizExporter exporter = new GraphvizExporter(mode);
+		exporter.setSampleRate(sampleRate);
+		exporter.setMaxDepth(maxDepth);
+		exporter.setMaxStates(maxStates);
+		return exporter;
+	}
+}
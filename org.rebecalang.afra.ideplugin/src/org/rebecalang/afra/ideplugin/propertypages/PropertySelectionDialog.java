@@ -9,6 +9,7 @@ import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.List;
@@ -18,6 +19,8 @@ public class PropertySelectionDialog extends TitleAreaDialog {
 
 	java.util.List<String> propertiesNames;
 	private int selectedIndex = 0;
+	private boolean forceReverify = false;
+	private Button forceReverifyButton;
 	
 	public PropertySelectionDialog(Shell parentShell, java.util.List<String> properiesNames) {
 		super(parentShell);
@@ -41,6 +44,10 @@ public class PropertySelectionDialog extends TitleAreaDialog {
 
 		createFirstName(container);
 
+		forceReverifyButton = new Button(container, SWT.CHECK);
+		forceReverifyButton.setText("Force re-verify (ignore the cached result of an identical run)");
+		forceReverifyButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+
 		return area;
 	}
 
@@ -82,6 +89,12 @@ public class PropertySelectionDialog extends TitleAreaDialog {
 		});
 	}
 
+	@Override
+	protected void okPressed() {
+		forceReverify = forceReverifyButton.getSelection();
+		super.okPressed();
+	}
+
 	@Override
 	protected boolean isResizable() {
 		return true;
@@ -92,4 +105,8 @@ public class PropertySelectionDialog extends TitleAreaDialog {
 			return null;
 		return propertiesNames.get(selectedIndex - 1);
 	}
-}
\ No newline at end of file
+
+	public boolean isForceReverify() {
+		return forceReverify;
+	}
+}
@@ -0,0 +1,100 @@
+package org.rebecalang.afra.ideplugin.propertypages;
+
+import java.text.ParseException;
+
+import org.eclipse.jface.dialogs.IMessageProvider;
+import org.eclipse.jface.dialogs.TitleAreaDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.rebecalang.afra.ideplugin.statespace.TemporalPredicateParser;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StatePredicate;
+
+public class ShortestCounterExampleDialog extends TitleAreaDialog {
+
+	private boolean deadlock = true;
+	private StatePredicate predicate;
+	private String query;
+
+	private Button deadlockButton;
+	private Text queryText;
+
+	public ShortestCounterExampleDialog(Shell parentShell) {
+		super(parentShell);
+	}
+
+	@Override
+	public void create() {
+		super.create();
+		setTitle("Find Shortest Counterexample");
+		setMessage("Finds a shortest path from the initial state and shows it as a counterexample.",
+				IMessageProvider.INFORMATION);
+	}
+
+	@Override
+	protected Control createDialogArea(Composite parent) {
+		Composite area = (Composite) super.createDialogArea(parent);
+		Composite container = new Composite(area, SWT.NONE);
+		container.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		container.setLayout(new GridLayout(1, false));
+
+		deadlockButton = new Button(container, SWT.RADIO);
+		deadlockButton.setText("Path to a deadlock");
+		deadlockButton.setSelection(true);
+		Button predicateButton = new Button(container, SWT.RADIO);
+		predicateButton.setText("Path to a state satisfying");
+		predicateButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				queryText.setEnabled(predicateButton.getSelection());
+			}
+		});
+
+		queryText = new Text(container, SWT.BORDER);
+		GridData queryData = new GridData(SWT.FILL, SWT.CENTER, true, false);
+		queryData.widthHint = 400;
+		queryText.setLayoutData(queryData);
+		queryText.setMessage("e.g. philosopher1.eating && philosopher2.eating");
+		queryText.setEnabled(false);
+		return area;
+	}
+
+	@Override
+	protected void okPressed() {
+		deadlock = deadlockButton.getSelection();
+		if (!deadlock) {
+			query = queryText.getText().trim();
+			try {
+				predicate = new TemporalPredicateParser().parse(query);
+			} catch (ParseException e) {
+				setErrorMessage(e.getMessage() + " at column " + (e.getErrorOffset() + 1));
+				return;
+			}
+		}
+		super.okPressed();
+	}
+
+	@Override
+	protected boolean isResizable() {
+		return true;
+	}
+
+	/**
+	 * Returns the predicate of the target states, or null when the target is
+	 * a deadlock.
+	 */
+	public StatePredicate getPredicate() {
+		return deadlock ? null : predicate;
+	}
+
+	public String getTargetDescription() {
+		return deadlock ? "a deadlock" : query;
+	}
+}
@@ -0,0 +1,180 @@
+package org.rebecalang.afra.ideplugin.propertypages;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.BitSet;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.IMessageProvider;
+import org.eclipse.jface.dialogs.TitleAreaDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.rebecalang.afra.ideplugin.statespace.CompactStateGraph;
+import org.rebecalang.afra.ideplugin.statespace.StateGraphIndex;
+import org.rebecalang.afra.ideplugin.statespace.TemporalPredicateParser;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StatePredicate;
+
+/**
+ * Modeless dialog which evaluates CTL queries against an imported state space
+ * and keeps a log of the answers. The dialog owns the graph and closes it
+ * when it is closed.
+ */
+public class StateSpaceQueryDialog extends TitleAreaDialog {
+
+	private final CompactStateGraph graph;
+	private final StateGraphIndex index;
+	private final String stateSpaceName;
+
+	private Text queryText;
+	private Text resultText;
+	private Button evaluateButton;
+	private Job evaluationJob;
+
+	public StateSpaceQueryDialog(Shell parentShell, CompactStateGraph graph, String stateSpaceName) {
+		super(parentShell);
+		this.graph = graph;
+		synchronized (graph) {
+			this.index = graph.isClosed() ? null : new StateGraphIndex(graph);
+		}
+		this.stateSpaceName = stateSpaceName;
+		setShellStyle(SWT.DIALOG_TRIM | SWT.RESIZE | SWT.MODELESS);
+		setBlockOnOpen(false);
+	}
+
+	@Override
+	public void create() {
+		super.create();
+		setTitle("Query " + stateSpaceName);
+		setMessage("Enter a state predicate or a CTL formula, e.g. AG !(p1.eating && p2.eating) or "
+				+ "E[!f.taken U w.queue contains request].", IMessageProvider.INFORMATION);
+	}
+
+	@Override
+	protected Control createDialogArea(Composite parent) {
+		Composite area = (Composite) super.createDialogArea(parent);
+		Composite container = new Composite(area, SWT.NONE);
+		container.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		container.setLayout(new GridLayout(2, false));
+
+		new Label(container, SWT.NONE).setText("Query");
+		queryText = new Text(container, SWT.BORDER);
+		queryText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+		resultText = new Text(container, SWT.BORDER | SWT.MULTI | SWT.READ_ONLY | SWT.V_SCROLL | SWT.WRAP);
+		GridData resultData = new GridData(SWT.FILL, SWT.FILL, true, true, 2, 1);
+		resultData.heightHint = 200;
+		resultData.widthHint = 500;
+		resultText.setLayoutData(resultData);
+		synchronized (graph) {
+			if (!graph.isClosed())
+				resultText.setText(graph.getNumberOfStates() + " states, " +
+						graph.getNumberOfTransitions() + " transitions\n");
+		}
+		return area;
+	}
+
+	@Override
+	protected void createButtonsForButtonBar(Composite parent) {
+		evaluateButton = createButton(parent, IDialogConstants.OK_ID, "Evaluate", true);
+		createButton(parent, IDialogConstants.CLOSE_ID, IDialogConstants.CLOSE_LABEL, false);
+	}
+
+	@Override
+	protected void buttonPressed(int buttonId) {
+		if (buttonId == IDialogConstants.OK_ID)
+			evaluate();
+		else if (buttonId == IDialogConstants.CLOSE_ID)
+			close();
+	}
+
+	private void evaluate() {
+		String query = queryText.getText().trim();
+		if (query.isEmpty())
+			return;
+		StatePredicate predicate;
+		try {
+			predicate = new TemporalPredicateParser().parse(query);
+		} catch (ParseException e) {
+			setErrorMessage(e.getMessage() + " at column " + (e.getErrorOffset() + 1));
+			return;
+		}
+		setErrorMessage(null);
+		evaluateButton.setEnabled(false);
+		evaluationJob = new Job("Evaluating " + query) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				String result;
+				try {
+					long start = System.currentTimeMillis();
+					synchronized (graph) {
+						if (graph.isClosed()) {
+							result = query + "\n\tnot evaluated; " + stateSpaceName +
+									" was imported again, reopen the dialog\n";
+						} else {
+							index.setMonitor(monitor);
+							BitSet states = predicate.evaluate(index);
+							result = query + "\n\t" + (states.get(graph.getInitialState()) ?
+									"holds" : "does not hold") + " in the initial state; satisfied by " +
+									states.cardinality() + " of " + graph.getNumberOfStates() + " states (" +
+									(System.currentTimeMillis() - start) + " ms)\n";
+						}
+					}
+				} catch (OperationCanceledException e) {
+					result = query + "\n\tcanceled\n";
+				}
+				String text = result;
+				resultText.getDisplay().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						if (resultText.isDisposed())
+							return;
+						resultText.append(text);
+						evaluateButton.setEnabled(true);
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		evaluationJob.schedule();
+	}
+
+	@Override
+	public boolean close() {
+		if (evaluationJob != null)
+			evaluationJob.cancel();
+		boolean closed = super.close();
+		if (closed) {
+			Job closeJob = new Job("Closing " + stateSpaceName) {
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					try {
+						graph.close();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			closeJob.setSystem(true);
+			closeJob.schedule();
+		}
+		return closed;
+	}
+
+	@Override
+	protected boolean isResizable() {
+		return true;
+	}
+}
@@ -0,0 +1,455 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Computes the strong or branching bisimulation quotient of a state space and
+ * writes it as a new state space file.
+ * <p>
+ * Transition labels can first be abstracted: messages which are not in the
+ * set of visible messages, and optionally time progress, become the silent
+ * action "tau", and execution times can be dropped from the labels. States
+ * start out in one block per set of atomic propositions.
+ * <p>
+ * The partition is refined by signatures: the signature of a state is the set
+ * of (action, block of the target) pairs of its transitions, and states stay
+ * together as long as their blocks and signatures agree. Signatures are
+ * computed in parallel over state ranges. For branching bisimulation the
+ * signature of a state also includes those of the states it reaches by inert
+ * tau steps, i.e. tau steps within its block, and leaves those steps out.
+ * These are gathered over the components of the inert tau transitions in
+ * reverse topological order, so tau cycles are handled. Divergence is not
+ * distinguished.
+ */
+public class BisimulationMinimizer {
+
+	public static final int STRONG = 0;
+	public static final int BRANCHING = 1;
+
+	public static final String TAU = "tau";
+	private static final int TAU_ACTION = 0;
+
+	private final int mode;
+	private Set<String> visibleMessages;
+	private boolean timeProgressVisible = true;
+	private boolean ignoreExecutionTimes;
+
+	private CompactStateGraph graph;
+	private int[] actionOfLabel;
+	private final List<String> actions = new ArrayList<String>();
+	private int[] block;
+	private int numberOfBlocks;
+	private long[][] signatures;
+	private long numberOfQuotientTransitions;
+
+	public BisimulationMinimizer(int mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Sets the messages, given as "message" or "rebec.message", whose
+	 * transitions stay visible; all others become tau. null keeps every
+	 * message visible.
+	 */
+	public void setVisibleMessages(Set<String> visibleMessages) {
+		this.visibleMessages = visibleMessages;
+	}
+
+	public void setTimeProgressVisible(boolean timeProgressVisible) {
+		this.timeProgressVisible = timeProgressVisible;
+	}
+
+	public void setIgnoreExecutionTimes(boolean ignoreExecutionTimes) {
+		this.ignoreExecutionTimes = ignoreExecutionTimes;
+	}
+
+	public void minimize(File stateSpaceFile, File targetFile, IProgressMonitor monitor) throws IOException {
+		SubMonitor progress = SubMonitor.convert(monitor, "Minimizing " + stateSpaceFile.getName(), 100);
+		try (CompactStateGraph stateGraph = CompactStateGraphImporter.openOrImport(stateSpaceFile, progress.split(40))) {
+			synchronized (stateGraph) {
+				stateGraph.checkOpen();
+				minimize(stateGraph, progress.split(50));
+				writeQuotient(targetFile, progress.split(10));
+			}
+		} finally {
+			graph = null;
+			signatures = null;
+		}
+	}
+
+	public int getNumberOfStates() {
+		return block.length;
+	}
+
+	public int getNumberOfBlocks() {
+		return numberOfBlocks;
+	}
+
+	public long getNumberOfQuotientTransitions() {
+		return numberOfQuotientTransitions;
+	}
+
+	/*
+	 * Partition refinement
+	 */
+
+	void minimize(CompactStateGraph stateGraph, SubMonitor progress) {
+		this.graph = stateGraph;
+		int numberOfStates = graph.getNumberOfStates();
+		computeActions();
+		block = new int[numberOfStates];
+		HashMap<String, Integer> propositionBlocks = new HashMap<String, Integer>();
+		for (int state = 0; state < numberOfStates; state++) {
+			String propositions = String.valueOf(graph.getAtomicPropositions(state));
+			Integer blockNumber = propositionBlocks.get(propositions);
+			if (blockNumber == null) {
+				blockNumber = propositionBlocks.size();
+				propositionBlocks.put(propositions, blockNumber);
+			}
+			block[state] = blockNumber;
+		}
+		numberOfBlocks = propositionBlocks.size();
+
+		if (mode == BRANCHING)
+			refineBranching(progress);
+		else
+			refineStrong(progress);
+	}
+
+	/**
+	 * Strong bisimulation keeps block numbers stable and only recomputes the
+	 * signatures of predecessors of states which moved to another block.
+	 * The states of a block whose signatures were not recomputed share the
+	 * block's signature, so a block is split by comparing its recomputed
+	 * states against that signature alone. When every state of a block was
+	 * recomputed, its largest part keeps the block number. This keeps long
+	 * chains, which split off one state per round, linear.
+	 */
+	private void refineStrong(SubMonitor progress) {
+		int numberOfStates = block.length;
+		signatures = new long[numberOfStates][];
+		IntArray blockSizes = new IntArray(0);
+		List<long[]> blockSignatures = new ArrayList<long[]>();
+		for (int cnt = 0; cnt < numberOfBlocks; cnt++)
+			blockSignatures.add(null);
+		for (int state = 0; state < numberOfStates; state++)
+			blockSizes.increment(block[state]);
+		int[] queuedInRound = new int[numberOfStates];
+		int[] dirty = new int[numberOfStates];
+		for (int state = 0; state < numberOfStates; state++)
+			dirty[state] = state;
+		int round = 0;
+		while (dirty.length > 0) {
+			progress.setWorkRemaining(10);
+			if (progress.isCanceled())
+				throw new OperationCanceledException();
+			computeStrongSignatures(dirty);
+
+			HashMap<Integer, Integer> dirtyInBlock = new HashMap<Integer, Integer>();
+			for (int state : dirty)
+				dirtyInBlock.merge(block[state], 1, Integer::sum);
+			IntArray candidates = new IntArray(0);
+			IntArray groupOfCandidate = new IntArray(0);
+			HashMap<SignatureKey, Integer> groupNumbers = new HashMap<SignatureKey, Integer>();
+			List<SignatureKey> groups = new ArrayList<SignatureKey>();
+			IntArray groupSizes = new IntArray(0);
+			for (int state : dirty) {
+				int blockNumber = block[state];
+				if (dirtyInBlock.get(blockNumber) < blockSizes.get(blockNumber) &&
+						Arrays.equals(signatures[state], blockSignatures.get(blockNumber)))
+					continue;
+				SignatureKey key = new SignatureKey(blockNumber, signatures[state]);
+				Integer group = groupNumbers.get(key);
+				if (group == null) {
+					group = groups.size();
+					groups.add(key);
+					groupNumbers.put(key, group);
+				}
+				candidates.add(state);
+				groupOfCandidate.add(group);
+				groupSizes.increment(group);
+			}
+
+			HashMap<Integer, Integer> keptGroup = new HashMap<Integer, Integer>();
+			for (int group = 0; group < groups.size(); group++) {
+				int blockNumber = groups.get(group).block;
+				if (dirtyInBlock.get(blockNumber) < blockSizes.get(blockNumber))
+					continue;
+				Integer kept = keptGroup.get(blockNumber);
+				if (kept == null || groupSizes.get(group) > groupSizes.get(kept))
+					keptGroup.put(blockNumber, group);
+			}
+			int[] blockOfGroup = new int[groups.size()];
+			for (int group = 0; group < groups.size(); group++) {
+				SignatureKey key = groups.get(group);
+				if (keptGroup.get(key.block) != null && keptGroup.get(key.block) == group) {
+					blockOfGroup[group] = key.block;
+					blockSignatures.set(key.block, key.signature);
+					continue;
+				}
+				blockOfGroup[group] = blockSignatures.size();
+				blockSignatures.add(key.signature);
+				blockSizes.set(blockOfGroup[group], groupSizes.get(group));
+				blockSizes.set(key.block, blockSizes.get(key.block) - groupSizes.get(group));
+			}
+
+			round++;
+			IntArray next = new IntArray(0);
+			for (int cnt = 0; cnt < candidates.size(); cnt++) {
+				int state = candidates.get(cnt);
+				int newBlock = blockOfGroup[groupOfCandidate.get(cnt)];
+				if (newBlock == block[state])
+					continue;
+				block[state] = newBlock;
+				for (long transition = graph.getFirstIncomingTransition(state);
+						transition < graph.getEndIncomingTransition(state); transition++) {
+					int source = graph.getSource(transition);
+					if (queuedInRound[source] != round) {
+						queuedInRound[source] = round;
+						next.add(source);
+					}
+				}
+			}
+			dirty = next.toArray();
+			progress.worked(1);
+		}
+		numberOfBlocks = blockSignatures.size();
+	}
+
+	/**
+	 * Branching signatures depend on whole inert tau paths, so every round
+	 * recomputes all of them and renumbers the blocks.
+	 */
+	private void refineBranching(SubMonitor progress) {
+		int numberOfStates = block.length;
+		while (true) {
+			progress.setWorkRemaining(10);
+			if (progress.isCanceled())
+				throw new OperationCanceledException();
+			computeBranchingSignatures(progress);
+			int[] newBlock = new int[numberOfStates];
+			int newNumberOfBlocks = renumber(newBlock);
+			progress.worked(1);
+			if (newNumberOfBlocks == numberOfBlocks)
+				return;
+			block = newBlock;
+			numberOfBlocks = newNumberOfBlocks;
+		}
+	}
+
+	private void computeActions() {
+		actions.clear();
+		actions.add(TAU);
+		HashMap<String, Integer> actionNumbers = new HashMap<String, Integer>();
+		actionNumbers.put(TAU, TAU_ACTION);
+		actionOfLabel = new int[graph.getNumberOfStrings()];
+		Arrays.fill(actionOfLabel, -1);
+		for (int state = 0; state < graph.getNumberOfStates(); state++)
+			for (long transition = graph.getFirstTransition(state); transition < graph.getEndTransition(state); transition++) {
+				int label = graph.getLabel(transition);
+				if (label == CompactStateGraph.NONE || actionOfLabel[label] != -1)
+					continue;
+				String action = abstractLabel(graph.getString(label));
+				Integer actionNumber = actionNumbers.get(action);
+				if (actionNumber == null) {
+					actionNumber = actions.size();
+					actions.add(action);
+					actionNumbers.put(action, actionNumber);
+				}
+				actionOfLabel[label] = actionNumber;
+			}
+	}
+
+	private String abstractLabel(String label) {
+		StateSpaceTransition transition = StateSpaceTransition.fromLabel(label);
+		if (transition.getTimeProgress() != null) {
+			if (!timeProgressVisible)
+				return TAU;
+		} else if (visibleMessages != null && !visibleMessages.contains(transition.getTitle()) &&
+				!visibleMessages.contains(transition.getOwner() + "." + transition.getTitle())) {
+			return TAU;
+		}
+		if (ignoreExecutionTimes)
+			transition.setExecutionTime(null);
+		return transition.getLabel();
+	}
+
+	private int getAction(long transition) {
+		int label = graph.getLabel(transition);
+		return label == CompactStateGraph.NONE ? TAU_ACTION : actionOfLabel[label];
+	}
+
+	private static long pair(int action, int targetBlock) {
+		return ((long) action << 32) | (targetBlock & 0xffffffffL);
+	}
+
+	private static long[] sortedUnique(long[] pairs, int size) {
+		Arrays.sort(pairs, 0, size);
+		int unique = 0;
+		for (int cnt = 0; cnt < size; cnt++)
+			if (unique == 0 || pairs[unique - 1] != pairs[cnt])
+				pairs[unique++] = pairs[cnt];
+		return Arrays.copyOf(pairs, unique);
+	}
+
+	private void computeStrongSignatures(int[] states) {
+		StateGraphTasks.forEachRange(0, states.length, StateGraphTasks.SEQUENTIAL_THRESHOLD, (from, to) -> {
+			for (int cnt = from; cnt < to; cnt++) {
+				int state = states[cnt];
+				long first = graph.getFirstTransition(state);
+				long[] pairs = new long[graph.getOutDegree(state)];
+				for (int pairIndex = 0; pairIndex < pairs.length; pairIndex++)
+					pairs[pairIndex] = pair(getAction(first + pairIndex), block[graph.getTarget(first + pairIndex)]);
+				signatures[state] = sortedUnique(pairs, pairs.length);
+			}
+		});
+	}
+
+	private boolean isInert(int state, long transition) {
+		return getAction(transition) == TAU_ACTION && block[graph.getTarget(transition)] == block[state];
+	}
+
+	private void computeBranchingSignatures(IProgressMonitor monitor) {
+		long[][] direct = new long[block.length][];
+		StateGraphTasks.forEachRange(0, block.length, StateGraphTasks.SEQUENTIAL_THRESHOLD, (from, to) -> {
+			for (int state = from; state < to; state++) {
+				long[] pairs = new long[graph.getOutDegree(state)];
+				int size = 0;
+				for (long transition = graph.getFirstTransition(state); transition < graph.getEndTransition(state); transition++)
+					if (!isInert(state, transition))
+						pairs[size++] = pair(getAction(transition), block[graph.getTarget(transition)]);
+				direct[state] = sortedUnique(pairs, size);
+			}
+		});
+		signatures = new long[block.length][];
+		// Successors outside the current component already have their
+		// signature; members of the current component do not have one yet.
+		TarjanComponents.compute(graph, this::isInert, (component, members, from, to) -> {
+			long[] merged = new long[0];
+			for (int cnt = from; cnt < to; cnt++) {
+				int member = members[cnt];
+				merged = union(merged, direct[member]);
+				for (long transition = graph.getFirstTransition(member); transition < graph.getEndTransition(member); transition++) {
+					if (!isInert(member, transition))
+						continue;
+					long[] successorSignature = signatures[graph.getTarget(transition)];
+					if (successorSignature != null)
+						merged = union(merged, successorSignature);
+				}
+			}
+			for (int cnt = from; cnt < to; cnt++)
+				signatures[members[cnt]] = merged;
+		}, monitor);
+	}
+
+	private static long[] union(long[] first, long[] second) {
+		if (second.length == 0 || first == second)
+			return first;
+		if (first.length == 0)
+			return second;
+		long[] result = new long[first.length + second.length];
+		int size = 0, firstIndex = 0, secondIndex = 0;
+		while (firstIndex < first.length || secondIndex < second.length) {
+			long next;
+			if (secondIndex == second.length || (firstIndex < first.length && first[firstIndex] <= second[secondIndex]))
+				next = first[firstIndex++];
+			else
+				next = second[secondIndex++];
+			if (size == 0 || result[size - 1] != next)
+				result[size++] = next;
+		}
+		return size == result.length ? result : Arrays.copyOf(result, size);
+	}
+
+	private static class SignatureKey {
+		final int block;
+		final long[] signature;
+		final int hash;
+
+		SignatureKey(int block, long[] signature) {
+			this.block = block;
+			this.signature = signature;
+			this.hash = 31 * block + Arrays.hashCode(signature);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			SignatureKey other = (SignatureKey) object;
+			return block == other.block && Arrays.equals(signature, other.signature);
+		}
+	}
+
+	private int renumber(int[] newBlock) {
+		SignatureKey[] keys = new SignatureKey[block.length];
+		StateGraphTasks.forEachRange(0, block.length, StateGraphTasks.SEQUENTIAL_THRESHOLD, (from, to) -> {
+			for (int state = from; state < to; state++)
+				keys[state] = new SignatureKey(block[state], signatures[state]);
+		});
+		HashMap<SignatureKey, Integer> blockNumbers = new HashMap<SignatureKey, Integer>();
+		for (int state = 0; state < block.length; state++) {
+			Integer blockNumber = blockNumbers.get(keys[state]);
+			if (blockNumber == null) {
+				blockNumber = blockNumbers.size();
+				blockNumbers.put(keys[state], blockNumber);
+			}
+			newBlock[state] = blockNumber;
+		}
+		return blockNumbers.size();
+	}
+
+	/*
+	 * Quotient: each block is written as its first state, with the
+	 * transitions of that state's final signature. The initial block comes
+	 * first, so it stays the initial state.
+	 */
+
+	private void writeQuotient(File targetFile, SubMonitor progress) throws IOException {
+		progress.setWorkRemaining(numberOfBlocks);
+		int[] representative = new int[numberOfBlocks];
+		Arrays.fill(representative, -1);
+		for (int state = 0; state < block.length; state++)
+			if (representative[block[state]] == -1)
+				representative[block[state]] = state;
+		numberOfQuotientTransitions = 0;
+		if (block.length == 0) {
+			new StateSpaceWriter(targetFile).close();
+			return;
+		}
+		int initialBlock = block[graph.getInitialState()];
+		StateSpaceWriter writer = new StateSpaceWriter(targetFile);
+		try {
+			for (int cnt = 0; cnt < numberOfBlocks; cnt++) {
+				int blockNumber = cnt == 0 ? initialBlock : cnt == initialBlock ? 0 : cnt;
+				int state = representative[blockNumber];
+				writer.writeState(graph.getStateId(state), graph.getAtomicPropositions(state));
+				for (long signaturePair : signatures[state]) {
+					StateSpaceTransition transition = StateSpaceTransition.fromLabel(actions.get((int) (signaturePair >>> 32)));
+					transition.setSource(graph.getStateId(state));
+					transition.setDestination(graph.getStateId(representative[(int) signaturePair]));
+					writer.writeTransition(transition);
+					numberOfQuotientTransitions++;
+				}
+				progress.worked(1);
+				if (progress.isCanceled())
+					throw new OperationCanceledException();
+			}
+		} finally {
+			writer.close();
+		}
+	}
+}
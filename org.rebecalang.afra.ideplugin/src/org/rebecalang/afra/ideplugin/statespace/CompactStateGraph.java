@@ -0,0 +1,376 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of a ".stategraph" file, the compressed sparse row form of a
+ * state space written by {@link CompactStateGraphImporter}. States are
+ * numbered from 0; the transitions of a state s are the indices in
+ * [getFirstTransition(s), getFirstTransition(s + 1)) of the target and label
+ * arrays, and the same holds for the incoming transitions in the reverse
+ * arrays. All strings (state ids, labels, atomic propositions, attribute
+ * names and values) are interned in one table and referred to by index.
+ *
+ * Every section is memory mapped, so opening a graph costs nothing beyond the
+ * mapping and lookups do not allocate except for decoding strings.
+ */
+public class CompactStateGraph implements Closeable {
+
+	public static final String FILE_EXTENSION = "stategraph";
+
+	static final int MAGIC = 0x41465347;
+	static final int VERSION = 2;
+
+	static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 4 + 4 + 4 + 11 * 8;
+
+	static final int STRING_OFFSETS = 0;
+	static final int STRING_BYTES = 1;
+	static final int STATE_IDS = 2;
+	static final int PROPOSITIONS = 3;
+	static final int FORWARD_OFFSETS = 4;
+	static final int FORWARD_TARGETS = 5;
+	static final int FORWARD_LABELS = 6;
+	static final int REVERSE_OFFSETS = 7;
+	static final int REVERSE_SOURCES = 8;
+	static final int REVERSE_LABELS = 9;
+	static final int COLUMNS = 10;
+	static final int NUMBER_OF_SECTIONS = 11;
+
+	public static final int NONE = -1;
+
+	public static final String QUEUE_ATTRIBUTE = "queue";
+	public static final String QUEUE_SEPARATOR = ",";
+
+	/* The graphs open on each file, which an import closes before replacing the file */
+	private static final Map<File, List<CompactStateGraph>> openGraphs = new HashMap<File, List<CompactStateGraph>>();
+
+	private final File graphFile;
+	private final RandomAccessFile file;
+	private boolean closed;
+	private final int numberOfStates;
+	private final long numberOfTransitions;
+	private final int initialState;
+	private final int numberOfStrings;
+	private final int numberOfColumns;
+
+	private final ByteBuffer stringOffsets;
+	private final ByteBuffer stringBytes;
+	private final ByteBuffer stateIds;
+	private final ByteBuffer propositions;
+	private final ByteBuffer forwardOffsets;
+	private final ByteBuffer forwardTargets;
+	private final ByteBuffer forwardLabels;
+	private final ByteBuffer reverseOffsets;
+	private final ByteBuffer reverseSources;
+	private final ByteBuffer reverseLabels;
+	/**
+	 * One buffer per column, as all the columns together may be larger than
+	 * a buffer can address
+	 */
+	private final ByteBuffer[] columns;
+
+	private CompactStateGraph(File graphFile) throws IOException {
+		this.graphFile = graphFile.getAbsoluteFile();
+		file = new RandomAccessFile(graphFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION)
+				throw new IOException(graphFile + " is not a state graph of this version.");
+			numberOfStates = header.getInt();
+			numberOfTransitions = header.getLong();
+			initialState = header.getInt();
+			numberOfStrings = header.getInt();
+			numberOfColumns = header.getInt();
+			long[] sectionStarts = new long[NUMBER_OF_SECTIONS + 1];
+			for (int cnt = 0; cnt < NUMBER_OF_SECTIONS; cnt++)
+				sectionStarts[cnt] = header.getLong();
+			sectionStarts[NUMBER_OF_SECTIONS] = channel.size();
+			unmap(header);
+
+			stringOffsets = map(channel, sectionStarts, STRING_OFFSETS);
+			stringBytes = map(channel, sectionStarts, STRING_BYTES);
+			stateIds = map(channel, sectionStarts, STATE_IDS);
+			propositions = map(channel, sectionStarts, PROPOSITIONS);
+			forwardOffsets = map(channel, sectionStarts, FORWARD_OFFSETS);
+			forwardTargets = map(channel, sectionStarts, FORWARD_TARGETS);
+			forwardLabels = map(channel, sectionStarts, FORWARD_LABELS);
+			reverseOffsets = map(channel, sectionStarts, REVERSE_OFFSETS);
+			reverseSources = map(channel, sectionStarts, REVERSE_SOURCES);
+			reverseLabels = map(channel, sectionStarts, REVERSE_LABELS);
+			columns = new ByteBuffer[numberOfColumns];
+			long columnSize = getColumnSize(numberOfStates);
+			if (sectionStarts[COLUMNS] + columnSize * numberOfColumns > sectionStarts[COLUMNS + 1])
+				throw new IOException(graphFile + " is truncated.");
+			for (int column = 0; column < numberOfColumns; column++)
+				columns[column] = channel.map(FileChannel.MapMode.READ_ONLY,
+						sectionStarts[COLUMNS] + columnSize * column, columnSize);
+		} catch (IOException | RuntimeException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, long[] sectionStarts, int section) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, sectionStarts[section],
+				sectionStarts[section + 1] - sectionStarts[section]);
+	}
+
+	public static CompactStateGraph open(File graphFile) throws IOException {
+		CompactStateGraph graph = new CompactStateGraph(graphFile);
+		synchronized (openGraphs) {
+			openGraphs.computeIfAbsent(graph.graphFile, key -> new ArrayList<CompactStateGraph>()).add(graph);
+		}
+		return graph;
+	}
+
+	/**
+	 * Closes the graphs open on the given file, so that it can be replaced;
+	 * a file which is still mapped cannot be replaced on all platforms.
+	 */
+	static void closeAll(File graphFile) throws IOException {
+		List<CompactStateGraph> graphs;
+		synchronized (openGraphs) {
+			graphs = openGraphs.remove(graphFile.getAbsoluteFile());
+		}
+		if (graphs != null)
+			for (CompactStateGraph graph : graphs)
+				graph.close();
+	}
+
+	/**
+	 * Returns the size in bytes of a column of a graph with the given number
+	 * of states, which must fit in one buffer.
+	 */
+	static long getColumnSize(int numberOfStates) throws IOException {
+		long columnSize = 8L + 4L * numberOfStates;
+		if (columnSize > Integer.MAX_VALUE)
+			throw new IOException("Too many states for a state graph: " + numberOfStates);
+		return columnSize;
+	}
+
+	static boolean hasCurrentVersion(File graphFile) {
+		try (DataInputStream input = new DataInputStream(new FileInputStream(graphFile))) {
+			return input.readInt() == MAGIC && input.readInt() == VERSION;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the state graph file which belongs to the given state space file.
+	 */
+	public static File getGraphFile(File stateSpaceFile) {
+		String name = stateSpaceFile.getName();
+		int extensionStart = name.lastIndexOf('.');
+		if (extensionStart != -1)
+			name = name.substring(0, extensionStart);
+		return new File(stateSpaceFile.getParentFile(), name + "." + FILE_EXTENSION);
+	}
+
+	public int getNumberOfStates() {
+		return numberOfStates;
+	}
+
+	public long getNumberOfTransitions() {
+		return numberOfTransitions;
+	}
+
+	public int getInitialState() {
+		return initialState;
+	}
+
+	public String getStateId(int state) {
+		return getString(stateIds.getInt(state << 2));
+	}
+
+	/**
+	 * Returns the number of the state with the given id, or NONE. This is a
+	 * linear scan and meant for occasional lookups only.
+	 */
+	public int findState(String id) {
+		for (int state = 0; state < numberOfStates; state++)
+			if (id.equals(getStateId(state)))
+				return state;
+		return NONE;
+	}
+
+	public String getAtomicPropositions(int state) {
+		return getString(propositions.getInt(state << 2));
+	}
+
+	/*
+	 * Outgoing transitions
+	 */
+
+	public long getFirstTransition(int state) {
+		return forwardOffsets.getLong(state << 3);
+	}
+
+	public long getEndTransition(int state) {
+		return forwardOffsets.getLong((state + 1) << 3);
+	}
+
+	public int getOutDegree(int state) {
+		return (int) (getEndTransition(state) - getFirstTransition(state));
+	}
+
+	public int getTarget(long transition) {
+		return forwardTargets.getInt((int) (transition << 2));
+	}
+
+	public int getLabel(long transition) {
+		return forwardLabels.getInt((int) (transition << 2));
+	}
+
+	/*
+	 * Incoming transitions
+	 */
+
+	public long getFirstIncomingTransition(int state) {
+		return reverseOffsets.getLong(state << 3);
+	}
+
+	public long getEndIncomingTransition(int state) {
+		return reverseOffsets.getLong((state + 1) << 3);
+	}
+
+	public int getInDegree(int state) {
+		return (int) (getEndIncomingTransition(state) - getFirstIncomingTransition(state));
+	}
+
+	public int getSource(long incomingTransition) {
+		return reverseSources.getInt((int) (incomingTransition << 2));
+	}
+
+	public int getIncomingLabel(long incomingTransition) {
+		return reverseLabels.getInt((int) (incomingTransition << 2));
+	}
+
+	/*
+	 * Attributes of the rebecs: each column holds the value of one
+	 * rebec.attribute for all states as an index into the string table. The
+	 * queue of a rebec is the attribute QUEUE_ATTRIBUTE, with the messages
+	 * separated by QUEUE_SEPARATOR.
+	 */
+
+	public int getNumberOfColumns() {
+		return numberOfColumns;
+	}
+
+	public String getColumnRebec(int column) {
+		return getString(columns[column].getInt(0));
+	}
+
+	public String getColumnAttribute(int column) {
+		return getString(columns[column].getInt(4));
+	}
+
+	public int findColumn(String rebec, String attribute) {
+		for (int column = 0; column < numberOfColumns; column++)
+			if (rebec.equals(getColumnRebec(column)) && attribute.equals(getColumnAttribute(column)))
+				return column;
+		return NONE;
+	}
+
+	/**
+	 * Returns the string index of the value of the column in the state, or
+	 * NONE if the state has no such attribute.
+	 */
+	public int getValue(int column, int state) {
+		return columns[column].getInt(8 + (state << 2));
+	}
+
+	/*
+	 * Strings
+	 */
+
+	public int getNumberOfStrings() {
+		return numberOfStrings;
+	}
+
+	public String getString(int index) {
+		if (index == NONE)
+			return null;
+		long start = stringOffsets.getLong(index << 3);
+		long end = stringOffsets.getLong((index + 1) << 3);
+		byte[] bytes = new byte[(int) (end - start)];
+		ByteBuffer source = stringBytes.duplicate();
+		source.position((int) start);
+		source.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Closes the file and releases the mappings of the graph, which must not
+	 * be used afterwards. As an import closes the graphs open on its file,
+	 * code reading a graph holds the lock of the graph and checks that it is
+	 * not closed first.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		synchronized (openGraphs) {
+			List<CompactStateGraph> graphs = openGraphs.get(graphFile);
+			if (graphs != null) {
+				graphs.remove(this);
+				if (graphs.isEmpty())
+					openGraphs.remove(graphFile);
+			}
+		}
+		file.close();
+		for (ByteBuffer buffer : new ByteBuffer[] { stringOffsets, stringBytes, stateIds, propositions,
+				forwardOffsets, forwardTargets, forwardLabels, reverseOffsets, reverseSources, reverseLabels })
+			unmap(buffer);
+		for (ByteBuffer column : columns)
+			unmap(column);
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Fails if an import has closed the graph meanwhile; callers hold the lock
+	 * of the graph while they read it.
+	 */
+	public void checkOpen() throws IOException {
+		if (isClosed())
+			throw new IOException(graphFile.getName() + " was replaced by another import.");
+	}
+
+	/*
+	 * Releases a mapping at once rather than when the buffer is collected,
+	 * through the cleaner of the JDK when it is available.
+	 */
+	private static void unmap(ByteBuffer buffer) {
+		if (!(buffer instanceof MappedByteBuffer))
+			return;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field unsafe = unsafeClass.getDeclaredField("theUnsafe");
+			unsafe.setAccessible(true);
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			invokeCleaner.invoke(unsafe.get(null), buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// The mapping is released when the buffer is collected
+		}
+	}
+}
@@ -0,0 +1,363 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Converts a state space file into a {@link CompactStateGraph} file in one
+ * streaming pass over the XML. States are numbered in the order their ids are
+ * first seen and the first state element is taken as the initial state.
+ * While reading, transitions and attribute values are spilled to temporary
+ * files as fixed size records together with the degree counts; afterwards
+ * the offsets are computed and the records are scattered into the mapped
+ * sections of the graph file.
+ */
+public class CompactStateGraphImporter {
+
+	private static final int PROGRESS_UNIT = 1 << 16;
+
+	private static final HashMap<File, Object> importLocks = new HashMap<File, Object>();
+
+	private final HashMap<String, Integer> stateNumbers = new HashMap<String, Integer>();
+	private final HashMap<String, Integer> stringIndices = new HashMap<String, Integer>();
+	private final ArrayList<String> strings = new ArrayList<String>();
+	private final HashMap<String, Integer> columnNumbers = new HashMap<String, Integer>();
+	private final IntArray columnRebecs = new IntArray(CompactStateGraph.NONE);
+	private final IntArray columnAttributes = new IntArray(CompactStateGraph.NONE);
+
+	private final IntArray stateIds = new IntArray(CompactStateGraph.NONE);
+	private final IntArray propositions = new IntArray(CompactStateGraph.NONE);
+	private final IntArray outDegrees = new IntArray(0);
+	private final IntArray inDegrees = new IntArray(0);
+	private long numberOfTransitions;
+	private long numberOfValues;
+	private int initialState = CompactStateGraph.NONE;
+
+	/**
+	 * Returns the graph of the state space, importing it first if there is no
+	 * graph file of the current version yet or the state space file has
+	 * changed since.
+	 */
+	public static CompactStateGraph openOrImport(File stateSpaceFile, IProgressMonitor monitor) throws IOException {
+		File graphFile = CompactStateGraph.getGraphFile(stateSpaceFile);
+		synchronized (getImportLock(graphFile)) {
+			if (!graphFile.exists() || graphFile.lastModified() < stateSpaceFile.lastModified() ||
+					!CompactStateGraph.hasCurrentVersion(graphFile))
+				new CompactStateGraphImporter().importStateSpace(stateSpaceFile, graphFile, monitor);
+			return CompactStateGraph.open(graphFile);
+		}
+	}
+
+	/**
+	 * Imports the state space into the graph file, one import of a file at a
+	 * time. The graphs still open on the file are closed before it is
+	 * replaced.
+	 */
+	public void importStateSpace(File stateSpaceFile, File graphFile, IProgressMonitor monitor) throws IOException {
+		synchronized (getImportLock(graphFile)) {
+			importStateSpaceFile(stateSpaceFile, graphFile, monitor);
+		}
+	}
+
+	private static Object getImportLock(File graphFile) {
+		synchronized (importLocks) {
+			return importLocks.computeIfAbsent(graphFile.getAbsoluteFile(), key -> new Object());
+		}
+	}
+
+	private void importStateSpaceFile(File stateSpaceFile, File graphFile, IProgressMonitor monitor)
+			throws IOException {
+		SubMonitor progress = SubMonitor.convert(monitor, "Importing " + stateSpaceFile.getName(), 100);
+		File directory = graphFile.getAbsoluteFile().getParentFile();
+		File transitionsFile = File.createTempFile("transitions", ".tmp", directory);
+		File valuesFile = File.createTempFile("values", ".tmp", directory);
+		File tempGraphFile = File.createTempFile(graphFile.getName(), ".tmp", directory);
+		try {
+			readStateSpace(stateSpaceFile, transitionsFile, valuesFile, progress.split(80));
+			writeGraph(tempGraphFile, transitionsFile, valuesFile, progress.split(20));
+			CompactStateGraph.closeAll(graphFile);
+			Files.move(tempGraphFile.toPath(), graphFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			transitionsFile.delete();
+			valuesFile.delete();
+			tempGraphFile.delete();
+		}
+	}
+
+	private void readStateSpace(File stateSpaceFile, File transitionsFile, File valuesFile,
+			SubMonitor progress) throws IOException {
+		StateSpaceReader reader = new StateSpaceReader(stateSpaceFile, true);
+		DataOutputStream transitions = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(transitionsFile), 1 << 16));
+		DataOutputStream values = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(valuesFile), 1 << 16));
+		try {
+			progress.setWorkRemaining((int) (reader.getLength() / PROGRESS_UNIT) + 1);
+			long reported = 0;
+			int event;
+			while ((event = reader.next()) != StateSpaceReader.END) {
+				long position = reader.getPosition() / PROGRESS_UNIT;
+				if (position > reported) {
+					progress.worked((int) (position - reported));
+					reported = position;
+					if (progress.isCanceled())
+						throw new OperationCanceledException();
+				}
+				if (event == StateSpaceReader.STATE) {
+					StateSpaceState state = reader.getState();
+					int stateNumber = getStateNumber(state.getId());
+					if (initialState == CompactStateGraph.NONE)
+						initialState = stateNumber;
+					String atomicPropositions = state.getAtomicPropositions();
+					if (atomicPropositions != null && !atomicPropositions.trim().isEmpty())
+						propositions.set(stateNumber, intern(atomicPropositions.trim()));
+					for (int cnt = 0; cnt < state.getNumberOfAttributes(); cnt++) {
+						values.writeInt(stateNumber);
+						values.writeInt(getColumnNumber(state.getRebec(cnt), state.getAttribute(cnt)));
+						values.writeInt(intern(state.getValue(cnt)));
+						numberOfValues++;
+					}
+					writeQueues(state, stateNumber, values);
+				} else {
+					StateSpaceTransition transition = reader.getTransition();
+					int source = getStateNumber(transition.getSource());
+					int destination = getStateNumber(transition.getDestination());
+					transitions.writeInt(source);
+					transitions.writeInt(destination);
+					transitions.writeInt(intern(transition.getLabel()));
+					outDegrees.increment(source);
+					inDegrees.increment(destination);
+					numberOfTransitions++;
+				}
+			}
+		} finally {
+			transitions.close();
+			values.close();
+			reader.close();
+		}
+		if (initialState == CompactStateGraph.NONE)
+			initialState = 0;
+	}
+
+	/*
+	 * The messages in the queue of each rebec are kept as one comma separated
+	 * value of the attribute "queue".
+	 */
+	private void writeQueues(StateSpaceState state, int stateNumber, DataOutputStream values) throws IOException {
+		StringBuilder queue = new StringBuilder();
+		for (int cnt = 0; cnt < state.getNumberOfQueuedMessages(); cnt++) {
+			if (queue.length() != 0)
+				queue.append(CompactStateGraph.QUEUE_SEPARATOR);
+			queue.append(state.getQueuedMessage(cnt));
+			if (cnt + 1 == state.getNumberOfQueuedMessages() ||
+					!state.getQueueRebec(cnt).equals(state.getQueueRebec(cnt + 1))) {
+				values.writeInt(stateNumber);
+				values.writeInt(getColumnNumber(state.getQueueRebec(cnt), CompactStateGraph.QUEUE_ATTRIBUTE));
+				values.writeInt(intern(queue.toString()));
+				numberOfValues++;
+				queue.setLength(0);
+			}
+		}
+	}
+
+	private int getStateNumber(String id) {
+		Integer number = stateNumbers.get(id);
+		if (number == null) {
+			number = stateNumbers.size();
+			stateNumbers.put(id, number);
+			stateIds.set(number, intern(id));
+		}
+		return number;
+	}
+
+	private int getColumnNumber(String rebec, String attribute) {
+		String key = rebec + "." + attribute;
+		Integer number = columnNumbers.get(key);
+		if (number == null) {
+			number = columnNumbers.size();
+			columnNumbers.put(key, number);
+			columnRebecs.set(number, intern(rebec));
+			columnAttributes.set(number, intern(attribute));
+		}
+		return number;
+	}
+
+	private int intern(String string) {
+		if (string == null)
+			return CompactStateGraph.NONE;
+		Integer index = stringIndices.get(string);
+		if (index == null) {
+			index = strings.size();
+			strings.add(string);
+			stringIndices.put(string, index);
+		}
+		return index;
+	}
+
+	private void writeGraph(File graphFile, File transitionsFile, File valuesFile,
+			SubMonitor progress) throws IOException {
+		progress.setWorkRemaining(4);
+		int numberOfStates = stateNumbers.size();
+		int numberOfColumns = columnNumbers.size();
+
+		byte[][] stringBytes = new byte[strings.size()][];
+		long totalStringBytes = 0;
+		for (int cnt = 0; cnt < strings.size(); cnt++) {
+			stringBytes[cnt] = strings.get(cnt).getBytes(StandardCharsets.UTF_8);
+			totalStringBytes += stringBytes[cnt].length;
+		}
+		long transitionsSize = 4L * numberOfTransitions;
+		long columnSize = CompactStateGraph.getColumnSize(numberOfStates);
+
+		long[] sectionSizes = new long[CompactStateGraph.NUMBER_OF_SECTIONS];
+		sectionSizes[CompactStateGraph.STRING_OFFSETS] = 8L * (strings.size() + 1);
+		sectionSizes[CompactStateGraph.STRING_BYTES] = totalStringBytes;
+		sectionSizes[CompactStateGraph.STATE_IDS] = 4L * numberOfStates;
+		sectionSizes[CompactStateGraph.PROPOSITIONS] = 4L * numberOfStates;
+		sectionSizes[CompactStateGraph.FORWARD_OFFSETS] = 8L * (numberOfStates + 1);
+		sectionSizes[CompactStateGraph.FORWARD_TARGETS] = transitionsSize;
+		sectionSizes[CompactStateGraph.FORWARD_LABELS] = transitionsSize;
+		sectionSizes[CompactStateGraph.REVERSE_OFFSETS] = 8L * (numberOfStates + 1);
+		sectionSizes[CompactStateGraph.REVERSE_SOURCES] = transitionsSize;
+		sectionSizes[CompactStateGraph.REVERSE_LABELS] = transitionsSize;
+		sectionSizes[CompactStateGraph.COLUMNS] = columnSize * numberOfColumns;
+		long[] sectionStarts = new long[CompactStateGraph.NUMBER_OF_SECTIONS];
+		long position = CompactStateGraph.HEADER_SIZE;
+		for (int section = 0; section < CompactStateGraph.NUMBER_OF_SECTIONS; section++) {
+			sectionStarts[section] = position;
+			position += sectionSizes[section];
+		}
+
+		RandomAccessFile file = new RandomAccessFile(graphFile, "rw");
+		try {
+			file.setLength(position);
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer[] sections = new MappedByteBuffer[CompactStateGraph.NUMBER_OF_SECTIONS];
+			for (int section = 0; section < CompactStateGraph.NUMBER_OF_SECTIONS; section++)
+				if (section != CompactStateGraph.COLUMNS)
+					sections[section] = channel.map(FileChannel.MapMode.READ_WRITE,
+							sectionStarts[section], sectionSizes[section]);
+			// The columns are mapped one by one, as together they may be larger than a buffer
+			MappedByteBuffer[] columns = new MappedByteBuffer[numberOfColumns];
+			for (int column = 0; column < numberOfColumns; column++)
+				columns[column] = channel.map(FileChannel.MapMode.READ_WRITE,
+						sectionStarts[CompactStateGraph.COLUMNS] + columnSize * column, columnSize);
+
+			ByteBuffer stringOffsets = sections[CompactStateGraph.STRING_OFFSETS];
+			ByteBuffer stringSection = sections[CompactStateGraph.STRING_BYTES];
+			for (byte[] bytes : stringBytes) {
+				stringOffsets.putLong(stringSection.position());
+				stringSection.put(bytes);
+			}
+			stringOffsets.putLong(stringSection.position());
+
+			ByteBuffer ids = sections[CompactStateGraph.STATE_IDS];
+			ByteBuffer atomicPropositions = sections[CompactStateGraph.PROPOSITIONS];
+			for (int state = 0; state < numberOfStates; state++) {
+				ids.putInt(stateIds.get(state));
+				atomicPropositions.putInt(propositions.get(state));
+			}
+
+			long[] nextForward = writeOffsets(outDegrees, numberOfStates, sections[CompactStateGraph.FORWARD_OFFSETS]);
+			long[] nextReverse = writeOffsets(inDegrees, numberOfStates, sections[CompactStateGraph.REVERSE_OFFSETS]);
+			progress.worked(1);
+
+			ByteBuffer forwardTargets = sections[CompactStateGraph.FORWARD_TARGETS];
+			ByteBuffer forwardLabels = sections[CompactStateGraph.FORWARD_LABELS];
+			ByteBuffer reverseSources = sections[CompactStateGraph.REVERSE_SOURCES];
+			ByteBuffer reverseLabels = sections[CompactStateGraph.REVERSE_LABELS];
+			DataInputStream transitions = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(transitionsFile), 1 << 16));
+			try {
+				for (long cnt = 0; cnt < numberOfTransitions; cnt++) {
+					int source = transitions.readInt();
+					int destination = transitions.readInt();
+					int label = transitions.readInt();
+					int forwardIndex = (int) (nextForward[source]++ << 2);
+					forwardTargets.putInt(forwardIndex, destination);
+					forwardLabels.putInt(forwardIndex, label);
+					int reverseIndex = (int) (nextReverse[destination]++ << 2);
+					reverseSources.putInt(reverseIndex, source);
+					reverseLabels.putInt(reverseIndex, label);
+				}
+			} finally {
+				transitions.close();
+			}
+			if (progress.isCanceled())
+				throw new OperationCanceledException();
+			progress.worked(2);
+
+			for (int column = 0; column < numberOfColumns; column++) {
+				columns[column].putInt(columnRebecs.get(column));
+				columns[column].putInt(columnAttributes.get(column));
+				for (int state = 0; state < numberOfStates; state++)
+					columns[column].putInt(CompactStateGraph.NONE);
+			}
+			DataInputStream values = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(valuesFile), 1 << 16));
+			try {
+				for (long cnt = 0; cnt < numberOfValues; cnt++) {
+					int state = values.readInt();
+					int column = values.readInt();
+					int value = values.readInt();
+					columns[column].putInt(8 + (state << 2), value);
+				}
+			} finally {
+				values.close();
+			}
+			progress.worked(1);
+
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, CompactStateGraph.HEADER_SIZE);
+			header.putInt(CompactStateGraph.MAGIC);
+			header.putInt(CompactStateGraph.VERSION);
+			header.putInt(numberOfStates);
+			header.putLong(numberOfTransitions);
+			header.putInt(initialState);
+			header.putInt(strings.size());
+			header.putInt(numberOfColumns);
+			for (long sectionStart : sectionStarts)
+				header.putLong(sectionStart);
+
+			for (MappedByteBuffer section : sections)
+				if (section != null)
+					section.force();
+			for (MappedByteBuffer column : columns)
+				column.force();
+			header.force();
+		} finally {
+			file.close();
+		}
+	}
+
+	/*
+	 * Writes the prefix sums of the degrees and returns them, to be used as
+	 * the next free slot of each state while scattering the transitions.
+	 */
+	private static long[] writeOffsets(IntArray degrees, int numberOfStates, ByteBuffer section) {
+		long[] offsets = new long[numberOfStates + 1];
+		for (int state = 0; state < numberOfStates; state++)
+			offsets[state + 1] = offsets[state] + degrees.get(state);
+		for (long offset : offsets)
+			section.putLong(offset);
+		return offsets;
+	}
+}
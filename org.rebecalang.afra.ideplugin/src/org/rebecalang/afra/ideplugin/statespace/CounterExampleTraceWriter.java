@@ -0,0 +1,165 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.ModelCheckingResultParser;
+
+/**
+ * Writes a path of a {@link CompactStateGraph} as a model checking result
+ * holding only a counterexample trace, which
+ * {@link ModelCheckingResultParser} and the counterexample views read like
+ * the traces of the model checker. The graph does not keep the contents of
+ * the states, so they are copied from the state space file in one pass.
+ */
+public class CounterExampleTraceWriter {
+
+	public static final String REPORT_TAG = "model-checking-report";
+
+	private static final int PROGRESS_UNIT = 1 << 16;
+
+	private final CompactStateGraph graph;
+
+	public CounterExampleTraceWriter(CompactStateGraph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Writes the path starting at the initial state and following the given
+	 * transitions.
+	 */
+	public void write(File stateSpaceFile, long[] path, File traceFile, IProgressMonitor monitor) throws IOException {
+		SubMonitor progress = SubMonitor.convert(monitor, 10);
+		int[] states = new int[path.length + 1];
+		states[0] = graph.getInitialState();
+		for (int cnt = 0; cnt < path.length; cnt++)
+			states[cnt + 1] = graph.getTarget(path[cnt]);
+		HashMap<String, String> stateContents = new HashMap<String, String>();
+		for (int state : states)
+			stateContents.put(graph.getStateId(state), null);
+		readStates(stateSpaceFile, stateContents, progress.split(9));
+
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(traceFile), StandardCharsets.UTF_8))) {
+			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			writer.write("<" + REPORT_TAG + ">\n");
+			writer.write("<" + ModelCheckingResultParser.COUNTER_EXAMPLE_TRACE_TAG + ">\n");
+			for (int cnt = 0; cnt < states.length; cnt++) {
+				writer.write(stateContents.get(graph.getStateId(states[cnt])));
+				writer.write("\n");
+				if (cnt < path.length) {
+					writer.write(toXML(path[cnt], states[cnt], states[cnt + 1]));
+					writer.write("\n");
+				}
+			}
+			writer.write("</" + ModelCheckingResultParser.COUNTER_EXAMPLE_TRACE_TAG + ">\n");
+			writer.write("</" + REPORT_TAG + ">\n");
+		}
+		progress.worked(1);
+	}
+
+	private String toXML(long transition, int source, int destination) throws IOException {
+		int label = graph.getLabel(transition);
+		StateSpaceTransition stateSpaceTransition = label == CompactStateGraph.NONE ?
+				new StateSpaceTransition() : StateSpaceTransition.fromLabel(graph.getString(label));
+		stateSpaceTransition.setSource(graph.getStateId(source));
+		stateSpaceTransition.setDestination(graph.getStateId(destination));
+		StringWriter text = new StringWriter();
+		try {
+			XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(text);
+			StateSpaceWriter.writeTransition(writer, stateSpaceTransition);
+			writer.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+		return text.toString();
+	}
+
+	/*
+	 * Fills in the XML of the states whose ids are the keys of stateContents,
+	 * and stops reading as soon as all of them are found.
+	 */
+	private static void readStates(File stateSpaceFile, HashMap<String, String> stateContents,
+			SubMonitor progress) throws IOException {
+		CountingInputStream input = new CountingInputStream(new FileInputStream(stateSpaceFile));
+		InputStream content = null;
+		try {
+			content = StateSpaceReader.openContent(input);
+			XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(content);
+			progress.setWorkRemaining((int) (stateSpaceFile.length() / PROGRESS_UNIT) + 1);
+			long reported = 0;
+			int remaining = stateContents.size();
+			while (remaining > 0 && reader.hasNext()) {
+				long position = input.getCount() / PROGRESS_UNIT;
+				if (position > reported) {
+					progress.worked((int) (position - reported));
+					reported = position;
+					if (progress.isCanceled())
+						throw new OperationCanceledException();
+				}
+				if (reader.next() != XMLStreamConstants.START_ELEMENT ||
+						!reader.getLocalName().equals(StateSpaceReader.STATE_TAG))
+					continue;
+				String id = reader.getAttributeValue(null, "id");
+				if (!stateContents.containsKey(id) || stateContents.get(id) != null)
+					continue;
+				stateContents.put(id, copyElement(reader));
+				remaining--;
+			}
+			reader.close();
+			if (remaining > 0)
+				throw new IOException(remaining + " states of the path are missing in " + stateSpaceFile.getName());
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			if (content != null)
+				content.close();
+			else
+				input.close();
+		}
+	}
+
+	private static String copyElement(XMLStreamReader reader) throws XMLStreamException {
+		StringWriter text = new StringWriter();
+		XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(text);
+		int depth = 0;
+		int event = reader.getEventType();
+		while (true) {
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				writer.writeStartElement(reader.getLocalName());
+				for (int cnt = 0; cnt < reader.getAttributeCount(); cnt++)
+					writer.writeAttribute(reader.getAttributeLocalName(cnt), reader.getAttributeValue(cnt));
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				writer.writeEndElement();
+				if (--depth == 0)
+					break;
+			} else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA ||
+					event == XMLStreamConstants.SPACE) {
+				writer.writeCharacters(reader.getText());
+			}
+			event = reader.next();
+		}
+		writer.close();
+		return text.toString();
+	}
+}
@@ -0,0 +1,50 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Keeps the number of bytes read so far, used for reporting the progress of
+ * passes over large state space files.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+	private long count;
+
+	public CountingInputStream(InputStream in) {
+		super(in);
+	}
+
+	@Override
+	public int read() throws IOException {
+		int result = super.read();
+		if (result != -1)
+			count++;
+		return result;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int result = super.read(b, off, len);
+		if (result != -1)
+			count += result;
+		return result;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long result = super.skip(n);
+		count += result;
+		return result;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	public long getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,267 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.rebecalang.statespacetransformer.StateSpaceTransformer;
+import org.rebecalang.statespacetransformer.StateSpaceTransformingFeature;
+
+/**
+ * Converts a state space file to a Graphviz digraph while streaming it, so the
+ * state space itself is never held in memory.
+ * <ul>
+ * <li>FULL writes every state and transition.</li>
+ * <li>SAMPLED keeps the initial state and every state whose id hashes into
+ * one of sampleRate buckets, with the transitions between kept states. The
+ * choice only depends on the id, so it needs no memory at all.</li>
+ * <li>DEPTH_LIMITED keeps the states within maxDepth transitions of the
+ * initial state, at most maxStates of them. Depths are found by repeated
+ * passes over the transitions; only the kept states are remembered.</li>
+ * </ul>
+ * A full export of a state space of another extension than Core Rebeca is
+ * left to the state space transformer of the Rebeca tools with that
+ * extension, which labels the states and transitions the way the extension
+ * defines them. The other modes label transitions with their message
+ * servers, time progress and execution times, but not with the
+ * probabilities of probabilistic state spaces.
+ */
+public class GraphvizExporter {
+
+	public static final int FULL = 0;
+	public static final int SAMPLED = 1;
+	public static final int DEPTH_LIMITED = 2;
+
+	public static final String CORE_REBECA = "CoreRebeca";
+
+	private static final int PROGRESS_UNIT = 1 << 16;
+
+	private final int mode;
+	private int sampleRate = 10;
+	private int maxDepth = 10;
+	private int maxStates = 1000;
+	private String extension = CORE_REBECA;
+
+	public GraphvizExporter(int mode) {
+		this.mode = mode;
+	}
+
+	public void setSampleRate(int sampleRate) {
+		this.sampleRate = Math.max(sampleRate, 1);
+	}
+
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = Math.max(maxDepth, 0);
+	}
+
+	public void setMaxStates(int maxStates) {
+		this.maxStates = Math.max(maxStates, 1);
+	}
+
+	/**
+	 * Sets the project type of the model the state space was generated from.
+	 */
+	public void setExtension(String extension) {
+		this.extension = extension;
+	}
+
+	public void export(File source, File target, IProgressMonitor monitor) throws IOException {
+		SubMonitor progress = SubMonitor.convert(monitor, "Converting " + source.getName() + " to Graphviz", 100);
+		if (mode == FULL && !CORE_REBECA.equals(extension)) {
+			exportWithTransformer(source, target, progress);
+			return;
+		}
+		HashMap<String, Integer> depths = null;
+		if (mode == DEPTH_LIMITED)
+			depths = computeDepths(source, progress.split(70));
+
+		StateSpaceReader reader = new StateSpaceReader(source, false);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target), StandardCharsets.UTF_8));
+		try {
+			SubMonitor pass = progress.split(mode == DEPTH_LIMITED ? 30 : 100);
+			pass.setWorkRemaining((int) (reader.getLength() / PROGRESS_UNIT) + 1);
+			long reported = 0;
+			String initialState = null;
+
+			writer.write("digraph statespace {\n");
+			writer.write("\tnode [shape=ellipse];\n");
+			int event;
+			while ((event = reader.next()) != StateSpaceReader.END) {
+				reported = reportProgress(reader, pass, reported);
+				if (event == StateSpaceReader.STATE) {
+					StateSpaceState state = reader.getState();
+					if (initialState == null)
+						initialState = state.getId();
+					if (!isKept(state.getId(), initialState, depths))
+						continue;
+					writer.write('\t');
+					writer.write(quote(state.getId()));
+					String label = state.getId();
+					if (state.getAtomicPropositions() != null && !state.getAtomicPropositions().trim().isEmpty())
+						label += "\n" + state.getAtomicPropositions().trim();
+					writer.write(" [label=" + quote(label));
+					if (state.getId().equals(initialState))
+						writer.write(", peripheries=2");
+					writer.write("];\n");
+				} else {
+					StateSpaceTransition transition = reader.getTransition();
+					if (!isKept(transition.getSource(), initialState, depths) ||
+							!isKept(transition.getDestination(), initialState, depths))
+						continue;
+					writer.write('\t');
+					writer.write(quote(transition.getSource()));
+					writer.write(" -> ");
+					writer.write(quote(transition.getDestination()));
+					writer.write(" [label=" + quote(transition.getLabel()) + "];\n");
+				}
+			}
+			writer.write("}\n");
+		} finally {
+			writer.close();
+			reader.close();
+		}
+	}
+
+	/*
+	 * The transformer only reads uncompressed state spaces, so a compressed
+	 * one is decompressed into a temporary file first.
+	 */
+	private void exportWithTransformer(File source, File target, SubMonitor progress) throws IOException {
+		File plain = source;
+		if (isCompressed(source)) {
+			plain = File.createTempFile("AfraStateSpace", ".statespace");
+			try (InputStream content = StateSpaceReader.openContent(new FileInputStream(source))) {
+				Files.copy(content, plain.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				plain.delete();
+				throw e;
+			}
+		}
+		progress.worked(20);
+		try {
+			if (progress.isCanceled())
+				throw new OperationCanceledException();
+			target.delete();
+			String[] args = {
+					"--extension",
+					extension,
+					"--source",
+					plain.getAbsolutePath(),
+					"--output",
+					target.getAbsolutePath(),
+					"--targetmodel",
+					StateSpaceTransformingFeature.GRAPH_VIZ.name()
+			};
+			StateSpaceTransformer.main(args);
+			if (!target.isFile())
+				throw new IOException("The state space transformer did not write " + target.getName());
+			progress.worked(80);
+		} finally {
+			if (plain != source)
+				plain.delete();
+		}
+	}
+
+	private static boolean isCompressed(File file) throws IOException {
+		try (InputStream input = new FileInputStream(file)) {
+			int first = input.read();
+			int second = input.read();
+			return first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8);
+		}
+	}
+
+	private boolean isKept(String id, String initialState, HashMap<String, Integer> depths) {
+		switch (mode) {
+		case SAMPLED:
+			return id.equals(initialState) || (id.hashCode() & 0x7fffffff) % sampleRate == 0;
+		case DEPTH_LIMITED:
+			return depths.containsKey(id);
+		default:
+			return true;
+		}
+	}
+
+	/*
+	 * Relaxes depth(destination) = depth(source) + 1 over the transitions
+	 * until nothing changes. State space files list transitions roughly in
+	 * exploration order, so this usually settles after very few passes.
+	 */
+	private HashMap<String, Integer> computeDepths(File source, SubMonitor progress) throws IOException {
+		HashMap<String, Integer> depths = new HashMap<String, Integer>();
+		boolean changed = true;
+		for (int passCounter = 0; changed && passCounter <= maxDepth; passCounter++) {
+			changed = false;
+			progress.setWorkRemaining(maxDepth + 1 - passCounter);
+			SubMonitor pass = progress.split(1);
+			StateSpaceReader reader = new StateSpaceReader(source, false);
+			try {
+				pass.setWorkRemaining((int) (reader.getLength() / PROGRESS_UNIT) + 1);
+				long reported = 0;
+				int event;
+				while ((event = reader.next()) != StateSpaceReader.END) {
+					reported = reportProgress(reader, pass, reported);
+					if (event == StateSpaceReader.STATE) {
+						if (depths.isEmpty()) {
+							depths.put(reader.getState().getId(), 0);
+							changed = true;
+						}
+						continue;
+					}
+					StateSpaceTransition transition = reader.getTransition();
+					Integer sourceDepth = depths.get(transition.getSource());
+					if (sourceDepth == null || sourceDepth >= maxDepth)
+						continue;
+					Integer destinationDepth = depths.get(transition.getDestination());
+					if (destinationDepth == null && depths.size() >= maxStates)
+						continue;
+					if (destinationDepth == null || destinationDepth > sourceDepth + 1) {
+						depths.put(transition.getDestination(), sourceDepth + 1);
+						changed = true;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		return depths;
+	}
+
+	private long reportProgress(StateSpaceReader reader, SubMonitor monitor, long reported) {
+		long position = reader.getPosition() / PROGRESS_UNIT;
+		if (position > reported) {
+			monitor.worked((int) (position - reported));
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			return position;
+		}
+		return reported;
+	}
+
+	private static String quote(String text) {
+		StringBuilder result = new StringBuilder(text.length() + 2);
+		result.append('"');
+		for (int cnt = 0; cnt < text.length(); cnt++) {
+			char c = text.charAt(cnt);
+			if (c == '"' || c == '\\')
+				result.append('\\').append(c);
+			else if (c == '\n')
+				result.append("\\n");
+			else
+				result.append(c);
+		}
+		return result.append('"').toString();
+	}
+}
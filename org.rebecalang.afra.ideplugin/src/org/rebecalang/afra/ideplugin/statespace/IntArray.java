@@ -0,0 +1,58 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive ints; reading beyond the size yields the
+ * default value given at construction.
+ */
+class IntArray {
+
+	private int[] elements;
+	private int size;
+	private final int defaultValue;
+
+	public IntArray(int defaultValue) {
+		this.defaultValue = defaultValue;
+		this.elements = new int[1024];
+		if (defaultValue != 0)
+			Arrays.fill(elements, defaultValue);
+	}
+
+	public int get(int index) {
+		return index < size ? elements[index] : defaultValue;
+	}
+
+	public void set(int index, int value) {
+		ensureSize(index + 1);
+		elements[index] = value;
+	}
+
+	public void increment(int index) {
+		ensureSize(index + 1);
+		elements[index]++;
+	}
+
+	public void add(int value) {
+		set(size, value);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(elements, size);
+	}
+
+	public void ensureSize(int newSize) {
+		if (newSize > elements.length) {
+			int oldLength = elements.length;
+			elements = Arrays.copyOf(elements, Math.max(newSize, oldLength + (oldLength >> 1)));
+			if (defaultValue != 0)
+				Arrays.fill(elements, oldLength, elements.length, defaultValue);
+		}
+		if (newSize > size)
+			size = newSize;
+	}
+}
@@ -0,0 +1,152 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Finds a shortest path from the initial state of a {@link CompactStateGraph}
+ * to any of a set of target states by a bidirectional breadth first search:
+ * forward from the initial state over the outgoing transitions and backward
+ * from all targets over the incoming ones, always advancing the side with the
+ * smaller frontier by one layer. Layers are expanded in parallel; each side
+ * remembers for every state it reached the neighbour it was reached from.
+ * <p>
+ * The first layer in which the two searches meet yields a shortest path: the
+ * visited sets were disjoint before, so no path is shorter than the two
+ * depths together, and any meeting state gives a path of exactly that length.
+ */
+public class ShortestPathFinder {
+
+	private static final int UNVISITED = -1;
+	private static final int ROOT = -2;
+
+	private final CompactStateGraph graph;
+
+	private AtomicIntegerArray forwardParent;
+	private AtomicIntegerArray backwardParent;
+
+	public ShortestPathFinder(CompactStateGraph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Returns the states without outgoing transitions.
+	 */
+	public static BitSet getDeadlocks(CompactStateGraph graph) {
+		BitSet deadlocks = new BitSet(graph.getNumberOfStates());
+		for (int state = 0; state < graph.getNumberOfStates(); state++)
+			if (graph.getOutDegree(state) == 0)
+				deadlocks.set(state);
+		return deadlocks;
+	}
+
+	/**
+	 * Returns the transitions of a shortest path from the initial state to
+	 * one of the targets, an empty array when the initial state is a target,
+	 * or null when no target is reachable.
+	 */
+	public long[] find(BitSet targets, IProgressMonitor monitor) {
+		int numberOfStates = graph.getNumberOfStates();
+		SubMonitor progress = SubMonitor.convert(monitor, numberOfStates);
+		if (numberOfStates == 0 || targets.isEmpty())
+			return null;
+		int initialState = graph.getInitialState();
+		if (targets.get(initialState))
+			return new long[0];
+
+		forwardParent = new AtomicIntegerArray(numberOfStates);
+		backwardParent = new AtomicIntegerArray(numberOfStates);
+		for (int state = 0; state < numberOfStates; state++) {
+			forwardParent.set(state, UNVISITED);
+			backwardParent.set(state, UNVISITED);
+		}
+		forwardParent.set(initialState, ROOT);
+		int[] forwardFrontier = { initialState };
+		int[] backwardFrontier = new int[targets.cardinality()];
+		int size = 0;
+		for (int state = targets.nextSetBit(0); state >= 0; state = targets.nextSetBit(state + 1)) {
+			backwardParent.set(state, ROOT);
+			backwardFrontier[size++] = state;
+		}
+
+		try {
+			while (forwardFrontier.length > 0 && backwardFrontier.length > 0) {
+				if (progress.isCanceled())
+					throw new OperationCanceledException();
+				int meeting;
+				if (forwardFrontier.length <= backwardFrontier.length) {
+					forwardFrontier = expandForward(forwardFrontier);
+					progress.worked(forwardFrontier.length);
+					meeting = findVisited(forwardFrontier, backwardParent);
+				} else {
+					backwardFrontier = expandBackward(backwardFrontier);
+					progress.worked(backwardFrontier.length);
+					meeting = findVisited(backwardFrontier, forwardParent);
+				}
+				if (meeting != UNVISITED)
+					return buildPath(meeting);
+			}
+			return null;
+		} finally {
+			forwardParent = null;
+			backwardParent = null;
+		}
+	}
+
+	private int[] expandForward(int[] frontier) {
+		return StateGraphTasks.expandFrontier(frontier, (state, next) -> {
+			for (long transition = graph.getFirstTransition(state); transition < graph.getEndTransition(state); transition++) {
+				int target = graph.getTarget(transition);
+				if (forwardParent.get(target) == UNVISITED && forwardParent.compareAndSet(target, UNVISITED, state))
+					next.add(target);
+			}
+		});
+	}
+
+	private int[] expandBackward(int[] frontier) {
+		return StateGraphTasks.expandFrontier(frontier, (state, next) -> {
+			for (long transition = graph.getFirstIncomingTransition(state);
+					transition < graph.getEndIncomingTransition(state); transition++) {
+				int source = graph.getSource(transition);
+				if (backwardParent.get(source) == UNVISITED && backwardParent.compareAndSet(source, UNVISITED, state))
+					next.add(source);
+			}
+		});
+	}
+
+	private static int findVisited(int[] frontier, AtomicIntegerArray otherParent) {
+		for (int state : frontier)
+			if (otherParent.get(state) != UNVISITED)
+				return state;
+		return UNVISITED;
+	}
+
+	private long[] buildPath(int meeting) {
+		IntArray states = new IntArray(0);
+		for (int state = meeting; state != ROOT; state = forwardParent.get(state))
+			states.add(state);
+		int[] prefix = states.toArray();
+		states = new IntArray(0);
+		for (int cnt = prefix.length - 1; cnt >= 0; cnt--)
+			states.add(prefix[cnt]);
+		for (int state = backwardParent.get(meeting); state != ROOT; state = backwardParent.get(state))
+			states.add(state);
+
+		long[] path = new long[states.size() - 1];
+		for (int cnt = 0; cnt < path.length; cnt++)
+			path[cnt] = findTransition(states.get(cnt), states.get(cnt + 1));
+		return path;
+	}
+
+	private long findTransition(int source, int target) {
+		for (long transition = graph.getFirstTransition(source); transition < graph.getEndTransition(source); transition++)
+			if (graph.getTarget(transition) == target)
+				return transition;
+		throw new IllegalStateException("No transition from " + graph.getStateId(source) + " to " +
+				graph.getStateId(target));
+	}
+}
@@ -0,0 +1,132 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StateValueIndex;
+
+/**
+ * {@link StateValueIndex} over the columns of a {@link CompactStateGraph}, so
+ * that state predicates and the temporal predicates built on them can be
+ * evaluated against an exported state space. The postings of a column are
+ * built by one scan of the column when it is first used.
+ */
+public class StateGraphIndex implements StateValueIndex {
+
+	private final CompactStateGraph graph;
+	private final HashMap<String, Integer> columnNumbers = new HashMap<String, Integer>();
+	private final HashMap<Integer, ColumnPostings> postings = new HashMap<Integer, ColumnPostings>();
+	private IProgressMonitor monitor = new NullProgressMonitor();
+
+	private static class ColumnPostings {
+		final List<String> values = new ArrayList<String>();
+		final List<BitSet> states = new ArrayList<BitSet>();
+	}
+
+	public StateGraphIndex(CompactStateGraph graph) {
+		this.graph = graph;
+		for (int column = 0; column < graph.getNumberOfColumns(); column++)
+			columnNumbers.put(graph.getColumnRebec(column) + "." + graph.getColumnAttribute(column), column);
+	}
+
+	public CompactStateGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Sets the monitor which long running evaluations check for cancellation.
+	 */
+	public void setMonitor(IProgressMonitor monitor) {
+		this.monitor = monitor == null ? new NullProgressMonitor() : monitor;
+	}
+
+	public IProgressMonitor getMonitor() {
+		return monitor;
+	}
+
+	@Override
+	public int getNumberOfStates() {
+		return graph.getNumberOfStates();
+	}
+
+	@Override
+	public List<String> getValues(String rebec, String name) {
+		ColumnPostings columnPostings = getPostings(rebec, name);
+		return columnPostings == null ? null : columnPostings.values;
+	}
+
+	@Override
+	public BitSet getStates(String rebec, String name, int valueIndex) {
+		return getPostings(rebec, name).states.get(valueIndex);
+	}
+
+	@Override
+	public BitSet getStatesWithQueuedMessage(String rebec, String message) {
+		BitSet result = new BitSet();
+		ColumnPostings columnPostings = getPostings(rebec, CompactStateGraph.QUEUE_ATTRIBUTE);
+		if (columnPostings == null)
+			return result;
+		for (int cnt = 0; cnt < columnPostings.values.size(); cnt++)
+			if (isQueued(columnPostings.values.get(cnt), message))
+				result.or(columnPostings.states.get(cnt));
+		return result;
+	}
+
+	/*
+	 * As for traces, a message matches its full text and, for messages with
+	 * arguments, the name of the message server alone. The separator may
+	 * appear in the arguments too.
+	 */
+	private static boolean isQueued(String queue, String message) {
+		char separator = CompactStateGraph.QUEUE_SEPARATOR.charAt(0);
+		int depth = 0;
+		int start = 0;
+		for (int cnt = 0; cnt <= queue.length(); cnt++) {
+			char character = cnt < queue.length() ? queue.charAt(cnt) : separator;
+			if (character == '(') {
+				depth++;
+			} else if (character == ')') {
+				depth--;
+			} else if (character == separator && (depth <= 0 || cnt == queue.length())) {
+				String queued = queue.substring(start, cnt).trim();
+				int argumentsStart = queued.indexOf('(');
+				if (queued.equals(message) ||
+						argumentsStart > 0 && queued.substring(0, argumentsStart).trim().equals(message))
+					return true;
+				start = cnt + 1;
+				depth = 0;
+			}
+		}
+		return false;
+	}
+
+	private synchronized ColumnPostings getPostings(String rebec, String name) {
+		Integer column = columnNumbers.get(rebec + "." + name);
+		if (column == null)
+			return null;
+		ColumnPostings columnPostings = postings.get(column);
+		if (columnPostings == null) {
+			columnPostings = new ColumnPostings();
+			HashMap<Integer, Integer> valueIndices = new HashMap<Integer, Integer>();
+			for (int state = 0; state < graph.getNumberOfStates(); state++) {
+				int value = graph.getValue(column, state);
+				if (value == CompactStateGraph.NONE)
+					continue;
+				Integer valueIndex = valueIndices.get(value);
+				if (valueIndex == null) {
+					valueIndex = columnPostings.values.size();
+					valueIndices.put(value, valueIndex);
+					columnPostings.values.add(graph.getString(value));
+					columnPostings.states.add(new BitSet());
+				}
+				columnPostings.states.get(valueIndex).set(state);
+			}
+			postings.put(column, columnPostings);
+		}
+		return columnPostings;
+	}
+}
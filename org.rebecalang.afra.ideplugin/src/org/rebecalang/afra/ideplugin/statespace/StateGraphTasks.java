@@ -0,0 +1,109 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join helpers for the parallel passes over a {@link CompactStateGraph}.
+ * Work is split into ranges of at least SEQUENTIAL_THRESHOLD states and run
+ * in the common pool.
+ */
+final class StateGraphTasks {
+
+	static final int SEQUENTIAL_THRESHOLD = 8192;
+
+	interface Expansion {
+		/**
+		 * Handles one state and adds the states it yields to the result.
+		 * Called concurrently for different states.
+		 */
+		void expand(int state, IntArray result);
+	}
+
+	interface RangeAction {
+		void run(int from, int to);
+	}
+
+	private StateGraphTasks() {
+	}
+
+	/**
+	 * Expands every state of the frontier and returns the concatenation of
+	 * the yielded states.
+	 */
+	static int[] expandFrontier(int[] frontier, Expansion expansion) {
+		return new ExpandTask(frontier, 0, frontier.length, expansion).invoke();
+	}
+
+	/**
+	 * Expands the states 0 to numberOfStates - 1.
+	 */
+	static int[] expandAll(int numberOfStates, Expansion expansion) {
+		return new ExpandTask(null, 0, numberOfStates, expansion).invoke();
+	}
+
+	/**
+	 * Runs the action on disjoint subranges of at most threshold elements
+	 * which together cover [from, to).
+	 */
+	static void forEachRange(int from, int to, int threshold, RangeAction action) {
+		new RangeTask(from, to, threshold, action).invoke();
+	}
+
+	private static class ExpandTask extends RecursiveTask<int[]> {
+		private static final long serialVersionUID = 1L;
+		private final int[] frontier;
+		private final int from, to;
+		private final Expansion expansion;
+
+		ExpandTask(int[] frontier, int from, int to, Expansion expansion) {
+			this.frontier = frontier;
+			this.from = from;
+			this.to = to;
+			this.expansion = expansion;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (to - from > SEQUENTIAL_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				ExpandTask left = new ExpandTask(frontier, from, middle, expansion);
+				left.fork();
+				int[] right = new ExpandTask(frontier, middle, to, expansion).compute();
+				int[] leftResult = left.join();
+				int[] result = Arrays.copyOf(leftResult, leftResult.length + right.length);
+				System.arraycopy(right, 0, result, leftResult.length, right.length);
+				return result;
+			}
+			IntArray result = new IntArray(0);
+			for (int cnt = from; cnt < to; cnt++)
+				expansion.expand(frontier == null ? cnt : frontier[cnt], result);
+			return result.toArray();
+		}
+	}
+
+	private static class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from, to, threshold;
+		private final RangeAction action;
+
+		RangeTask(int from, int to, int threshold, RangeAction action) {
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > threshold) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RangeTask(from, middle, threshold, action),
+						new RangeTask(middle, to, threshold, action));
+			} else {
+				action.run(from, to);
+			}
+		}
+	}
+}
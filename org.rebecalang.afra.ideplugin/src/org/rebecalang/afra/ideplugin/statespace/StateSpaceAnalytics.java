@@ -0,0 +1,296 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Structural statistics of a {@link CompactStateGraph}: degree histograms,
+ * breadth first depth layers from the initial state and the strongly
+ * connected components. Everything works on primitive arrays indexed by
+ * state number. The degree pass and every BFS layer are split over the
+ * fork/join common pool; the SCC decomposition is an iterative Tarjan, which
+ * is sequential by nature but needs no recursion for deep state spaces.
+ */
+public class StateSpaceAnalytics {
+
+	private final CompactStateGraph graph;
+
+	private int numberOfStates;
+	private long numberOfTransitions;
+	private int terminalStates;
+	private long selfLoops;
+	private long[] outDegreeHistogram;
+	private long[] inDegreeHistogram;
+
+	private int reachableStates;
+	private long[] statesPerDepth;
+
+	private int numberOfComponents;
+	private int largestComponent;
+	private int nontrivialComponents;
+	private int bottomComponents;
+	private long[] componentSizeHistogram;
+
+	public StateSpaceAnalytics(CompactStateGraph graph) {
+		this.graph = graph;
+	}
+
+	public void compute(IProgressMonitor monitor) {
+		SubMonitor progress = SubMonitor.convert(monitor, "Analyzing state space", 4);
+		numberOfStates = graph.getNumberOfStates();
+		numberOfTransitions = graph.getNumberOfTransitions();
+		computeDegrees();
+		progress.worked(1);
+		checkCanceled(progress);
+		computeDepths(progress.split(1));
+		computeComponents(progress.split(2));
+	}
+
+	private static void checkCanceled(IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+	}
+
+	/*
+	 * Degrees
+	 */
+
+	private static class DegreeCounts {
+		long[] outDegrees = new long[16];
+		long[] inDegrees = new long[16];
+		int terminalStates;
+		long selfLoops;
+
+		static long[] count(long[] histogram, int degree) {
+			if (degree >= histogram.length)
+				histogram = Arrays.copyOf(histogram, Math.max(degree + 1, histogram.length * 2));
+			histogram[degree]++;
+			return histogram;
+		}
+
+		static long[] merge(long[] first, long[] second) {
+			long[] result = first.length >= second.length ? first : second;
+			long[] other = result == first ? second : first;
+			for (int cnt = 0; cnt < other.length; cnt++)
+				result[cnt] += other[cnt];
+			return result;
+		}
+
+		DegreeCounts merge(DegreeCounts other) {
+			outDegrees = merge(outDegrees, other.outDegrees);
+			inDegrees = merge(inDegrees, other.inDegrees);
+			terminalStates += other.terminalStates;
+			selfLoops += other.selfLoops;
+			return this;
+		}
+	}
+
+	private class DegreeTask extends RecursiveTask<DegreeCounts> {
+		private static final long serialVersionUID = 1L;
+		private final int from, to;
+
+		DegreeTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected DegreeCounts compute() {
+			if (to - from > StateGraphTasks.SEQUENTIAL_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				DegreeTask left = new DegreeTask(from, middle);
+				left.fork();
+				DegreeCounts right = new DegreeTask(middle, to).compute();
+				return left.join().merge(right);
+			}
+			DegreeCounts counts = new DegreeCounts();
+			for (int state = from; state < to; state++) {
+				int outDegree = graph.getOutDegree(state);
+				counts.outDegrees = DegreeCounts.count(counts.outDegrees, outDegree);
+				counts.inDegrees = DegreeCounts.count(counts.inDegrees, graph.getInDegree(state));
+				if (outDegree == 0)
+					counts.terminalStates++;
+				for (long transition = graph.getFirstTransition(state); transition < graph.getEndTransition(state); transition++)
+					if (graph.getTarget(transition) == state)
+						counts.selfLoops++;
+			}
+			return counts;
+		}
+	}
+
+	private void computeDegrees() {
+		DegreeCounts counts = new DegreeTask(0, numberOfStates).invoke();
+		outDegreeHistogram = trim(counts.outDegrees);
+		inDegreeHistogram = trim(counts.inDegrees);
+		terminalStates = counts.terminalStates;
+		selfLoops = counts.selfLoops;
+	}
+
+	private static long[] trim(long[] histogram) {
+		int length = histogram.length;
+		while (length > 0 && histogram[length - 1] == 0)
+			length--;
+		return Arrays.copyOf(histogram, length);
+	}
+
+	/*
+	 * Depth layers: a level synchronous BFS in which each layer's frontier is
+	 * split over the pool and states are claimed by a compare and set on
+	 * their depth.
+	 */
+
+	private void computeDepths(SubMonitor progress) {
+		reachableStates = 0;
+		statesPerDepth = new long[0];
+		if (numberOfStates == 0)
+			return;
+		progress.setWorkRemaining(numberOfStates);
+		AtomicIntegerArray depths = new AtomicIntegerArray(numberOfStates);
+		for (int state = 0; state < numberOfStates; state++)
+			depths.set(state, -1);
+		int initialState = graph.getInitialState();
+		depths.set(initialState, 0);
+		int[] frontier = new int[] { initialState };
+		IntArray layerSizes = new IntArray(0);
+		for (int depth = 0; frontier.length != 0; depth++) {
+			checkCanceled(progress);
+			layerSizes.add(frontier.length);
+			reachableStates += frontier.length;
+			progress.worked(frontier.length);
+			int nextDepth = depth + 1;
+			frontier = StateGraphTasks.expandFrontier(frontier, (state, next) -> {
+				for (long transition = graph.getFirstTransition(state); transition < graph.getEndTransition(state); transition++) {
+					int target = graph.getTarget(transition);
+					if (depths.get(target) == -1 && depths.compareAndSet(target, -1, nextDepth))
+						next.add(target);
+				}
+			});
+		}
+		statesPerDepth = new long[layerSizes.size()];
+		for (int depth = 0; depth < statesPerDepth.length; depth++)
+			statesPerDepth[depth] = layerSizes.get(depth);
+	}
+
+	/*
+	 * Strongly connected components, and which of them no transition leaves
+	 */
+
+	private void computeComponents(SubMonitor progress) {
+		progress.setWorkRemaining(numberOfStates + 1);
+		IntArray componentSizes = new IntArray(0);
+		int[] component = TarjanComponents.compute(graph, null, (componentNumber, members, from, to) -> {
+			componentSizes.add(to - from);
+			progress.worked(to - from);
+		}, progress);
+
+		numberOfComponents = componentSizes.size();
+		boolean[] leaves = new boolean[numberOfComponents];
+		Arrays.fill(leaves, true);
+		for (int state = 0; state < numberOfStates; state++)
+			for (long transition = graph.getFirstTransition(state); transition < graph.getEndTransition(state); transition++)
+				if (component[graph.getTarget(transition)] != component[state]) {
+					leaves[component[state]] = false;
+					break;
+				}
+
+		largestComponent = 0;
+		nontrivialComponents = 0;
+		bottomComponents = 0;
+		componentSizeHistogram = new long[0];
+		for (int cnt = 0; cnt < numberOfComponents; cnt++) {
+			int size = componentSizes.get(cnt);
+			largestComponent = Math.max(largestComponent, size);
+			if (size > 1)
+				nontrivialComponents++;
+			if (leaves[cnt])
+				bottomComponents++;
+			componentSizeHistogram = DegreeCounts.count(componentSizeHistogram, log2(size));
+		}
+		componentSizeHistogram = trim(componentSizeHistogram);
+	}
+
+	private static int log2(int value) {
+		return 31 - Integer.numberOfLeadingZeros(value);
+	}
+
+	public int getNumberOfStates() {
+		return numberOfStates;
+	}
+
+	public long getNumberOfTransitions() {
+		return numberOfTransitions;
+	}
+
+	/**
+	 * Number of states without outgoing transitions.
+	 */
+	public int getTerminalStates() {
+		return terminalStates;
+	}
+
+	public long getSelfLoops() {
+		return selfLoops;
+	}
+
+	/**
+	 * Number of states for each out-degree, indexed by the degree.
+	 */
+	public long[] getOutDegreeHistogram() {
+		return outDegreeHistogram;
+	}
+
+	public long[] getInDegreeHistogram() {
+		return inDegreeHistogram;
+	}
+
+	public int getReachableStates() {
+		return reachableStates;
+	}
+
+	public int getMaxDepth() {
+		return statesPerDepth.length - 1;
+	}
+
+	/**
+	 * Number of states first reached at each depth from the initial state.
+	 */
+	public long[] getStatesPerDepth() {
+		return statesPerDepth;
+	}
+
+	public int getNumberOfComponents() {
+		return numberOfComponents;
+	}
+
+	public int getLargestComponent() {
+		return largestComponent;
+	}
+
+	/**
+	 * Number of components with more than one state.
+	 */
+	public int getNontrivialComponents() {
+		return nontrivialComponents;
+	}
+
+	/**
+	 * Number of components no transition leaves; terminal states count as
+	 * bottom components of their own.
+	 */
+	public int getBottomComponents() {
+		return bottomComponents;
+	}
+
+	/**
+	 * Number of components by size, where index i counts the components with
+	 * between 2^i and 2^(i+1) - 1 states.
+	 */
+	public long[] getComponentSizeHistogram() {
+		return componentSizeHistogram;
+	}
+}
@@ -0,0 +1,63 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Puts the state space exported by the model checker in place. The exported
+ * file is not needed afterwards, so it is moved rather than copied, which on
+ * the same file system is a rename. Compressed exports are written to a
+ * temporary file next to the target and renamed into place, so readers never
+ * see a partial state space. {@link StateSpaceReader} reads both forms.
+ */
+public final class StateSpaceExport {
+
+	private StateSpaceExport() {
+	}
+
+	public static void store(File exportedFile, File stateSpaceFile, boolean compress) throws IOException {
+		Path target = stateSpaceFile.toPath();
+		if (!compress) {
+			move(exportedFile.toPath(), target);
+			return;
+		}
+		File temporaryFile = File.createTempFile(stateSpaceFile.getName(), ".tmp", stateSpaceFile.getParentFile());
+		try {
+			try (OutputStream output = new GZIPOutputStream(
+					new BufferedOutputStream(new FileOutputStream(temporaryFile), 1 << 16), 1 << 16)) {
+				Files.copy(exportedFile.toPath(), output);
+			}
+			move(temporaryFile.toPath(), target);
+		} finally {
+			Files.deleteIfExists(temporaryFile.toPath());
+		}
+		Files.delete(exportedFile.toPath());
+	}
+
+	/*
+	 * Renames the file when source and target are on the same file system
+	 * and falls back to copying it next to the target first otherwise.
+	 */
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+			try {
+				Files.copy(source, temporary, StandardCopyOption.REPLACE_EXISTING);
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temporary);
+			}
+			Files.delete(source);
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Pull reader of state space files, which may be stored gzip-compressed. The
+ * file is read element by element, so only the current state or transition
+ * is in memory:
+ * <pre>
+ * StateSpaceReader reader = new StateSpaceReader(file, false);
+ * int event;
+ * while ((event = reader.next()) != StateSpaceReader.END)
+ *     if (event == StateSpaceReader.TRANSITION)
+ *         ... reader.getTransition() ...
+ * reader.close();
+ * </pre>
+ */
+public class StateSpaceReader implements Closeable {
+
+	public static final int END = 0;
+	public static final int STATE = 1;
+	public static final int TRANSITION = 2;
+
+	public static final String STATE_TAG = "state";
+	public static final String TRANSITION_TAG = "transition";
+	public static final String REBEC_TAG = "rebec";
+	public static final String VARIABLE_TAG = "variable";
+	public static final String MESSAGE_TAG = "message";
+	public static final String MESSAGESERVER_TAG = "messageserver";
+	public static final String TIME_TAG = "time";
+	public static final String NOW_TAG = "now";
+	public static final String PC_TAG = "pc";
+	public static final String RES_TAG = "res";
+
+	public static final String QUEUE_LENGTH = "queue.length";
+
+	private final CountingInputStream input;
+	private final InputStream content;
+	private final XMLStreamReader reader;
+	private final boolean readStateContents;
+	private final long length;
+
+	private StateSpaceState state;
+	private StateSpaceTransition transition;
+
+	/**
+	 * @param readStateContents whether the rebecs of the states are read; when
+	 * false only the ids and atomic propositions of the states are kept.
+	 */
+	public StateSpaceReader(File file, boolean readStateContents) throws IOException {
+		this.length = file.length();
+		this.readStateContents = readStateContents;
+		this.input = new CountingInputStream(new FileInputStream(file));
+		try {
+			this.content = openContent(input);
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+		try {
+			this.reader = XMLInputFactory.newInstance().createXMLStreamReader(content);
+		} catch (XMLStreamException e) {
+			content.close();
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Returns the XML content of a state space file read through the given
+	 * stream, decompressing it when the file is gzip-compressed.
+	 */
+	static InputStream openContent(InputStream file) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(file, 1 << 16);
+		buffered.mark(2);
+		int first = buffered.read();
+		int second = buffered.read();
+		buffered.reset();
+		if (first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8))
+			return new BufferedInputStream(new GZIPInputStream(buffered, 1 << 16), 1 << 16);
+		return buffered;
+	}
+
+	/**
+	 * Advances to the next state or transition and returns its kind, or END
+	 * at the end of the file.
+	 */
+	public int next() throws IOException {
+		try {
+			while (reader.hasNext()) {
+				if (reader.next() != XMLStreamConstants.START_ELEMENT)
+					continue;
+				String name = reader.getLocalName();
+				if (name.equals(STATE_TAG)) {
+					readState();
+					return STATE;
+				} else if (name.equals(TRANSITION_TAG)) {
+					readTransition();
+					return TRANSITION;
+				}
+			}
+			return END;
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	public StateSpaceState getState() {
+		return state;
+	}
+
+	public StateSpaceTransition getTransition() {
+		return transition;
+	}
+
+	/**
+	 * Returns the number of bytes of the file consumed so far, which are
+	 * compressed bytes for a compressed file.
+	 */
+	public long getPosition() {
+		return input.getCount();
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	private void readState() throws XMLStreamException {
+		state = new StateSpaceState();
+		state.setId(reader.getAttributeValue(null, "id"));
+		state.setAtomicPropositions(reader.getAttributeValue(null, "atomicpropositions"));
+		String rebec = null;
+		int queueLength = 0;
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+				if (readStateContents && reader.getLocalName().equals(REBEC_TAG))
+					state.addAttribute(rebec, QUEUE_LENGTH, String.valueOf(queueLength));
+				continue;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT)
+				continue;
+			depth++;
+			if (!readStateContents)
+				continue;
+			String name = reader.getLocalName();
+			if (name.equals(REBEC_TAG)) {
+				rebec = reader.getAttributeValue(null, "name");
+				queueLength = 0;
+			} else if (name.equals(VARIABLE_TAG)) {
+				String variable = reader.getAttributeValue(null, "name");
+				state.addAttribute(rebec, variable, reader.getElementText().trim());
+				depth--;
+			} else if (name.equals(MESSAGE_TAG)) {
+				state.addQueuedMessage(rebec, reader.getElementText().trim());
+				queueLength++;
+				depth--;
+			} else if (name.equals(NOW_TAG) || name.equals(PC_TAG) || name.equals(RES_TAG)) {
+				state.addAttribute(rebec, name, reader.getElementText().trim());
+				depth--;
+			}
+		}
+	}
+
+	private void readTransition() throws XMLStreamException {
+		transition = new StateSpaceTransition();
+		transition.setSource(reader.getAttributeValue(null, "source"));
+		transition.setDestination(reader.getAttributeValue(null, "destination"));
+		transition.setExecutionTime(reader.getAttributeValue(null, "executionTime"));
+		transition.setShift(reader.getAttributeValue(null, "shift"));
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+				continue;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT)
+				continue;
+			depth++;
+			String name = reader.getLocalName();
+			if (name.equals(MESSAGESERVER_TAG)) {
+				transition.setSender(reader.getAttributeValue(null, "sender"));
+				transition.setOwner(reader.getAttributeValue(null, "owner"));
+				transition.setTitle(reader.getAttributeValue(null, "title"));
+			} else if (name.equals(TIME_TAG)) {
+				transition.setTimeProgress(reader.getAttributeValue(null, "value"));
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			content.close();
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A state read from a state space file. The attributes of the rebecs (state
+ * variables, now, pc, res and queue.length) are kept as parallel lists of
+ * rebec names, attribute names and values; they are only filled when the
+ * reader is asked for the contents of the states.
+ */
+public class StateSpaceState {
+
+	private String id;
+	private String atomicPropositions;
+	private final List<String> rebecs = new ArrayList<String>();
+	private final List<String> attributes = new ArrayList<String>();
+	private final List<String> values = new ArrayList<String>();
+	private final List<String> queueRebecs = new ArrayList<String>();
+	private final List<String> queuedMessages = new ArrayList<String>();
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getAtomicPropositions() {
+		return atomicPropositions;
+	}
+
+	public void setAtomicPropositions(String atomicPropositions) {
+		this.atomicPropositions = atomicPropositions;
+	}
+
+	public void addAttribute(String rebec, String attribute, String value) {
+		rebecs.add(rebec);
+		attributes.add(attribute);
+		values.add(value);
+	}
+
+	public void addQueuedMessage(String rebec, String message) {
+		queueRebecs.add(rebec);
+		queuedMessages.add(message);
+	}
+
+	public int getNumberOfAttributes() {
+		return attributes.size();
+	}
+
+	public String getRebec(int index) {
+		return rebecs.get(index);
+	}
+
+	public String getAttribute(int index) {
+		return attributes.get(index);
+	}
+
+	public String getValue(int index) {
+		return values.get(index);
+	}
+
+	public int getNumberOfQueuedMessages() {
+		return queuedMessages.size();
+	}
+
+	public String getQueueRebec(int index) {
+		return queueRebecs.get(index);
+	}
+
+	public String getQueuedMessage(int index) {
+		return queuedMessages.get(index);
+	}
+}
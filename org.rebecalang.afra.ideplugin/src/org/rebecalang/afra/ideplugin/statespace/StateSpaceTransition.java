@@ -0,0 +1,129 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+/**
+ * A transition read from a state space file, either the execution of a
+ * message server or the progress of time.
+ */
+public class StateSpaceTransition {
+
+	private static final String SENDER_SEPARATOR = " from ";
+	private static final String TIME_PROGRESS_PREFIX = "Time progress by ";
+	private static final String TIME_PROGRESS_SUFFIX = " units";
+	private static final String EXECUTION_TIME_PREFIX = " @(";
+
+	private String source;
+	private String destination;
+	private String executionTime;
+	private String shift;
+	private String sender;
+	private String owner;
+	private String title;
+	private String timeProgress;
+
+	public String getSource() {
+		return source;
+	}
+
+	public void setSource(String source) {
+		this.source = source;
+	}
+
+	public String getDestination() {
+		return destination;
+	}
+
+	public void setDestination(String destination) {
+		this.destination = destination;
+	}
+
+	public String getExecutionTime() {
+		return executionTime;
+	}
+
+	public void setExecutionTime(String executionTime) {
+		this.executionTime = executionTime;
+	}
+
+	public String getShift() {
+		return shift;
+	}
+
+	public void setShift(String shift) {
+		this.shift = shift;
+	}
+
+	public String getSender() {
+		return sender;
+	}
+
+	public void setSender(String sender) {
+		this.sender = sender;
+	}
+
+	public String getOwner() {
+		return owner;
+	}
+
+	public void setOwner(String owner) {
+		this.owner = owner;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public String getTimeProgress() {
+		return timeProgress;
+	}
+
+	public void setTimeProgress(String timeProgress) {
+		this.timeProgress = timeProgress;
+	}
+
+	/**
+	 * Returns the label of the transition in the same form as the counter
+	 * example graph, e.g. "philosopher.eat from fork @(3)".
+	 */
+	public String getLabel() {
+		String label = "";
+		if (title != null)
+			label = owner == null ? title : owner + "." + title + " from " + sender;
+		else if (timeProgress != null)
+			label = TIME_PROGRESS_PREFIX + timeProgress + TIME_PROGRESS_SUFFIX;
+		if (executionTime != null)
+			label += EXECUTION_TIME_PREFIX + executionTime + ")";
+		return label;
+	}
+
+	/**
+	 * Returns a transition with the given label, the inverse of
+	 * {@link #getLabel()}. A label which is neither a message server nor time
+	 * progress becomes a title without owner.
+	 */
+	public static StateSpaceTransition fromLabel(String label) {
+		StateSpaceTransition transition = new StateSpaceTransition();
+		int executionTimeStart = label.lastIndexOf(EXECUTION_TIME_PREFIX);
+		if (executionTimeStart != -1 && label.endsWith(")")) {
+			transition.setExecutionTime(label.substring(
+					executionTimeStart + EXECUTION_TIME_PREFIX.length(), label.length() - 1));
+			label = label.substring(0, executionTimeStart);
+		}
+		int senderStart = label.lastIndexOf(SENDER_SEPARATOR);
+		int ownerEnd = label.indexOf('.');
+		if (label.startsWith(TIME_PROGRESS_PREFIX) && label.endsWith(TIME_PROGRESS_SUFFIX)) {
+			transition.setTimeProgress(label.substring(TIME_PROGRESS_PREFIX.length(),
+					label.length() - TIME_PROGRESS_SUFFIX.length()));
+		} else if (senderStart != -1 && ownerEnd != -1 && ownerEnd < senderStart) {
+			transition.setOwner(label.substring(0, ownerEnd));
+			transition.setTitle(label.substring(ownerEnd + 1, senderStart));
+			transition.setSender(label.substring(senderStart + SENDER_SEPARATOR.length()));
+		} else {
+			transition.setTitle(label);
+		}
+		return transition;
+	}
+}
@@ -0,0 +1,94 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes state space files which {@link StateSpaceReader} and the other state
+ * space tools can read back. States are written with their id and atomic
+ * propositions only; the first state written is the initial state.
+ */
+public class StateSpaceWriter implements Closeable {
+
+	public static final String ROOT_TAG = "transitionsystem";
+
+	private final OutputStream output;
+	private final XMLStreamWriter writer;
+
+	public StateSpaceWriter(File file) throws IOException {
+		this.output = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+		try {
+			this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeCharacters("\n");
+			writer.writeStartElement(ROOT_TAG);
+			writer.writeCharacters("\n");
+		} catch (XMLStreamException e) {
+			output.close();
+			throw new IOException(e);
+		}
+	}
+
+	public void writeState(String id, String atomicPropositions) throws IOException {
+		try {
+			writer.writeEmptyElement(StateSpaceReader.STATE_TAG);
+			writer.writeAttribute("id", id);
+			writer.writeAttribute("atomicpropositions", atomicPropositions == null ? "" : atomicPropositions);
+			writer.writeCharacters("\n");
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	public void writeTransition(StateSpaceTransition transition) throws IOException {
+		try {
+			writeTransition(writer, transition);
+			writer.writeCharacters("\n");
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	static void writeTransition(XMLStreamWriter writer, StateSpaceTransition transition) throws XMLStreamException {
+		writer.writeStartElement(StateSpaceReader.TRANSITION_TAG);
+		writer.writeAttribute("source", transition.getSource());
+		writer.writeAttribute("destination", transition.getDestination());
+		if (transition.getExecutionTime() != null)
+			writer.writeAttribute("executionTime", transition.getExecutionTime());
+		if (transition.getShift() != null)
+			writer.writeAttribute("shift", transition.getShift());
+		if (transition.getTimeProgress() != null) {
+			writer.writeEmptyElement(StateSpaceReader.TIME_TAG);
+			writer.writeAttribute("value", transition.getTimeProgress());
+		} else {
+			writer.writeEmptyElement(StateSpaceReader.MESSAGESERVER_TAG);
+			if (transition.getSender() != null)
+				writer.writeAttribute("sender", transition.getSender());
+			if (transition.getOwner() != null)
+				writer.writeAttribute("owner", transition.getOwner());
+			writer.writeAttribute("title", transition.getTitle() == null ? "" : transition.getTitle());
+		}
+		writer.writeEndElement();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			output.close();
+		}
+	}
+}
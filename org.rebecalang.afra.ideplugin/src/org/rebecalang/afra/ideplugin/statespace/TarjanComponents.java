@@ -0,0 +1,99 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Strongly connected components of a {@link CompactStateGraph}, or of the
+ * subgraph of the transitions a filter accepts, by Tarjan's algorithm with an
+ * explicit call stack holding each state's next transition, so deep state
+ * spaces do not overflow the thread stack. A state is on the Tarjan stack
+ * while it has an index but no component yet.
+ */
+final class TarjanComponents {
+
+	private static final int CANCEL_CHECK_INTERVAL = 1 << 16;
+
+	interface TransitionFilter {
+		boolean accept(int source, long transition);
+	}
+
+	interface ComponentVisitor {
+		/**
+		 * Called for each component with its members in members[from, to).
+		 * Components are visited in reverse topological order: every
+		 * component reachable from this one has been visited before.
+		 */
+		void visit(int component, int[] members, int from, int to);
+	}
+
+	private TarjanComponents() {
+	}
+
+	/**
+	 * Returns the component number of every state; components are numbered
+	 * in the order they are visited.
+	 */
+	static int[] compute(CompactStateGraph graph, TransitionFilter filter, ComponentVisitor visitor,
+			IProgressMonitor monitor) {
+		int numberOfStates = graph.getNumberOfStates();
+		int[] index = new int[numberOfStates];
+		int[] lowLink = new int[numberOfStates];
+		int[] component = new int[numberOfStates];
+		Arrays.fill(index, -1);
+		Arrays.fill(component, -1);
+		int[] tarjanStack = new int[numberOfStates];
+		int tarjanTop = 0;
+		int[] callStack = new int[numberOfStates];
+		long[] nextTransition = new long[numberOfStates];
+		int callTop = 0;
+		int counter = 0;
+		int numberOfComponents = 0;
+		long steps = 0;
+
+		for (int root = 0; root < numberOfStates; root++) {
+			if (index[root] != -1)
+				continue;
+			index[root] = lowLink[root] = counter++;
+			tarjanStack[tarjanTop++] = root;
+			callStack[callTop] = root;
+			nextTransition[callTop++] = graph.getFirstTransition(root);
+			while (callTop > 0) {
+				if (++steps % CANCEL_CHECK_INTERVAL == 0 && monitor.isCanceled())
+					throw new OperationCanceledException();
+				int state = callStack[callTop - 1];
+				long transition = nextTransition[callTop - 1];
+				if (transition < graph.getEndTransition(state)) {
+					nextTransition[callTop - 1]++;
+					if (filter != null && !filter.accept(state, transition))
+						continue;
+					int target = graph.getTarget(transition);
+					if (index[target] == -1) {
+						index[target] = lowLink[target] = counter++;
+						tarjanStack[tarjanTop++] = target;
+						callStack[callTop] = target;
+						nextTransition[callTop++] = graph.getFirstTransition(target);
+					} else if (component[target] == -1) {
+						lowLink[state] = Math.min(lowLink[state], index[target]);
+					}
+					continue;
+				}
+				callTop--;
+				if (callTop > 0) {
+					int caller = callStack[callTop - 1];
+					lowLink[caller] = Math.min(lowLink[caller], lowLink[state]);
+				}
+				if (lowLink[state] == index[state]) {
+					int top = tarjanTop;
+					do {
+						component[tarjanStack[--tarjanTop]] = numberOfComponents;
+					} while (tarjanStack[tarjanTop] != state);
+					visitor.visit(numberOfComponents++, tarjanStack, tarjanTop, top);
+				}
+			}
+		}
+		return component;
+	}
+}
@@ -0,0 +1,173 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * The fixpoints behind the CTL operators EX, EU and EG on a
+ * {@link CompactStateGraph}; the remaining operators are derived from them in
+ * {@link TemporalPredicate}. Each fixpoint is computed by frontier iterations
+ * in which the states of the current frontier are handled in parallel, so
+ * every transition is looked at a bounded number of times instead of once per
+ * iteration. Shared sets are kept as atomic bit words and updated by compare
+ * and set.
+ *
+ * Terminal states are treated as if they had a transition to themselves,
+ * which is the usual way to give deadlocks a meaning under CTL's infinite
+ * paths: EG p holds in a deadlock in which p holds, and AF p does not hold in
+ * a deadlock in which p does not.
+ */
+class TemporalOperators {
+
+	private static final int WORDS_PER_TASK = StateGraphTasks.SEQUENTIAL_THRESHOLD >>> 6;
+
+	private final CompactStateGraph graph;
+	private final IProgressMonitor monitor;
+	private final int numberOfStates;
+
+	TemporalOperators(CompactStateGraph graph, IProgressMonitor monitor) {
+		this.graph = graph;
+		this.monitor = monitor;
+		this.numberOfStates = graph.getNumberOfStates();
+	}
+
+	/**
+	 * States with a successor in the target set.
+	 */
+	BitSet existsNext(BitSet target) {
+		long[] targetWords = target.toLongArray();
+		long[] result = new long[(numberOfStates + 63) >>> 6];
+		StateGraphTasks.forEachRange(0, result.length, WORDS_PER_TASK, (from, to) -> {
+			for (int word = from; word < to; word++) {
+				long bits = 0;
+				int end = Math.min((word + 1) << 6, numberOfStates);
+				for (int state = word << 6; state < end; state++)
+					if (hasSuccessorIn(state, targetWords))
+						bits |= 1L << state;
+				result[word] = bits;
+			}
+		});
+		return BitSet.valueOf(result);
+	}
+
+	private boolean hasSuccessorIn(int state, long[] words) {
+		long first = graph.getFirstTransition(state), end = graph.getEndTransition(state);
+		if (first == end)
+			return get(words, state);
+		for (long transition = first; transition < end; transition++)
+			if (get(words, graph.getTarget(transition)))
+				return true;
+		return false;
+	}
+
+	/**
+	 * E[hold U target]: the least fixpoint Z = target | (hold &amp; EX Z),
+	 * found by a backward breadth first search from the target states through
+	 * the hold states.
+	 */
+	BitSet existsUntil(BitSet hold, BitSet target) {
+		long[] holdWords = hold.toLongArray();
+		AtomicLongArray result = new AtomicLongArray(copyOf(target.toLongArray(), numberOfStates));
+		int[] frontier = target.stream().toArray();
+		while (frontier.length != 0) {
+			checkCanceled();
+			frontier = StateGraphTasks.expandFrontier(frontier, (state, next) -> {
+				for (long incoming = graph.getFirstIncomingTransition(state);
+						incoming < graph.getEndIncomingTransition(state); incoming++) {
+					int source = graph.getSource(incoming);
+					if (get(holdWords, source) && set(result, source))
+						next.add(source);
+				}
+			});
+		}
+		return toBitSet(result);
+	}
+
+	/**
+	 * EG hold: the greatest fixpoint Z = hold &amp; EX Z. Every hold state
+	 * counts its successors in Z; states whose count drops to zero leave Z
+	 * and decrement the counts of their predecessors in turn.
+	 */
+	BitSet existsGlobally(BitSet hold) {
+		long[] holdWords = hold.toLongArray();
+		AtomicIntegerArray counts = new AtomicIntegerArray(numberOfStates);
+		int[] frontier = StateGraphTasks.expandAll(numberOfStates, (state, removed) -> {
+			if (!get(holdWords, state))
+				return;
+			long first = graph.getFirstTransition(state), end = graph.getEndTransition(state);
+			int count = first == end ? 1 : 0;
+			for (long transition = first; transition < end; transition++)
+				if (get(holdWords, graph.getTarget(transition)))
+					count++;
+			counts.set(state, count);
+			if (count == 0)
+				removed.add(state);
+		});
+		while (frontier.length != 0) {
+			checkCanceled();
+			frontier = StateGraphTasks.expandFrontier(frontier, (state, removed) -> {
+				for (long incoming = graph.getFirstIncomingTransition(state);
+						incoming < graph.getEndIncomingTransition(state); incoming++) {
+					int source = graph.getSource(incoming);
+					if (get(holdWords, source) && counts.decrementAndGet(source) == 0)
+						removed.add(source);
+				}
+			});
+		}
+		long[] result = new long[(numberOfStates + 63) >>> 6];
+		StateGraphTasks.forEachRange(0, result.length, WORDS_PER_TASK, (from, to) -> {
+			for (int word = from; word < to; word++) {
+				long bits = 0;
+				int end = Math.min((word + 1) << 6, numberOfStates);
+				for (int state = word << 6; state < end; state++)
+					if (counts.get(state) > 0)
+						bits |= 1L << state;
+				result[word] = bits;
+			}
+		});
+		return BitSet.valueOf(result);
+	}
+
+	private void checkCanceled() {
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+	}
+
+	private static boolean get(long[] words, int index) {
+		int word = index >>> 6;
+		return word < words.length && (words[word] & (1L << index)) != 0;
+	}
+
+	/*
+	 * Sets the bit and returns whether it was clear before, so that exactly
+	 * one of several racing threads claims a state.
+	 */
+	private static boolean set(AtomicLongArray words, int index) {
+		int word = index >>> 6;
+		long mask = 1L << index;
+		long old;
+		do {
+			old = words.get(word);
+			if ((old & mask) != 0)
+				return false;
+		} while (!words.compareAndSet(word, old, old | mask));
+		return true;
+	}
+
+	private static long[] copyOf(long[] words, int numberOfStates) {
+		long[] result = new long[(numberOfStates + 63) >>> 6];
+		System.arraycopy(words, 0, result, 0, Math.min(words.length, result.length));
+		return result;
+	}
+
+	private static BitSet toBitSet(AtomicLongArray words) {
+		long[] result = new long[words.length()];
+		for (int cnt = 0; cnt < result.length; cnt++)
+			result[cnt] = words.get(cnt);
+		return BitSet.valueOf(result);
+	}
+}
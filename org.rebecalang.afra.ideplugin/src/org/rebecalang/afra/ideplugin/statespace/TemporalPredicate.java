@@ -0,0 +1,190 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.util.BitSet;
+
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StatePredicate;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StateValueIndex;
+
+/**
+ * CTL operators over state predicates, as parsed by
+ * {@link TemporalPredicateParser}. They need the transitions of the states
+ * and so can only be evaluated against a {@link StateGraphIndex}. The
+ * universal operators are computed through their existential duals.
+ */
+public abstract class TemporalPredicate extends StatePredicate {
+
+	protected final StatePredicate operand;
+
+	protected TemporalPredicate(StatePredicate operand) {
+		this.operand = operand;
+	}
+
+	@Override
+	public BitSet evaluate(StateValueIndex index) {
+		if (!(index instanceof StateGraphIndex))
+			throw new UnsupportedOperationException("Temporal operators need the transitions of a state graph.");
+		StateGraphIndex graphIndex = (StateGraphIndex) index;
+		return evaluate(graphIndex, new TemporalOperators(graphIndex.getGraph(), graphIndex.getMonitor()));
+	}
+
+	protected abstract BitSet evaluate(StateGraphIndex index, TemporalOperators operators);
+
+	private static BitSet complement(BitSet states, StateValueIndex index) {
+		BitSet result = (BitSet) states.clone();
+		result.flip(0, index.getNumberOfStates());
+		return result;
+	}
+
+	private static BitSet all(StateValueIndex index) {
+		BitSet result = new BitSet(index.getNumberOfStates());
+		result.set(0, index.getNumberOfStates());
+		return result;
+	}
+
+	public static class ExistsNext extends TemporalPredicate {
+		public ExistsNext(StatePredicate operand) {
+			super(operand);
+		}
+
+		@Override
+		protected BitSet evaluate(StateGraphIndex index, TemporalOperators operators) {
+			return operators.existsNext(operand.evaluate(index));
+		}
+
+		public String toString() {
+			return "EX " + operand;
+		}
+	}
+
+	public static class ExistsFinally extends TemporalPredicate {
+		public ExistsFinally(StatePredicate operand) {
+			super(operand);
+		}
+
+		@Override
+		protected BitSet evaluate(StateGraphIndex index, TemporalOperators operators) {
+			return operators.existsUntil(all(index), operand.evaluate(index));
+		}
+
+		public String toString() {
+			return "EF " + operand;
+		}
+	}
+
+	public static class ExistsGlobally extends TemporalPredicate {
+		public ExistsGlobally(StatePredicate operand) {
+			super(operand);
+		}
+
+		@Override
+		protected BitSet evaluate(StateGraphIndex index, TemporalOperators operators) {
+			return operators.existsGlobally(operand.evaluate(index));
+		}
+
+		public String toString() {
+			return "EG " + operand;
+		}
+	}
+
+	/**
+	 * E[operand U target]
+	 */
+	public static class ExistsUntil extends TemporalPredicate {
+		private final StatePredicate target;
+
+		public ExistsUntil(StatePredicate operand, StatePredicate target) {
+			super(operand);
+			this.target = target;
+		}
+
+		@Override
+		protected BitSet evaluate(StateGraphIndex index, TemporalOperators operators) {
+			return operators.existsUntil(operand.evaluate(index), target.evaluate(index));
+		}
+
+		public String toString() {
+			return "E[" + operand + " U " + target + "]";
+		}
+	}
+
+	/**
+	 * AX p = !EX !p
+	 */
+	public static class AllNext extends TemporalPredicate {
+		public AllNext(StatePredicate operand) {
+			super(operand);
+		}
+
+		@Override
+		protected BitSet evaluate(StateGraphIndex index, TemporalOperators operators) {
+			return complement(operators.existsNext(complement(operand.evaluate(index), index)), index);
+		}
+
+		public String toString() {
+			return "AX " + operand;
+		}
+	}
+
+	/**
+	 * AF p = !EG !p
+	 */
+	public static class AllFinally extends TemporalPredicate {
+		public AllFinally(StatePredicate operand) {
+			super(operand);
+		}
+
+		@Override
+		protected BitSet evaluate(StateGraphIndex index, TemporalOperators operators) {
+			return complement(operators.existsGlobally(complement(operand.evaluate(index), index)), index);
+		}
+
+		public String toString() {
+			return "AF " + operand;
+		}
+	}
+
+	/**
+	 * AG p = !EF !p
+	 */
+	public static class AllGlobally extends TemporalPredicate {
+		public AllGlobally(StatePredicate operand) {
+			super(operand);
+		}
+
+		@Override
+		protected BitSet evaluate(StateGraphIndex index, TemporalOperators operators) {
+			return complement(operators.existsUntil(all(index), complement(operand.evaluate(index), index)), index);
+		}
+
+		public String toString() {
+			return "AG " + operand;
+		}
+	}
+
+	/**
+	 * A[p U q] = !(E[!q U (!p &amp; !q)] | EG !q)
+	 */
+	public static class AllUntil extends TemporalPredicate {
+		private final StatePredicate target;
+
+		public AllUntil(StatePredicate operand, StatePredicate target) {
+			super(operand);
+			this.target = target;
+		}
+
+		@Override
+		protected BitSet evaluate(StateGraphIndex index, TemporalOperators operators) {
+			BitSet notOperand = complement(operand.evaluate(index), index);
+			BitSet notTarget = complement(target.evaluate(index), index);
+			BitSet neither = (BitSet) notOperand.clone();
+			neither.and(notTarget);
+			BitSet result = operators.existsUntil(notTarget, neither);
+			result.or(operators.existsGlobally(notTarget));
+			return complement(result, index);
+		}
+
+		public String toString() {
+			return "A[" + operand + " U " + target + "]";
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package org.rebecalang.afra.ideplugin.statespace;
+
+import java.text.ParseException;
+
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StatePredicate;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StatePredicateParser;
+
+/**
+ * Extends state predicates with the CTL operators
+ * <pre>
+ * EX p, EF p, EG p, E[p U q], AX p, AF p, AG p, A[p U q]
+ * </pre>
+ * which bind like "!", for example
+ * <pre>
+ * AG !(philosopher1.eating &amp;&amp; philosopher2.eating)
+ * AG (!philosopher1.hungry || AF philosopher1.eating)
+ * E[!fork1.taken U waiter.queue contains request]
+ * </pre>
+ * An operator name followed by "." is read as a rebec name instead.
+ */
+public class TemporalPredicateParser extends StatePredicateParser {
+
+	public static final String UNTIL = "U";
+
+	@Override
+	protected StatePredicate parseUnary() throws ParseException {
+		if (tokenIsWord && !nextCharacterIs('.')) {
+			String operator = token;
+			switch (operator) {
+			case "EX":
+			case "EF":
+			case "EG":
+			case "AX":
+			case "AF":
+			case "AG":
+				next();
+				return createUnary(operator, parseUnary());
+			case "E":
+			case "A":
+				if (!nextCharacterIs('['))
+					break;
+				next();
+				expect("[");
+				StatePredicate operand = parseOr();
+				if (!UNTIL.equals(token))
+					throw new ParseException("Expected \"" + UNTIL + "\"", tokenStart);
+				next();
+				StatePredicate target = parseOr();
+				expect("]");
+				return operator.equals("E") ? new TemporalPredicate.ExistsUntil(operand, target) :
+					new TemporalPredicate.AllUntil(operand, target);
+			}
+		}
+		return super.parseUnary();
+	}
+
+	private static StatePredicate createUnary(String operator, StatePredicate operand) {
+		switch (operator) {
+		case "EX":
+			return new TemporalPredicate.ExistsNext(operand);
+		case "EF":
+			return new TemporalPredicate.ExistsFinally(operand);
+		case "EG":
+			return new TemporalPredicate.ExistsGlobally(operand);
+		case "AX":
+			return new TemporalPredicate.AllNext(operand);
+		case "AF":
+			return new TemporalPredicate.AllFinally(operand);
+		default:
+			return new TemporalPredicate.AllGlobally(operand);
+		}
+	}
+
+	private boolean nextCharacterIs(char expected) {
+		int cnt = position;
+		while (cnt < text.length() && Character.isWhitespace(text.charAt(cnt)))
+			cnt++;
+		return cnt < text.length() && text.charAt(cnt) == expected;
+	}
+}
@@ -3,24 +3,38 @@ package org.rebecalang.afra.ideplugin.view;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.io.StringReader;
+import java.text.ParseException;
+import java.util.BitSet;
 import java.util.Hashtable;
+import java.util.List;
 
 import javax.annotation.PostConstruct;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.part.ViewPart;
 import org.eclipse.zest.core.widgets.Graph;
 import org.eclipse.zest.core.widgets.GraphConnection;
+import org.eclipse.zest.core.widgets.GraphItem;
 import org.eclipse.zest.core.widgets.GraphNode;
 import org.eclipse.zest.core.widgets.ZestStyles;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.CounterExampleTrace;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.XMLBindingService;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StatePredicate;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StatePredicateParser;
 import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.State;
 import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.transition.Messageserver;
 import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.transition.Time;
@@ -100,19 +114,23 @@ public class CounterExampleGraphView extends ViewPart {
 		return cess;
 	}
 
-	private Transition extractOneTransitionInfo(String line) throws JAXBException {
-		JAXBContext jaxbContext;
-		jaxbContext = JAXBContext.newInstance(Transition.class.getPackage().getName());
-		Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-		return (Transition) unmarshaller.unmarshal(new StringReader(line));
-	}
-
-	public void update(String analysisResultFileName) throws IOException, JAXBException {
-		for (Control control : parent.getChildren()) {
+	public void update(CounterExampleTrace trace) {
+		for (Control control : graphContainer.getChildren()) {
 			control.dispose();
 		}
-
-		Graph graph = new Graph(parent, SWT.NONE);
+		this.trace = trace;
+		this.hits = null;
+		this.lastQuery = null;
+		if (queryStatus != null)
+			queryStatus.setText("");
+
+		VariableTimelineView timelineView =
+				(VariableTimelineView) ViewUtils.findViewPart(VariableTimelineView.class.getName());
+		if (timelineView != null)
+			timelineView.update(trace);
+
+		Graph graph = new Graph(graphContainer, SWT.NONE);
+		this.graph = graph;
 		graph.addSelectionListener(new SelectionListener() {
 			
 			@Override
@@ -124,30 +142,9 @@ public class CounterExampleGraphView extends ViewPart {
 				if (!(object instanceof GraphNode))
 					return;
 				GraphNode node = (GraphNode) object;
-				CounterExampleStateSpecification cess = (CounterExampleStateSpecification) node.getData();
-				try {
-					RandomAccessFile file = new RandomAccessFile(cess.getFileName(), "r");
-					file.seek(cess.getFileDescriptor());
-					StringBuffer stateContent = new StringBuffer();
-					for (int cnt = 0; cnt < cess.getLineNumber(); cnt++) {
-						stateContent.append(file.readLine());
-					}
-					file.close();
-
-					JAXBContext jaxbContext;
-					jaxbContext = JAXBContext.newInstance(State.class.getPackage().getName());
-					Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-					State state = (State) 
-							unmarshaller.unmarshal(new StringReader(stateContent.toString()));
-
-					StateInCounterExampleView view = 
-							(StateInCounterExampleView) ViewUtils.getViewPart(StateInCounterExampleView.class.getName());
-					view.update(state);
-				} catch (IOException e1) {
-					e1.printStackTrace();
-				} catch (JAXBException e1) {
-					e1.printStackTrace();
-				}
+				StateInCounterExampleView view = 
+						(StateInCounterExampleView) ViewUtils.getViewPart(StateInCounterExampleView.class.getName());
+				view.update((State) node.getData());
 			}
 			
 			@Override
@@ -155,37 +152,37 @@ public class CounterExampleGraphView extends ViewPart {
 				widgetSelected(e);
 			}
 		});
+		if (trace.isEmpty()) {
+			graphContainer.layout(true);
+			return;
+		}
 		Hashtable<String, GraphNode> states = new Hashtable<>();
-		RandomAccessFile analysisResultFile = new RandomAccessFile(analysisResultFileName, "r");
-		
-		while(!analysisResultFile.readLine().trim().equals(COUNTER_EXAMPLE_START_TAG));
-		
-		String line;
+		List<State> traceStates = trace.getStates();
+		List<Transition> traceTransitions = trace.getTransitions();
+		nodeOfPosition = new GraphNode[traceStates.size()];
 		
 		int nodeY = NODE_START_Y;
 		int numberOfCycles = 0;
 
-		CounterExampleStateSpecification cess = extractOneStateInfo(analysisResultFile, analysisResultFileName);
-		GraphNode newNode = new GraphNode(graph, SWT.NONE, cess);
+		State state = traceStates.get(0);
+		GraphNode newNode = new GraphNode(graph, SWT.NONE, state);
 		newNode.setLocation(NODE_START_X, nodeY);
-		newNode.setText(cess.getId());
-		states.put(cess.getId(), newNode);		
+		newNode.setText(state.getId());
+		states.put(state.getId(), newNode);		
+		nodeOfPosition[0] = newNode;
 		nodeY += STEP_Y;
-		while(true) {
-			line = analysisResultFile.readLine();
-			if (line == null)
-				break;
-			Transition transition = extractOneTransitionInfo(line);
+		for (int cnt = 0; cnt < traceTransitions.size(); cnt++) {
+			Transition transition = traceTransitions.get(cnt);
 			String source = transition.getSource();
 			String destination = transition.getDestination();
 
-			if(analysisResultFile.getFilePointer() != analysisResultFile.length()) {
-				cess = extractOneStateInfo(analysisResultFile, analysisResultFileName);
+			if (cnt + 1 < traceStates.size()) {
+				state = traceStates.get(cnt + 1);
 				if(!states.containsKey(destination)) {
-					newNode = new GraphNode(graph, SWT.NONE, cess);
+					newNode = new GraphNode(graph, SWT.NONE, state);
 					newNode.setLocation(NODE_START_X, nodeY);
-					newNode.setText(cess.getId());
-					states.put(cess.getId(), newNode);			
+					newNode.setText(state.getId());
+					states.put(state.getId(), newNode);			
 					nodeY += STEP_Y;
 				} else {
 					if(!source.equals(destination)) {
@@ -196,6 +193,7 @@ public class CounterExampleGraphView extends ViewPart {
 								sourceNode.getLocation().y());
 					}
 				}
+				nodeOfPosition[cnt + 1] = states.get(state.getId());
 			}
 			
 			GraphConnection gc = new GraphConnection(graph, ZestStyles.CONNECTIONS_DIRECTED, 
@@ -215,32 +213,20 @@ public class CounterExampleGraphView extends ViewPart {
 				messageText += " @(" + transition.getExecutionTime() + ")";
 			gc.setText(messageText);
 			gc.setLineColor(parent.getDisplay().getSystemColor(SWT.COLOR_BLACK));
-			
-			
-//			if (repeatedState) {
-//				Point location = states.get(source).getLocation();
-//				states.get(source).setLocation(location.x() + 100, location.y());
-//				location = states.get(destination).getLocation();
-//				states.get(destination).setLocation(location.x() + 100, location.y());
-//				break;
-//			} else {
-				long backup = analysisResultFile.getFilePointer();
-				if(!(line = analysisResultFile.readLine()).trim().equals(COUNTER_EXAMPLE_END_TAG))
-					analysisResultFile.seek(backup);
-				else
-					break;
-//			}
 		}
-		analysisResultFile.close();
-		parent.layout(true);
+		graphContainer.layout(true);
 	}
 	
+	public CounterExampleTrace getTrace() {
+		return trace;
+	}
+
 	public void updateold(String analysisResultFileName) throws IOException, JAXBException {
-		for (Control control : parent.getChildren()) {
+		for (Control control : graphContainer.getChildren()) {
 			control.dispose();
 		}
 
-		Graph graph = new Graph(parent, SWT.NONE);
+		Graph graph = new Graph(graphContainer, SWT.NONE);
 //		graph.setLayoutAlgorithm(new SpringLayoutAlgorithm(
 //                LayoutStyles.NO_LAYOUT_NODE_RESIZING), true);
 		graph.addSelectionListener(new SelectionListener() {
@@ -264,9 +250,8 @@ public class CounterExampleGraphView extends ViewPart {
 					}
 					file.close();
 
-					JAXBContext jaxbContext;
-					jaxbContext = JAXBContext.newInstance(State.class.getPackage().getName());
-					Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+					Unmarshaller unmarshaller = 
+							XMLBindingService.getInstance().getUnmarshaller(XMLBindingService.STATE_CONTEXT);
 					State state = (State) 
 							unmarshaller.unmarshal(new StringReader(stateContent.toString()));
 
@@ -303,9 +288,8 @@ public class CounterExampleGraphView extends ViewPart {
 			line = analysisResultFile.readLine();
 			if (line == null)
 				break;
-			JAXBContext jaxbContext;
-			jaxbContext = JAXBContext.newInstance(Transition.class.getPackage().getName());
-			Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+			Unmarshaller unmarshaller = 
+					XMLBindingService.getInstance().getUnmarshaller(XMLBindingService.TRANSITION_CONTEXT);
 			Transition transition = (Transition) 
 					unmarshaller.unmarshal(new StringReader(line));
 			String source = transition.getSource();
@@ -356,24 +340,146 @@ public class CounterExampleGraphView extends ViewPart {
 			}
 		}
 		analysisResultFile.close();
-		parent.layout(true);
+		graphContainer.layout(true);
 	}
 
 	public void update() {
-		for (Control control : parent.getChildren()) {
+		for (Control control : graphContainer.getChildren()) {
 			control.dispose();
 		}
 	}
 
 	private Composite parent;
+	private Composite graphContainer;
+	private Graph graph;
+	private CounterExampleTrace trace;
+	private GraphNode[] nodeOfPosition;
+
+	private Text queryText;
+	private Label queryStatus;
+	private String lastQuery;
+	private int[] hits;
+	private int currentHit;
 
 	@PostConstruct
 	public void createPartControl(Composite parent) {
 		this.parent = parent;
+		GridLayout layout = new GridLayout(1, false);
+		layout.marginWidth = layout.marginHeight = 0;
+		layout.verticalSpacing = 0;
+		parent.setLayout(layout);
+		createQueryBar(parent);
+		graphContainer = new Composite(parent, SWT.NONE);
+		graphContainer.setLayout(new FillLayout());
+		graphContainer.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
 		update();
 		// Graph will hold all other objects
 	}
 
+	private void createQueryBar(Composite parent) {
+		Composite queryBar = new Composite(parent, SWT.NONE);
+		queryBar.setLayout(new GridLayout(5, false));
+		queryBar.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+
+		new Label(queryBar, SWT.NONE).setText("Find state:");
+		queryText = new Text(queryBar, SWT.SINGLE | SWT.BORDER | SWT.SEARCH);
+		queryText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		queryText.setMessage("e.g. philosopher2.eating == true && philosopher2.queue.length > 3");
+		queryText.setToolTipText("Conditions over rebec.variable, rebec.now, rebec.pc, rebec.res, " +
+				"rebec.queue.length and \"rebec.queue contains message\", combined with !, && and ||");
+		queryText.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetDefaultSelected(SelectionEvent e) {
+				runQuery(1);
+			}
+		});
+
+		Button previousButton = new Button(queryBar, SWT.PUSH);
+		previousButton.setText("Previous");
+		previousButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				runQuery(-1);
+			}
+		});
+		Button nextButton = new Button(queryBar, SWT.PUSH);
+		nextButton.setText("Next");
+		nextButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				runQuery(1);
+			}
+		});
+
+		queryStatus = new Label(queryBar, SWT.NONE);
+		GridData statusData = new GridData(SWT.FILL, SWT.CENTER, false, false);
+		statusData.widthHint = 180;
+		queryStatus.setLayoutData(statusData);
+	}
+
+	/*
+	 * Evaluates the query when it has changed and otherwise moves to the
+	 * next or previous matching state.
+	 */
+	private void runQuery(int direction) {
+		String query = queryText.getText().trim();
+		if (trace == null || trace.isEmpty()) {
+			queryStatus.setText("No counter example");
+			return;
+		}
+		if (query.isEmpty()) {
+			hits = null;
+			lastQuery = null;
+			queryStatus.setText("");
+			return;
+		}
+		if (query.equals(lastQuery) && hits != null) {
+			if (hits.length != 0)
+				showHit(currentHit + direction);
+			return;
+		}
+		StatePredicate predicate;
+		try {
+			predicate = new StatePredicateParser().parse(query);
+		} catch (ParseException e) {
+			hits = null;
+			lastQuery = null;
+			queryStatus.setText(e.getMessage());
+			queryText.setSelection(e.getErrorOffset(), query.length());
+			return;
+		}
+		BitSet matches = predicate.evaluate(trace.getIndex());
+		hits = new int[matches.cardinality()];
+		int hit = 0;
+		for (int position = matches.nextSetBit(0); position >= 0; position = matches.nextSetBit(position + 1))
+			hits[hit++] = position;
+		lastQuery = query;
+		if (hits.length == 0) {
+			queryStatus.setText("No matching state");
+			return;
+		}
+		showHit(direction > 0 ? 0 : hits.length - 1);
+	}
+
+	private void showHit(int hit) {
+		currentHit = (hit + hits.length) % hits.length;
+		int position = hits[currentHit];
+		GraphNode node = nodeOfPosition[position];
+		if (node != null) {
+			graph.setSelection(new GraphItem[] { node });
+			graph.scrollTo(Math.max(0, node.getLocation().x - NODE_START_X),
+					Math.max(0, node.getLocation().y - NODE_START_Y));
+		}
+		State state = trace.getStates().get(position);
+		queryStatus.setText((currentHit + 1) + " of " + hits.length + " (state " + state.getId() + ")");
+
+		StateInCounterExampleView view = 
+				(StateInCounterExampleView) ViewUtils.findViewPart(StateInCounterExampleView.class.getName());
+		if (view == null)
+			view = (StateInCounterExampleView) ViewUtils.getViewPart(StateInCounterExampleView.class.getName());
+		view.update(state);
+	}
+
 
 	/**
 	 * Passing the focus request to the viewer's control.
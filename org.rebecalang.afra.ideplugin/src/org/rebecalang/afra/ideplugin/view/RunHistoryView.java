@@ -0,0 +1,204 @@
+package org.rebecalang.afra.ideplugin.view;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ITableColorProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.part.ViewPart;
+import org.rebecalang.afra.ideplugin.history.RunHistory;
+import org.rebecalang.afra.ideplugin.history.RunRecord;
+
+/**
+ * Lists the recorded model checking runs of a project, newest first. A run
+ * is compared with the previous run of the same model, property and options,
+ * and is shown in red when its time or number of reached states grew by more
+ * than the threshold.
+ */
+public class RunHistoryView extends ViewPart {
+
+	public final static String ID = RunHistoryView.class.getName();
+
+	private final static String[] COLUMNS = { "Time", "Model", "Property", "Result", "Spent Time",
+			"Reached States", "Reached Transitions", "Consumed Memory", "Change", "Model Hash" };
+	private final static int[] COLUMN_WIDTHS = { 140, 150, 100, 100, 80, 100, 110, 110, 160, 130 };
+
+	private IProject project;
+	private List<Row> rows = new ArrayList<Row>();
+
+	private Label projectLabel;
+	private Spinner thresholdSpinner;
+	private TableViewer viewer;
+
+	private static class Row {
+		final RunRecord record;
+		final RunRecord baseline;
+		boolean regression;
+
+		Row(RunRecord record, RunRecord baseline) {
+			this.record = record;
+			this.baseline = baseline;
+		}
+	}
+
+	class RunLabelProvider extends LabelProvider implements ITableLabelProvider, ITableColorProvider {
+
+		private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+		@Override
+		public Image getColumnImage(Object element, int columnIndex) {
+			return null;
+		}
+
+		@Override
+		public String getColumnText(Object element, int columnIndex) {
+			Row row = (Row) element;
+			RunRecord record = row.record;
+			switch (columnIndex) {
+			case 0:
+				return dateFormat.format(new Date(record.getTimestamp()));
+			case 1:
+				return record.getModel();
+			case 2:
+				return record.getProperty() == null ? "" : record.getProperty();
+			case 3:
+				return record.getResult() == null ? "" : record.getResult();
+			case 4:
+				return String.valueOf(record.getTotalSpentTime());
+			case 5:
+				return String.valueOf(record.getReachedStates());
+			case 6:
+				return String.valueOf(record.getReachedTransitions());
+			case 7:
+				return String.valueOf(record.getConsumedMemory());
+			case 8:
+				return row.baseline == null ? "" : "time " + change(record.getTotalSpentTime(),
+						row.baseline.getTotalSpentTime()) + ", states " + change(record.getReachedStates(),
+						row.baseline.getReachedStates());
+			default:
+				return record.getModelHash() == null ? "" : record.getModelHash();
+			}
+		}
+
+		@Override
+		public Color getForeground(Object element, int columnIndex) {
+			return ((Row) element).regression ? viewer.getControl().getDisplay().getSystemColor(SWT.COLOR_RED) : null;
+		}
+
+		@Override
+		public Color getBackground(Object element, int columnIndex) {
+			return null;
+		}
+	}
+
+	private static String change(double value, double baselineValue) {
+		if (baselineValue == 0)
+			return value == 0 ? "0%" : "new";
+		return String.format("%+.0f%%", 100 * (value - baselineValue) / baselineValue);
+	}
+
+	@PostConstruct
+	public void createPartControl(Composite parent) {
+		GridLayout layout = new GridLayout(1, false);
+		layout.marginWidth = layout.marginHeight = 0;
+		parent.setLayout(layout);
+
+		Composite bar = new Composite(parent, SWT.NONE);
+		bar.setLayout(new GridLayout(3, false));
+		bar.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
+		projectLabel = new Label(bar, SWT.NONE);
+		projectLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		new Label(bar, SWT.NONE).setText("Regression threshold (%):");
+		thresholdSpinner = new Spinner(bar, SWT.BORDER);
+		thresholdSpinner.setMinimum(0);
+		thresholdSpinner.setMaximum(10000);
+		thresholdSpinner.setSelection((int) (RunHistory.DEFAULT_REGRESSION_THRESHOLD * 100));
+		thresholdSpinner.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				markRegressions();
+				viewer.refresh();
+			}
+		});
+
+		viewer = new TableViewer(parent, SWT.FULL_SELECTION | SWT.MULTI);
+		viewer.getTable().setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		viewer.getTable().setHeaderVisible(true);
+		viewer.getTable().setLinesVisible(true);
+		for (int cnt = 0; cnt < COLUMNS.length; cnt++) {
+			TableColumn column = new TableColumn(viewer.getTable(), SWT.LEFT);
+			column.setText(COLUMNS[cnt]);
+			column.setWidth(COLUMN_WIDTHS[cnt]);
+		}
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		viewer.setLabelProvider(new RunLabelProvider());
+		viewer.setInput(rows);
+
+		IEditorPart editor = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage().getActiveEditor();
+		IFile file = editor == null ? null : editor.getEditorInput().getAdapter(IFile.class);
+		if (file != null)
+			update(file.getProject());
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+	}
+
+	/**
+	 * Reloads the history of the given project.
+	 */
+	public void update(IProject project) {
+		this.project = project;
+		List<RunRecord> records;
+		try {
+			records = RunHistory.getHistory(project).load();
+		} catch (IOException e) {
+			e.printStackTrace();
+			records = new ArrayList<RunRecord>();
+		}
+		RunRecord[] baselines = RunHistory.findBaselines(records);
+		rows = new ArrayList<Row>(records.size());
+		for (int cnt = 0; cnt < records.size(); cnt++)
+			rows.add(new Row(records.get(cnt), baselines[cnt]));
+		Collections.reverse(rows);
+		markRegressions();
+		viewer.setInput(rows);
+	}
+
+	private void markRegressions() {
+		double threshold = thresholdSpinner.getSelection() / 100.0;
+		int regressions = 0;
+		for (Row row : rows) {
+			row.regression = RunHistory.isRegression(row.record, row.baseline, threshold);
+			if (row.regression)
+				regressions++;
+		}
+		if (project != null)
+			projectLabel.setText(project.getName() + ": " + rows.size() + " runs, " + regressions + " regressions");
+	}
+}
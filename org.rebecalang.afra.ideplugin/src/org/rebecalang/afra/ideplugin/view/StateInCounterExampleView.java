@@ -1,6 +1,9 @@
 package org.rebecalang.afra.ideplugin.view;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 
 import javax.annotation.PostConstruct;
 
@@ -8,31 +11,155 @@ import javax.annotation.PostConstruct;
 
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ILabelProviderListener;
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.ITableColorProvider;
 import org.eclipse.jface.viewers.ITableLabelProvider;
-import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
-import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.TreeColumn;
 import org.eclipse.ui.part.ViewPart;
 import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Message;
-import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Queue;
 import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Rebec;
 import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.State;
-import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Statevariables;
 import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Variable;
 
 public class StateInCounterExampleView extends ViewPart {
 
+	private final static int REBEC = 0;
+	private final static int STATE_VARIABLES = 1;
+	private final static int QUEUE_CONTENT = 2;
+	private final static int VARIABLE = 3;
+	private final static int MESSAGE = 4;
+	private final static int NOW = 5;
+	private final static int PROGRAM_COUNTER = 6;
+	private final static int RESUMING_TIME = 7;
+
+	private final static Object ROOT = new Object();
+
 	private TreeViewer stateContentTree;
 	private Composite parent;
 	private State state;
+	private State previousState;
+
+	/*
+	 * Rows which are already materialized in the virtual tree, keyed by their
+	 * path. Only these rows are revisited when the shown state changes.
+	 */
+	private final HashMap<String, StateRow> materializedRows = new HashMap<String, StateRow>();
+
+	/**
+	 * One row of the tree. A row only keeps its position in the state; its texts
+	 * are recomputed from the current state whenever the state changes.
+	 */
+	class StateRow {
+		private final StateRow parentRow;
+		private final int kind;
+		private final int rebecIndex;
+		private final int index;
+		private final String key;
+		private String attribute = "";
+		private String value = "";
+		private int childCount;
+		private boolean changed;
+
+		public StateRow(StateRow parentRow, int kind, int rebecIndex, int index) {
+			this.parentRow = parentRow;
+			this.kind = kind;
+			this.rebecIndex = rebecIndex;
+			this.index = index;
+			this.key = (parentRow == null ? "" : parentRow.key) + "/" + index;
+		}
+
+		/**
+		 * Reloads the texts of this row from the current state.
+		 *
+		 * @return false if the row does not exist in the current state anymore
+		 */
+		public boolean reload() {
+			Rebec rebec = getRebec(state, rebecIndex);
+			if (rebec == null)
+				return false;
+			Rebec previousRebec = getRebec(previousState, rebecIndex);
+			childCount = 0;
+			value = "";
+			switch (kind) {
+			case REBEC:
+				attribute = rebec.getName();
+				childCount = childKinds(rebec).length;
+				changed = previousRebec != null && (!sameVariables(rebec, previousRebec)
+						|| !sameQueue(rebec, previousRebec)
+						|| !timingOf(rebec).equals(timingOf(previousRebec)));
+				break;
+			case STATE_VARIABLES:
+				attribute = "State Variables";
+				childCount = variablesOf(rebec).size();
+				changed = previousRebec != null && !sameVariables(rebec, previousRebec);
+				break;
+			case QUEUE_CONTENT:
+				attribute = "Queue Content";
+				childCount = messagesOf(rebec).size();
+				changed = previousRebec != null && !sameQueue(rebec, previousRebec);
+				break;
+			case VARIABLE:
+				List<Variable> variables = variablesOf(rebec);
+				if (index >= variables.size())
+					return false;
+				Variable variable = variables.get(index);
+				attribute = variable.getName();
+				value = variable.getValue() == null ? "" : variable.getValue();
+				if (previousRebec != null) {
+					List<Variable> previousVariables = variablesOf(previousRebec);
+					changed = index >= previousVariables.size()
+							|| !sameVariable(variable, previousVariables.get(index));
+				} else
+					changed = false;
+				break;
+			case MESSAGE:
+				List<Message> messages = messagesOf(rebec);
+				if (index >= messages.size())
+					return false;
+				Message message = messages.get(index);
+				attribute = messageText(message);
+				value = "from " + message.getSender();
+				if (previousRebec != null) {
+					List<Message> previousMessages = messagesOf(previousRebec);
+					changed = index >= previousMessages.size()
+							|| !sameMessage(message, previousMessages.get(index));
+				} else
+					changed = false;
+				break;
+			case NOW:
+				if (rebec.getNow() == null)
+					return false;
+				attribute = "Now";
+				value = (rebec.getNow().intValue() == Integer.MAX_VALUE) ? "infinity" : rebec.getNow().toString();
+				changed = previousRebec != null && !String.valueOf(rebec.getNow()).equals(String.valueOf(previousRebec.getNow()));
+				break;
+			case PROGRAM_COUNTER:
+				if (rebec.getPc() == null)
+					return false;
+				attribute = "Program Counter";
+				value = rebec.getPc().toString();
+				changed = previousRebec != null && !String.valueOf(rebec.getPc()).equals(String.valueOf(previousRebec.getPc()));
+				break;
+			case RESUMING_TIME:
+				if (rebec.getRes() == null)
+					return false;
+				attribute = "Resuming Time";
+				value = rebec.getRes().toString();
+				changed = previousRebec != null && !String.valueOf(rebec.getRes()).equals(String.valueOf(previousRebec.getRes()));
+				break;
+			}
+			return true;
+		}
+	}
 
-	class ViewContentProvider implements ITreeContentProvider {
+	class ViewContentProvider implements ILazyTreeContentProvider {
 
 		public ViewContentProvider() {
 
@@ -50,101 +177,218 @@ public class StateInCounterExampleView extends ViewPart {
 		}
 
 		@Override
-		public Object[] getElements(Object inputElement) {
-			if (state == null)
-				return new Object[0];
-			return state.getRebec().toArray();
+		public void updateElement(Object parentElement, int index) {
+			StateRow parentRow = (parentElement instanceof StateRow) ? (StateRow) parentElement : null;
+			StateRow row = getRow(parentRow, index);
+			if (row == null)
+				return;
+			stateContentTree.replace(parentElement, index, row);
+			stateContentTree.setChildCount(row, row.childCount);
 		}
 
 		@Override
-		public Object[] getChildren(Object parentElement) {
-			Object[] childs = null;
-			ArrayList<Object> items = new ArrayList<>();
-			if (parentElement instanceof Rebec) {
-				Rebec parent = (Rebec) parentElement;
-				items.add(new Object[] { "State Variables", parent.getStatevariables() });
-				items.add(new Object[] { "Queue Content", parent.getQueue()});
-				if (parent.getNow() != null)
-					items.add(new String[] { "Now", (parent.getNow().intValue() == Integer.MAX_VALUE) ? "infinity" : parent.getNow().toString() });
-				if (parent.getPc() != null)
-					items.add(new String[] { "Program Counter", parent.getPc().toString() });
-				if (parent.getRes() != null)
-					items.add(new String[] { "Resuming Time", parent.getRes().toString() });
-			} else if (parentElement instanceof Object[]) {
-				Object secondElement = ((Object[]) parentElement)[1];
-				if (secondElement instanceof Statevariables) {
-					Statevariables variables = (Statevariables) secondElement;
-					for (Variable variable : variables.getVariable()) {
-						items.add(new String[] { variable.getName(), variable.getValue() });
-					}
-				} else if (secondElement instanceof Queue) {
-					Queue queue = (Queue) secondElement;
-					for (Message message : queue.getMessage()) {
-						String messageText = message.getValue();
-						if (message.getArrival() != null)
-							messageText += " arrival(" + message.getArrival() + ")";
-						if (message.getDeadline() != null)
-							messageText += " deadline(" + message.getDeadline() + ")";
-						items.add(new String[] { messageText, "from " + message.getSender()});
-					}
-				}
-			}
-			childs = new Object[items.size()];
-			for (int cnt = 0; cnt < items.size(); cnt++)
-				childs[cnt] = items.get(cnt);
-			return childs;
+		public void updateChildCount(Object element, int currentChildCount) {
+			int count;
+			if (element instanceof StateRow)
+				count = ((StateRow) element).childCount;
+			else
+				count = (state == null) ? 0 : state.getRebec().size();
+			if (count != currentChildCount)
+				stateContentTree.setChildCount(element, count);
 		}
 
 		@Override
 		public Object getParent(Object element) {
-			return null;
+			if (element instanceof StateRow && ((StateRow) element).parentRow != null)
+				return ((StateRow) element).parentRow;
+			return ROOT;
 		}
+	}
 
-		@Override
-		public boolean hasChildren(Object element) {
-			if (element instanceof Rebec)
-				return true;
-			if (element instanceof Object[]) {
-				Object[] elements = (Object[]) element;
-				if (elements[1] instanceof Statevariables)
-					return !((Statevariables)elements[1]).getVariable().isEmpty();
-				if (elements[1] instanceof Queue)
-					return !((Queue)elements[1]).getMessage().isEmpty();
+	private StateRow getRow(StateRow parentRow, int index) {
+		String key = (parentRow == null ? "" : parentRow.key) + "/" + index;
+		StateRow row = materializedRows.get(key);
+		if (row != null)
+			return row;
+		if (parentRow == null) {
+			row = new StateRow(null, REBEC, index, index);
+		} else {
+			switch (parentRow.kind) {
+			case REBEC:
+				int[] kinds = childKinds(getRebec(state, parentRow.rebecIndex));
+				if (index >= kinds.length)
+					return null;
+				row = new StateRow(parentRow, kinds[index], parentRow.rebecIndex, index);
+				break;
+			case STATE_VARIABLES:
+				row = new StateRow(parentRow, VARIABLE, parentRow.rebecIndex, index);
+				break;
+			case QUEUE_CONTENT:
+				row = new StateRow(parentRow, MESSAGE, parentRow.rebecIndex, index);
+				break;
+			default:
+				return null;
 			}
-			return false;
 		}
+		if (!row.reload())
+			return null;
+		materializedRows.put(key, row);
+		return row;
 	}
 
 	public void update(State state) {
+		this.previousState = this.state;
 		this.state = state;
-		for (Control control : parent.getChildren()) {
-			control.dispose();
+
+		if (!sameLayout(previousState, state)) {
+			previousState = null;
+			materializedRows.clear();
+			stateContentTree.getTree().setRedraw(false);
+			try {
+				stateContentTree.setInput(ROOT);
+				stateContentTree.setChildCount(ROOT, state == null ? 0 : state.getRebec().size());
+				stateContentTree.expandToLevel(2);
+			} finally {
+				stateContentTree.getTree().setRedraw(true);
+			}
+		} else {
+			ArrayList<StateRow> removedRows = new ArrayList<StateRow>();
+			for (StateRow row : materializedRows.values()) {
+				String attribute = row.attribute;
+				String value = row.value;
+				boolean changed = row.changed;
+				int childCount = row.childCount;
+				if (!row.reload()) {
+					removedRows.add(row);
+					continue;
+				}
+				if (changed != row.changed || !attribute.equals(row.attribute) || !value.equals(row.value))
+					stateContentTree.update(row, null);
+				if (childCount != row.childCount)
+					stateContentTree.setChildCount(row, row.childCount);
+			}
+			for (StateRow row : removedRows)
+				materializedRows.remove(row.key);
+		}
+		parent.layout(true);
+	}
+
+	private static Rebec getRebec(State state, int index) {
+		if (state == null || index >= state.getRebec().size())
+			return null;
+		return state.getRebec().get(index);
+	}
+
+	private static List<Variable> variablesOf(Rebec rebec) {
+		return rebec.getStatevariables().getVariable();
+	}
+
+	private static List<Message> messagesOf(Rebec rebec) {
+		return rebec.getQueue().getMessage();
+	}
+
+	private static int[] childKinds(Rebec rebec) {
+		int[] kinds = new int[5];
+		int count = 0;
+		kinds[count++] = STATE_VARIABLES;
+		kinds[count++] = QUEUE_CONTENT;
+		if (rebec.getNow() != null)
+			kinds[count++] = NOW;
+		if (rebec.getPc() != null)
+			kinds[count++] = PROGRAM_COUNTER;
+		if (rebec.getRes() != null)
+			kinds[count++] = RESUMING_TIME;
+		int[] result = new int[count];
+		System.arraycopy(kinds, 0, result, 0, count);
+		return result;
+	}
+
+	private static String timingOf(Rebec rebec) {
+		return rebec.getNow() + ":" + rebec.getPc() + ":" + rebec.getRes();
+	}
+
+	private static String messageText(Message message) {
+		String messageText = message.getValue();
+		if (message.getArrival() != null)
+			messageText += " arrival(" + message.getArrival() + ")";
+		if (message.getDeadline() != null)
+			messageText += " deadline(" + message.getDeadline() + ")";
+		return messageText;
+	}
+
+	private static boolean sameVariable(Variable first, Variable second) {
+		return first.getName().equals(second.getName()) && String.valueOf(first.getValue()).equals(String.valueOf(second.getValue()));
+	}
+
+	private static boolean sameMessage(Message first, Message second) {
+		return messageText(first).equals(messageText(second)) && String.valueOf(first.getSender()).equals(String.valueOf(second.getSender()));
+	}
+
+	private static boolean sameVariables(Rebec first, Rebec second) {
+		List<Variable> firstVariables = variablesOf(first);
+		List<Variable> secondVariables = variablesOf(second);
+		if (firstVariables.size() != secondVariables.size())
+			return false;
+		for (int cnt = 0; cnt < firstVariables.size(); cnt++)
+			if (!sameVariable(firstVariables.get(cnt), secondVariables.get(cnt)))
+				return false;
+		return true;
+	}
+
+	private static boolean sameQueue(Rebec first, Rebec second) {
+		List<Message> firstMessages = messagesOf(first);
+		List<Message> secondMessages = messagesOf(second);
+		if (firstMessages.size() != secondMessages.size())
+			return false;
+		for (int cnt = 0; cnt < firstMessages.size(); cnt++)
+			if (!sameMessage(firstMessages.get(cnt), secondMessages.get(cnt)))
+				return false;
+		return true;
+	}
+
+	/*
+	 * Two states have the same layout when they contain the same rebecs in the
+	 * same order and each rebec has the same kinds of rows. In that case the
+	 * tree items can be kept and only their texts are refreshed.
+	 */
+	private static boolean sameLayout(State first, State second) {
+		if (first == null || second == null)
+			return false;
+		if (first.getRebec().size() != second.getRebec().size())
+			return false;
+		for (int cnt = 0; cnt < first.getRebec().size(); cnt++) {
+			Rebec firstRebec = first.getRebec().get(cnt);
+			Rebec secondRebec = second.getRebec().get(cnt);
+			if (!firstRebec.getName().equals(secondRebec.getName()))
+				return false;
+			if (!Arrays.equals(childKinds(firstRebec), childKinds(secondRebec)))
+				return false;
 		}
+		return true;
+	}
 
-		final TreeViewer viewer = new TreeViewer(parent);
-		viewer.getTree().setLayoutData(new GridData(GridData.FILL_BOTH));
-		viewer.setContentProvider(new ViewContentProvider());
-		viewer.getTree().setHeaderVisible(true);
-		viewer.getTree().setLinesVisible(true);
-		viewer.setLabelProvider(new AnalysisResultLabelProvider());
-		viewer.setInput(""); // pass a non-null that will be ignored
+	@PostConstruct
+	public void createPartControl(Composite parent) {
+		this.parent = parent;
 
-		TreeColumn mainColumn = new TreeColumn(viewer.getTree(), SWT.LEFT);
+		stateContentTree = new TreeViewer(parent, SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL | SWT.BORDER | SWT.VIRTUAL);
+		stateContentTree.setUseHashlookup(true);
+		stateContentTree.getTree().setLayoutData(new GridData(GridData.FILL_BOTH));
+		stateContentTree.setContentProvider(new ViewContentProvider());
+		stateContentTree.getTree().setHeaderVisible(true);
+		stateContentTree.getTree().setLinesVisible(true);
+		stateContentTree.setLabelProvider(new AnalysisResultLabelProvider());
+
+		TreeColumn mainColumn = new TreeColumn(stateContentTree.getTree(), SWT.LEFT);
 		mainColumn.setText("Attribute");
 		mainColumn.setWidth(200);
 		mainColumn.setAlignment(SWT.CENTER);
 
-		TreeColumn valueColumn = new TreeColumn(viewer.getTree(), SWT.CENTER);
+		TreeColumn valueColumn = new TreeColumn(stateContentTree.getTree(), SWT.CENTER);
 		valueColumn.setText("Value");
 		valueColumn.setWidth(200);
 		valueColumn.setAlignment(SWT.LEFT);
-		viewer.expandToLevel(2);
-		parent.layout(true);
-	}
 
-	@PostConstruct
-	public void createPartControl(Composite parent) {
-		this.parent = parent;
 		update(null);
 	}
 
@@ -153,7 +397,7 @@ public class StateInCounterExampleView extends ViewPart {
 		stateContentTree.getControl().setFocus();
 	}
 
-	class AnalysisResultLabelProvider implements ILabelProvider, ITableLabelProvider {
+	class AnalysisResultLabelProvider implements ILabelProvider, ITableLabelProvider, ITableColorProvider {
 
 		@Override
 		public void addListener(ILabelProviderListener listener) {
@@ -179,12 +423,8 @@ public class StateInCounterExampleView extends ViewPart {
 
 		@Override
 		public String getText(Object element) {
-			return (element instanceof Rebec) ? ((Rebec) element).getName()
-					: (element instanceof Statevariables) ? "State Variables"
-							: (element instanceof Queue) ? "Queue Content"
-									: (element instanceof Variable) ? ((Variable) element).getName()
-											: (element instanceof String[]) ? ((String[]) element)[0]
-													: element.getClass().getSimpleName();
+			return (element instanceof StateRow) ? ((StateRow) element).attribute
+					: element.getClass().getSimpleName();
 		}
 
 		@Override
@@ -194,8 +434,22 @@ public class StateInCounterExampleView extends ViewPart {
 
 		@Override
 		public String getColumnText(Object element, int columnIndex) {
-			return (element instanceof String[]) ? ((String[]) element)[columnIndex]
-					: (element instanceof Object[]) ? (columnIndex == 0 ? (String) ((Object[]) element)[0] : "") : "";
+			if (!(element instanceof StateRow))
+				return "";
+			StateRow row = (StateRow) element;
+			return columnIndex == 0 ? row.attribute : row.value;
+		}
+
+		@Override
+		public Color getForeground(Object element, int columnIndex) {
+			return null;
+		}
+
+		@Override
+		public Color getBackground(Object element, int columnIndex) {
+			if ((element instanceof StateRow) && ((StateRow) element).changed)
+				return parent.getDisplay().getSystemColor(SWT.COLOR_INFO_BACKGROUND);
+			return null;
 		}
 	}
 }
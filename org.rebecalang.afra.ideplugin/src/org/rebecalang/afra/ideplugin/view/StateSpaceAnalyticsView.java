@@ -0,0 +1,168 @@
+package org.rebecalang.afra.ideplugin.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.TreeColumn;
+import org.eclipse.ui.part.ViewPart;
+import org.rebecalang.afra.ideplugin.statespace.StateSpaceAnalytics;
+
+/**
+ * Shows the {@link StateSpaceAnalytics} of the last analyzed state space as
+ * groups of attribute/value rows. Long histograms are folded into at most
+ * MAX_HISTOGRAM_ROWS ranges.
+ */
+public class StateSpaceAnalyticsView extends ViewPart {
+
+	public final static String ID = StateSpaceAnalyticsView.class.getName();
+
+	private final static int MAX_HISTOGRAM_ROWS = 40;
+
+	private TreeViewer viewer;
+	private List<Group> groups = new ArrayList<Group>();
+
+	private static class Group {
+		final String name;
+		final String summary;
+		final List<String[]> rows = new ArrayList<String[]>();
+
+		Group(String name, String summary) {
+			this.name = name;
+			this.summary = summary;
+		}
+
+		void add(String attribute, Object value) {
+			rows.add(new String[] { attribute, String.valueOf(value) });
+		}
+	}
+
+	class ViewContentProvider implements ITreeContentProvider {
+
+		@Override
+		public Object[] getElements(Object inputElement) {
+			return groups.toArray();
+		}
+
+		@Override
+		public Object[] getChildren(Object parentElement) {
+			if (parentElement instanceof Group)
+				return ((Group) parentElement).rows.toArray();
+			return new Object[0];
+		}
+
+		@Override
+		public Object getParent(Object element) {
+			return null;
+		}
+
+		@Override
+		public boolean hasChildren(Object element) {
+			return element instanceof Group && !((Group) element).rows.isEmpty();
+		}
+	}
+
+	class AnalyticsLabelProvider extends LabelProvider implements ITableLabelProvider {
+
+		@Override
+		public Image getColumnImage(Object element, int columnIndex) {
+			return null;
+		}
+
+		@Override
+		public String getColumnText(Object element, int columnIndex) {
+			if (element instanceof Group) {
+				Group group = (Group) element;
+				return columnIndex == 0 ? group.name : group.summary;
+			}
+			return ((String[]) element)[columnIndex];
+		}
+	}
+
+	@PostConstruct
+	public void createPartControl(Composite parent) {
+		viewer = new TreeViewer(parent, SWT.FULL_SELECTION);
+		viewer.getTree().setHeaderVisible(true);
+		viewer.getTree().setLinesVisible(true);
+		TreeColumn attributeColumn = new TreeColumn(viewer.getTree(), SWT.LEFT);
+		attributeColumn.setText("Attribute");
+		attributeColumn.setWidth(250);
+		TreeColumn valueColumn = new TreeColumn(viewer.getTree(), SWT.LEFT);
+		valueColumn.setText("Value");
+		valueColumn.setWidth(200);
+		viewer.setContentProvider(new ViewContentProvider());
+		viewer.setLabelProvider(new AnalyticsLabelProvider());
+		viewer.setInput(groups);
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+	}
+
+	public void update(String stateSpaceName, StateSpaceAnalytics analytics) {
+		groups = new ArrayList<Group>();
+
+		Group summary = new Group("State Space", stateSpaceName);
+		summary.add("Number of States", analytics.getNumberOfStates());
+		summary.add("Number of Transitions", analytics.getNumberOfTransitions());
+		summary.add("Terminal States", analytics.getTerminalStates());
+		summary.add("Self Loops", analytics.getSelfLoops());
+		summary.add("Average Branching", analytics.getNumberOfStates() == 0 ? "0" :
+			String.format("%.2f", (double) analytics.getNumberOfTransitions() / analytics.getNumberOfStates()));
+		groups.add(summary);
+
+		Group components = new Group("Strongly Connected Components", String.valueOf(analytics.getNumberOfComponents()));
+		components.add("Largest Component", analytics.getLargestComponent());
+		components.add("Nontrivial Components", analytics.getNontrivialComponents());
+		components.add("Bottom Components", analytics.getBottomComponents());
+		long[] componentSizes = analytics.getComponentSizeHistogram();
+		for (int cnt = 0; cnt < componentSizes.length; cnt++)
+			if (componentSizes[cnt] != 0)
+				components.add("Size " + range(1L << cnt, (1L << (cnt + 1)) - 1), componentSizes[cnt]);
+		groups.add(components);
+
+		Group depths = new Group("Depth Layers", "Maximum depth " + analytics.getMaxDepth());
+		depths.add("Reachable States", analytics.getReachableStates());
+		depths.add("Unreachable States", analytics.getNumberOfStates() - analytics.getReachableStates());
+		addHistogram(depths, "Depth", analytics.getStatesPerDepth());
+		groups.add(depths);
+
+		long[] outDegrees = analytics.getOutDegreeHistogram();
+		Group outDegreeGroup = new Group("Out-degree", "Maximum " + Math.max(outDegrees.length - 1, 0));
+		addHistogram(outDegreeGroup, "Out-degree", outDegrees);
+		groups.add(outDegreeGroup);
+
+		long[] inDegrees = analytics.getInDegreeHistogram();
+		Group inDegreeGroup = new Group("In-degree", "Maximum " + Math.max(inDegrees.length - 1, 0));
+		addHistogram(inDegreeGroup, "In-degree", inDegrees);
+		groups.add(inDegreeGroup);
+
+		viewer.setInput(groups);
+		viewer.expandToLevel(2);
+	}
+
+	private static void addHistogram(Group group, String name, long[] histogram) {
+		int bucketWidth = (histogram.length + MAX_HISTOGRAM_ROWS - 1) / MAX_HISTOGRAM_ROWS;
+		for (int start = 0; start < histogram.length; start += bucketWidth) {
+			int end = Math.min(start + bucketWidth, histogram.length) - 1;
+			long sum = 0;
+			for (int cnt = start; cnt <= end; cnt++)
+				sum += histogram[cnt];
+			if (sum != 0)
+				group.add(name + " " + range(start, end), sum);
+		}
+	}
+
+	private static String range(long start, long end) {
+		return start == end ? String.valueOf(start) : start + " - " + end;
+	}
+}
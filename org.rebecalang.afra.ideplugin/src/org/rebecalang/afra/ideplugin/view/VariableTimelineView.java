@@ -0,0 +1,361 @@
+package org.rebecalang.afra.ideplugin.view;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.CheckStateChangedEvent;
+import org.eclipse.jface.viewers.CheckboxTableViewer;
+import org.eclipse.jface.viewers.ICheckStateListener;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.SashForm;
+import org.eclipse.swt.events.MouseAdapter;
+import org.eclipse.swt.events.MouseEvent;
+import org.eclipse.swt.events.MouseMoveListener;
+import org.eclipse.swt.events.PaintEvent;
+import org.eclipse.swt.events.PaintListener;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Canvas;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.ScrollBar;
+import org.eclipse.ui.part.ViewPart;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.CounterExampleTrace;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.TraceColumns;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.TraceColumns.Column;
+
+/**
+ * Plots the selected columns of the current counterexample trace as step lines,
+ * one lane per column. The horizontal axis is the global time for Timed Rebeca
+ * traces and the position of the state in the trace otherwise.
+ */
+public class VariableTimelineView extends ViewPart {
+
+	private final static int LABEL_WIDTH = 160;
+	private final static int AXIS_HEIGHT = 20;
+	private final static int LANE_HEIGHT = 36;
+	private final static int LANE_GAP = 10;
+	private final static int RIGHT_MARGIN = 10;
+
+	private final static int[] SERIES_COLORS = {
+			SWT.COLOR_BLUE, SWT.COLOR_RED, SWT.COLOR_DARK_GREEN, SWT.COLOR_MAGENTA,
+			SWT.COLOR_DARK_CYAN, SWT.COLOR_DARK_YELLOW, SWT.COLOR_DARK_BLUE, SWT.COLOR_DARK_RED
+	};
+
+	private Composite parent;
+	private CheckboxTableViewer columnsViewer;
+	private Canvas canvas;
+
+	private CounterExampleTrace trace;
+	private TraceColumns traceColumns;
+	private List<Column> plottedColumns = new ArrayList<Column>();
+	private int cursorPosition = -1;
+	private int verticalOrigin;
+
+	/*
+	 * Horizontal pixel of each state, recomputed when the canvas is resized or
+	 * the trace changes.
+	 */
+	private int[] stateX = new int[0];
+	private int stateXWidth = -1;
+
+	public void update(CounterExampleTrace trace) {
+		Set<String> checkedKeys = new HashSet<String>();
+		for (Column column : plottedColumns)
+			checkedKeys.add(column.getKey());
+
+		this.trace = trace;
+		this.traceColumns = trace == null ? null : trace.getColumns();
+		this.cursorPosition = -1;
+		this.stateXWidth = -1;
+		plottedColumns.clear();
+
+		if (traceColumns == null) {
+			columnsViewer.setInput(new Object[0]);
+		} else {
+			columnsViewer.setInput(traceColumns.getColumns().toArray());
+			for (Column column : traceColumns.getColumns()) {
+				if (checkedKeys.contains(column.getKey())) {
+					columnsViewer.setChecked(column, true);
+					plottedColumns.add(column);
+				}
+			}
+		}
+		updateScrollBar();
+		canvas.redraw();
+	}
+
+	@PostConstruct
+	public void createPartControl(Composite parent) {
+		this.parent = parent;
+		SashForm sashForm = new SashForm(parent, SWT.HORIZONTAL);
+
+		columnsViewer = CheckboxTableViewer.newCheckList(sashForm, SWT.BORDER | SWT.V_SCROLL);
+		columnsViewer.setContentProvider(ArrayContentProvider.getInstance());
+		columnsViewer.setLabelProvider(new LabelProvider() {
+			@Override
+			public String getText(Object element) {
+				return ((Column) element).getKey();
+			}
+		});
+		columnsViewer.addCheckStateListener(new ICheckStateListener() {
+			@Override
+			public void checkStateChanged(CheckStateChangedEvent event) {
+				plottedColumns.clear();
+				for (Object element : columnsViewer.getCheckedElements())
+					plottedColumns.add((Column) element);
+				updateScrollBar();
+				canvas.redraw();
+			}
+		});
+
+		canvas = new Canvas(sashForm, SWT.DOUBLE_BUFFERED | SWT.V_SCROLL);
+		canvas.setBackground(parent.getDisplay().getSystemColor(SWT.COLOR_WHITE));
+		canvas.addPaintListener(new PaintListener() {
+			@Override
+			public void paintControl(PaintEvent e) {
+				paint(e.gc);
+			}
+		});
+		canvas.addListener(SWT.Resize, new Listener() {
+			@Override
+			public void handleEvent(Event event) {
+				updateScrollBar();
+			}
+		});
+		canvas.getVerticalBar().addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				verticalOrigin = canvas.getVerticalBar().getSelection();
+				canvas.redraw();
+			}
+		});
+		canvas.addMouseMoveListener(new MouseMoveListener() {
+			@Override
+			public void mouseMove(MouseEvent e) {
+				int position = positionAt(e.x);
+				if (position != cursorPosition) {
+					cursorPosition = position;
+					canvas.redraw();
+				}
+			}
+		});
+		canvas.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseDoubleClick(MouseEvent e) {
+				int position = positionAt(e.x);
+				if (position == -1)
+					return;
+				StateInCounterExampleView view =
+						(StateInCounterExampleView) ViewUtils.getViewPart(StateInCounterExampleView.class.getName());
+				view.update(trace.getStates().get(position));
+			}
+		});
+		sashForm.setWeights(new int[] { 1, 4 });
+
+		CounterExampleGraphView graphView =
+				(CounterExampleGraphView) ViewUtils.findViewPart(CounterExampleGraphView.class.getName());
+		update(graphView == null ? null : graphView.getTrace());
+	}
+
+	private void updateScrollBar() {
+		ScrollBar verticalBar = canvas.getVerticalBar();
+		int contentHeight = AXIS_HEIGHT + plottedColumns.size() * (LANE_HEIGHT + LANE_GAP);
+		int clientHeight = canvas.getClientArea().height;
+		verticalBar.setMaximum(Math.max(contentHeight, 1));
+		verticalBar.setThumb(Math.max(Math.min(clientHeight, contentHeight), 1));
+		verticalBar.setPageIncrement(Math.max(clientHeight, 1));
+		verticalBar.setIncrement(LANE_HEIGHT + LANE_GAP);
+		verticalOrigin = Math.max(0, Math.min(verticalOrigin, contentHeight - clientHeight));
+		verticalBar.setSelection(verticalOrigin);
+		stateXWidth = -1;
+	}
+
+	private void computeStateX(int width) {
+		if (stateXWidth == width)
+			return;
+		int length = traceColumns.getLength();
+		stateX = new int[length];
+		int plotWidth = Math.max(width - LABEL_WIDTH - RIGHT_MARGIN, 1);
+		if (traceColumns.isTimed()) {
+			double[] time = traceColumns.getTime();
+			double first = Double.NaN, last = Double.NaN;
+			for (double value : time) {
+				if (Double.isNaN(value))
+					continue;
+				if (Double.isNaN(first))
+					first = value;
+				last = value;
+			}
+			double range = last - first;
+			double previous = first;
+			for (int cnt = 0; cnt < length; cnt++) {
+				double value = Double.isNaN(time[cnt]) ? previous : time[cnt];
+				previous = value;
+				double ratio = range > 0 ? (value - first) / range :
+					(length > 1 ? (double) cnt / (length - 1) : 0);
+				stateX[cnt] = LABEL_WIDTH + (int) Math.round(ratio * plotWidth);
+			}
+		} else {
+			for (int cnt = 0; cnt < length; cnt++) {
+				double ratio = length > 1 ? (double) cnt / (length - 1) : 0;
+				stateX[cnt] = LABEL_WIDTH + (int) Math.round(ratio * plotWidth);
+			}
+		}
+		stateXWidth = width;
+	}
+
+	/*
+	 * The last state drawn at or before the given pixel; states are laid out
+	 * from left to right so a binary search suffices.
+	 */
+	private int positionAt(int x) {
+		if (traceColumns == null || traceColumns.getLength() == 0 || x < LABEL_WIDTH)
+			return -1;
+		computeStateX(canvas.getClientArea().width);
+		int low = 0, high = stateX.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (stateX[middle] <= x)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+
+	private void paint(GC gc) {
+		Rectangle area = canvas.getClientArea();
+		if (traceColumns == null || traceColumns.getLength() == 0) {
+			gc.drawText("No counter example is available.", 5, 5);
+			return;
+		}
+		if (plottedColumns.isEmpty()) {
+			gc.drawText("Select the variables to plot.", 5, 5);
+			return;
+		}
+		computeStateX(area.width);
+		Color axisColor = parent.getDisplay().getSystemColor(SWT.COLOR_GRAY);
+		Color textColor = parent.getDisplay().getSystemColor(SWT.COLOR_BLACK);
+
+		for (int cnt = 0; cnt < plottedColumns.size(); cnt++) {
+			int top = AXIS_HEIGHT + cnt * (LANE_HEIGHT + LANE_GAP) - verticalOrigin;
+			if (top + LANE_HEIGHT < AXIS_HEIGHT || top > area.height)
+				continue;
+			Column column = plottedColumns.get(cnt);
+			Color color = parent.getDisplay().getSystemColor(SERIES_COLORS[cnt % SERIES_COLORS.length]);
+			gc.setForeground(axisColor);
+			gc.drawLine(LABEL_WIDTH, top + LANE_HEIGHT, area.width - RIGHT_MARGIN, top + LANE_HEIGHT);
+			gc.setForeground(color);
+			gc.drawText(column.getKey(), 5, top, true);
+			if (cursorPosition != -1) {
+				String text = column.getText(cursorPosition);
+				gc.drawText("= " + (text == null ? "-" : text), 15, top + LANE_HEIGHT / 2, true);
+			}
+			paintSeries(gc, column, top);
+		}
+
+		gc.setBackground(canvas.getBackground());
+		gc.fillRectangle(0, 0, area.width, AXIS_HEIGHT);
+		gc.setForeground(textColor);
+		gc.drawText(traceColumns.isTimed() ? "time" : "state", 5, 2, true);
+		int last = traceColumns.getLength() - 1;
+		gc.drawText(axisLabel(0), LABEL_WIDTH, 2, true);
+		String lastLabel = axisLabel(last);
+		gc.drawText(lastLabel, area.width - RIGHT_MARGIN - gc.textExtent(lastLabel).x, 2, true);
+		if (cursorPosition != -1) {
+			int x = stateX[cursorPosition];
+			gc.setForeground(axisColor);
+			gc.drawLine(x, AXIS_HEIGHT, x, area.height);
+			gc.setForeground(textColor);
+			String cursorLabel = "state " + traceColumns.getStateId(cursorPosition) +
+					(traceColumns.isTimed() ? " @" + axisLabel(cursorPosition) : "");
+			int labelX = Math.min(x + 3, area.width - RIGHT_MARGIN - gc.textExtent(cursorLabel).x);
+			gc.drawText(cursorLabel, Math.max(labelX, LABEL_WIDTH), 2, false);
+		}
+	}
+
+	private String axisLabel(int position) {
+		if (!traceColumns.isTimed())
+			return String.valueOf(position);
+		double value = traceColumns.getTime()[position];
+		if (Double.isNaN(value))
+			return "-";
+		return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+	}
+
+	/*
+	 * Draws one column as a step line. States which fall on the same pixel are
+	 * merged into a single vertical segment, so the number of drawn lines
+	 * depends on the width of the canvas rather than the length of the trace.
+	 */
+	private void paintSeries(GC gc, Column column, int top) {
+		double[] values = column.isNumeric() ? column.getValues() : toDouble(column.getCodes());
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		for (double value : values) {
+			if (Double.isNaN(value))
+				continue;
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		if (min > max)
+			return;
+		double range = max - min;
+
+		int pixelX = -1, pixelMinY = 0, pixelMaxY = 0, lastY = -1;
+		for (int cnt = 0; cnt < values.length; cnt++) {
+			double value = values[cnt];
+			int x = stateX[cnt];
+			if (Double.isNaN(value)) {
+				if (pixelX != -1)
+					gc.drawLine(pixelX, pixelMinY, pixelX, pixelMaxY);
+				pixelX = -1;
+				lastY = -1;
+				continue;
+			}
+			int y = top + LANE_HEIGHT - 2 -
+					(range == 0 ? (LANE_HEIGHT - 4) / 2 : (int) Math.round((value - min) / range * (LANE_HEIGHT - 4)));
+			if (x != pixelX) {
+				if (pixelX != -1) {
+					gc.drawLine(pixelX, pixelMinY, pixelX, pixelMaxY);
+					gc.drawLine(pixelX, lastY, x, lastY);
+					pixelMinY = Math.min(lastY, y);
+					pixelMaxY = Math.max(lastY, y);
+				} else {
+					pixelMinY = pixelMaxY = y;
+				}
+				pixelX = x;
+			} else {
+				pixelMinY = Math.min(pixelMinY, y);
+				pixelMaxY = Math.max(pixelMaxY, y);
+			}
+			lastY = y;
+		}
+		if (pixelX != -1)
+			gc.drawLine(pixelX, pixelMinY, pixelX, pixelMaxY);
+	}
+
+	private static double[] toDouble(int[] codes) {
+		double[] values = new double[codes.length];
+		for (int cnt = 0; cnt < codes.length; cnt++)
+			values[cnt] = codes[cnt] == -1 ? Double.NaN : codes[cnt];
+		return values;
+	}
+
+	/**
+	 * Passing the focus request to the viewer's control.
+	 */
+	public void setFocus() {
+		columnsViewer.getControl().setFocus();
+	}
+}
@@ -26,6 +26,20 @@ public class ViewUtils {
 		return null;
 	}
 
+	/**
+	 * Returns the view with the given id if it has already been created,
+	 * without bringing it to the front.
+	 */
+	public static ViewPart findViewPart(String id) {
+		IServiceLocator serviceLocator = PlatformUI.getWorkbench()
+				.getActiveWorkbenchWindow();
+		EPartService service = serviceLocator.getService(EPartService.class);
+		MPart part = service.findPart(id);
+		if (part == null || !(part.getObject() instanceof ViewPart))
+			return null;
+		return (ViewPart) part.getObject();
+	}
+
 	public static void counterExampleVisible(boolean visibility) {
 		IServiceLocator serviceLocator = PlatformUI.getWorkbench()
 				.getActiveWorkbenchWindow();
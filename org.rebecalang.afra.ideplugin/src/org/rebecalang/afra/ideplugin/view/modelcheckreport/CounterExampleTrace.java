@@ -0,0 +1,51 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.State;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.transition.Transition;
+
+/**
+ * States and transitions of a counterexample in the order they appear in the
+ * trace. Transition i leaves state i; the state following the last transition
+ * may be missing when the trace closes a cycle.
+ */
+public class CounterExampleTrace {
+
+	private List<State> states = new ArrayList<State>();
+	private List<Transition> transitions = new ArrayList<Transition>();
+	private TraceColumns columns;
+	private TraceIndex index;
+
+	public List<State> getStates() {
+		return states;
+	}
+
+	public List<Transition> getTransitions() {
+		return transitions;
+	}
+
+	/**
+	 * Returns the columnar view of the states, extracted on first use.
+	 */
+	public synchronized TraceColumns getColumns() {
+		if (columns == null)
+			columns = new TraceColumns(this);
+		return columns;
+	}
+
+	/**
+	 * Returns the inverted index used to search the states, created on first
+	 * use.
+	 */
+	public synchronized TraceIndex getIndex() {
+		if (index == null)
+			index = new TraceIndex(this);
+		return index;
+	}
+
+	public boolean isEmpty() {
+		return states.isEmpty();
+	}
+}
@@ -0,0 +1,22 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport;
+
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.ModelCheckingReport;
+
+public class ModelCheckingResult {
+
+	private ModelCheckingReport report;
+	private CounterExampleTrace trace;
+
+	public ModelCheckingResult(ModelCheckingReport report, CounterExampleTrace trace) {
+		this.report = report;
+		this.trace = trace;
+	}
+
+	public ModelCheckingReport getReport() {
+		return report;
+	}
+
+	public CounterExampleTrace getTrace() {
+		return trace;
+	}
+}
@@ -0,0 +1,406 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.JAXBException;
+
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.CheckedProperty;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.ModelCheckingReport;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.Options;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.SystemInfo;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Message;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Queue;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Rebec;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.State;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Statevariables;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Variable;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.transition.Messageserver;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.transition.Time;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.transition.Transition;
+
+/**
+ * Binary companion of a model checking result file. The XML is parsed once and
+ * stored next to it as "&lt;name&gt;.cache"; later loads map the cache and
+ * read it in one sequential pass as long as the size and the modification time
+ * of the XML file are unchanged.
+ *
+ * Layout: magic, version, source length, source modification time, the table
+ * of interned strings (length-prefixed UTF-8) and then the report, the states
+ * and the transitions, each as a length-prefixed record whose strings are
+ * indices into the table (-1 for null).
+ */
+public class ModelCheckingResultCache {
+
+	public static final String CACHE_FILE_EXTENSION = ".cache";
+
+	private static final int MAGIC = 0x41465243;
+	private static final int VERSION = 1;
+
+	private static final int ABSENT = -1;
+
+	public static ModelCheckingResult load(File modelCheckingResultFile) throws IOException, JAXBException {
+		File cacheFile = getCacheFile(modelCheckingResultFile);
+		if (cacheFile.exists()) {
+			try {
+				ModelCheckingResult result = new ModelCheckingResultCache().read(cacheFile, modelCheckingResultFile);
+				if (result != null)
+					return result;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		long sourceLength = modelCheckingResultFile.length();
+		long sourceLastModified = modelCheckingResultFile.lastModified();
+		ModelCheckingResult result = new ModelCheckingResultParser().parse(modelCheckingResultFile);
+		try {
+			new ModelCheckingResultCache().write(result, cacheFile, sourceLength, sourceLastModified);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return result;
+	}
+
+	public static File getCacheFile(File modelCheckingResultFile) {
+		return new File(modelCheckingResultFile.getPath() + CACHE_FILE_EXTENSION);
+	}
+
+	/*
+	 * Writing
+	 */
+
+	private Map<String, Integer> stringTable = new LinkedHashMap<String, Integer>();
+	private ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+	private DataOutputStream record = new DataOutputStream(recordBuffer);
+
+	public void write(ModelCheckingResult result, File cacheFile,
+			long sourceLength, long sourceLastModified) throws IOException {
+		ByteArrayOutputStream bodyBuffer = new ByteArrayOutputStream();
+		DataOutputStream body = new DataOutputStream(bodyBuffer);
+
+		writeReport(result.getReport());
+		flushRecord(body);
+		List<State> states = result.getTrace().getStates();
+		body.writeInt(states.size());
+		for (State state : states) {
+			writeState(state);
+			flushRecord(body);
+		}
+		List<Transition> transitions = result.getTrace().getTransitions();
+		body.writeInt(transitions.size());
+		for (Transition transition : transitions) {
+			writeTransition(transition);
+			flushRecord(body);
+		}
+		body.flush();
+
+		File tempFile = new File(cacheFile.getPath() + ".tmp");
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(tempFile)));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(sourceLength);
+			output.writeLong(sourceLastModified);
+			output.writeInt(stringTable.size());
+			for (String string : stringTable.keySet()) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			}
+			bodyBuffer.writeTo(output);
+		} finally {
+			output.close();
+		}
+		Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void flushRecord(DataOutputStream body) throws IOException {
+		record.flush();
+		body.writeInt(recordBuffer.size());
+		recordBuffer.writeTo(body);
+		recordBuffer.reset();
+	}
+
+	private void writeString(String value) throws IOException {
+		if (value == null) {
+			record.writeInt(ABSENT);
+			return;
+		}
+		Integer index = stringTable.get(value);
+		if (index == null) {
+			index = stringTable.size();
+			stringTable.put(value, index);
+		}
+		record.writeInt(index);
+	}
+
+	private void writeNumber(BigDecimal value) throws IOException {
+		writeString(value == null ? null : value.toString());
+	}
+
+	private void writeReport(ModelCheckingReport report) throws IOException {
+		SystemInfo systemInfo = report.getSystemInfo();
+		record.writeBoolean(systemInfo != null);
+		if (systemInfo != null) {
+			writeNumber(systemInfo.getTotalSpentTime());
+			writeNumber(systemInfo.getReachedStates());
+			writeNumber(systemInfo.getReachedTransitions());
+			writeNumber(systemInfo.getConsumedMem());
+		}
+		CheckedProperty checkedProperty = report.getCheckedProperty();
+		record.writeBoolean(checkedProperty != null);
+		if (checkedProperty != null) {
+			writeString(checkedProperty.getType());
+			writeString(checkedProperty.getName());
+			writeString(checkedProperty.getResult());
+			writeString(checkedProperty.getMessage());
+			Options options = checkedProperty.getOptions();
+			if (options == null) {
+				record.writeInt(ABSENT);
+			} else {
+				record.writeInt(options.getOption().size());
+				for (BigDecimal option : options.getOption())
+					writeNumber(option);
+			}
+		}
+	}
+
+	private void writeState(State state) throws IOException {
+		writeString(state.getId());
+		writeString(state.getAtomicpropositions());
+		record.writeInt(state.getRebec().size());
+		for (Rebec rebec : state.getRebec()) {
+			writeString(rebec.getName());
+			writeNumber(rebec.getNow());
+			writeNumber(rebec.getPc());
+			writeNumber(rebec.getRes());
+			Statevariables statevariables = rebec.getStatevariables();
+			if (statevariables == null) {
+				record.writeInt(ABSENT);
+			} else {
+				record.writeInt(statevariables.getVariable().size());
+				for (Variable variable : statevariables.getVariable()) {
+					writeString(variable.getName());
+					writeString(variable.getType());
+					writeString(variable.getValue());
+				}
+			}
+			Queue queue = rebec.getQueue();
+			if (queue == null) {
+				record.writeInt(ABSENT);
+			} else {
+				record.writeInt(queue.getMessage().size());
+				for (Message message : queue.getMessage()) {
+					writeString(message.getValue());
+					writeString(message.getSender());
+					writeString(message.getArrival());
+					writeString(message.getDeadline());
+				}
+			}
+		}
+	}
+
+	private void writeTransition(Transition transition) throws IOException {
+		writeString(transition.getSource());
+		writeString(transition.getDestination());
+		writeString(transition.getExecutionTime());
+		writeString(transition.getShift());
+		Messageserver messageserver = transition.getMessageserver();
+		record.writeBoolean(messageserver != null);
+		if (messageserver != null) {
+			writeString(messageserver.getValue());
+			writeString(messageserver.getSender());
+			writeString(messageserver.getOwner());
+			writeString(messageserver.getTitle());
+		}
+		Time time = transition.getTime();
+		record.writeBoolean(time != null);
+		if (time != null) {
+			writeString(time.getValue());
+			writeNumber(time.getProgressOfTime());
+		}
+	}
+
+	/*
+	 * Reading
+	 */
+
+	private String[] strings;
+	private ByteBuffer buffer;
+
+	/**
+	 * Returns null if the cache does not belong to the current content of
+	 * the source file or was written by another version of this class.
+	 */
+	public ModelCheckingResult read(File cacheFile, File source) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 24 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				return null;
+			if (buffer.getLong() != source.length() || buffer.getLong() != source.lastModified())
+				return null;
+
+			strings = new String[buffer.getInt()];
+			for (int cnt = 0; cnt < strings.length; cnt++) {
+				byte[] bytes = new byte[buffer.getInt()];
+				buffer.get(bytes);
+				strings[cnt] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			int end = beginRecord();
+			ModelCheckingReport report = readReport();
+			endRecord(end);
+
+			CounterExampleTrace trace = new CounterExampleTrace();
+			int numberOfStates = buffer.getInt();
+			for (int cnt = 0; cnt < numberOfStates; cnt++) {
+				end = beginRecord();
+				trace.getStates().add(readState());
+				endRecord(end);
+			}
+			int numberOfTransitions = buffer.getInt();
+			for (int cnt = 0; cnt < numberOfTransitions; cnt++) {
+				end = beginRecord();
+				trace.getTransitions().add(readTransition());
+				endRecord(end);
+			}
+			return new ModelCheckingResult(report, trace);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException("Corrupted model checking result cache " + cacheFile, e);
+		} finally {
+			buffer = null;
+			file.close();
+		}
+	}
+
+	private int beginRecord() {
+		int length = buffer.getInt();
+		return buffer.position() + length;
+	}
+
+	private void endRecord(int end) throws IOException {
+		if (buffer.position() != end)
+			throw new IOException("Record length mismatch in model checking result cache");
+	}
+
+	private String readString() {
+		int index = buffer.getInt();
+		return index == ABSENT ? null : strings[index];
+	}
+
+	private BigDecimal readNumber() {
+		String value = readString();
+		return value == null ? null : new BigDecimal(value);
+	}
+
+	private ModelCheckingReport readReport() {
+		ModelCheckingReport report = new ModelCheckingReport();
+		if (buffer.get() != 0) {
+			SystemInfo systemInfo = new SystemInfo();
+			systemInfo.setTotalSpentTime(readNumber());
+			systemInfo.setReachedStates(readNumber());
+			systemInfo.setReachedTransitions(readNumber());
+			systemInfo.setConsumedMem(readNumber());
+			report.setSystemInfo(systemInfo);
+		}
+		if (buffer.get() != 0) {
+			CheckedProperty checkedProperty = new CheckedProperty();
+			checkedProperty.setType(readString());
+			checkedProperty.setName(readString());
+			checkedProperty.setResult(readString());
+			checkedProperty.setMessage(readString());
+			int numberOfOptions = buffer.getInt();
+			if (numberOfOptions != ABSENT) {
+				Options options = new Options();
+				for (int cnt = 0; cnt < numberOfOptions; cnt++)
+					options.getOption().add(readNumber());
+				checkedProperty.setOptions(options);
+			}
+			report.setCheckedProperty(checkedProperty);
+		}
+		return report;
+	}
+
+	private State readState() {
+		State state = new State();
+		state.setId(readString());
+		state.setAtomicpropositions(readString());
+		int numberOfRebecs = buffer.getInt();
+		List<Rebec> rebecs = state.getRebec();
+		for (int cnt = 0; cnt < numberOfRebecs; cnt++) {
+			Rebec rebec = new Rebec();
+			rebec.setName(readString());
+			rebec.setNow(readNumber());
+			rebec.setPc(readNumber());
+			rebec.setRes(readNumber());
+			int numberOfVariables = buffer.getInt();
+			if (numberOfVariables != ABSENT) {
+				Statevariables statevariables = new Statevariables();
+				for (int varCnt = 0; varCnt < numberOfVariables; varCnt++) {
+					Variable variable = new Variable();
+					variable.setName(readString());
+					variable.setType(readString());
+					variable.setValue(readString());
+					statevariables.getVariable().add(variable);
+				}
+				rebec.setStatevariables(statevariables);
+			}
+			int numberOfMessages = buffer.getInt();
+			if (numberOfMessages != ABSENT) {
+				Queue queue = new Queue();
+				for (int msgCnt = 0; msgCnt < numberOfMessages; msgCnt++) {
+					Message message = new Message();
+					message.setValue(readString());
+					message.setSender(readString());
+					message.setArrival(readString());
+					message.setDeadline(readString());
+					queue.getMessage().add(message);
+				}
+				rebec.setQueue(queue);
+			}
+			rebecs.add(rebec);
+		}
+		return state;
+	}
+
+	private Transition readTransition() {
+		Transition transition = new Transition();
+		transition.setSource(readString());
+		transition.setDestination(readString());
+		transition.setExecutionTime(readString());
+		transition.setShift(readString());
+		if (buffer.get() != 0) {
+			Messageserver messageserver = new Messageserver();
+			messageserver.setValue(readString());
+			messageserver.setSender(readString());
+			messageserver.setOwner(readString());
+			messageserver.setTitle(readString());
+			transition.setMessageserver(messageserver);
+		}
+		if (buffer.get() != 0) {
+			Time time = new Time();
+			time.setValue(readString());
+			time.setProgressOfTime(readNumber());
+			transition.setTime(time);
+		}
+		return transition;
+	}
+}
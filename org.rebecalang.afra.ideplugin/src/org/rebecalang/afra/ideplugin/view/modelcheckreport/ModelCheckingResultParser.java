@@ -0,0 +1,79 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.CheckedProperty;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.ModelCheckingReport;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.SystemInfo;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.State;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.transition.Transition;
+
+/**
+ * Reads the report and the counterexample trace of an "output.xml" file in one
+ * streaming pass. Only the elements the views use are bound; the rest of the
+ * extra details are skipped instead of being kept as DOM nodes.
+ */
+public class ModelCheckingResultParser {
+
+	public static final String SYSTEM_INFO_TAG = "system-info";
+	public static final String CHECKED_PROPERTY_TAG = "checked-property";
+	public static final String COUNTER_EXAMPLE_TRACE_TAG = "counter-example-trace";
+	public static final String STATE_TAG = "state";
+	public static final String TRANSITION_TAG = "transition";
+
+	public ModelCheckingResult parse(File modelCheckingResultFile) throws IOException, JAXBException {
+		Unmarshaller unmarshaller = 
+				XMLBindingService.getInstance().getUnmarshaller(XMLBindingService.RESULT_CONTEXT);
+
+		ModelCheckingReport report = new ModelCheckingReport();
+		CounterExampleTrace trace = new CounterExampleTrace();
+
+		InputStream input = new BufferedInputStream(new FileInputStream(modelCheckingResultFile));
+		try {
+			XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(input);
+			boolean inTrace = false;
+			while (reader.hasNext()) {
+				int event = reader.getEventType();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = reader.getLocalName();
+					if (name.equals(SYSTEM_INFO_TAG)) {
+						report.setSystemInfo((SystemInfo) unmarshaller.unmarshal(reader));
+						continue;
+					} else if (name.equals(CHECKED_PROPERTY_TAG)) {
+						report.setCheckedProperty((CheckedProperty) unmarshaller.unmarshal(reader));
+						continue;
+					} else if (name.equals(COUNTER_EXAMPLE_TRACE_TAG)) {
+						inTrace = true;
+					} else if (inTrace && name.equals(STATE_TAG)) {
+						trace.getStates().add((State) unmarshaller.unmarshal(reader));
+						continue;
+					} else if (inTrace && name.equals(TRANSITION_TAG)) {
+						trace.getTransitions().add((Transition) unmarshaller.unmarshal(reader));
+						continue;
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT &&
+						reader.getLocalName().equals(COUNTER_EXAMPLE_TRACE_TAG)) {
+					inTrace = false;
+				}
+				reader.next();
+			}
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			input.close();
+		}
+		return new ModelCheckingResult(report, trace);
+	}
+}
@@ -0,0 +1,224 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Rebec;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.State;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Variable;
+
+/**
+ * Column-wise copy of the states of a counterexample trace. Every state
+ * variable, queue length and timing attribute of every rebec becomes one
+ * column holding one entry per state, so a value can be looked up or plotted
+ * across the trace without walking the JAXB objects again.
+ */
+public class TraceColumns {
+
+	public static final int VARIABLE = 0;
+	public static final int QUEUE_LENGTH = 1;
+	public static final int NOW = 2;
+	public static final int PROGRAM_COUNTER = 3;
+	public static final int RESUMING_TIME = 4;
+
+	public static final String QUEUE_LENGTH_NAME = "queue.length";
+	public static final String NOW_NAME = "now";
+	public static final String PROGRAM_COUNTER_NAME = "pc";
+	public static final String RESUMING_TIME_NAME = "res";
+
+	public static class Column {
+		private final String rebec;
+		private final String name;
+		private final int kind;
+		/*
+		 * The textual value of each state as an index into the dictionary, -1 if
+		 * the state has no value for the column.
+		 */
+		private final int[] codes;
+		/*
+		 * The numeric value of each state, NaN if there is none or it is not a
+		 * number. Boolean values are mapped to 0 and 1.
+		 */
+		private final double[] values;
+		private final List<String> dictionary = new ArrayList<String>();
+		private final HashMap<String, Integer> dictionaryCodes = new HashMap<String, Integer>();
+		private boolean numeric = true;
+
+		private Column(String rebec, String name, int kind, int length) {
+			this.rebec = rebec;
+			this.name = name;
+			this.kind = kind;
+			this.codes = new int[length];
+			this.values = new double[length];
+			Arrays.fill(codes, -1);
+			Arrays.fill(values, Double.NaN);
+		}
+
+		private void set(int position, String text) {
+			Integer code = dictionaryCodes.get(text);
+			if (code == null) {
+				code = dictionary.size();
+				dictionary.add(text);
+				dictionaryCodes.put(text, code);
+			}
+			codes[position] = code;
+			double value = toNumber(text);
+			if (Double.isNaN(value))
+				numeric = false;
+			values[position] = value;
+		}
+
+		public String getRebec() {
+			return rebec;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getKey() {
+			return rebec + "." + name;
+		}
+
+		public int getKind() {
+			return kind;
+		}
+
+		public int[] getCodes() {
+			return codes;
+		}
+
+		public double[] getValues() {
+			return values;
+		}
+
+		public List<String> getDictionary() {
+			return dictionary;
+		}
+
+		/**
+		 * Returns the dictionary index of the given value or -1 if no state of
+		 * the trace has this value.
+		 */
+		public int getCode(String text) {
+			Integer code = dictionaryCodes.get(text);
+			return code == null ? -1 : code;
+		}
+
+		public String getText(int position) {
+			int code = codes[position];
+			return code == -1 ? null : dictionary.get(code);
+		}
+
+		public boolean isNumeric() {
+			return numeric;
+		}
+	}
+
+	private final int length;
+	private final String[] stateIds;
+	private final double[] time;
+	private boolean timed;
+	private final Map<String, Column> columns = new LinkedHashMap<String, Column>();
+
+	public TraceColumns(CounterExampleTrace trace) {
+		List<State> states = trace.getStates();
+		length = states.size();
+		stateIds = new String[length];
+		time = new double[length];
+		Arrays.fill(time, Double.NaN);
+		for (int position = 0; position < length; position++) {
+			State state = states.get(position);
+			stateIds[position] = state.getId();
+			for (Rebec rebec : state.getRebec()) {
+				String rebecName = rebec.getName();
+				if (rebec.getStatevariables() != null) {
+					for (Variable variable : rebec.getStatevariables().getVariable()) {
+						if (variable.getValue() != null)
+							column(rebecName, variable.getName(), VARIABLE).set(position, variable.getValue());
+					}
+				}
+				int queueLength = rebec.getQueue() == null ? 0 : rebec.getQueue().getMessage().size();
+				column(rebecName, QUEUE_LENGTH_NAME, QUEUE_LENGTH).set(position, String.valueOf(queueLength));
+				if (rebec.getNow() != null) {
+					column(rebecName, NOW_NAME, NOW).set(position, rebec.getNow().toString());
+					advanceTime(position, rebec.getNow());
+				}
+				if (rebec.getPc() != null)
+					column(rebecName, PROGRAM_COUNTER_NAME, PROGRAM_COUNTER).set(position, rebec.getPc().toString());
+				if (rebec.getRes() != null)
+					column(rebecName, RESUMING_TIME_NAME, RESUMING_TIME).set(position, rebec.getRes().toString());
+			}
+		}
+	}
+
+	/*
+	 * The time of a timed state is the local time of its least advanced rebec.
+	 */
+	private void advanceTime(int position, BigDecimal now) {
+		timed = true;
+		double value = now.doubleValue();
+		if (Double.isNaN(time[position]) || value < time[position])
+			time[position] = value;
+	}
+
+	private Column column(String rebec, String name, int kind) {
+		String key = rebec + "." + name;
+		Column column = columns.get(key);
+		if (column == null) {
+			column = new Column(rebec, name, kind, length);
+			columns.put(key, column);
+		}
+		return column;
+	}
+
+	private static double toNumber(String text) {
+		if (text.equals("true"))
+			return 1;
+		if (text.equals("false"))
+			return 0;
+		if (text.isEmpty())
+			return Double.NaN;
+		char first = text.charAt(0);
+		if (first != '-' && first != '+' && first != '.' && !Character.isDigit(first))
+			return Double.NaN;
+		try {
+			return Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public String getStateId(int position) {
+		return stateIds[position];
+	}
+
+	/**
+	 * Returns whether the states carry the local times of Timed Rebeca rebecs.
+	 */
+	public boolean isTimed() {
+		return timed;
+	}
+
+	public double[] getTime() {
+		return time;
+	}
+
+	public Collection<Column> getColumns() {
+		return columns.values();
+	}
+
+	public Column getColumn(String rebec, String name) {
+		return columns.get(rebec + "." + name);
+	}
+}
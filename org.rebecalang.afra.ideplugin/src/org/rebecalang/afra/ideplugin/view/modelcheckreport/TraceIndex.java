@@ -0,0 +1,109 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.TraceColumns.Column;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StateValueIndex;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Message;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.Rebec;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.State;
+
+/**
+ * Inverted index of a counterexample trace from (rebec, attribute, value) and
+ * from (rebec, queued message) to the positions of the states in the trace.
+ * The postings of a column are built from its codes the first time a query
+ * refers to it.
+ */
+public class TraceIndex implements StateValueIndex {
+
+	private final CounterExampleTrace trace;
+	private final TraceColumns columns;
+	private final Map<Column, BitSet[]> postings = new HashMap<Column, BitSet[]>();
+	private Map<String, Map<String, BitSet>> queuedMessages;
+
+	public TraceIndex(CounterExampleTrace trace) {
+		this.trace = trace;
+		this.columns = trace.getColumns();
+	}
+
+	@Override
+	public int getNumberOfStates() {
+		return columns.getLength();
+	}
+
+	@Override
+	public List<String> getValues(String rebec, String name) {
+		Column column = columns.getColumn(rebec, name);
+		return column == null ? null : column.getDictionary();
+	}
+
+	@Override
+	public synchronized BitSet getStates(String rebec, String name, int valueIndex) {
+		Column column = columns.getColumn(rebec, name);
+		if (column == null)
+			return new BitSet();
+		BitSet[] columnPostings = postings.get(column);
+		if (columnPostings == null) {
+			columnPostings = new BitSet[column.getDictionary().size()];
+			for (int cnt = 0; cnt < columnPostings.length; cnt++)
+				columnPostings[cnt] = new BitSet(columns.getLength());
+			int[] codes = column.getCodes();
+			for (int position = 0; position < codes.length; position++)
+				if (codes[position] != -1)
+					columnPostings[codes[position]].set(position);
+			postings.put(column, columnPostings);
+		}
+		return columnPostings[valueIndex];
+	}
+
+	@Override
+	public synchronized BitSet getStatesWithQueuedMessage(String rebec, String message) {
+		if (queuedMessages == null)
+			indexQueues();
+		Map<String, BitSet> rebecMessages = queuedMessages.get(rebec);
+		BitSet states = rebecMessages == null ? null : rebecMessages.get(message);
+		return states == null ? new BitSet() : states;
+	}
+
+	/*
+	 * Messages are indexed by their full text and, for messages with
+	 * arguments, by the name of the message server alone.
+	 */
+	private void indexQueues() {
+		queuedMessages = new HashMap<String, Map<String, BitSet>>();
+		List<State> states = trace.getStates();
+		for (int position = 0; position < states.size(); position++) {
+			for (Rebec rebec : states.get(position).getRebec()) {
+				if (rebec.getQueue() == null)
+					continue;
+				Map<String, BitSet> rebecMessages = queuedMessages.get(rebec.getName());
+				if (rebecMessages == null) {
+					rebecMessages = new HashMap<String, BitSet>();
+					queuedMessages.put(rebec.getName(), rebecMessages);
+				}
+				for (Message message : rebec.getQueue().getMessage()) {
+					String value = message.getValue();
+					if (value == null)
+						continue;
+					value = value.trim();
+					addPosting(rebecMessages, value, position);
+					int argumentsStart = value.indexOf('(');
+					if (argumentsStart > 0)
+						addPosting(rebecMessages, value.substring(0, argumentsStart).trim(), position);
+				}
+			}
+		}
+	}
+
+	private void addPosting(Map<String, BitSet> rebecMessages, String key, int position) {
+		BitSet states = rebecMessages.get(key);
+		if (states == null) {
+			states = new BitSet(columns.getLength());
+			rebecMessages.put(key, states);
+		}
+		states.set(position);
+	}
+}
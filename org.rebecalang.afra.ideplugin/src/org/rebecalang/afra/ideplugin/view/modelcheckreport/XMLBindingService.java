@@ -0,0 +1,115 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.analysisresult.ModelCheckingReport;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.state.State;
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.resultobjectmodel.counterexample.transition.Transition;
+
+/**
+ * Plugin wide holder of the JAXB contexts of the model checking result
+ * packages. Each context is created once, normally by {@link #prepare()} in
+ * the background when the plugin starts, and unmarshallers are pooled per
+ * thread because they must not be shared between threads.
+ */
+public class XMLBindingService {
+
+	public static final String REPORT_CONTEXT = ModelCheckingReport.class.getPackage().getName();
+	public static final String STATE_CONTEXT = State.class.getPackage().getName();
+	public static final String TRANSITION_CONTEXT = Transition.class.getPackage().getName();
+	public static final String RESULT_CONTEXT = REPORT_CONTEXT + ":" + STATE_CONTEXT + ":" + TRANSITION_CONTEXT;
+
+	private static final XMLBindingService instance = new XMLBindingService();
+
+	private final ConcurrentHashMap<String, FutureTask<JAXBContext>> contexts =
+			new ConcurrentHashMap<String, FutureTask<JAXBContext>>();
+
+	private final ThreadLocal<HashMap<String, Unmarshaller>> unmarshallers =
+			new ThreadLocal<HashMap<String, Unmarshaller>>() {
+		@Override
+		protected HashMap<String, Unmarshaller> initialValue() {
+			return new HashMap<String, Unmarshaller>();
+		}
+	};
+
+	public static XMLBindingService getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Builds the contexts of the result packages in a background job.
+	 */
+	public void prepare() {
+		Job job = new Job("Preparing model checking result bindings") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					getContext(RESULT_CONTEXT);
+					getContext(STATE_CONTEXT);
+					getContext(TRANSITION_CONTEXT);
+				} catch (JAXBException e) {
+					e.printStackTrace();
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+		job.schedule();
+	}
+
+	/**
+	 * Returns the context of the given context path. If the context is still
+	 * being built by another thread, waits for it instead of building it twice.
+	 */
+	public JAXBContext getContext(final String contextPath) throws JAXBException {
+		FutureTask<JAXBContext> context = contexts.get(contextPath);
+		if (context == null) {
+			// The context may be built on any thread, so the classes are not
+			// looked up through the context class loader of the thread
+			FutureTask<JAXBContext> newContext = new FutureTask<JAXBContext>(
+					() -> JAXBContext.newInstance(contextPath, XMLBindingService.class.getClassLoader()));
+			context = contexts.putIfAbsent(contextPath, newContext);
+			if (context == null) {
+				context = newContext;
+				context.run();
+			}
+		}
+		try {
+			return context.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JAXBException(e.getMessage());
+		} catch (ExecutionException e) {
+			contexts.remove(contextPath, context);
+			if (e.getCause() instanceof JAXBException)
+				throw (JAXBException) e.getCause();
+			throw new JAXBException(e.getCause().getMessage());
+		}
+	}
+
+	/**
+	 * Returns the unmarshaller of the calling thread for the given context
+	 * path. The unmarshaller must not be passed to other threads.
+	 */
+	public Unmarshaller getUnmarshaller(String contextPath) throws JAXBException {
+		HashMap<String, Unmarshaller> threadUnmarshallers = unmarshallers.get();
+		Unmarshaller unmarshaller = threadUnmarshallers.get(contextPath);
+		if (unmarshaller == null) {
+			unmarshaller = getContext(contextPath).createUnmarshaller();
+			threadUnmarshallers.put(contextPath, unmarshaller);
+		}
+		return unmarshaller;
+	}
+}
@@ -0,0 +1,266 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport.query;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A boolean condition over the attributes of the rebecs of one state, as
+ * parsed by {@link StatePredicateParser}. Evaluating a predicate yields the
+ * set of all states of an index which satisfy it.
+ */
+public abstract class StatePredicate {
+
+	public abstract BitSet evaluate(StateValueIndex index);
+
+	public static class Not extends StatePredicate {
+		private final StatePredicate operand;
+
+		public Not(StatePredicate operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		public BitSet evaluate(StateValueIndex index) {
+			BitSet result = operand.evaluate(index);
+			result.flip(0, index.getNumberOfStates());
+			return result;
+		}
+
+		public String toString() {
+			return "!(" + operand + ")";
+		}
+	}
+
+	public static class And extends StatePredicate {
+		private final StatePredicate left, right;
+
+		public And(StatePredicate left, StatePredicate right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public BitSet evaluate(StateValueIndex index) {
+			BitSet result = left.evaluate(index);
+			if (!result.isEmpty())
+				result.and(right.evaluate(index));
+			return result;
+		}
+
+		public String toString() {
+			return "(" + left + " && " + right + ")";
+		}
+	}
+
+	public static class Or extends StatePredicate {
+		private final StatePredicate left, right;
+
+		public Or(StatePredicate left, StatePredicate right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public BitSet evaluate(StateValueIndex index) {
+			BitSet result = left.evaluate(index);
+			result.or(right.evaluate(index));
+			return result;
+		}
+
+		public String toString() {
+			return "(" + left + " || " + right + ")";
+		}
+	}
+
+	public static class Constant extends StatePredicate {
+		private final boolean value;
+
+		public Constant(boolean value) {
+			this.value = value;
+		}
+
+		@Override
+		public BitSet evaluate(StateValueIndex index) {
+			BitSet result = new BitSet(index.getNumberOfStates());
+			if (value)
+				result.set(0, index.getNumberOfStates());
+			return result;
+		}
+
+		public String toString() {
+			return String.valueOf(value);
+		}
+	}
+
+	/**
+	 * "rebec.queue contains message"
+	 */
+	public static class QueueContains extends StatePredicate {
+		private final String rebec, message;
+
+		public QueueContains(String rebec, String message) {
+			this.rebec = rebec;
+			this.message = message;
+		}
+
+		@Override
+		public BitSet evaluate(StateValueIndex index) {
+			return (BitSet) index.getStatesWithQueuedMessage(rebec, message).clone();
+		}
+
+		public String toString() {
+			return rebec + ".queue contains " + message;
+		}
+	}
+
+	/**
+	 * Comparison of two operands, each of which is either an attribute of a
+	 * rebec or a literal. The comparison is decided once per pair of distinct
+	 * values and the matching states are collected from the index, so the
+	 * cost depends on the number of distinct values rather than on the number
+	 * of states.
+	 */
+	public static class Comparison extends StatePredicate {
+		public static final String EQUAL = "==";
+		public static final String NOT_EQUAL = "!=";
+		public static final String LESS = "<";
+		public static final String LESS_EQUAL = "<=";
+		public static final String GREATER = ">";
+		public static final String GREATER_EQUAL = ">=";
+
+		private final Operand left, right;
+		private final String operator;
+
+		public Comparison(Operand left, String operator, Operand right) {
+			this.left = left;
+			this.operator = operator;
+			this.right = right;
+		}
+
+		@Override
+		public BitSet evaluate(StateValueIndex index) {
+			BitSet result = new BitSet(index.getNumberOfStates());
+			if (left.isLiteral() && right.isLiteral()) {
+				if (compare(left.getText(), right.getText()))
+					result.set(0, index.getNumberOfStates());
+				return result;
+			}
+			if (right.isLiteral()) {
+				List<String> values = index.getValues(left.getRebec(), left.getName());
+				if (values == null)
+					return result;
+				for (int cnt = 0; cnt < values.size(); cnt++)
+					if (compare(values.get(cnt), right.getText()))
+						result.or(index.getStates(left.getRebec(), left.getName(), cnt));
+				return result;
+			}
+			if (left.isLiteral()) {
+				List<String> values = index.getValues(right.getRebec(), right.getName());
+				if (values == null)
+					return result;
+				for (int cnt = 0; cnt < values.size(); cnt++)
+					if (compare(left.getText(), values.get(cnt)))
+						result.or(index.getStates(right.getRebec(), right.getName(), cnt));
+				return result;
+			}
+			List<String> leftValues = index.getValues(left.getRebec(), left.getName());
+			List<String> rightValues = index.getValues(right.getRebec(), right.getName());
+			if (leftValues == null || rightValues == null)
+				return result;
+			for (int leftCnt = 0; leftCnt < leftValues.size(); leftCnt++) {
+				BitSet leftStates = null;
+				for (int rightCnt = 0; rightCnt < rightValues.size(); rightCnt++) {
+					if (!compare(leftValues.get(leftCnt), rightValues.get(rightCnt)))
+						continue;
+					if (leftStates == null)
+						leftStates = index.getStates(left.getRebec(), left.getName(), leftCnt);
+					BitSet states = (BitSet) leftStates.clone();
+					states.and(index.getStates(right.getRebec(), right.getName(), rightCnt));
+					result.or(states);
+				}
+			}
+			return result;
+		}
+
+		private boolean compare(String leftText, String rightText) {
+			int comparison;
+			double leftNumber = toNumber(leftText), rightNumber = toNumber(rightText);
+			if (!Double.isNaN(leftNumber) && !Double.isNaN(rightNumber))
+				comparison = Double.compare(leftNumber, rightNumber);
+			else
+				comparison = leftText.compareTo(rightText);
+			switch (operator) {
+			case EQUAL:
+				return comparison == 0;
+			case NOT_EQUAL:
+				return comparison != 0;
+			case LESS:
+				return comparison < 0;
+			case LESS_EQUAL:
+				return comparison <= 0;
+			case GREATER:
+				return comparison > 0;
+			case GREATER_EQUAL:
+				return comparison >= 0;
+			}
+			return false;
+		}
+
+		private static double toNumber(String text) {
+			if (text.equals("true"))
+				return 1;
+			if (text.equals("false"))
+				return 0;
+			try {
+				return Double.parseDouble(text);
+			} catch (NumberFormatException e) {
+				return Double.NaN;
+			}
+		}
+
+		public String toString() {
+			return left + " " + operator + " " + right;
+		}
+	}
+
+	/**
+	 * Either an attribute of a rebec or a literal value.
+	 */
+	public static class Operand {
+		private final String rebec, name, text;
+
+		private Operand(String rebec, String name, String text) {
+			this.rebec = rebec;
+			this.name = name;
+			this.text = text;
+		}
+
+		public static Operand attribute(String rebec, String name) {
+			return new Operand(rebec, name, null);
+		}
+
+		public static Operand literal(String text) {
+			return new Operand(null, null, text);
+		}
+
+		public boolean isLiteral() {
+			return text != null;
+		}
+
+		public String getRebec() {
+			return rebec;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public String toString() {
+			return isLiteral() ? text : rebec + "." + name;
+		}
+	}
+}
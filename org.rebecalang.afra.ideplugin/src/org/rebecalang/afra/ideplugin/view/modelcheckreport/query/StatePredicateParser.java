@@ -0,0 +1,193 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport.query;
+
+import java.text.ParseException;
+
+import org.rebecalang.afra.ideplugin.view.modelcheckreport.query.StatePredicate.Operand;
+
+/**
+ * Parses state predicates such as
+ * <pre>
+ * philosopher2.eating == true &amp;&amp; philosopher2.queue.length &gt; 3
+ * !(fork1.taken) || waiter.queue contains request
+ * </pre>
+ * Attributes are written as rebec.variable, rebec.now, rebec.pc, rebec.res
+ * and rebec.queue.length. A bare attribute stands for "attribute == true".
+ */
+public class StatePredicateParser {
+
+	public static final String CONTAINS = "contains";
+	public static final String QUEUE = "queue";
+
+	protected String text;
+	protected int position;
+	protected String token;
+	protected int tokenStart;
+	protected boolean tokenIsWord;
+
+	public StatePredicate parse(String text) throws ParseException {
+		this.text = text;
+		this.position = 0;
+		next();
+		StatePredicate predicate = parseOr();
+		if (token != null)
+			throw new ParseException("Unexpected \"" + token + "\"", tokenStart);
+		return predicate;
+	}
+
+	protected StatePredicate parseOr() throws ParseException {
+		StatePredicate predicate = parseAnd();
+		while ("||".equals(token)) {
+			next();
+			predicate = new StatePredicate.Or(predicate, parseAnd());
+		}
+		return predicate;
+	}
+
+	protected StatePredicate parseAnd() throws ParseException {
+		StatePredicate predicate = parseUnary();
+		while ("&&".equals(token)) {
+			next();
+			predicate = new StatePredicate.And(predicate, parseUnary());
+		}
+		return predicate;
+	}
+
+	protected StatePredicate parseUnary() throws ParseException {
+		if ("!".equals(token)) {
+			next();
+			return new StatePredicate.Not(parseUnary());
+		}
+		if ("(".equals(token)) {
+			next();
+			StatePredicate predicate = parseOr();
+			expect(")");
+			return predicate;
+		}
+		return parseComparison();
+	}
+
+	private StatePredicate parseComparison() throws ParseException {
+		int start = tokenStart;
+		Operand left = parseOperand();
+		if (!left.isLiteral() && QUEUE.equals(left.getName())) {
+			if (!CONTAINS.equals(token))
+				throw new ParseException("Expected \"" + CONTAINS + "\" after " + left, tokenStart);
+			next();
+			Operand message = parseOperand();
+			if (!message.isLiteral() && message.getName() != null)
+				throw new ParseException("Expected a message name", start);
+			return new StatePredicate.QueueContains(left.getRebec(),
+					message.isLiteral() ? message.getText() : message.getRebec());
+		}
+		String operator = token;
+		if (StatePredicate.Comparison.EQUAL.equals(operator) ||
+				StatePredicate.Comparison.NOT_EQUAL.equals(operator) ||
+				StatePredicate.Comparison.LESS.equals(operator) ||
+				StatePredicate.Comparison.LESS_EQUAL.equals(operator) ||
+				StatePredicate.Comparison.GREATER.equals(operator) ||
+				StatePredicate.Comparison.GREATER_EQUAL.equals(operator)) {
+			next();
+			Operand right = parseOperand();
+			checkOperand(left, start);
+			checkOperand(right, start);
+			return new StatePredicate.Comparison(left, operator, right);
+		}
+		if (left.isLiteral()) {
+			if (left.getText().equals("true"))
+				return new StatePredicate.Constant(true);
+			if (left.getText().equals("false"))
+				return new StatePredicate.Constant(false);
+			throw new ParseException("Expected a condition", start);
+		}
+		checkOperand(left, start);
+		return new StatePredicate.Comparison(left, StatePredicate.Comparison.EQUAL, Operand.literal("true"));
+	}
+
+	/*
+	 * A single identifier is only kept unqualified so that it can be used as
+	 * a message name after "contains"; anywhere else it must be rebec.attribute.
+	 */
+	private void checkOperand(Operand operand, int start) throws ParseException {
+		if (!operand.isLiteral() && operand.getName() == null)
+			throw new ParseException("Expected rebec.attribute instead of \"" + operand.getRebec() + "\"", start);
+	}
+
+	private Operand parseOperand() throws ParseException {
+		if (token == null)
+			throw new ParseException("Unexpected end of the query", text.length());
+		String current = token;
+		if (current.startsWith("\"") || current.startsWith("'")) {
+			next();
+			return Operand.literal(current.substring(1, current.length() - 1));
+		}
+		if (!tokenIsWord)
+			throw new ParseException("Unexpected \"" + current + "\"", tokenStart);
+		next();
+		if (Character.isDigit(current.charAt(0)) || current.charAt(0) == '-' ||
+				current.equals("true") || current.equals("false"))
+			return Operand.literal(current);
+		if (!".".equals(token))
+			return Operand.attribute(current, null);
+		StringBuilder name = new StringBuilder();
+		while (".".equals(token)) {
+			next();
+			if (token == null || !tokenIsWord)
+				throw new ParseException("Expected an attribute name", tokenStart);
+			if (name.length() != 0)
+				name.append('.');
+			name.append(token);
+			next();
+		}
+		return Operand.attribute(current, name.toString());
+	}
+
+	protected void expect(String expected) throws ParseException {
+		if (!expected.equals(token))
+			throw new ParseException("Expected \"" + expected + "\"", tokenStart);
+		next();
+	}
+
+	protected void next() throws ParseException {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position)))
+			position++;
+		tokenStart = position;
+		tokenIsWord = false;
+		if (position == text.length()) {
+			token = null;
+			return;
+		}
+		char c = text.charAt(position);
+		if (Character.isJavaIdentifierPart(c) ||
+				(c == '-' && position + 1 < text.length() && Character.isDigit(text.charAt(position + 1)))) {
+			int end = position + 1;
+			while (end < text.length() && (Character.isJavaIdentifierPart(text.charAt(end)) ||
+					(Character.isDigit(c) || c == '-') && text.charAt(end) == '.'))
+				end++;
+			token = text.substring(position, end);
+			tokenIsWord = true;
+			position = end;
+			return;
+		}
+		if (c == '"' || c == '\'') {
+			int end = text.indexOf(c, position + 1);
+			if (end == -1)
+				throw new ParseException("Unterminated string", position);
+			token = text.substring(position, end + 1);
+			position = end + 1;
+			return;
+		}
+		String twoCharacters = position + 1 < text.length() ? text.substring(position, position + 2) : "";
+		if (twoCharacters.equals("==") || twoCharacters.equals("!=") || twoCharacters.equals("<=") ||
+				twoCharacters.equals(">=") || twoCharacters.equals("&&") || twoCharacters.equals("||")) {
+			token = twoCharacters;
+			position += 2;
+			return;
+		}
+		if ("!<>().[]".indexOf(c) != -1) {
+			token = String.valueOf(c);
+			position++;
+			return;
+		}
+		throw new ParseException("Unexpected character '" + c + "'", position);
+	}
+}
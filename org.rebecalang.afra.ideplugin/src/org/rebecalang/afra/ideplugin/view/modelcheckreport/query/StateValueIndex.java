@@ -0,0 +1,31 @@
+package org.rebecalang.afra.ideplugin.view.modelcheckreport.query;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Inverted index over a set of numbered states which state predicates are
+ * evaluated against. Values are looked up by rebec and attribute name, where
+ * the attribute is a state variable, "now", "pc", "res" or "queue.length".
+ */
+public interface StateValueIndex {
+
+	public int getNumberOfStates();
+
+	/**
+	 * Returns the distinct values of the attribute, or null if no state has
+	 * the attribute.
+	 */
+	public List<String> getValues(String rebec, String name);
+
+	/**
+	 * Returns the states in which the attribute has the value with the given
+	 * index in {@link #getValues(String, String)}.
+	 */
+	public BitSet getStates(String rebec, String name, int valueIndex);
+
+	/**
+	 * Returns the states in which the queue of the rebec holds the message.
+	 */
+	public BitSet getStatesWithQueuedMessage(String rebec, String message);
+}